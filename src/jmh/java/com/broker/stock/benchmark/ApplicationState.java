@@ -0,0 +1,60 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.OrderServiceApplication;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application on a fresh in-memory H2 database, started once per trial. The journal and snapshots are off so only
+ * the measured code path touches the disk-free database.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    private static final String INSERT_ASSET_SQL = "INSERT INTO asset (id, customer_id, asset_name, size, usable_size) "
+        + "VALUES (NEXT VALUE FOR asset_seq, ?, ?, ?, ?)";
+
+    private ConfigurableApplicationContext context;
+
+    @Setup
+    public void start() {
+        var arguments = new ArrayList<>(List.of("--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+            "--order.journal.enabled=false",
+            "--order.snapshot.enabled=false",
+            "--spring.docker.compose.enabled=false",
+            "--logging.level.root=WARN"));
+        arguments.addAll(arguments());
+        context = new SpringApplicationBuilder(OrderServiceApplication.class).run(arguments.toArray(String[]::new));
+        // Customer 2 buys and customer 3 sells, balances high enough for any number of invocations. Bought assets exist
+        // as if earlier orders had created them. Balances are cached on first use, which has not happened yet
+        var jdbcTemplate = getBean(JdbcTemplate.class);
+        jdbcTemplate.update("UPDATE asset SET size = 10000000000, usable_size = 10000000000 WHERE asset_name = 'TRY'");
+        for (String assetName : MatchOrdersBenchmark.ASSETS) {
+            jdbcTemplate.update(INSERT_ASSET_SQL, 2L, assetName, 0, 0);
+            jdbcTemplate.update(INSERT_ASSET_SQL, 3L, assetName, 10000000000L, 10000000000L);
+        }
+    }
+
+    // Further arguments of the application, for benchmarks that compare or need other settings
+    protected List<String> arguments() {
+        return List.of();
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
@@ -0,0 +1,109 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.entity.Asset;
+import com.broker.stock.model.AssetResponse;
+import com.broker.stock.service.business.AssetService;
+import com.broker.stock.util.FixedPoint;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing the assets of a customer holding 10,000 of them, once the way listAssets used to (loading every entity and
+ * filtering in Java) and once through the filtered query: without a filter, by name and by a minimum usable size that
+ * 1% of the assets have. The list cache is off, every list is read from the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AssetListBenchmark {
+
+    private static final Long CUSTOMER_ID = 5L;
+
+    @Param({"10000"})
+    public int assets;
+
+    @Param({"NONE", "NAME", "MIN_USABLE_SIZE"})
+    public String filter;
+
+    private AssetService assetService;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private String assetName;
+    private BigDecimal minUsableSize;
+
+    @State(Scope.Benchmark)
+    public static class UncachedLists extends ApplicationState {
+
+        @Override
+        protected List<String> arguments() {
+            return List.of("--order.assets.list-cache.maximum-assets=0");
+        }
+    }
+
+    @Setup
+    public void setUp(UncachedLists application) {
+        assetService = application.getBean(AssetService.class);
+        entityManager = application.getBean(EntityManager.class);
+        transactionTemplate = application.getBean(TransactionTemplate.class);
+
+        // Usable sizes 0 to assets - 1
+        var jdbcTemplate = application.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO asset (id, customer_id, asset_name, size, usable_size) "
+            + "SELECT NEXT VALUE FOR asset_seq, ?, 'SYM' || X, ?, X - 1 FROM SYSTEM_RANGE(1, ?)", CUSTOMER_ID, assets, assets);
+        jdbcTemplate.execute("ANALYZE");
+
+        assetName = filter.equals("NAME") ? "sym" + assets / 2 : null;
+        minUsableSize = filter.equals("MIN_USABLE_SIZE") ? BigDecimal.valueOf(assets - assets / 100) : null;
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", null,
+            AuthorityUtils.createAuthorityList("ROLE_ADMIN")));
+    }
+
+    @Benchmark
+    public List<AssetResponse> entities() {
+        return transactionTemplate.execute(status -> entities(assetName, minUsableSize));
+    }
+
+    @Benchmark
+    public List<AssetResponse> query() {
+        return assetService.listAssets(CUSTOMER_ID, assetName, minUsableSize).assets();
+    }
+
+    // listAssets before the filters were part of the query, inside the persistence context of the request
+    private List<AssetResponse> entities(String assetName, BigDecimal minUsableSize) {
+        long minUsable = minUsableSize == null ? Long.MIN_VALUE : FixedPoint.of(minUsableSize);
+        return entityManager.createQuery("SELECT a FROM Asset a WHERE a.customerId = :customerId", Asset.class)
+            .setParameter("customerId", CUSTOMER_ID)
+            .getResultList()
+            .stream()
+            .filter(asset -> assetName == null || asset.getAssetName().equalsIgnoreCase(assetName))
+            .filter(asset -> asset.getUsableSize() >= minUsable)
+            .map(asset -> new AssetResponse(asset.getCustomerId(),
+                asset.getAssetName(),
+                FixedPoint.toBigDecimal(asset.getSize()),
+                FixedPoint.toBigDecimal(asset.getUsableSize()).setScale(4, RoundingMode.HALF_UP)))
+            .toList();
+    }
+}
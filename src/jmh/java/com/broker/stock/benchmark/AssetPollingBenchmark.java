@@ -0,0 +1,106 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.service.business.AssetService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Polling GET /api/assets of a customer holding 10,000 assets over HTTP with a bearer token, the way a dashboard
+ * would: with the assets changed before every poll, unchanged without and unchanged with If-None-Match.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AssetPollingBenchmark {
+
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\":\"([^\"]+)\"");
+
+    @Param({"10000"})
+    public int assets;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private AssetService assetService;
+    private HttpRequest list;
+    private HttpRequest conditionalList;
+
+    @State(Scope.Thread)
+    public static class ChangedAssets {
+
+        // Reserving nothing still moves the version on
+        @Setup(Level.Invocation)
+        public void change(AssetPollingBenchmark benchmark) {
+            benchmark.assetService.reserve(2L, "TRY", 0);
+        }
+    }
+
+    @Setup
+    public void setUp(ApplicationState application) throws IOException, InterruptedException {
+        assetService = application.getBean(AssetService.class);
+        // Customer 2 already holds TRY and the assets of MatchOrdersBenchmark
+        application.getBean(JdbcTemplate.class).update("INSERT INTO asset (id, customer_id, asset_name, size, usable_size) "
+            + "SELECT NEXT VALUE FOR asset_seq, 2, 'SYM' || X, 10000, X FROM SYSTEM_RANGE(1, ?)",
+            assets - 1 - MatchOrdersBenchmark.ASSETS.length);
+
+        var base = "http://localhost:" + application.getBean(Environment.class).getRequiredProperty("local.server.port", Integer.class);
+        var login = client.send(HttpRequest.newBuilder(URI.create(base + "/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"customer1\",\"password\":\"password123\"}"))
+            .build(), HttpResponse.BodyHandlers.ofString()).body();
+        var matcher = ACCESS_TOKEN.matcher(login);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed: " + login);
+        }
+        var request = HttpRequest.newBuilder(URI.create(base + "/api/assets?customerId=2"))
+            .header("Authorization", "Bearer " + matcher.group(1));
+        list = request.build();
+        var etag = client.send(list, HttpResponse.BodyHandlers.discarding()).headers().firstValue("ETag").orElseThrow();
+        conditionalList = request.copy().header("If-None-Match", etag).build();
+    }
+
+    @Benchmark
+    public byte[] pollChanged(ChangedAssets changedAssets) throws IOException, InterruptedException {
+        return poll(list, 200);
+    }
+
+    @Benchmark
+    public byte[] pollUnchanged() throws IOException, InterruptedException {
+        return poll(list, 200);
+    }
+
+    @Benchmark
+    public byte[] pollUnchangedWithETag() throws IOException, InterruptedException {
+        return poll(conditionalList, 304);
+    }
+
+    private byte[] poll(HttpRequest request, int statusCode) throws IOException, InterruptedException {
+        var response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != statusCode) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode());
+        }
+        return response.body();
+    }
+}
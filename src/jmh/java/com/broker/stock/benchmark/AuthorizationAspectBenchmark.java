@@ -0,0 +1,94 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.aspect.AuthorizationAspect;
+import com.broker.stock.aspect.AuthorizeCustomer;
+import com.broker.stock.aspect.CustomerId;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.model.OrderRequest;
+import com.broker.stock.service.auth.CustomerPrincipal;
+import com.broker.stock.service.metrics.LatencyMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authorizing a call through the aspect's proxy, by a customer id parameter and by an annotated field of a request.
+ * Customers are authorized from the id in their token, so no repository is involved.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationAspectBenchmark {
+
+    @Param({"ROLE_USER", "ROLE_ADMIN"})
+    public String role;
+
+    private final OrderRequest orderRequest = new OrderRequest(2L, "GOLD", OrderSide.BUY, BigDecimal.ONE, BigDecimal.TEN);
+    private final Service target = new Service();
+    private Service proxy;
+
+    public static class Service {
+
+        @AuthorizeCustomer
+        public Long listAssets(@CustomerId Long customerId) {
+            return customerId;
+        }
+
+        @AuthorizeCustomer
+        public OrderRequest createOrder(OrderRequest orderRequest) {
+            return orderRequest;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        var factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new AuthorizationAspect(null, new LatencyMetrics()));
+        proxy = factory.getProxy();
+
+        var principal = new CustomerPrincipal("customer1", "", AuthorityUtils.createAuthorityList(role), 2L);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal, null,
+            principal.getAuthorities()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Long customerIdParameter() {
+        return proxy.listAssets(2L);
+    }
+
+    @Benchmark
+    public OrderRequest customerIdField() {
+        return proxy.createOrder(orderRequest);
+    }
+
+    // The call without the proxy, the difference is the cost of authorizing
+    @Benchmark
+    public Long unproxied() {
+        return target.listAssets(2L);
+    }
+}
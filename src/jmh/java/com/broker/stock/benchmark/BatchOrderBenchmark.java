@@ -0,0 +1,99 @@
+package com.broker.stock.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Placing the same basket of buy orders once through POST /api/orders per order and once through
+ * POST /api/orders/batch, over HTTP with a bearer token. Nobody sells, so the orders rest in the books.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BatchOrderBenchmark {
+
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\":\"([^\"]+)\"");
+
+    @Param({"1000"})
+    public int basketSize;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private URI single;
+    private URI batch;
+    private String token;
+    private String[] orders;
+    private String basket;
+
+    @Setup
+    public void setUp(ApplicationState application) throws IOException, InterruptedException {
+        int port = application.getBean(Environment.class).getRequiredProperty("local.server.port", Integer.class);
+        single = URI.create("http://localhost:" + port + "/api/orders");
+        batch = URI.create("http://localhost:" + port + "/api/orders/batch");
+        var login = post(URI.create("http://localhost:" + port + "/auth/login"),
+            "{\"username\":\"customer1\",\"password\":\"password123\"}");
+        var matcher = ACCESS_TOKEN.matcher(login);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed: " + login);
+        }
+        token = matcher.group(1);
+
+        // customer1 is customer 2, the buyer of ApplicationState
+        orders = new String[basketSize];
+        var joiner = new StringJoiner(",", "{\"customerId\":2,\"orders\":[", "]}");
+        for (int i = 0; i < basketSize; i++) {
+            orders[i] = "{\"customerId\":2,\"assetName\":\"" + MatchOrdersBenchmark.ASSETS[i % MatchOrdersBenchmark.ASSETS.length]
+                + "\",\"orderSide\":\"BUY\",\"size\":1,\"price\":" + (10 + i % 50) + "}";
+            joiner.add(orders[i]);
+        }
+        basket = joiner.toString();
+    }
+
+    @Benchmark
+    public void singleOrders() throws IOException, InterruptedException {
+        for (String order : orders) {
+            post(single, order);
+        }
+    }
+
+    @Benchmark
+    public String batch() throws IOException, InterruptedException {
+        return post(batch, basket);
+    }
+
+    private String post(URI uri, String body) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        var response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(uri + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
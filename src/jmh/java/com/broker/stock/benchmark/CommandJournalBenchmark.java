@@ -0,0 +1,86 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.service.business.journal.CommandJournal;
+import com.broker.stock.service.business.journal.JournalCommand.CreateOrder;
+import com.broker.stock.util.FixedPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable appends for a growing number of concurrent writers, each writer waits for its own record like an order
+ * transaction does. More writers share each fsync, the group commit shows as throughput growing with the writers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CommandJournalBenchmark {
+
+    private final AtomicLong orderIds = new AtomicLong();
+
+    private Path directory;
+    private CommandJournal journal;
+
+    @Setup
+    public void open() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new CommandJournal(true, directory, DataSize.ofMegabytes(64));
+        journal.open();
+    }
+
+    @TearDown
+    public void close() throws IOException {
+        journal.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void record1Writer() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void record4Writers() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void record16Writers() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void record64Writers() {
+        record();
+    }
+
+    private void record() {
+        long orderId = orderIds.incrementAndGet();
+        journal.record(new CreateOrder(orderId, orderId % 64, "GOLD", OrderSide.BUY, FixedPoint.ONE, FixedPoint.of(100)));
+    }
+}
@@ -0,0 +1,115 @@
+package com.broker.stock.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * How long 5000 concurrent clients wait for GET /api/assets with Tomcat's platform thread pool and with virtual
+ * threads. The list cache is off, every request reads the database. Each JMH thread is a client that sends its next
+ * request once the previous one was answered. A 503, answered when no connection permit frees up in time, is part of
+ * the sample and counted in the {@code unavailable} secondary result. Virtual threads need a Java 21 runtime, on older ones the parameter
+ * is ignored:
+ * <pre>
+ * mvn -Pjava21,jmh -DskipTests verify -Djmh.includes=ConcurrentClientsBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Threads(5000)
+@Fork(1)
+public class ConcurrentClientsBenchmark {
+
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\":\"([^\"]+)\"");
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(60)).build();
+    private final AtomicInteger clients = new AtomicInteger();
+
+    private String base;
+    private String token;
+
+    @State(Scope.Benchmark)
+    public static class Server extends ApplicationState {
+
+        @Param({"false", "true"})
+        public boolean virtualThreads;
+
+        @Override
+        protected List<String> arguments() {
+            return List.of("--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.accept-count=10000",
+                "--order.assets.list-cache.maximum-assets=0");
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Client {
+
+        // Requests answered 503, summed over the clients into the result file
+        public long unavailable;
+
+        private HttpRequest request;
+
+        // Clients list the assets of customers 2 to 5 in turn
+        @Setup
+        public void setUp(ConcurrentClientsBenchmark benchmark) {
+            int customerId = 2 + benchmark.clients.getAndIncrement() % 4;
+            request = HttpRequest.newBuilder(URI.create(benchmark.base + "/api/assets?customerId=" + customerId))
+                .header("Authorization", "Bearer " + benchmark.token)
+                .timeout(Duration.ofSeconds(120))
+                .GET()
+                .build();
+        }
+    }
+
+    @Setup
+    public void setUp(Server server) throws IOException, InterruptedException {
+        base = "http://localhost:" + server.getBean(Environment.class).getRequiredProperty("local.server.port", Integer.class);
+        var login = client.send(HttpRequest.newBuilder(URI.create(base + "/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"admin\",\"password\":\"admin123\"}"))
+            .build(), HttpResponse.BodyHandlers.ofString());
+        var matcher = ACCESS_TOKEN.matcher(login.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed: " + login.body());
+        }
+        token = matcher.group(1);
+    }
+
+    @Benchmark
+    public int listAssets(Client client) throws IOException, InterruptedException {
+        var response = this.client.send(client.request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 503) {
+            client.unavailable++;
+        } else if (response.statusCode() != 200) {
+            throw new IllegalStateException(client.request.uri() + " answered " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,91 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.util.FixedPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The amount arithmetic of every order, on scaled longs as the service does it and on {@link BigDecimal} as it did
+ * before: the reservation check and debit of an order's value, and a fill that reduces the unfilled size and settles
+ * the traded value. The operands cycle through a table of random sizes and prices with 8 fraction digits, so nothing
+ * is constant folded. Run with {@code -prof gc} to see the allocation per operation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FixedPointBenchmark {
+
+    private static final int AMOUNTS = 1024;
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private final long[] sizes = new long[AMOUNTS];
+    private final long[] prices = new long[AMOUNTS];
+    private final BigDecimal[] decimalSizes = new BigDecimal[AMOUNTS];
+    private final BigDecimal[] decimalPrices = new BigDecimal[AMOUNTS];
+    private final long balance = FixedPoint.of(1_000_000_000L);
+    private final BigDecimal decimalBalance = FixedPoint.toBigDecimal(balance);
+    private int next;
+
+    @Setup
+    public void setUp() {
+        var random = new Random(42);
+        for (int i = 0; i < AMOUNTS; i++) {
+            sizes[i] = FixedPoint.ONE + random.nextLong(100 * FixedPoint.ONE);
+            prices[i] = FixedPoint.ONE + random.nextLong(1000 * FixedPoint.ONE);
+            decimalSizes[i] = FixedPoint.toBigDecimal(sizes[i]);
+            decimalPrices[i] = FixedPoint.toBigDecimal(prices[i]);
+        }
+    }
+
+    @Benchmark
+    public long reserveFixedPoint() {
+        int i = next();
+        long value = FixedPoint.multiply(sizes[i], prices[i]);
+        return balance >= value ? Math.subtractExact(balance, value) : balance;
+    }
+
+    @Benchmark
+    public BigDecimal reserveBigDecimal() {
+        int i = next();
+        var value = decimalSizes[i].multiply(decimalPrices[i]);
+        return decimalBalance.compareTo(value) >= 0 ? decimalBalance.subtract(value) : decimalBalance;
+    }
+
+    @Benchmark
+    public long fillFixedPoint() {
+        int i = next();
+        // Half of the order at the resting order's price
+        long filled = sizes[i] / 2;
+        long remaining = Math.subtractExact(sizes[i], filled);
+        return Math.addExact(remaining, FixedPoint.multiply(filled, prices[(i + 1) % AMOUNTS]));
+    }
+
+    @Benchmark
+    public BigDecimal fillBigDecimal() {
+        int i = next();
+        var filled = decimalSizes[i].divide(TWO, FixedPoint.SCALE, RoundingMode.DOWN);
+        var remaining = decimalSizes[i].subtract(filled);
+        return remaining.add(filled.multiply(decimalPrices[(i + 1) % AMOUNTS]));
+    }
+
+    private int next() {
+        next = (next + 1) & (AMOUNTS - 1);
+        return next;
+    }
+}
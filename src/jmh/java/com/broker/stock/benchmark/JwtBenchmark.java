@@ -0,0 +1,61 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.service.auth.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issuing, verifying and parsing access tokens, as done on login and on requests the token cache has not seen yet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private final JwtUtil jwtUtil = new JwtUtil();
+    private String token;
+
+    @Setup
+    public void setUp() {
+        ReflectionTestUtils.setField(jwtUtil, "secretKeyString", "ThisIsA32CharLongSecureTestKeyAsString!");
+        jwtUtil.init();
+        token = generateToken();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("customer1", AuthorityUtils.createAuthorityList("ROLE_USER"), 2L);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Optional<Claims> parseToken() {
+        return jwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return jwtUtil.getUsernameFromToken(token);
+    }
+}
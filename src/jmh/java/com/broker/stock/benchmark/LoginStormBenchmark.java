@@ -0,0 +1,114 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.service.auth.CustomerPrincipal;
+import com.broker.stock.service.auth.JwtUtil;
+import com.broker.stock.service.auth.RefreshTokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.Environment;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Tokens handed out per second while 16 clients log in with their password at once, and while they redeem refresh
+ * tokens instead, over HTTP and in-process without the web stack. Every client keeps rotating its own refresh token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class LoginStormBenchmark {
+
+    private static final Pattern REFRESH_TOKEN = Pattern.compile("\"refreshToken\":\"([^\"]+)\"");
+    private static final String CREDENTIALS = "{\"username\":\"customer1\",\"password\":\"password123\"}";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private AuthenticationManager authenticationManager;
+    private RefreshTokenService refreshTokenService;
+    private JwtUtil jwtUtil;
+    private URI login;
+    private URI refresh;
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        private String refreshToken;
+
+        @Setup
+        public void logIn(LoginStormBenchmark benchmark) throws IOException, InterruptedException {
+            refreshToken = benchmark.post(benchmark.login, CREDENTIALS);
+        }
+    }
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        authenticationManager = application.getBean(AuthenticationManager.class);
+        refreshTokenService = application.getBean(RefreshTokenService.class);
+        jwtUtil = application.getBean(JwtUtil.class);
+        int port = application.getBean(Environment.class).getRequiredProperty("local.server.port", Integer.class);
+        login = URI.create("http://localhost:" + port + "/auth/login");
+        refresh = URI.create("http://localhost:" + port + "/auth/refresh");
+    }
+
+    @Benchmark
+    public String loginInProcess() {
+        var principal = (CustomerPrincipal) authenticationManager.authenticate(
+            new UsernamePasswordAuthenticationToken("customer1", "password123")).getPrincipal();
+        jwtUtil.generateToken(principal.getUsername(), principal.getAuthorities(), principal.getCustomerId());
+        return refreshTokenService.issue(principal);
+    }
+
+    @Benchmark
+    public String refreshInProcess(Client client) {
+        var refreshed = refreshTokenService.refresh(client.refreshToken).orElseThrow();
+        var principal = refreshed.principal();
+        jwtUtil.generateToken(principal.getUsername(), principal.getAuthorities(), principal.getCustomerId());
+        client.refreshToken = refreshed.refreshToken();
+        return client.refreshToken;
+    }
+
+    @Benchmark
+    public String login() throws IOException, InterruptedException {
+        return post(login, CREDENTIALS);
+    }
+
+    @Benchmark
+    public String refresh(Client client) throws IOException, InterruptedException {
+        client.refreshToken = post(refresh, "{\"refreshToken\":\"" + client.refreshToken + "\"}");
+        return client.refreshToken;
+    }
+
+    // Returns the refresh token of the response
+    private String post(URI uri, String body) throws IOException, InterruptedException {
+        var response = client.send(HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build(), HttpResponse.BodyHandlers.ofString());
+        var matcher = REFRESH_TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException(uri + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return matcher.group(1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.mapper.OrderMapper;
+import com.broker.stock.model.MatchSummary;
+import com.broker.stock.service.business.OrderService;
+import com.broker.stock.service.business.matching.MatchingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One matching run over a given number of pending orders, half of them buying and half selling at the same prices,
+ * so every order is matched. The orders are inserted before each run and the books loaded from them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MatchOrdersBenchmark {
+
+    static final String[] ASSETS = {"GOLD", "SILVER", "COPPER", "OIL"};
+
+    private static final String INSERT_SQL = "INSERT INTO orders (id, customer_id, asset_name, order_side, size, price, "
+        + "filled_size, status, create_date) VALUES (NEXT VALUE FOR orders_seq, ?, ?, ?, 1, ?, 0, 'PENDING', ?)";
+
+    @Param({"1000", "10000"})
+    public int pendingOrders;
+
+    private OrderService orderService;
+    private MatchingEngine matchingEngine;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        orderService = application.getBean(OrderService.class);
+        matchingEngine = application.getBean(MatchingEngine.class);
+        jdbcTemplate = application.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void insertPendingOrders() {
+        List<Object[]> orders = new ArrayList<>(pendingOrders);
+        for (int i = 0; i < pendingOrders; i++) {
+            // Buys and sells alternate, all orders of an asset have the same price so every one of them is matched
+            int asset = i / 2 % ASSETS.length;
+            orders.add(new Object[]{i % 2 == 0 ? 2L : 3L, ASSETS[asset], i % 2 == 0 ? "BUY" : "SELL", 10 + asset,
+                Timestamp.valueOf(OrderMapper.nextCreateDate())});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, orders);
+        matchingEngine.reset();
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", null,
+            AuthorityUtils.createAuthorityList("ROLE_ADMIN")));
+    }
+
+    @Benchmark
+    public MatchSummary matchOrders() {
+        return orderService.matchOrders();
+    }
+}
@@ -0,0 +1,100 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.model.OrderPage;
+import com.broker.stock.service.business.OrderArchiver;
+import com.broker.stock.service.business.OrderHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads that only need live or recent orders, over a year of orders that are mostly matched or cancelled, before and
+ * after the old terminal ones are archived: loading the pending orders like the matching engine does on startup, a
+ * page of a customer's last day and a page of a customer's first month, which reads both tables once archived.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OrderArchiveBenchmark {
+
+    private static final int CUSTOMERS = 20;
+    private static final String PENDING_SQL = "SELECT id, customer_id, asset_name, order_side, price, size FROM orders "
+        + "WHERE status = 'PENDING' AND id > ? ORDER BY id LIMIT 1000";
+
+    @Param({"1000000"})
+    public int orders;
+
+    @Param({"false", "true"})
+    public boolean archived;
+
+    private JdbcTemplate jdbcTemplate;
+    private OrderHistory orderHistory;
+    private LocalDateTime now;
+    private LocalDateTime first;
+
+    @Setup
+    public void setUp() {
+        var dataSource = new DriverManagerDataSource("jdbc:h2:mem:archivebenchmark;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // One order every 31 seconds over the last year, one in 19 still pending
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        first = now.minusSeconds(31L * orders);
+        jdbcTemplate.update("INSERT INTO orders (customer_id, asset_name, order_side, size, price, filled_size, status, create_date) "
+            + "SELECT 2 + MOD(X, " + CUSTOMERS + "), 'GOLD', 'BUY', 10, 100, 0, "
+            + "CASE WHEN MOD(X, 19) = 0 THEN 'PENDING' WHEN MOD(X, 2) = 0 THEN 'MATCHED' ELSE 'CANCELLED' END, "
+            + "DATEADD(SECOND, 31 * X, CAST(? AS TIMESTAMP)) FROM SYSTEM_RANGE(1, CAST(? AS BIGINT))", Timestamp.valueOf(first), orders);
+
+        orderHistory = new OrderHistory(jdbcTemplate);
+        if (archived) {
+            new OrderArchiver(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                orderHistory, true, Duration.ofDays(30), 1000).archive(now.minusDays(30));
+        }
+    }
+
+    @Benchmark
+    public long loadPending() {
+        long lastId = 0;
+        Long chunkEnd;
+        do {
+            var chunk = jdbcTemplate.queryForList(PENDING_SQL, lastId);
+            chunkEnd = chunk.isEmpty() ? null : (Long) chunk.get(chunk.size() - 1).get("ID");
+            lastId = chunkEnd == null ? lastId : chunkEnd;
+        } while (chunkEnd != null);
+        return lastId;
+    }
+
+    @Benchmark
+    public OrderPage lastDayPage() {
+        return orderHistory.page(2L, now.minusDays(1), now, null, 100);
+    }
+
+    @Benchmark
+    public OrderPage firstMonthPage() {
+        return orderHistory.page(2L, first, first.plusDays(30), null, 100);
+    }
+}
@@ -0,0 +1,68 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.model.OrderRequest;
+import com.broker.stock.service.business.strategy.BuyOrderHandler;
+import com.broker.stock.service.business.strategy.SellOrderHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserving the balance of a new order, within a transaction that is rolled back so balances do not drift.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderHandlerBenchmark {
+
+    private final OrderRequest buyRequest = new OrderRequest(2L, "GOLD", OrderSide.BUY, BigDecimal.ONE, BigDecimal.TEN);
+    private final OrderRequest sellRequest = new OrderRequest(3L, "GOLD", OrderSide.SELL, BigDecimal.ONE, BigDecimal.TEN);
+
+    private BuyOrderHandler buyOrderHandler;
+    private SellOrderHandler sellOrderHandler;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        buyOrderHandler = application.getBean(BuyOrderHandler.class);
+        sellOrderHandler = application.getBean(SellOrderHandler.class);
+        transactionTemplate = application.getBean(TransactionTemplate.class);
+    }
+
+    @Benchmark
+    public void buyHandleOrder() {
+        transactionTemplate.executeWithoutResult(status -> {
+            buyOrderHandler.handleOrder(buyRequest);
+            status.setRollbackOnly();
+        });
+    }
+
+    @Benchmark
+    public void sellHandleOrder() {
+        transactionTemplate.executeWithoutResult(status -> {
+            sellOrderHandler.handleOrder(sellRequest);
+            status.setRollbackOnly();
+        });
+    }
+
+    // The cost of the transaction alone, to tell it apart from the handlers
+    @Benchmark
+    public void emptyTransaction() {
+        transactionTemplate.executeWithoutResult(status -> status.setRollbackOnly());
+    }
+}
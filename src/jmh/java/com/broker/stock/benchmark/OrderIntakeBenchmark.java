@@ -0,0 +1,127 @@
+package com.broker.stock.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * How long 64 concurrent clients wait for an answer when they place orders at POST /api/orders, and at
+ * POST /api/orders/intake, which answers once the order is queued or with 503 once the queue is full. The last one
+ * measures the whole way through the intake: placing the order again while the queue is full, then long-polling it
+ * until it is created. Customers 2 to 5 buy with the admin's token, nobody sells, so the orders rest in the books.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Threads(64)
+@Fork(1)
+public class OrderIntakeBenchmark {
+
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\":\"([^\"]+)\"");
+    private static final Pattern INTAKE_ID = Pattern.compile("\"id\":\"([^\"]+)\"");
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private String base;
+    private String token;
+
+    @Setup
+    public void setUp(ApplicationState application) throws IOException, InterruptedException {
+        base = "http://localhost:" + application.getBean(Environment.class).getRequiredProperty("local.server.port", Integer.class);
+        var login = send(post("/auth/login", "{\"username\":\"admin\",\"password\":\"admin123\"}"));
+        var matcher = ACCESS_TOKEN.matcher(login.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed: " + login.body());
+        }
+        token = matcher.group(1);
+    }
+
+    @Benchmark
+    public HttpResponse<String> createOrder() throws IOException, InterruptedException {
+        return expect(send(post("/api/orders", order(sequence.getAndIncrement()))), 201);
+    }
+
+    @Benchmark
+    public HttpResponse<String> intake() throws IOException, InterruptedException {
+        var response = send(post("/api/orders/intake", order(sequence.getAndIncrement())));
+        return response.statusCode() == 503 ? response : expect(response, 202);
+    }
+
+    @Benchmark
+    public HttpResponse<String> intakeUntilCreated() throws IOException, InterruptedException {
+        int n = sequence.getAndIncrement();
+        HttpResponse<String> accepted;
+        do {
+            accepted = send(post("/api/orders/intake", order(n)));
+        } while (accepted.statusCode() == 503);
+        var id = INTAKE_ID.matcher(expect(accepted, 202).body());
+        if (!id.find()) {
+            throw new IllegalStateException("No intake id: " + accepted.body());
+        }
+
+        var status = HttpRequest.newBuilder(URI.create(base + "/api/orders/intake/" + id.group(1)
+                + "?customerId=" + customerId(n) + "&wait=30"))
+            .header("Authorization", "Bearer " + token)
+            .GET()
+            .build();
+        HttpResponse<String> response;
+        do {
+            response = send(status);
+        } while (response.body().contains("\"QUEUED\""));
+        if (!response.body().contains("\"CREATED\"")) {
+            throw new IllegalStateException("Order " + id.group(1) + " was not created: " + response.body());
+        }
+        return response;
+    }
+
+    private static String order(int n) {
+        return "{\"customerId\":" + customerId(n) + ",\"assetName\":\"" + MatchOrdersBenchmark.ASSETS[n % MatchOrdersBenchmark.ASSETS.length]
+            + "\",\"orderSide\":\"BUY\",\"size\":1,\"price\":" + (10 + n % 50) + "}";
+    }
+
+    private static int customerId(int n) {
+        return 2 + n % 4;
+    }
+
+    private HttpRequest post(String path, String body) {
+        var request = HttpRequest.newBuilder(URI.create(base + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return request.build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> expect(HttpResponse<String> response, int statusCode) {
+        if (response.statusCode() != statusCode) {
+            throw new IllegalStateException(response.uri() + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,45 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.entity.Order;
+import com.broker.stock.mapper.OrderMapper;
+import com.broker.stock.model.OrderRequest;
+import com.broker.stock.model.OrderResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping requests to entities and entities to responses, on every order request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMapperBenchmark {
+
+    private final OrderRequest orderRequest = new OrderRequest(2L, "GOLD", OrderSide.BUY, new BigDecimal("1.5"),
+        new BigDecimal("123.45678901"));
+    private final Order order = OrderMapper.toEntity(orderRequest);
+
+    @Benchmark
+    public Order toEntity() {
+        return OrderMapper.toEntity(orderRequest);
+    }
+
+    @Benchmark
+    public OrderResponse toResponse() {
+        return OrderMapper.toResponse(order);
+    }
+}
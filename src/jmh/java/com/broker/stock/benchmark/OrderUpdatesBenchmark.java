@@ -0,0 +1,173 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.service.business.OrderUpdates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cancelling an order while 5000 idle order update streams are open over HTTP, a quarter of them subscribed to the
+ * order's customer, until every one of those streams received the event. The order is created before each
+ * invocation. Every stream is a socket on both ends, the open files limit has to allow twice the number of streams.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class OrderUpdatesBenchmark {
+
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\":\"([^\"]+)\"");
+    private static final Pattern ORDER_ID = Pattern.compile("\"id\":(\\d+)");
+    private static final long[] CUSTOMERS = {2, 3, 4, 5};
+
+    @Param({"5000"})
+    public int streams;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    private String base;
+    private String token;
+    private int events;
+
+    @State(Scope.Thread)
+    public static class PendingOrder {
+
+        private HttpRequest cancel;
+        private List<Subscriber> receivers;
+
+        @Setup(Level.Invocation)
+        public void create(OrderUpdatesBenchmark benchmark) throws IOException, InterruptedException {
+            long customerId = CUSTOMERS[benchmark.events++ % CUSTOMERS.length];
+            var created = benchmark.send(benchmark.request("/api/orders")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"customerId\":" + customerId
+                    + ",\"assetName\":\"GOLD\",\"orderSide\":\"BUY\",\"size\":1,\"price\":10}"))
+                .build(), 201);
+            var id = ORDER_ID.matcher(created.body());
+            if (!id.find()) {
+                throw new IllegalStateException("No order id: " + created.body());
+            }
+            cancel = benchmark.request("/api/orders/" + customerId + "/orders/" + id.group(1)).DELETE().build();
+            receivers = benchmark.subscribers.stream().filter(subscriber -> subscriber.customerId == customerId).toList();
+            receivers.forEach(Subscriber::expect);
+        }
+    }
+
+    @Setup
+    public void setUp(ApplicationState application) throws IOException, InterruptedException {
+        base = "http://localhost:" + application.getBean(Environment.class).getRequiredProperty("local.server.port", Integer.class);
+        var login = send(HttpRequest.newBuilder(URI.create(base + "/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"admin\",\"password\":\"admin123\"}"))
+            .build(), 200);
+        var matcher = ACCESS_TOKEN.matcher(login.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed: " + login.body());
+        }
+        token = matcher.group(1);
+
+        for (int i = 0; i < streams; i++) {
+            var subscriber = new Subscriber(CUSTOMERS[i % CUSTOMERS.length]);
+            // Lines are pushed to the subscriber, the client holds no thread per stream either
+            subscriber.response = client.sendAsync(request("/api/orders/updates?customerId=" + subscriber.customerId).GET().build(),
+                HttpResponse.BodyHandlers.fromLineSubscriber(subscriber));
+            subscribers.add(subscriber);
+        }
+        var orderUpdates = application.getBean(OrderUpdates.class);
+        while (orderUpdates.subscriberCount() < streams) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        subscribers.forEach(subscriber -> subscriber.response.cancel(true));
+    }
+
+    @Benchmark
+    public void cancelOrder(PendingOrder order) throws IOException, InterruptedException {
+        send(order.cancel, 200);
+        for (var receiver : order.receivers) {
+            if (!receiver.received.await(30, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Event of " + order.cancel.uri() + " was not received");
+            }
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(base + path)).header("Authorization", "Bearer " + token);
+    }
+
+    private HttpResponse<String> send(HttpRequest request, int statusCode) throws IOException, InterruptedException {
+        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != statusCode) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private static final class Subscriber implements Flow.Subscriber<String> {
+
+        private final long customerId;
+        private volatile CountDownLatch received = new CountDownLatch(0);
+        private CompletableFuture<HttpResponse<Void>> response;
+
+        private Subscriber(long customerId) {
+            this.customerId = customerId;
+        }
+
+        private void expect() {
+            received = new CountDownLatch(1);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        // The event of the order's creation may still be on its way
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith("data:") && line.contains("\"status\":\"CANCELLED\"")) {
+                received.countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // Cancelled at the end of the run
+        }
+
+        @Override
+        public void onComplete() {
+            // Closed by the server
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.broker.stock.benchmark;
+
+import com.broker.stock.service.auth.JwtUtil;
+import com.broker.stock.service.auth.VerifiedTokenCache;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.Environment;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The authentication cost of one request: the filter before tokens were cached (signature check, a second parse with
+ * a new parser and the customer query) and a token the cache has already verified. A token seen for the first time
+ * costs a parse, see {@link JwtBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenAuthenticationBenchmark {
+
+    private JwtUtil jwtUtil;
+    private UserDetailsService userDetailsService;
+    private VerifiedTokenCache verifiedTokenCache;
+    private byte[] secret;
+    private String token;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        jwtUtil = application.getBean(JwtUtil.class);
+        userDetailsService = application.getBean(UserDetailsService.class);
+        verifiedTokenCache = application.getBean(VerifiedTokenCache.class);
+        secret = application.getBean(Environment.class).getRequiredProperty("jwt.secret.key").getBytes();
+        token = jwtUtil.generateToken("customer1", AuthorityUtils.createAuthorityList("ROLE_USER"), 2L);
+    }
+
+    @Benchmark
+    public UserDetails previousFilter() {
+        if (!jwtUtil.validateToken(token)) {
+            throw new IllegalStateException("Token is not valid.");
+        }
+        var username = Jwts.parserBuilder().setSigningKey(secret).build().parseClaimsJws(token).getBody().getSubject();
+        return userDetailsService.loadUserByUsername(username);
+    }
+
+    @Benchmark
+    public UserDetails knownToken() {
+        return verifiedTokenCache.verify(token).orElseThrow();
+    }
+}
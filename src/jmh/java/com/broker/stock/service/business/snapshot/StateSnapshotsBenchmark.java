@@ -0,0 +1,89 @@
+package com.broker.stock.service.business.snapshot;
+
+import com.broker.stock.service.business.matching.BookOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading the pending orders and balances on restart, from the database and from a snapshot, both up to the order
+ * book entries the matching engine is filled with. A restart also compares the snapshot with aggregates of the
+ * database before using it, which is measured on its own. Lives in the package of the snapshots to reach the loading
+ * steps without starting the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StateSnapshotsBenchmark {
+
+    private static final int CUSTOMERS = 100_000;
+
+    @Param({"100000", "1000000"})
+    public int pendingOrders;
+
+    private Path directory;
+    private StateSnapshots stateSnapshots;
+    private Path snapshot;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        var dataSource = new DriverManagerDataSource("jdbc:h2:file:" + directory.resolve("stockdb").toAbsolutePath(), "sa", "password");
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate.update("INSERT INTO orders (customer_id, asset_name, order_side, size, price, filled_size, status, create_date) "
+            + "SELECT MOD(X, ?) + 10, CASEWHEN(MOD(X, 2) = 0, 'GOLD', 'SILVER'), CASEWHEN(MOD(X, 4) < 2, 'BUY', 'SELL'), 10, 100 + MOD(X, 50), MOD(X, 3), 'PENDING', "
+            + "DATEADD('MILLISECOND', X, TIMESTAMP '2026-01-01 00:00:00') FROM SYSTEM_RANGE(1, ?)", CUSTOMERS, pendingOrders);
+        for (String assetName : new String[]{"TRY", "GOLD", "SILVER"}) {
+            jdbcTemplate.update("INSERT INTO asset (customer_id, asset_name, size, usable_size) SELECT X + 10, ?, 100000, 50000 FROM SYSTEM_RANGE(0, ?)",
+                assetName, CUSTOMERS - 1);
+        }
+
+        stateSnapshots = new StateSnapshots(null, jdbcTemplate, null, null, true, directory.resolve("snapshots"), true, 2);
+        snapshot = SnapshotFile.write(directory.resolve("snapshots"), stateSnapshots.loadFromDatabase(0));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Map<String, List<BookOrder>> loadFromDatabase() {
+        return stateSnapshots.loadFromDatabase(0).bookOrders();
+    }
+
+    @Benchmark
+    public Map<String, List<BookOrder>> loadFromSnapshot() {
+        return SnapshotFile.read(snapshot).bookOrders();
+    }
+
+    @Benchmark
+    public SnapshotState.Fingerprint verifySnapshot() {
+        return stateSnapshots.databaseFingerprint();
+    }
+}
@@ -1,6 +1,9 @@
 package com.broker.stock.aspect;
 
+import com.broker.stock.constant.LatencyStage;
 import com.broker.stock.repository.CustomerRepository;
+import com.broker.stock.service.auth.CustomerPrincipal;
+import com.broker.stock.service.metrics.LatencyMetrics;
 import lombok.RequiredArgsConstructor;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
@@ -10,11 +13,14 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Aspect
 @Component
@@ -22,11 +28,23 @@ import java.util.Optional;
 public class AuthorizationAspect {
 
     private final CustomerRepository customerRepository;
+    private final LatencyMetrics latencyMetrics;
+
+    // Where the customer id of an annotated method is found, resolved on its first call
+    private final Map<Method, CustomerIdAccessor> accessors = new ConcurrentHashMap<>();
 
     @Before("@annotation(AuthorizeCustomer)")
     public void authorizeAccess(JoinPoint joinPoint) {
+        long start = System.nanoTime();
+        try {
+            authorize(joinPoint);
+        } finally {
+            latencyMetrics.record(LatencyStage.AUTHORIZATION, start);
+        }
+    }
+
+    private void authorize(JoinPoint joinPoint) {
         var authentication = SecurityContextHolder.getContext().getAuthentication();
-        var username = authentication.getName();
 
         // Admins bypass authorization
         if (isAdmin(authentication)) {
@@ -38,7 +56,7 @@ public class AuthorizationAspect {
             .orElseThrow(() -> new IllegalArgumentException("CustomerId not found in method arguments or fields"));
 
         // Validate customer access
-        validateCustomerAccess(customerId, username);
+        validateCustomerAccess(customerId, authentication);
     }
 
     private boolean isAdmin(Authentication authentication) {
@@ -48,70 +66,80 @@ public class AuthorizationAspect {
 
     private Optional<Long> extractCustomerId(JoinPoint joinPoint) {
         var method = ((MethodSignature) joinPoint.getSignature()).getMethod();
-        var args = joinPoint.getArgs();
-
-        // Try extracting from annotated parameters
-        return extractFromParameters(args, method)
-            // Fallback to extracting from annotated fields
-            .or(() -> extractFromFields(args));
+        var accessor = accessors.computeIfAbsent(method, this::resolveAccessor);
+        return Optional.ofNullable(accessor.customerId(joinPoint.getArgs()));
     }
 
-    private Optional<Long> extractFromParameters(Object[] args, Method method) {
+    private CustomerIdAccessor resolveAccessor(Method method) {
+        // Try an annotated parameter first
         var parameterAnnotations = method.getParameterAnnotations();
-
+        var parameterTypes = method.getParameterTypes();
         for (int i = 0; i < parameterAnnotations.length; i++) {
             for (var annotation : parameterAnnotations[i]) {
                 if (annotation instanceof CustomerId) {
-                    // Safely extract customerId from parameter
-                    var arg = args[i];
-                    if (arg instanceof Long) {
-                        return Optional.of((Long) arg);
-                    } else {
+                    if (parameterTypes[i] != Long.class) {
                         throw new IllegalArgumentException(
-                            "Invalid parameter type for @CustomerId; expected Long but got " + arg.getClass()
-                        );
+                            "Invalid parameter type for @CustomerId; expected Long but got " + parameterTypes[i]);
                     }
+                    int index = i;
+                    return args -> (Long) args[index];
                 }
             }
         }
-        return Optional.empty();
-    }
 
-    private Optional<Long> extractFromFields(Object[] args) {
-        return Arrays.stream(args)
-            .filter(Objects::nonNull) // Ignore null arguments
-            .flatMap(arg -> Arrays.stream(arg.getClass().getDeclaredFields())) // Access fields of arguments
-            .filter(field -> field.isAnnotationPresent(CustomerId.class)) // Find @CustomerId-annotated fields
-            .map(field -> extractFieldValue(field, args)) // Extract the value of the annotated field
-            .findFirst();
+        // Fallback to an annotated field of a parameter
+        for (int i = 0; i < parameterTypes.length; i++) {
+            for (Field field : parameterTypes[i].getDeclaredFields()) {
+                if (field.isAnnotationPresent(CustomerId.class)) {
+                    return fieldAccessor(i, field);
+                }
+            }
+        }
+        return args -> null;
     }
 
-    private Long extractFieldValue(Field field, Object[] args) {
-        field.setAccessible(true);
+    private CustomerIdAccessor fieldAccessor(int index, Field field) {
+        if (field.getType() != Long.class) {
+            throw new IllegalArgumentException("Invalid field type for @CustomerId; expected Long but got " + field.getType());
+        }
+        MethodHandle getter;
+        try {
+            getter = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup())
+                .unreflectGetter(field)
+                .asType(MethodType.methodType(Long.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to access @CustomerId field", e);
+        }
+        return args -> {
+            var arg = args[index];
+            if (arg == null) {
+                return null;
+            }
+            try {
+                return (Long) getter.invokeExact(arg);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Unable to read @CustomerId field", e);
+            }
+        };
+    }
 
-        for (Object arg : args) {
-            if (arg != null && field.getDeclaringClass().isAssignableFrom(arg.getClass())) {
-                try {
-                    Object value = field.get(arg);
-                    if (value instanceof Long) {
-                        return (Long) value;
-                    } else {
-                        throw new IllegalArgumentException(
-                            "Invalid field type for @CustomerId; expected Long but got " + (value != null ? value.getClass() : "null")
-                        );
-                    }
-                } catch (IllegalAccessException e) {
-                    throw new IllegalStateException("Unable to access @CustomerId field", e);
-                }
+    private void validateCustomerAccess(Long customerId, Authentication authentication) {
+        // The customer id of the token, no lookup needed
+        if (authentication.getPrincipal() instanceof CustomerPrincipal principal && principal.getCustomerId() != null) {
+            if (!principal.getCustomerId().equals(customerId)) {
+                throw new IllegalArgumentException("Unauthorized: You do not have access to this customer's data");
             }
+            return;
         }
-        return null; // No matching field found
-    }
 
-    private void validateCustomerAccess(Long customerId, String username) {
-        customerRepository.findByUsername(username)
+        customerRepository.findByUsername(authentication.getName())
             .filter(customer -> customer.getId().equals(customerId))
             .orElseThrow(() -> new IllegalArgumentException("Unauthorized: You do not have access to this customer's data"));
     }
-}
 
+    @FunctionalInterface
+    private interface CustomerIdAccessor {
+
+        Long customerId(Object[] args);
+    }
+}
@@ -0,0 +1,30 @@
+package com.broker.stock.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+public class DataSourceConfig {
+
+    // Wraps the pool once it is configured, so everything using the DataSource goes through the permits
+    @Bean
+    @ConditionalOnProperty(name = "order.datasource.limit.enabled", havingValue = "true")
+    static BeanPostProcessor connectionLimiter(@Value("${order.datasource.limit.permits:10}") int permits,
+                                               @Value("${order.datasource.limit.timeout:5s}") Duration timeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource)) {
+                    return new ConnectionLimitingDataSource(dataSource, permits, timeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
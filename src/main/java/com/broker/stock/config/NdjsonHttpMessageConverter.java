@@ -0,0 +1,37 @@
+package com.broker.stock.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Writes a single value as a one-line NDJSON document.
+ * <p>
+ * Streamed endpoints write their lines themselves, this lets an error found before the stream starts be answered to a
+ * client that only accepts NDJSON, instead of failing to find a representation for the error body.
+ */
+@Component
+public class NdjsonHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    public NdjsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper, APPLICATION_NDJSON);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected void writeSuffix(JsonGenerator generator, Object object) throws IOException {
+        generator.writeRaw('\n');
+    }
+}
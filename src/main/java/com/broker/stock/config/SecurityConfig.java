@@ -1,8 +1,8 @@
 package com.broker.stock.config;
 
 import com.broker.stock.filter.JwtAuthenticationFilter;
-import com.broker.stock.service.auth.CustomUserDetailsService;
-import com.broker.stock.service.auth.JwtUtil;
+import com.broker.stock.service.auth.VerifiedTokenCache;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,8 +22,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @RequiredArgsConstructor
 public class SecurityConfig {
 
-    private final JwtUtil jwtUtil;
-    private final CustomUserDetailsService customUserDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -37,12 +36,15 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/h2-console/**").permitAll()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**","/swagger-resources/**").permitAll()
-                .requestMatchers("/auth/login").permitAll()
+                .requestMatchers("/auth/login", "/auth/refresh").permitAll()
                 .requestMatchers("/error").permitAll()
+                .requestMatchers("/admin/metrics/**").hasRole("ADMIN")
+                // Async results are written on a second dispatch that carries no token, the request itself was authenticated
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .anyRequest().authenticated() // Authenticate all other requests
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-            .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, customUserDetailsService),
+            .addFilterBefore(new JwtAuthenticationFilter(verifiedTokenCache),
             UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -0,0 +1,8 @@
+package com.broker.stock.constant;
+
+public enum BatchMode {
+    // The whole basket is rejected if any of its orders can not be placed
+    ALL_OR_NOTHING,
+    // Orders that can be placed are created, the others are reported as failed
+    PER_ITEM
+}
@@ -0,0 +1,46 @@
+package com.broker.stock.constant;
+
+import java.time.Duration;
+
+/**
+ * Candle lengths, each kept in a ring of a fixed number of candles.
+ */
+public enum CandleInterval {
+    // The last hour
+    ONE_MINUTE("1m", Duration.ofMinutes(1), 60),
+    // The last day
+    FIVE_MINUTES("5m", Duration.ofMinutes(5), 288),
+    // The last week
+    ONE_HOUR("1h", Duration.ofHours(1), 168);
+
+    private final String label;
+    private final long millis;
+    private final int capacity;
+
+    CandleInterval(String label, Duration length, int capacity) {
+        this.label = label;
+        this.millis = length.toMillis();
+        this.capacity = capacity;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public long millis() {
+        return millis;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public static CandleInterval of(String label) {
+        for (CandleInterval interval : values()) {
+            if (interval.label.equals(label)) {
+                return interval;
+            }
+        }
+        throw new IllegalArgumentException("Unknown candle interval " + label + ", expected 1m, 5m or 1h.");
+    }
+}
@@ -0,0 +1,10 @@
+package com.broker.stock.constant;
+
+public enum IntakeState {
+    // Accepted and waiting for a worker
+    QUEUED,
+    // The order was created
+    CREATED,
+    // The order was not placed, the status carries the reason
+    REJECTED
+}
@@ -0,0 +1,18 @@
+package com.broker.stock.constant;
+
+public enum LatencyStage {
+    // Looking up or verifying the bearer token of a request
+    JWT_VALIDATION,
+    // Checking that the caller may act for the customer
+    AUTHORIZATION,
+    // Checking an order request against the customer's assets
+    VALIDATION,
+    // Reserving the TRY or the asset an order needs
+    RESERVATION,
+    // Flushing and committing the transaction that created or cancelled orders
+    PERSISTENCE,
+    // Crossing one order with the order book
+    MATCHING,
+    // Cancelling an order, up to its commit, which is recorded as PERSISTENCE
+    CANCEL
+}
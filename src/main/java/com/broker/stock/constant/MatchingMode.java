@@ -0,0 +1,8 @@
+package com.broker.stock.constant;
+
+public enum MatchingMode {
+    // Orders are matched as soon as they are created
+    CONTINUOUS,
+    // Orders are only matched by the admin match trigger
+    BATCH
+}
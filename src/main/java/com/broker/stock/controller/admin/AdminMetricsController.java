@@ -0,0 +1,34 @@
+package com.broker.stock.controller.admin;
+
+import com.broker.stock.model.LatencyReport;
+import com.broker.stock.service.metrics.LatencyMetrics;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/metrics")
+@RequiredArgsConstructor
+public class AdminMetricsController {
+
+    private final LatencyMetrics latencyMetrics;
+
+    @GetMapping("/latency")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<LatencyReport> getLatency() {
+        return ResponseEntity.status(HttpStatus.OK).body(latencyMetrics.report());
+    }
+
+    // Starts a new interval, e.g. before a load test
+    @DeleteMapping("/latency")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<Void> resetLatency() {
+        latencyMetrics.reset();
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+}
@@ -1,6 +1,6 @@
 package com.broker.stock.controller.admin;
 
-import com.broker.stock.model.OrderResponse;
+import com.broker.stock.model.MatchSummary;
 import com.broker.stock.service.business.OrderService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
@@ -8,9 +8,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/admin")
@@ -21,8 +22,10 @@ public class AdminOrderController {
 
     @PostMapping("/match-orders")
     @SecurityRequirement(name = "bearerAuth")
-    public ResponseEntity<List<OrderResponse>> matchOrders() {
-        List<OrderResponse> matchResponses = orderService.matchOrders();
-        return ResponseEntity.status(HttpStatus.OK).body(matchResponses);
+    public ResponseEntity<MatchSummary> matchOrders(@RequestParam(required = false) Set<String> assetNames) {
+        MatchSummary matchSummary = assetNames == null || assetNames.isEmpty()
+            ? orderService.matchOrders()
+            : orderService.matchOrders(assetNames);
+        return ResponseEntity.status(HttpStatus.OK).body(matchSummary);
     }
 }
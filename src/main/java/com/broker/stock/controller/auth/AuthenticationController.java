@@ -1,8 +1,13 @@
 package com.broker.stock.controller.auth;
 
 import com.broker.stock.model.LoginRequest;
+import com.broker.stock.model.RefreshRequest;
+import com.broker.stock.model.TokenResponse;
+import com.broker.stock.service.auth.CustomerPrincipal;
 import com.broker.stock.service.auth.JwtUtil;
+import com.broker.stock.service.auth.RefreshTokenService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -11,6 +16,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/auth")
@@ -19,14 +25,31 @@ public class AuthenticationController {
 
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final RefreshTokenService refreshTokenService;
 
     @PostMapping("/login")
-    public String login(@RequestBody LoginRequest loginRequest) {
+    public TokenResponse login(@RequestBody LoginRequest loginRequest) {
         Authentication authentication = authenticationManager.authenticate(
             new UsernamePasswordAuthenticationToken(loginRequest.username(), loginRequest.password())
         );
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        return jwtUtil.generateToken(authentication.getName());
+        if (!(authentication.getPrincipal() instanceof CustomerPrincipal principal)) {
+            throw new IllegalStateException("Authenticated user is not a customer");
+        }
+        return tokens(principal, refreshTokenService.issue(principal));
+    }
+
+    // Exchanges a refresh token for a new pair, the password is not checked again
+    @PostMapping("/refresh")
+    public TokenResponse refresh(@RequestBody RefreshRequest refreshRequest) {
+        var refreshed = refreshTokenService.refresh(refreshRequest.refreshToken())
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or expired refresh token."));
+        return tokens(refreshed.principal(), refreshed.refreshToken());
+    }
+
+    private TokenResponse tokens(CustomerPrincipal principal, String refreshToken) {
+        var accessToken = jwtUtil.generateToken(principal.getUsername(), principal.getAuthorities(), principal.getCustomerId());
+        return new TokenResponse(accessToken, refreshToken, jwtUtil.getAccessTokenValidity().toSeconds());
     }
 }
@@ -4,6 +4,7 @@ import com.broker.stock.model.AssetResponse;
 import com.broker.stock.service.business.AssetService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -27,8 +28,12 @@ public class AssetController {
         @RequestParam(required = false) String assetName,
         @RequestParam(required = false) BigDecimal minUsableSize) {
 
-        List<AssetResponse> assets = assetService.listAssets(customerId, assetName, minUsableSize);
+        var assets = assetService.listAssets(customerId, assetName, minUsableSize);
 
-        return ResponseEntity.ok(assets);
+        // A GET with a matching If-None-Match is answered with 304 and no body. Clients revalidate on every request
+        return ResponseEntity.ok()
+            .eTag(assets.version())
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .body(assets.assets());
     }
 }
@@ -0,0 +1,42 @@
+package com.broker.stock.controller.business;
+
+import com.broker.stock.constant.CandleInterval;
+import com.broker.stock.model.Candle;
+import com.broker.stock.model.MarketTicker;
+import com.broker.stock.service.business.market.MarketData;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/market")
+public class MarketDataController {
+
+    private final MarketData marketData;
+
+    @GetMapping("/{assetName}")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<MarketTicker> getTicker(@PathVariable String assetName) {
+        return ResponseEntity.ok(marketData.ticker(assetName));
+    }
+
+    @GetMapping("/{assetName}/candles")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<List<Candle>> getCandles(@PathVariable String assetName,
+                                                   @RequestParam(defaultValue = "1m") String interval,
+                                                   @RequestParam(defaultValue = "60") int limit) {
+        var candleInterval = CandleInterval.of(interval);
+        if (limit < 1 || limit > candleInterval.capacity()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + candleInterval.capacity() + " for " + interval + " candles.");
+        }
+        return ResponseEntity.ok(marketData.candles(assetName, candleInterval, limit));
+    }
+}
@@ -1,12 +1,22 @@
 package com.broker.stock.controller.business;
 
+import com.broker.stock.model.BatchOrderRequest;
+import com.broker.stock.model.BatchOrderResponse;
+import com.broker.stock.model.IntakeStatus;
+import com.broker.stock.model.OrderCursor;
 import com.broker.stock.model.OrderRequest;
 import com.broker.stock.model.OrderResponse;
+import com.broker.stock.service.business.OrderIntake;
 import com.broker.stock.service.business.OrderService;
+import com.broker.stock.service.business.OrderUpdates;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,10 +28,18 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -29,7 +47,17 @@ import java.util.List;
 @Validated
 public class OrderController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_WAIT_SECONDS = 30;
+
     private final OrderService orderService;
+    private final OrderIntake orderIntake;
+    private final OrderUpdates orderUpdates;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @SecurityRequirement(name = "bearerAuth")
@@ -38,28 +66,109 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(orderResponse);
     }
 
+    // Created if every order was, otherwise OK with the failed orders reported per item
+    @PostMapping("/batch")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<BatchOrderResponse> createOrders(@Valid @RequestBody BatchOrderRequest batchOrderRequest) {
+        var batchOrderResponse = orderService.createOrders(batchOrderRequest);
+        var status = batchOrderResponse.failed() == 0 ? HttpStatus.CREATED : HttpStatus.OK;
+        return ResponseEntity.status(status).body(batchOrderResponse);
+    }
+
+    // Accepted once queued, the order is created by a worker and its status is polled at the returned location
+    @PostMapping("/intake")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<IntakeStatus> submitOrder(@Valid @RequestBody OrderRequest orderRequest) {
+        var intakeStatus = orderIntake.submit(orderRequest);
+        var location = UriComponentsBuilder.fromPath("/api/orders/intake/{id}")
+            .queryParam("customerId", orderRequest.customerId())
+            .build(intakeStatus.id());
+        return ResponseEntity.accepted().location(location).body(intakeStatus);
+    }
+
+    // Long-polls with wait > 0, the request thread is released while waiting
+    @GetMapping("/intake/{id}")
+    @SecurityRequirement(name = "bearerAuth")
+    public CompletableFuture<IntakeStatus> getIntakeStatus(
+        @PathVariable UUID id,
+        @RequestParam Long customerId,
+        @RequestParam(defaultValue = "0") int wait) {
+
+        if (wait < 0 || wait > MAX_WAIT_SECONDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Wait must be between 0 and " + MAX_WAIT_SECONDS + " seconds");
+        }
+        return orderIntake.status(customerId, id, Duration.ofSeconds(wait));
+    }
+
     @GetMapping
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<List<OrderResponse>> listOrders(
         @RequestParam Long customerId,
         @RequestParam String startDate,
-        @RequestParam String endDate) {
+        @RequestParam String endDate,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit) {
 
-        LocalDateTime start;
-        LocalDateTime end;
-        try {
-            start = LocalDateTime.parse(startDate);
-            end = LocalDateTime.parse(endDate);
-        } catch (DateTimeParseException e) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid date format. Use ISO_LOCAL_DATE_TIME (e.g., 2025-01-01:00:00)");
+        var start = parseDate(startDate);
+        var end = parseDate(endDate);
+        validateRange(start, end);
+
+        if (cursor == null && limit == null) {
+            List<OrderResponse> orders = orderService.listOrders(customerId, start, end);
+            return ResponseEntity.ok(orders);
         }
 
-        if (start.isAfter(end)) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Start date cannot be after end date");
+        // Paged, the cursor of the next page is returned in a header so the body stays a plain array
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        var page = orderService.listOrders(customerId, start, end, cursor == null ? null : OrderCursor.decode(cursor), pageSize);
+        var response = ResponseEntity.ok();
+        if (page.next() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.next().encode());
         }
+        return response.body(page.orders());
+    }
+
+    // Writes one JSON order per line as they are read, memory and time to first byte do not depend on the range
+    @GetMapping(produces = NDJSON_VALUE)
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<StreamingResponseBody> streamOrders(
+        @RequestParam Long customerId,
+        @RequestParam String startDate,
+        @RequestParam String endDate) {
 
-        List<OrderResponse> orders = orderService.listOrders(customerId, start, end);
-        return ResponseEntity.ok(orders);
+        var start = parseDate(startDate);
+        var end = parseDate(endDate);
+        validateRange(start, end);
+
+        // Authorized and the first page read before the response starts, the rest is read while it is written
+        var orders = orderService.streamOrders(customerId, start, end);
+        StreamingResponseBody body = outputStream -> {
+            var writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (var generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+                orders.forEach(order -> {
+                    try {
+                        writer.writeValue(generator, order);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (generator.getOutputContext().getEntryCount() > 0) {
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_VALUE)).body(body);
+    }
+
+    // Pushes the customer's orders as their status changes, instead of polling the list
+    @GetMapping(path = "/updates", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @SecurityRequirement(name = "bearerAuth")
+    public SseEmitter streamUpdates(@RequestParam Long customerId) {
+        return orderUpdates.subscribe(customerId);
     }
 
     @DeleteMapping("/{customerId}/orders/{orderId}")
@@ -69,4 +178,18 @@ public class OrderController {
         orderService.deleteOrder(customerId, orderId);
         return ResponseEntity.ok("Order successfully canceled and relevant balances updated.");
     }
+
+    private LocalDateTime parseDate(String date) {
+        try {
+            return LocalDateTime.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid date format. Use ISO_LOCAL_DATE_TIME (e.g., 2025-01-01:00:00)");
+        }
+    }
+
+    private void validateRange(LocalDateTime start, LocalDateTime end) {
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Start date cannot be after end date");
+        }
+    }
 }
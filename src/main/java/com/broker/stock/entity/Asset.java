@@ -1,17 +1,17 @@
 package com.broker.stock.entity;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
-
 @Entity
 @Table(name = "asset")
 @Data
@@ -20,7 +20,9 @@ import java.math.BigDecimal;
 public class Asset {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Ids are handed out in blocks of 50 per sequence call, which lets Hibernate batch the inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asset_seq")
+    @SequenceGenerator(name = "asset_seq", sequenceName = "asset_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "customer_id", nullable = false)
@@ -29,9 +31,11 @@ public class Asset {
     @Column(name = "asset_name", nullable = false)
     private String assetName;
 
+    @Convert(converter = FixedPointConverter.class)
     @Column(name = "size", nullable = false, precision = 20, scale = 8)
-    private BigDecimal size;
+    private long size;
 
+    @Convert(converter = FixedPointConverter.class)
     @Column(name = "usable_size", nullable = false, precision = 20, scale = 8)
-    private BigDecimal usableSize;
+    private long usableSize;
 }
@@ -0,0 +1,24 @@
+package com.broker.stock.entity;
+
+import com.broker.stock.util.FixedPoint;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps {@link FixedPoint} scaled longs to {@code DECIMAL(20, 8)} columns.
+ */
+@Converter
+public class FixedPointConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long attribute) {
+        return attribute == null ? null : FixedPoint.toBigDecimal(attribute);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal dbData) {
+        return dbData == null ? null : FixedPoint.of(dbData);
+    }
+}
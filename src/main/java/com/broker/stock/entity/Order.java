@@ -3,18 +3,19 @@ package com.broker.stock.entity;
 import com.broker.stock.constant.OrderSide;
 import com.broker.stock.constant.OrderStatus;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
@@ -25,7 +26,9 @@ import java.time.LocalDateTime;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Ids are handed out in blocks of 50 per sequence call, which lets Hibernate batch the inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "customer_id", nullable = false)
@@ -38,11 +41,17 @@ public class Order {
     @Column(name = "order_side", nullable = false)
     private OrderSide orderSide;
 
+    @Convert(converter = FixedPointConverter.class)
     @Column(name = "size", nullable = false, precision = 20, scale = 8)
-    private BigDecimal size;
+    private long size;
 
+    @Convert(converter = FixedPointConverter.class)
     @Column(name = "price", nullable = false, precision = 20, scale = 8)
-    private BigDecimal price;
+    private long price;
+
+    @Convert(converter = FixedPointConverter.class)
+    @Column(name = "filled_size", nullable = false, precision = 20, scale = 8)
+    private long filledSize;
 
     @Enumerated(EnumType.STRING) // Store enum as a string in the database
     @Column(name = "status", nullable = false)
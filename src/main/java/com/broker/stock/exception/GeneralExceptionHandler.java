@@ -1,7 +1,10 @@
 package com.broker.stock.exception;
 
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
@@ -29,6 +32,20 @@ public class GeneralExceptionHandler {
         return new ResponseEntity<>(errorDetails, HttpStatus.NOT_ACCEPTABLE);
     }
 
+    @ExceptionHandler(ArithmeticException.class)
+    public ResponseEntity<ErrorDetails> handleArithmeticException(ArithmeticException ex, WebRequest request) {
+        // Amounts are kept as scaled longs, values beyond their range are rejected instead of overflowing
+        ErrorDetails errorDetails = new ErrorDetails(LocalDateTime.now(), "Amount out of range: " + ex.getMessage(), request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler({DataAccessResourceFailureException.class, CannotCreateTransactionException.class})
+    public ResponseEntity<ErrorDetails> handleConnectionFailure(RuntimeException ex, WebRequest request) {
+        // No connection within the timeout, the pool or its permits were exhausted or the database is down
+        ErrorDetails errorDetails = new ErrorDetails(LocalDateTime.now(), "Database is busy, please retry.", request.getDescription(false));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(errorDetails);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         // Extract validation errors
@@ -45,7 +62,7 @@ public class GeneralExceptionHandler {
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<ErrorDetails> handleResponseStatusException(ResponseStatusException ex) {
         ErrorDetails errorDetails = new ErrorDetails(LocalDateTime.now(), ex.getReason(), null);
-        return new ResponseEntity<>(errorDetails, ex.getStatusCode());
+        return new ResponseEntity<>(errorDetails, ex.getHeaders(), ex.getStatusCode());
     }
 
     @ExceptionHandler(MissingServletRequestParameterException.class)
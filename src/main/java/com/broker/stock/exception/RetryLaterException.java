@@ -0,0 +1,26 @@
+package com.broker.stock.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * Answers 503 with a Retry-After header, telling clients when the request is worth sending again.
+ */
+public class RetryLaterException extends ResponseStatusException {
+
+    private final HttpHeaders headers = new HttpHeaders();
+
+    public RetryLaterException(String reason, Duration retryAfter) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+        // Whole seconds, rounded up so clients never come back early
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.plusMillis(999).toSeconds())));
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+}
@@ -4,11 +4,17 @@ import com.broker.stock.constant.OrderStatus;
 import com.broker.stock.entity.Order;
 import com.broker.stock.model.OrderRequest;
 import com.broker.stock.model.OrderResponse;
+import com.broker.stock.util.FixedPoint;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class OrderMapper {
 
+    // (customer_id, create_date) is unique, creation dates are never handed out twice within the process
+    private static final AtomicReference<LocalDateTime> LAST_CREATE_DATE = new AtomicReference<>(LocalDateTime.MIN);
+
     private OrderMapper() {
         // Private constructor to prevent instantiation (utility class)
     }
@@ -24,10 +30,11 @@ public class OrderMapper {
         order.setCustomerId(orderRequest.customerId());
         order.setAssetName(orderRequest.assetName());
         order.setOrderSide(orderRequest.orderSide());
-        order.setSize(orderRequest.size());
-        order.setPrice(orderRequest.price());
+        order.setSize(FixedPoint.of(orderRequest.size()));
+        order.setPrice(FixedPoint.of(orderRequest.price()));
+        order.setFilledSize(0);
         order.setStatus(OrderStatus.PENDING); // Set default status
-        order.setCreateDate(LocalDateTime.now()); // Set current timestamp
+        order.setCreateDate(nextCreateDate()); // Set current timestamp
         return order;
     }
 
@@ -44,7 +51,21 @@ public class OrderMapper {
             .assetName(order.getAssetName())
             .orderSide(order.getOrderSide())
             .status(order.getStatus())
+            .filledSize(FixedPoint.toBigDecimal(order.getFilledSize()))
             .createDate(order.getCreateDate())
             .build();
     }
+
+    /**
+     * Returns the current time, or a microsecond after the last returned date if the clock has not moved past it,
+     * e.g. for the orders of one basket.
+     *
+     * @return a creation date later than every one returned before
+     */
+    public static LocalDateTime nextCreateDate() {
+        return LAST_CREATE_DATE.updateAndGet(last -> {
+            var now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            return now.isAfter(last) ? now : last.plus(1, ChronoUnit.MICROS);
+        });
+    }
 }
@@ -0,0 +1,25 @@
+package com.broker.stock.model;
+
+import com.broker.stock.aspect.CustomerId;
+import com.broker.stock.constant.BatchMode;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * @param customerId the customer all orders belong to
+ * @param mode       how failing orders are handled, the configured default if null
+ * @param orders     the orders in the sequence they are placed
+ */
+public record BatchOrderRequest(
+    @CustomerId
+    @NotNull(message = "Customer ID cannot be null")
+    Long customerId,
+
+    BatchMode mode,
+
+    @NotEmpty(message = "Orders cannot be empty")
+    List<@Valid @NotNull OrderRequest> orders) {
+}
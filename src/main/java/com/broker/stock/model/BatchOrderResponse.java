@@ -0,0 +1,19 @@
+package com.broker.stock.model;
+
+import java.util.List;
+
+/**
+ * @param created number of created orders
+ * @param failed  number of orders that were not placed
+ * @param results one result per requested order, in request order
+ */
+public record BatchOrderResponse(int created, int failed, List<Result> results) {
+
+    /**
+     * @param index position of the order in the request
+     * @param order the created order, null if it failed
+     * @param error why the order was not placed, null if it was created
+     */
+    public record Result(int index, OrderResponse order, String error) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.broker.stock.model;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * @param openTime start of the candle's interval, with its offset so a local time repeated by daylight saving time stays apart
+ * @param volume   total size traded within the interval
+ * @param trades   number of trades within the interval
+ */
+public record Candle(OffsetDateTime openTime,
+                     BigDecimal open,
+                     BigDecimal high,
+                     BigDecimal low,
+                     BigDecimal close,
+                     BigDecimal volume,
+                     int trades) {
+}
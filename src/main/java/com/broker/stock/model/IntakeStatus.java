@@ -0,0 +1,14 @@
+package com.broker.stock.model;
+
+import com.broker.stock.constant.IntakeState;
+
+import java.util.UUID;
+
+/**
+ * @param id    the id the order was accepted under
+ * @param state whether the order is still queued, created or rejected
+ * @param order the created order, null unless it was created
+ * @param error why the order was not placed, null unless it was rejected
+ */
+public record IntakeStatus(UUID id, IntakeState state, OrderResponse order, String error) {
+}
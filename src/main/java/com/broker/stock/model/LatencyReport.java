@@ -0,0 +1,29 @@
+package com.broker.stock.model;
+
+import com.broker.stock.constant.LatencyStage;
+
+import java.util.List;
+
+/**
+ * @param intervalSeconds how long the latencies were recorded for, since startup or the last reset
+ * @param stages          one entry per stage, in lifecycle order
+ */
+public record LatencyReport(double intervalSeconds, List<StageLatency> stages) {
+
+    /**
+     * Latencies are in microseconds, percentiles are accurate to within 1%.
+     *
+     * @param stage         the recorded stage
+     * @param count         number of recorded passes through the stage
+     * @param ratePerSecond passes per second over the interval
+     */
+    public record StageLatency(LatencyStage stage,
+                               long count,
+                               double ratePerSecond,
+                               double meanMicros,
+                               double p50Micros,
+                               double p99Micros,
+                               double p999Micros,
+                               double maxMicros) {
+    }
+}
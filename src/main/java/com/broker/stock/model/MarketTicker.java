@@ -0,0 +1,17 @@
+package com.broker.stock.model;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * @param lastPrice   price of the last trade
+ * @param lastTradeAt when the last trade was committed
+ * @param volume24h   total size traded within the last 24 hours, by hourly candles
+ * @param trades24h   number of trades within the last 24 hours, by hourly candles
+ */
+public record MarketTicker(String assetName,
+                           BigDecimal lastPrice,
+                           OffsetDateTime lastTradeAt,
+                           BigDecimal volume24h,
+                           int trades24h) {
+}
@@ -0,0 +1,8 @@
+package com.broker.stock.model;
+
+public record MatchSummary(int trades,
+                           int matchedOrders,
+                           int chunks,
+                           long durationMillis,
+                           Long lastOrderId) {
+}
@@ -0,0 +1,38 @@
+package com.broker.stock.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position after the last order of a page, orders are listed by creation date and id.
+ *
+ * @param createDate the creation date of the last order
+ * @param id         the id of the last order
+ */
+public record OrderCursor(LocalDateTime createDate, long id) {
+
+    /**
+     * @return the opaque form handed to clients
+     */
+    public String encode() {
+        var value = createDate + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor the opaque form of a cursor
+     * @return the cursor
+     * @throws IllegalArgumentException if the cursor was not returned by {@link #encode()}
+     */
+    public static OrderCursor decode(String cursor) {
+        try {
+            var value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(',');
+            return new OrderCursor(LocalDateTime.parse(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.broker.stock.model;
+
+import java.util.List;
+
+/**
+ * @param orders the orders of the page
+ * @param next   the cursor of the next page, null on the last page
+ */
+public record OrderPage(List<OrderResponse> orders, OrderCursor next) {
+}
@@ -4,6 +4,7 @@ import com.broker.stock.constant.OrderSide;
 import com.broker.stock.constant.OrderStatus;
 import lombok.Builder;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Builder
@@ -12,5 +13,6 @@ public record OrderResponse(Long id,
                             String assetName,
                             OrderSide orderSide,
                             OrderStatus status,
+                            BigDecimal filledSize,
                             LocalDateTime createDate) {
 }
@@ -0,0 +1,4 @@
+package com.broker.stock.model;
+
+public record RefreshRequest(String refreshToken) {
+}
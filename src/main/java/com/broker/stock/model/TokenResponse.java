@@ -0,0 +1,9 @@
+package com.broker.stock.model;
+
+/**
+ * @param accessToken  the JWT to send as bearer token
+ * @param refreshToken the token to get the next access token with, it can be used once
+ * @param expiresIn    seconds until the access token expires
+ */
+public record TokenResponse(String accessToken, String refreshToken, long expiresIn) {
+}
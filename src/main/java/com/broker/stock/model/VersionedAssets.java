@@ -0,0 +1,10 @@
+package com.broker.stock.model;
+
+import java.util.List;
+
+/**
+ * @param version changes whenever the customer's assets change
+ * @param assets  the listed assets
+ */
+public record VersionedAssets(String version, List<AssetResponse> assets) {
+}
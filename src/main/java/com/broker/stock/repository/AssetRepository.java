@@ -3,11 +3,8 @@ package com.broker.stock.repository;
 import com.broker.stock.entity.Asset;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.List;
 import java.util.Optional;
 
 public interface AssetRepository extends JpaRepository<Asset, Long> {
     Optional<Asset> findByCustomerIdAndAssetName(Long customerId, String assetName);
-
-    List<Asset> findByCustomerId(Long customerId);
 }
@@ -2,7 +2,7 @@ package com.broker.stock.service.auth;
 
 import com.broker.stock.repository.CustomerRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -19,10 +19,9 @@ public class CustomUserDetailsService implements UserDetailsService {
         var customer = customerRepository.findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        return User.builder()
-            .username(customer.getUsername())
-            .password(customer.getPassword()) // Password should be encoded
-            .roles(customer.getRole()) // Map role to Spring Security
-            .build();
+        return new CustomerPrincipal(customer.getUsername(),
+            customer.getPassword(), // Password should be encoded
+            AuthorityUtils.createAuthorityList("ROLE_" + customer.getRole()), // Map role to Spring Security
+            customer.getId());
     }
 }
@@ -0,0 +1,22 @@
+package com.broker.stock.service.auth;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * An authenticated user together with the id of its customer, so ownership checks need no lookup by username.
+ */
+@Getter
+public class CustomerPrincipal extends User {
+
+    // Null for tokens issued before the id was part of them
+    private final Long customerId;
+
+    public CustomerPrincipal(String username, String password, Collection<? extends GrantedAuthority> authorities, Long customerId) {
+        super(username, password, authorities);
+        this.customerId = customerId;
+    }
+}
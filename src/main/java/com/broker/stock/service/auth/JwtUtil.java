@@ -2,58 +2,80 @@ package com.broker.stock.service.auth;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Optional;
 
 @Component
 public class JwtUtil {
 
+    // Authorities and customer of the user, so requests can be authenticated and authorized without loading the user
+    public static final String ROLES_CLAIM = "roles";
+    public static final String CUSTOMER_ID_CLAIM = "customerId";
+
     @Value("${jwt.secret.key}")
     private String secretKeyString;
 
+    // Short-lived, clients get the next one with their refresh token instead of logging in again
+    @Getter
+    @Value("${jwt.access-token.validity:15m}")
+    private Duration accessTokenValidity = Duration.ofMinutes(15);
+
     private Key secretKey;
 
+    private JwtParser jwtParser;
+
     @PostConstruct
     public void init() {
         // Convert the raw secret key string into a Key instance
         this.secretKey = Keys.hmacShaKeyFor(secretKeyString.getBytes());
+        // The parser is immutable and thread-safe, it is built once instead of per token
+        this.jwtParser = Jwts.parserBuilder()
+            .setSigningKey(secretKey)
+            .build();
     }
 
-    public String generateToken(String username) {
+    public String generateToken(String username, Collection<? extends GrantedAuthority> authorities, Long customerId) {
         return Jwts.builder()
             .setSubject(username)
+            .claim(ROLES_CLAIM, authorities.stream().map(GrantedAuthority::getAuthority).toList())
+            .claim(CUSTOMER_ID_CLAIM, customerId)
             .setIssuedAt(new Date())
-            .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // Token valid for 10 hours
+            .setExpiration(new Date(System.currentTimeMillis() + accessTokenValidity.toMillis()))
             .signWith(secretKey) // Use Key instance directly
             .compact();
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifies the signature and expiration of a token.
+     *
+     * @param token the compact JWT
+     * @return the claims of the token, or empty if it is invalid
+     */
+    public Optional<Claims> parseToken(String token) {
         try {
-            Jwts.parser()
-                .setSigningKey(secretKey)          // Use secretKey to verify the token
-                .parseClaimsJws(token);            // Parse and validate the token
-            return true;
+            return Optional.of(jwtParser.parseClaimsJws(token).getBody());
         } catch (JwtException | IllegalArgumentException e) {
-            return false;                          // Invalid token
+            return Optional.empty();                // Invalid token
         }
     }
 
-    public String getUsernameFromToken(String token) {
-        return getClaimsFromToken(token).getSubject(); // Extract the 'sub' (subject/username) field
+    public boolean validateToken(String token) {
+        return parseToken(token).isPresent();
     }
 
-    private Claims getClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-            .setSigningKey(secretKeyString.getBytes()) // Use secret key to parse the token
-            .build()
-            .parseClaimsJws(token)
-            .getBody(); // Extract claims from the token
+    public String getUsernameFromToken(String token) {
+        return jwtParser.parseClaimsJws(token).getBody().getSubject(); // Extract the 'sub' (subject/username) field
     }
 }
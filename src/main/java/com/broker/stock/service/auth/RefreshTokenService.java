@@ -0,0 +1,132 @@
+package com.broker.stock.service.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Issues single-use refresh tokens, so clients get new access tokens without sending their password again.
+ * <p>
+ * A refresh token is a random value, only its SHA-256 hash is stored. Redeeming it costs a select and a delete by
+ * primary key instead of a BCrypt comparison. Nothing is kept in memory, the table holds every valid token across
+ * restarts and the customer's role is read with the token, a role changed since the login applies to the next access
+ * token. Every refresh rotates the token, the redeemed one is rejected from then on.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private static final String INSERT_SQL = "INSERT INTO refresh_token (token_hash, customer_id, expires_at) VALUES (?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM refresh_token WHERE token_hash = ?";
+    private static final String SELECT_SQL = "SELECT c.id, c.username, c.role, t.expires_at FROM refresh_token t JOIN customer c ON c.id = t.customer_id WHERE t.token_hash = ?";
+    private static final String PURGE_SQL = "DELETE FROM refresh_token WHERE expires_at <= ?";
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration validity;
+
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(JdbcTemplate jdbcTemplate,
+                               @Value("${jwt.refresh-token.validity:7d}") Duration validity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.validity = validity;
+    }
+
+    private record IssuedToken(CustomerPrincipal principal, long expiresAt) {
+    }
+
+    /**
+     * @param principal    the customer the access token is issued to
+     * @param refreshToken the token replacing the redeemed one
+     */
+    public record Refreshed(CustomerPrincipal principal, String refreshToken) {
+    }
+
+    /**
+     * Issues a refresh token for an authenticated customer.
+     *
+     * @param principal the customer
+     * @return the refresh token, it is only returned here
+     */
+    // Transactional to insert on the connection the request already holds, not on a second one of the pool
+    @Transactional
+    public String issue(CustomerPrincipal principal) {
+        var bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        var token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        var hash = hash(token);
+        long expiresAt = System.currentTimeMillis() + validity.toMillis();
+
+        jdbcTemplate.update(INSERT_SQL, hash, principal.getCustomerId(), new Timestamp(expiresAt));
+        return token;
+    }
+
+    /**
+     * Redeems a refresh token and issues the next one.
+     *
+     * @param refreshToken the token to redeem
+     * @return the customer and the new refresh token, or empty if the token is unknown, expired or already redeemed
+     */
+    @Transactional
+    public Optional<Refreshed> refresh(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return Optional.empty();
+        }
+        var hash = hash(refreshToken);
+        var issued = load(hash);
+        // Deleting the row makes the token single-use, also for tokens redeemed concurrently
+        if (issued.isEmpty() || jdbcTemplate.update(DELETE_SQL, hash) == 0) {
+            return Optional.empty();
+        }
+        if (issued.get().expiresAt() <= System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+
+        var principal = issued.get().principal();
+        return Optional.of(new Refreshed(principal, issue(principal)));
+    }
+
+    /**
+     * Removes expired tokens, they are rejected anyway but would stay in the table.
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.purge-interval:1h}", initialDelayString = "${jwt.refresh-token.purge-interval:1h}")
+    public void purgeExpired() {
+        int purged = jdbcTemplate.update(PURGE_SQL, new Timestamp(System.currentTimeMillis()));
+        log.debug("Purged {} expired refresh tokens", purged);
+    }
+
+    // The password is never needed again, the principal only carries the customer and its current role
+    private Optional<IssuedToken> load(String hash) {
+        return jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new IssuedToken(
+                new CustomerPrincipal(rs.getString(2), "", AuthorityUtils.createAuthorityList("ROLE_" + rs.getString(3)),
+                    rs.getLong(1)),
+                rs.getTimestamp(4).getTime()), hash)
+            .stream()
+            .findFirst();
+    }
+
+    private static String hash(String token) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
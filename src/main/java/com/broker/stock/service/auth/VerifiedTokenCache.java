@@ -0,0 +1,124 @@
+package com.broker.stock.service.auth;
+
+import com.broker.stock.constant.LatencyStage;
+import com.broker.stock.service.metrics.LatencyMetrics;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Users of tokens whose signature has already been verified, kept until the token expires.
+ * <p>
+ * The authorities and the customer id come from the claims of the token, so a request with a known token costs one
+ * map lookup and neither a signature check nor a database query. Tokens issued without the roles claim are resolved
+ * through the {@link UserDetailsService} once. Invalid tokens are never cached.
+ */
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+
+    private final JwtUtil jwtUtil;
+    private final UserDetailsService userDetailsService;
+    private final LatencyMetrics latencyMetrics;
+    private final int maximumSize;
+
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+
+    public VerifiedTokenCache(JwtUtil jwtUtil,
+                              UserDetailsService userDetailsService,
+                              LatencyMetrics latencyMetrics,
+                              @Value("${jwt.cache.maximum-size:10000}") int maximumSize) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.latencyMetrics = latencyMetrics;
+        this.maximumSize = Math.max(1, maximumSize);
+    }
+
+    private record VerifiedToken(UserDetails userDetails, long expiresAt) {
+    }
+
+    /**
+     * Returns the user a token was issued to.
+     *
+     * @param token the compact JWT
+     * @return the user, or empty if the token is invalid, expired or its user no longer exists
+     */
+    public Optional<UserDetails> verify(String token) {
+        long start = System.nanoTime();
+        try {
+            return lookup(token);
+        } finally {
+            latencyMetrics.record(LatencyStage.JWT_VALIDATION, start);
+        }
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    private Optional<UserDetails> lookup(String token) {
+        long now = System.currentTimeMillis();
+        var verified = tokens.get(token);
+        if (verified != null) {
+            if (verified.expiresAt() > now) {
+                return Optional.of(verified.userDetails());
+            }
+            tokens.remove(token, verified);
+            return Optional.empty();
+        }
+
+        var claims = jwtUtil.parseToken(token);
+        if (claims.isEmpty()) {
+            return Optional.empty();
+        }
+        var userDetails = toUserDetails(claims.get());
+        if (userDetails.isPresent()) {
+            var expiration = claims.get().getExpiration();
+            evictIfFull(now);
+            tokens.put(token, new VerifiedToken(userDetails.get(), expiration == null ? Long.MAX_VALUE : expiration.getTime()));
+        }
+        return userDetails;
+    }
+
+    private Optional<UserDetails> toUserDetails(Claims claims) {
+        if (claims.get(JwtUtil.ROLES_CLAIM) instanceof Collection<?> roles) {
+            return Optional.of(new CustomerPrincipal(claims.getSubject(),
+                "", // Never checked, the token is the credential
+                AuthorityUtils.createAuthorityList(roles.stream().map(String::valueOf).toList()),
+                claims.get(JwtUtil.CUSTOMER_ID_CLAIM, Long.class)));
+        }
+
+        // Issued before the roles were part of the token
+        try {
+            return Optional.of(userDetailsService.loadUserByUsername(claims.getSubject()));
+        } catch (UsernameNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    private void evictIfFull(long now) {
+        if (tokens.size() < maximumSize) {
+            return;
+        }
+        tokens.values().removeIf(verified -> verified.expiresAt() <= now);
+
+        // Still full of live tokens, drop some more so the sweep does not run on every insert. They are verified
+        // again on their next use
+        var iterator = tokens.keySet().iterator();
+        while (tokens.size() > maximumSize * 9 / 10 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        log.debug("Evicted verified tokens down to {}", tokens.size());
+    }
+}
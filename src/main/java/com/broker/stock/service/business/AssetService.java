@@ -5,39 +5,440 @@ import com.broker.stock.aspect.CustomerId;
 import com.broker.stock.entity.Asset;
 import com.broker.stock.model.AssetResponse;
 import com.broker.stock.repository.AssetRepository;
-import lombok.RequiredArgsConstructor;
+import com.broker.stock.util.FixedPoint;
+import com.broker.stock.model.VersionedAssets;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Serves customer balances from an in-memory cache with write-behind persistence.
+ * <p>
+ * Inside a transaction every asset is handed out as a working copy of that transaction, {@link #save(Asset)} only
+ * marks it dirty. The dirty rows are written in one JDBC batch right before the transaction commits, so they are
+ * committed atomically with the orders that caused them and the cache can always be rebuilt from the database.
+ * Only {@link #reserve(Long, String, long) reservations} are written right away, the database decides whether they fit.
+ * The cache mirrors the committed rows as long as every asset write goes through this service.
+ * <p>
+ * Every published change of a customer's assets moves the customer's version on. Asset lists are cached per version,
+ * a list is reused until the customer's assets change and never served once they did.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class AssetService {
 
+    private static final String UPDATE_BALANCE_SQL = "UPDATE asset SET size = size + ?, usable_size = usable_size + ? WHERE id = ?";
+    private static final String RESERVE_SQL = "UPDATE asset SET usable_size = usable_size - ? WHERE customer_id = ? AND asset_name = ? AND usable_size >= ?";
+    // Usable sizes are listed with 4 fraction digits, rounded half up by the cast
+    private static final String LIST_SQL = "SELECT customer_id, asset_name, size, CAST(usable_size AS DECIMAL(20, 4)) FROM asset WHERE customer_id = ?";
+    // Seek the (customer_id, asset_name_key) and (customer_id, usable_size) indexes
+    private static final String ASSET_NAME_FILTER = " AND asset_name_key = UPPER(?)";
+    private static final String MIN_USABLE_SIZE_FILTER = " AND usable_size >= ?";
+
+    private static final RowMapper<AssetResponse> ASSET_MAPPER = (rs, rowNum) -> new AssetResponse(
+        rs.getLong(1),
+        rs.getString(2),
+        rs.getBigDecimal(3),
+        rs.getBigDecimal(4));
+
     private final AssetRepository assetRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Committed balances per customer
+    private final Map<Long, CustomerBalances> balances = new ConcurrentHashMap<>();
+
+    // Versions restart with the process, this tells them apart from the versions of an earlier run
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AssetListCache listCache;
 
+    public AssetService(AssetRepository assetRepository,
+                        JdbcTemplate jdbcTemplate,
+                        @Value("${order.assets.list-cache.maximum-assets:100000}") int listCacheMaximumAssets) {
+        this.assetRepository = assetRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.listCache = new AssetListCache(listCacheMaximumAssets);
+    }
+
+    /**
+     * Returns an asset of a customer. Inside a transaction the same working copy is returned until the transaction ends.
+     *
+     * @param customerId the customer ID
+     * @param assetName  the asset name
+     * @return the asset, or empty if the customer does not hold it
+     */
     public Optional<Asset> getAsset(Long customerId, String assetName) {
-        return assetRepository.findByCustomerIdAndAssetName(customerId, assetName);
+        var changes = currentChanges();
+        if (changes == null) {
+            return committedAsset(customerId, assetName);
+        }
+
+        var tracked = changes.get(customerId, assetName);
+        if (tracked != null) {
+            return Optional.of(tracked);
+        }
+        return committedAsset(customerId, assetName).map(changes::track);
     }
 
+    /**
+     * Saves an asset. Inside a transaction the write is deferred to the commit, otherwise it is written through.
+     *
+     * @param asset the asset to save
+     */
     public void save(Asset asset) {
-        assetRepository.save(asset);
+        var changes = currentChanges();
+        if (changes == null) {
+            assetRepository.save(asset);
+            customer(asset.getCustomerId()).evict(asset.getAssetName());
+            return;
+        }
+        changes.markDirty(asset);
     }
 
+    /**
+     * Reserves part of an asset's usable size with one conditional update that only succeeds while enough is left.
+     * The row stays locked until the transaction ends, so concurrent reservations of the same asset queue up
+     * instead of spending the same balance twice.
+     *
+     * @param customerId the customer ID
+     * @param assetName  the asset name
+     * @param amount     the amount to reserve as a {@link FixedPoint} value
+     * @return true if the amount was reserved, false if the asset is missing or has not enough usable size
+     */
+    public boolean reserve(Long customerId, String assetName, long amount) {
+        var changes = currentChanges();
+        if (changes != null) {
+            // Track the committed row before the update, read afterwards it would already contain the reservation
+            getAsset(customerId, assetName);
+        }
+        var value = FixedPoint.toBigDecimal(amount);
+        if (jdbcTemplate.update(RESERVE_SQL, value, customerId, assetName, value) == 0) {
+            return false;
+        }
+
+        if (changes == null) {
+            customer(customerId).evict(assetName);
+        } else {
+            changes.reserved(customerId, assetName, amount);
+        }
+        return true;
+    }
+
+    /**
+     * Fills the cache with committed balances, e.g. restored from a snapshot on startup.
+     * Assets without an id are skipped, they are loaded from the database on first use.
+     *
+     * @param assets the committed assets
+     */
+    public void warm(Collection<Asset> assets) {
+        for (Asset asset : assets) {
+            if (asset.getId() != null) {
+                var customer = customer(asset.getCustomerId());
+                synchronized (customer) {
+                    customer.assets.putIfAbsent(asset.getAssetName(), copy(asset));
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the committed assets of a customer. The filters are part of the query and the rows are read straight into
+     * responses, without loading entities. Lists are served from the cache until the customer's assets change.
+     *
+     * @param customerId    the customer ID
+     * @param assetName     only the asset of this name, ignoring case, if given
+     * @param minUsableSize only assets with at least this usable size, if given
+     * @return the matching assets and the version of the customer's assets they were read at or after
+     */
     @AuthorizeCustomer
-    public List<AssetResponse> listAssets(@CustomerId Long customerId, String assetName, BigDecimal minUsableSize) {
-        List<Asset> customerAssets = assetRepository.findByCustomerId(customerId);
-
-        // Apply optional filters if provided
-        return customerAssets.stream()
-            .filter(asset -> assetName == null || asset.getAssetName().equalsIgnoreCase(assetName)) // Filter by asset name
-            .filter(asset -> minUsableSize == null || asset.getUsableSize().compareTo(minUsableSize) >= 0)
-            .map(asset -> new AssetResponse(asset.getCustomerId(),
-                asset.getAssetName(),
-                asset.getSize(),
-                asset.getUsableSize().setScale(4)))// Filter by usable size
-            .toList();
+    public VersionedAssets listAssets(@CustomerId Long customerId, String assetName, BigDecimal minUsableSize) {
+        // Read before the query, a change committed meanwhile is either part of the rows or moves the version on
+        long version = version(customerId);
+        var key = new ListKey(customerId, version,
+            assetName == null ? null : assetName.toUpperCase(Locale.ROOT),
+            minUsableSize == null ? null : minUsableSize.stripTrailingZeros());
+        var assets = listCache.get(key);
+        if (assets == null) {
+            assets = List.copyOf(queryAssets(customerId, assetName, minUsableSize));
+            listCache.put(key, assets);
+        }
+        return new VersionedAssets(epoch + "-" + version, assets);
+    }
+
+    private List<AssetResponse> queryAssets(Long customerId, String assetName, BigDecimal minUsableSize) {
+        var sql = new StringBuilder(LIST_SQL);
+        List<Object> args = new ArrayList<>(3);
+        args.add(customerId);
+        if (assetName != null) {
+            sql.append(ASSET_NAME_FILTER);
+            args.add(assetName);
+        }
+        if (minUsableSize != null) {
+            sql.append(MIN_USABLE_SIZE_FILTER);
+            args.add(minUsableSize);
+        }
+        return jdbcTemplate.query(sql.toString(), ASSET_MAPPER, args.toArray());
+    }
+
+    private long version(Long customerId) {
+        var customer = customer(customerId);
+        synchronized (customer) {
+            return customer.version;
+        }
+    }
+
+    private Optional<Asset> committedAsset(Long customerId, String assetName) {
+        var customer = customer(customerId);
+        long version;
+        synchronized (customer) {
+            var asset = customer.assets.get(assetName);
+            if (asset != null) {
+                return Optional.of(copy(asset));
+            }
+            version = customer.version;
+        }
+
+        var loaded = assetRepository.findByCustomerIdAndAssetName(customerId, assetName).map(AssetService::copy);
+        synchronized (customer) {
+            // A commit that started meanwhile may or may not be part of the loaded row, only cache it if there was none
+            if (loaded.isPresent() && customer.commitsInFlight == 0 && customer.version == version) {
+                customer.assets.putIfAbsent(assetName, loaded.get());
+            }
+        }
+        return loaded.map(AssetService::copy);
+    }
+
+    private CustomerBalances customer(Long customerId) {
+        return balances.computeIfAbsent(customerId, id -> new CustomerBalances());
+    }
+
+    private PendingChanges currentChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        var changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        return changes;
+    }
+
+    private static Asset copy(Asset asset) {
+        return new Asset(asset.getId(), asset.getCustomerId(), asset.getAssetName(), asset.getSize(), asset.getUsableSize());
+    }
+
+    /**
+     * Cached balances of a customer, guarded by the instance's monitor. The version changes with every published
+     * commit and no row is cached while a commit of the customer is between its flush and its publication.
+     */
+    private static class CustomerBalances {
+        private final Map<String, Asset> assets = new HashMap<>();
+        private long version;
+        private int commitsInFlight;
+
+        synchronized void evict(String assetName) {
+            assets.remove(assetName);
+            version++;
+        }
+    }
+
+    private record AssetKey(Long customerId, String assetName) {
+    }
+
+    private record ListKey(Long customerId, long version, String assetName, BigDecimal minUsableSize) {
+    }
+
+    /**
+     * Least recently used asset lists, bounded by the number of assets they hold together. Lists of an older version
+     * are never asked for again and age out.
+     */
+    private static class AssetListCache {
+        private final int maximumAssets;
+        private final LinkedHashMap<ListKey, List<AssetResponse>> lists = new LinkedHashMap<>(16, 0.75f, true);
+        private int cachedAssets;
+
+        AssetListCache(int maximumAssets) {
+            this.maximumAssets = maximumAssets;
+        }
+
+        synchronized List<AssetResponse> get(ListKey key) {
+            return lists.get(key);
+        }
+
+        synchronized void put(ListKey key, List<AssetResponse> assets) {
+            // An empty list costs an entry, count it as one asset
+            int weight = Math.max(1, assets.size());
+            if (weight > maximumAssets) {
+                return;
+            }
+            var previous = lists.put(key, assets);
+            cachedAssets += weight - (previous == null ? 0 : Math.max(1, previous.size()));
+            var iterator = lists.values().iterator();
+            while (cachedAssets > maximumAssets) {
+                cachedAssets -= Math.max(1, iterator.next().size());
+                iterator.remove();
+            }
+        }
+    }
+
+    private static class TrackedAsset {
+        private final Asset committed;
+        private Asset working;
+        private boolean dirty;
+        // Part of the usable size change that was already written by a reservation
+        private long reservedUsableSize;
+
+        TrackedAsset(Asset committed, Asset working) {
+            this.committed = committed;
+            this.working = working;
+        }
+
+        // Assets that were not read through this service are written as a whole
+        boolean isNew() {
+            return committed == null;
+        }
+
+        long sizeDelta() {
+            return Math.subtractExact(working.getSize(), committed.getSize());
+        }
+
+        long usableSizeDelta() {
+            return Math.subtractExact(working.getUsableSize(), committed.getUsableSize());
+        }
+    }
+
+    /**
+     * Working copies of one transaction, flushed before commit and published to the cache after commit.
+     */
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final Map<AssetKey, TrackedAsset> tracked = new LinkedHashMap<>();
+        private final List<CustomerBalances> committingCustomers = new ArrayList<>();
+
+        Asset get(Long customerId, String assetName) {
+            var trackedAsset = tracked.get(new AssetKey(customerId, assetName));
+            return trackedAsset == null ? null : trackedAsset.working;
+        }
+
+        Asset track(Asset committed) {
+            var working = copy(committed);
+            tracked.put(new AssetKey(committed.getCustomerId(), committed.getAssetName()), new TrackedAsset(committed, working));
+            return working;
+        }
+
+        void reserved(Long customerId, String assetName, long amount) {
+            var trackedAsset = tracked.get(new AssetKey(customerId, assetName));
+            if (trackedAsset == null) {
+                // Created by another transaction between the read and the update, its committed row is unknown
+                throw new IllegalStateException("Reserved asset " + assetName + " of customer " + customerId + " was not visible before.");
+            }
+            trackedAsset.working.setUsableSize(trackedAsset.working.getUsableSize() - amount);
+            trackedAsset.reservedUsableSize += amount;
+            trackedAsset.dirty = true;
+        }
+
+        void markDirty(Asset asset) {
+            var trackedAsset = tracked.computeIfAbsent(new AssetKey(asset.getCustomerId(), asset.getAssetName()),
+                key -> new TrackedAsset(null, asset));
+            trackedAsset.working = asset;
+            trackedAsset.dirty = true;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            var dirtyAssets = tracked.values().stream().filter(trackedAsset -> trackedAsset.dirty).toList();
+            if (dirtyAssets.isEmpty()) {
+                return;
+            }
+
+            // Until the cache is updated nobody may cache a row that already contains this commit,
+            // the change would be applied to it twice
+            dirtyAssets.stream()
+                .map(trackedAsset -> customer(trackedAsset.working.getCustomerId()))
+                .distinct()
+                .forEach(customer -> {
+                    synchronized (customer) {
+                        customer.commitsInFlight++;
+                    }
+                    committingCustomers.add(customer);
+                });
+
+            List<Object[]> updates = new ArrayList<>();
+            List<Asset> inserts = new ArrayList<>();
+            for (TrackedAsset trackedAsset : dirtyAssets) {
+                if (trackedAsset.isNew()) {
+                    inserts.add(trackedAsset.working);
+                } else {
+                    // Deltas instead of absolute values keep concurrent commits of the same row from overwriting each other
+                    long sizeDelta = trackedAsset.sizeDelta();
+                    long usableSizeDelta = trackedAsset.usableSizeDelta() + trackedAsset.reservedUsableSize;
+                    if (sizeDelta != 0 || usableSizeDelta != 0) {
+                        updates.add(new Object[]{FixedPoint.toBigDecimal(sizeDelta), FixedPoint.toBigDecimal(usableSizeDelta), trackedAsset.working.getId()});
+                    }
+                }
+            }
+
+            if (!updates.isEmpty()) {
+                int[] counts = jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, updates);
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        throw new IllegalStateException("Asset " + updates.get(i)[2] + " no longer exists.");
+                    }
+                }
+            }
+            if (!inserts.isEmpty()) {
+                assetRepository.saveAll(inserts);
+            }
+            log.debug("Flushed {} asset updates and {} inserts", updates.size(), inserts.size());
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                for (CustomerBalances customer : committingCustomers) {
+                    synchronized (customer) {
+                        if (status == STATUS_COMMITTED) {
+                            tracked.values().stream()
+                                .filter(trackedAsset -> trackedAsset.dirty && customer(trackedAsset.working.getCustomerId()) == customer)
+                                .forEach(trackedAsset -> publish(customer, trackedAsset));
+                        }
+                        customer.version++;
+                        customer.commitsInFlight--;
+                    }
+                }
+            } finally {
+                TransactionSynchronizationManager.unbindResourceIfPossible(AssetService.this);
+            }
+        }
+
+        private void publish(CustomerBalances customer, TrackedAsset trackedAsset) {
+            var working = trackedAsset.working;
+            if (trackedAsset.isNew()) {
+                customer.assets.put(working.getAssetName(), copy(working));
+                return;
+            }
+            // Other commits may have changed the row since it was read, apply only this transaction's delta
+            customer.assets.computeIfPresent(working.getAssetName(), (assetName, cached) -> new Asset(cached.getId(),
+                cached.getCustomerId(),
+                assetName,
+                cached.getSize() + trackedAsset.sizeDelta(),
+                cached.getUsableSize() + trackedAsset.usableSizeDelta()));
+        }
     }
 }
@@ -0,0 +1,93 @@
+package com.broker.stock.service.business;
+
+import static com.broker.stock.constant.AssetConstants.TRY;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.entity.Asset;
+import com.broker.stock.model.OrderRequest;
+import com.broker.stock.service.business.strategy.BuyOrderHandler;
+import com.broker.stock.service.business.strategy.OrderHandlerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reservations of the orders of one customer's basket, planned against balances that are read once per asset.
+ * <p>
+ * Orders are checked one after another by the same {@link com.broker.stock.service.business.strategy.OrderHandler} rules
+ * as single orders, each accepted order lowers the usable size left for the next ones. {@link #reserve()} then writes one reservation per asset for the whole basket. The customer has
+ * to be locked for the balances to stay valid between planning and reserving.
+ */
+class Basket {
+
+    private final AssetService assetService;
+    private final OrderHandlerFactory handlerFactory;
+    private final Long customerId;
+
+    // Usable size left per asset, empty if the customer does not hold it
+    private final Map<String, Optional<Long>> usable = new HashMap<>();
+    private final Map<String, Long> reservations = new LinkedHashMap<>();
+    private final Set<String> boughtAssets = new LinkedHashSet<>();
+
+    Basket(AssetService assetService, OrderHandlerFactory handlerFactory, Long customerId) {
+        this.assetService = assetService;
+        this.handlerFactory = handlerFactory;
+        this.customerId = customerId;
+    }
+
+    /**
+     * Checks an order and plans its reservation. A rejected order leaves the basket unchanged.
+     *
+     * @param orderRequest the order
+     * @throws IllegalArgumentException if the order is invalid or a sold asset is not sufficient
+     * @throws IllegalStateException    if the TRY balance is not sufficient
+     */
+    void add(OrderRequest orderRequest) {
+        if (!customerId.equals(orderRequest.customerId())) {
+            throw new IllegalArgumentException("All orders of a batch must belong to customer " + customerId + ".");
+        }
+
+        var orderHandler = handlerFactory.getHandler(orderRequest.orderSide());
+        var reservation = orderHandler.reservation(orderRequest, usable(TRY).isPresent());
+        var assetUsable = usable(reservation.assetName());
+        if (assetUsable.isEmpty() || assetUsable.get() < reservation.amount()) {
+            throw orderHandler.insufficientBalance();
+        }
+
+        // Both are computed before either is written, so an overflow leaves the basket unchanged
+        long usableLeft = assetUsable.get() - reservation.amount();
+        long reserved = Math.addExact(reservations.getOrDefault(reservation.assetName(), 0L), reservation.amount());
+        usable.put(reservation.assetName(), Optional.of(usableLeft));
+        reservations.put(reservation.assetName(), reserved);
+        if (orderRequest.orderSide() == OrderSide.BUY) {
+            boughtAssets.add(orderRequest.assetName());
+        }
+    }
+
+    /**
+     * Reserves the planned amounts, one conditional update per asset, and initializes the bought assets the customer
+     * does not hold yet.
+     *
+     * @throws IllegalStateException if a balance changed since it was read, i.e. the customer was not locked
+     */
+    void reserve() {
+        reservations.forEach((assetName, amount) -> {
+            if (!assetService.reserve(customerId, assetName, amount)) {
+                throw new IllegalStateException("Insufficient " + assetName + " balance.");
+            }
+        });
+
+        for (String assetName : boughtAssets) {
+            if (usable(assetName).isEmpty()) {
+                assetService.save(BuyOrderHandler.newAsset(customerId, assetName));
+            }
+        }
+    }
+
+    private Optional<Long> usable(String assetName) {
+        return usable.computeIfAbsent(assetName, name -> assetService.getAsset(customerId, name).map(Asset::getUsableSize));
+    }
+}
@@ -0,0 +1,152 @@
+package com.broker.stock.service.business;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Serializes the balance mutations of a customer within this process.
+ * <p>
+ * Customers are mapped onto a fixed set of lock stripes, so a hot account only ever blocks the customers that share
+ * its stripe. Locks are taken for the rest of the current transaction and released once it has completed, so the
+ * next transaction of the customer always starts from committed balances.
+ * <p>
+ * Every transaction takes its stripes in ascending order, so two transactions never wait for each other's stripes.
+ * A transaction that needs more customers later than its first call may only add stripes above the ones it holds,
+ * transactions that cannot know all their customers up front have to be split.
+ * <p>
+ * A transaction holds a pooled connection from its start, one that waits for a hot customer's stripe holds it all the
+ * while. Requests that mutate a single customer therefore take its stripe before they start their transaction, with
+ * {@link #callLocked(Long, Supplier)}, and wait without a connection.
+ */
+@Component
+@Slf4j
+public class CustomerLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutNanos;
+
+    public CustomerLocks(@Value("${order.customer-locks.stripes:1024}") int stripeCount,
+                         @Value("${order.customer-locks.timeout:5s}") Duration timeout) {
+        // Fair locks hand a hot customer's stripe over in arrival order, so no request of it starves
+        this.stripes = IntStream.range(0, stripeCount)
+            .mapToObj(i -> new ReentrantLock(true))
+            .toArray(ReentrantLock[]::new);
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Locks the given customers until the current transaction completes. Stripes that the transaction already holds
+     * are skipped, the others are taken in ascending order.
+     *
+     * @param customerIds the customer IDs
+     * @throws ResponseStatusException with status 503 if a customer stays locked by other transactions for too long
+     * @throws IllegalStateException if a stripe is needed below one the transaction already holds
+     */
+    public void lock(Collection<Long> customerIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Customer locks can only be held within a transaction.");
+        }
+
+        var held = (HeldLocks) TransactionSynchronizationManager.getResource(this);
+        if (held == null) {
+            held = new HeldLocks();
+            TransactionSynchronizationManager.bindResource(this, held);
+            TransactionSynchronizationManager.registerSynchronization(held);
+        }
+
+        var indexes = new TreeSet<Integer>();
+        customerIds.forEach(customerId -> indexes.add(stripe(customerId)));
+        for (int index : indexes) {
+            var lock = stripes[index];
+            if (!lock.isHeldByCurrentThread()) {
+                if (index < held.highest) {
+                    throw new IllegalStateException("Customers " + customerIds + " have to be locked together with the "
+                        + "customers already locked by the transaction.");
+                }
+                acquire(lock, customerIds);
+                held.locks.add(lock);
+                held.highest = index;
+            }
+        }
+    }
+
+    /**
+     * Locks a single customer until the current transaction completes.
+     *
+     * @param customerId the customer ID
+     */
+    public void lock(Long customerId) {
+        lock(List.of(customerId));
+    }
+
+    /**
+     * Locks a single customer, then runs the action, which starts and completes a transaction of its own, and unlocks
+     * the customer once the action has returned or thrown, after its transaction has committed or rolled back.
+     *
+     * @param customerId the customer ID
+     * @param action     the action to run with the customer locked
+     * @return the result of the action
+     * @throws ResponseStatusException with status 503 if the customer stays locked by others for too long
+     * @throws IllegalStateException if a transaction is already active, the lock would be released before it completes
+     */
+    public <T> T callLocked(Long customerId, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Customer " + customerId + " has to be locked before the transaction starts.");
+        }
+
+        var lock = stripes[stripe(customerId)];
+        acquire(lock, List.of(customerId));
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire(ReentrantLock lock, Collection<Long> customerIds) {
+        try {
+            // Only waits for transactions that run long, stripes are always taken in the same order
+            if (!lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                log.warn("Timed out waiting for the lock of customers {}", customerIds);
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Customer is busy, please retry.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the lock of customers " + customerIds, e);
+        }
+    }
+
+    private int stripe(Long customerId) {
+        return Math.floorMod(Long.hashCode(customerId), stripes.length);
+    }
+
+    private class HeldLocks implements TransactionSynchronization {
+
+        private final List<ReentrantLock> locks = new ArrayList<>();
+        private int highest = -1;
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                locks.forEach(ReentrantLock::unlock);
+            } finally {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CustomerLocks.this);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.broker.stock.service.business;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Moves orders that can no longer change out of the orders table.
+ * <p>
+ * Matched and cancelled orders created longer than the retention ago are copied to orders_history and deleted from
+ * orders in batches of consecutive ids, each batch in its own transaction. Order creation, matching and listings of
+ * recent ranges only read the orders table, which keeps the pending and recent orders, so it and its indexes stay
+ * small however long the service runs. Archived orders are still listed, see {@link OrderHistory}, but can no longer
+ * be found by id, canceling one answers that it does not exist instead of that it is not pending.
+ */
+@Component
+@Slf4j
+public class OrderArchiver {
+
+    private static final String ARCHIVABLE = "status IN ('MATCHED', 'CANCELLED') AND create_date < ?";
+    private static final String BATCH_END_SQL = "SELECT MAX(id) FROM (SELECT id FROM orders WHERE " + ARCHIVABLE
+        + " AND id > ? ORDER BY id LIMIT ?)";
+    private static final String COPY_SQL = "INSERT INTO orders_history "
+        + "(id, customer_id, asset_name, order_side, size, price, filled_size, status, create_date) "
+        + "SELECT id, customer_id, asset_name, order_side, size, price, filled_size, status, create_date FROM orders WHERE "
+        + ARCHIVABLE + " AND id > ? AND id <= ?";
+    // Exactly the copied orders, an order that turned terminal after the copy stays for the next run
+    private static final String DELETE_SQL = "DELETE FROM orders WHERE id > ? AND id <= ? "
+        + "AND id IN (SELECT id FROM orders_history WHERE id > ? AND id <= ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderHistory orderHistory;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int batchSize;
+
+    public OrderArchiver(JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         OrderHistory orderHistory,
+                         @Value("${order.archive.enabled:true}") boolean enabled,
+                         @Value("${order.archive.retention:30d}") Duration retention,
+                         @Value("${order.archive.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.orderHistory = orderHistory;
+        this.enabled = enabled;
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${order.archive.interval:10m}", initialDelayString = "${order.archive.interval:10m}")
+    public void archiveScheduled() {
+        if (enabled) {
+            archive(LocalDateTime.now().minus(retention));
+        }
+    }
+
+    /**
+     * Moves the matched and cancelled orders created before the given date to orders_history.
+     *
+     * @param before the creation date the moved orders are older than
+     * @return the number of orders moved
+     */
+    public int archive(LocalDateTime before) {
+        // Listings reach into orders_history before the first order is there, never after
+        orderHistory.archiving(before);
+        var createdBefore = Timestamp.valueOf(before);
+
+        int archived = 0;
+        long lastId = 0;
+        Long batchEnd;
+        while ((batchEnd = jdbcTemplate.queryForObject(BATCH_END_SQL, Long.class, createdBefore, lastId, batchSize)) != null) {
+            long from = lastId;
+            long to = batchEnd;
+            archived += transactionTemplate.execute(status -> {
+                jdbcTemplate.update(COPY_SQL, createdBefore, from, to);
+                return jdbcTemplate.update(DELETE_SQL, from, to, from, to);
+            });
+            lastId = to;
+        }
+        if (archived > 0) {
+            log.info("Archived {} orders created before {}", archived, before);
+        }
+        return archived;
+    }
+}
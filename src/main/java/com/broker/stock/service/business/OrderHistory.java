@@ -0,0 +1,144 @@
+package com.broker.stock.service.business;
+
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.constant.OrderStatus;
+import com.broker.stock.model.OrderCursor;
+import com.broker.stock.model.OrderPage;
+import com.broker.stock.model.OrderResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Reads the orders of a customer in creation order without loading the whole range.
+ * <p>
+ * Pages seek past the last order of the previous page on the (customer_id, create_date) index instead of skipping an
+ * offset, so every page costs the same. Streaming walks the range in such pages: each query is bounded, the first
+ * orders are handed on after one of them and a slow reader does not hold a connection between them.
+ * <p>
+ * Old matched and cancelled orders are moved to orders_history by the {@link OrderArchiver}. Pages that start before
+ * the newest archived order read both tables, each in index order up to the page size, later pages only the orders
+ * table. An order keeps its creation date and id when it is moved, so a cursor stays valid across tables.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderHistory {
+
+    private static final String COLUMNS = "SELECT id, customer_id, asset_name, order_side, status, filled_size, create_date FROM ";
+    // Ordered by customer_id as well, so the rows are read in index order instead of being sorted first
+    private static final String PAGE_WHERE = " WHERE customer_id = ? AND create_date BETWEEN ? AND ? AND (create_date, id) > (?, ?) "
+        + "ORDER BY customer_id, create_date, id LIMIT ?";
+    private static final String PAGE_SQL = COLUMNS + "orders" + PAGE_WHERE;
+    // Only the two bounded runs are merged
+    private static final String ARCHIVED_PAGE_SQL = "SELECT * FROM ((" + COLUMNS + "orders" + PAGE_WHERE + ") UNION ALL ("
+        + COLUMNS + "orders_history" + PAGE_WHERE + ")) ORDER BY create_date, id LIMIT ?";
+    private static final String ARCHIVED_UNTIL_SQL = "SELECT MAX(create_date) FROM orders_history";
+
+    // Orders read per query while streaming
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final RowMapper<OrderResponse> ORDER_MAPPER = (rs, rowNum) -> new OrderResponse(
+        rs.getLong(1),
+        rs.getLong(2),
+        rs.getString(3),
+        OrderSide.valueOf(rs.getString(4)),
+        OrderStatus.valueOf(rs.getString(5)),
+        rs.getBigDecimal(6),
+        rs.getTimestamp(7).toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Orders created at or after this are all in the orders table, read from orders_history on first use
+    private volatile LocalDateTime archivedBefore;
+
+    /**
+     * @param customerId the customer ID
+     * @param startDate  the start of the range, inclusive
+     * @param endDate    the end of the range, inclusive
+     * @param after      the cursor of the previous page, null for the first page
+     * @param limit      the maximum number of orders of the page
+     * @return the page and the cursor of the next one
+     */
+    public OrderPage page(Long customerId, LocalDateTime startDate, LocalDateTime endDate, OrderCursor after, int limit) {
+        // Starting before the range seeks to its first order
+        var afterDate = Timestamp.valueOf(after == null ? startDate.minusNanos(1) : after.createDate());
+        long afterId = after == null ? Long.MAX_VALUE : after.id();
+
+        // One more than requested tells whether there is a next page
+        Object[] args = {customerId, Timestamp.valueOf(startDate), Timestamp.valueOf(endDate), afterDate, afterId, limit + 1};
+        var from = after == null ? startDate : after.createDate();
+        var orders = new ArrayList<>(from.isBefore(archivedBefore())
+            ? jdbcTemplate.query(ARCHIVED_PAGE_SQL, ORDER_MAPPER, concat(args, args, limit + 1))
+            : jdbcTemplate.query(PAGE_SQL, ORDER_MAPPER, args));
+        if (orders.size() <= limit) {
+            return new OrderPage(orders, null);
+        }
+        orders.remove(limit);
+        var last = orders.get(limit - 1);
+        return new OrderPage(orders, new OrderCursor(last.createDate(), last.id()));
+    }
+
+    /**
+     * @param customerId the customer ID
+     * @param startDate  the start of the range, inclusive
+     * @param endDate    the end of the range, inclusive
+     * @return the orders in creation order, the first page is read right away and the next ones while it is consumed
+     */
+    public Stream<OrderResponse> stream(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        return Stream.iterate(page(customerId, startDate, endDate, null, CHUNK_SIZE), Objects::nonNull,
+                page -> page.next() == null ? null : page(customerId, startDate, endDate, page.next(), CHUNK_SIZE))
+            .flatMap(page -> page.orders().stream());
+    }
+
+    /**
+     * @param customerId the customer ID
+     * @param startDate  the start of the range, inclusive
+     * @param endDate    the end of the range, inclusive
+     * @return the orders in creation order
+     */
+    public List<OrderResponse> list(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        return stream(customerId, startDate, endDate).toList();
+    }
+
+    /**
+     * Called before orders created before the given date are moved to orders_history, from then on pages reaching
+     * back that far read both tables.
+     *
+     * @param before the creation date all moved orders are older than
+     */
+    synchronized void archiving(LocalDateTime before) {
+        if (before.isAfter(archivedBefore())) {
+            archivedBefore = before;
+        }
+    }
+
+    private LocalDateTime archivedBefore() {
+        var before = archivedBefore;
+        if (before != null) {
+            return before;
+        }
+        synchronized (this) {
+            if (archivedBefore == null) {
+                var newest = jdbcTemplate.queryForObject(ARCHIVED_UNTIL_SQL, Timestamp.class);
+                archivedBefore = newest == null ? LocalDateTime.MIN : newest.toLocalDateTime().plusNanos(1);
+            }
+            return archivedBefore;
+        }
+    }
+
+    private static Object[] concat(Object[] first, Object[] second, Object last) {
+        var args = Arrays.copyOf(first, first.length + second.length + 1);
+        System.arraycopy(second, 0, args, first.length, second.length);
+        args[args.length - 1] = last;
+        return args;
+    }
+}
@@ -0,0 +1,210 @@
+package com.broker.stock.service.business;
+
+import com.broker.stock.aspect.AuthorizeCustomer;
+import com.broker.stock.aspect.CustomerId;
+import com.broker.stock.constant.IntakeState;
+import com.broker.stock.exception.RetryLaterException;
+import com.broker.stock.model.IntakeStatus;
+import com.broker.stock.model.OrderRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accepts orders without holding the request thread until they are created.
+ * <p>
+ * Submitted orders are queued to a fixed pool of workers that create them like {@link OrderService#createOrder}
+ * would, on behalf of the submitting user. The queue is bounded, a full queue is answered right away with 503 and a
+ * Retry-After instead of letting requests pile up. The queue only lives in memory, orders that were accepted but not
+ * created yet are lost if the process dies, clients find their status unknown then and submit them again.
+ * <p>
+ * The status of a done order is kept for the retention, but only for the latest done orders up to the maximum, the
+ * oldest ones are forgotten early when more orders are done within the retention.
+ */
+@Component
+@Slf4j
+public class OrderIntake {
+
+    private final OrderService orderService;
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+    private final long retentionMillis;
+
+    private final Map<UUID, Ticket> tickets = new ConcurrentHashMap<>();
+    private final CompletedTickets completed;
+
+    public OrderIntake(OrderService orderService,
+                       @Value("${order.intake.workers:4}") int workers,
+                       @Value("${order.intake.queue-capacity:10000}") int queueCapacity,
+                       @Value("${order.intake.retry-after:1s}") Duration retryAfter,
+                       @Value("${order.intake.retention:10m}") Duration retention,
+                       @Value("${order.intake.maximum-completed:100000}") int maximumCompleted) {
+        this.orderService = orderService;
+        this.retryAfter = retryAfter;
+        this.retentionMillis = retention.toMillis();
+        this.completed = new CompletedTickets(maximumCompleted);
+        var threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            var thread = new Thread(runnable, "order-intake-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class Ticket {
+
+        private final UUID id = UUID.randomUUID();
+        private final Long customerId;
+        private final CompletableFuture<IntakeStatus> result = new CompletableFuture<>();
+        private volatile long completedAt;
+
+        private Ticket(Long customerId) {
+            this.customerId = customerId;
+        }
+
+        private IntakeStatus queued() {
+            return new IntakeStatus(id, IntakeState.QUEUED, null, null);
+        }
+    }
+
+    // Done tickets in the order they were done, the oldest is dropped from the lookup once there are too many
+    private class CompletedTickets {
+        private final int maximumTickets;
+        private final LinkedHashMap<UUID, Ticket> done = new LinkedHashMap<>();
+
+        CompletedTickets(int maximumTickets) {
+            this.maximumTickets = maximumTickets;
+        }
+
+        synchronized void add(Ticket ticket) {
+            ticket.completedAt = System.currentTimeMillis();
+            done.put(ticket.id, ticket);
+            var iterator = done.values().iterator();
+            while (done.size() > maximumTickets) {
+                tickets.remove(iterator.next().id);
+                iterator.remove();
+            }
+        }
+
+        synchronized void purge(long before) {
+            var iterator = done.values().iterator();
+            while (iterator.hasNext()) {
+                var ticket = iterator.next();
+                if (ticket.completedAt > before) {
+                    return;
+                }
+                tickets.remove(ticket.id);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Queues an order for creation.
+     *
+     * @param orderRequest the request containing order details
+     * @return the queued status, carrying the id to poll
+     * @throws RetryLaterException if the queue is full
+     */
+    @AuthorizeCustomer
+    public IntakeStatus submit(OrderRequest orderRequest) {
+        var ticket = new Ticket(orderRequest.customerId());
+        tickets.put(ticket.id, ticket);
+        // Workers act as the submitting user, so the order is authorized the same way as a synchronous one
+        var task = new DelegatingSecurityContextRunnable(() -> create(ticket, orderRequest), SecurityContextHolder.getContext());
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            tickets.remove(ticket.id);
+            log.warn("Order intake queue is full, rejecting order of customer {}", orderRequest.customerId());
+            throw new RetryLaterException("Too many orders are waiting, please retry.", retryAfter);
+        }
+        return ticket.queued();
+    }
+
+    /**
+     * Gets the status of a submitted order, waiting up to the given time for it to be created or rejected.
+     *
+     * @param customerId the customer the order was submitted for
+     * @param id         the id the order was accepted under
+     * @param wait       how long to wait for a queued order, zero to answer right away
+     * @return the status once the order is done or the wait is over
+     * @throws ResponseStatusException with status 404 if the order is unknown to the customer
+     */
+    @AuthorizeCustomer
+    public CompletableFuture<IntakeStatus> status(@CustomerId Long customerId, UUID id, Duration wait) {
+        var ticket = tickets.get(id);
+        if (ticket == null || !ticket.customerId.equals(customerId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order " + id + " is not known.");
+        }
+        if (ticket.result.isDone() || wait.isZero()) {
+            return CompletableFuture.completedFuture(ticket.result.getNow(ticket.queued()));
+        }
+        // A copy, timing out one poll must not complete the ticket itself
+        return ticket.result.copy().completeOnTimeout(ticket.queued(), wait.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Forgets orders that were done longer than the retention ago, their status is unknown from then on.
+     */
+    @Scheduled(fixedDelayString = "${order.intake.retention:10m}", initialDelayString = "${order.intake.retention:10m}")
+    public void purgeCompleted() {
+        completed.purge(System.currentTimeMillis() - retentionMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Accepted orders are still created, new ones are rejected
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("{} accepted orders were not created before shutdown", executor.shutdownNow().size());
+        }
+    }
+
+    private void create(Ticket ticket, OrderRequest orderRequest) {
+        IntakeStatus status;
+        try {
+            var order = orderService.createOrder(orderRequest);
+            status = new IntakeStatus(ticket.id, IntakeState.CREATED, order, null);
+        } catch (RuntimeException e) {
+            status = new IntakeStatus(ticket.id, IntakeState.REJECTED, null, reason(e));
+        }
+        // Counted as done before it is reported done, so the oldest are already forgotten when a poll sees it
+        completed.add(ticket);
+        ticket.result.complete(status);
+    }
+
+    // The message the synchronous endpoint would have answered with
+    private static String reason(RuntimeException e) {
+        if (e instanceof ResponseStatusException statusException) {
+            return statusException.getReason();
+        }
+        if (e instanceof ArithmeticException) {
+            return "Amount out of range: " + e.getMessage();
+        }
+        if (e instanceof IllegalArgumentException || e instanceof IllegalStateException) {
+            return e.getMessage();
+        }
+        log.error("Failed to create an accepted order", e);
+        return "Order could not be created.";
+    }
+}
@@ -3,25 +3,50 @@ package com.broker.stock.service.business;
 import static com.broker.stock.constant.AssetConstants.TRY;
 import com.broker.stock.aspect.AuthorizeCustomer;
 import com.broker.stock.aspect.CustomerId;
+import com.broker.stock.constant.BatchMode;
+import com.broker.stock.constant.LatencyStage;
+import com.broker.stock.constant.MatchingMode;
 import com.broker.stock.constant.OrderSide;
 import com.broker.stock.constant.OrderStatus;
 import com.broker.stock.entity.Asset;
 import com.broker.stock.entity.Order;
 import com.broker.stock.mapper.OrderMapper;
+import com.broker.stock.model.BatchOrderRequest;
+import com.broker.stock.model.BatchOrderResponse;
+import com.broker.stock.model.MatchSummary;
+import com.broker.stock.model.OrderCursor;
+import com.broker.stock.model.OrderPage;
 import com.broker.stock.model.OrderRequest;
 import com.broker.stock.model.OrderResponse;
 import com.broker.stock.repository.OrderRepository;
+import com.broker.stock.service.business.journal.CommandJournal;
+import com.broker.stock.service.business.journal.JournalCommand;
+import com.broker.stock.service.business.market.MarketData;
+import com.broker.stock.service.business.matching.MatchingEngine;
+import com.broker.stock.service.business.matching.Trade;
 import com.broker.stock.service.business.strategy.OrderHandler;
 import com.broker.stock.service.business.strategy.OrderHandlerFactory;
+import com.broker.stock.service.metrics.LatencyMetrics;
+import com.broker.stock.util.FixedPoint;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -30,26 +55,73 @@ public class OrderService {
 
     private final OrderHandlerFactory handlerFactory;
     private final OrderRepository orderRepository;
+    private final OrderHistory orderHistory;
     private final AssetService assetService;
+    private final CustomerLocks customerLocks;
+    private final CommandJournal commandJournal;
+    private final MatchingEngine matchingEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final LatencyMetrics latencyMetrics;
+    private final MarketData marketData;
+    private final OrderUpdates orderUpdates;
+
+    @Value("${order.matching.mode:CONTINUOUS}")
+    private MatchingMode matchingMode = MatchingMode.CONTINUOUS;
+
+    @Value("${order.matching.chunk-size:1000}")
+    private int matchChunkSize = 1000;
+
+    @Value("${order.batch.mode:ALL_OR_NOTHING}")
+    private BatchMode batchMode = BatchMode.ALL_OR_NOTHING;
+
+    @Value("${order.batch.max-size:1000}")
+    private int batchMaxSize = 1000;
 
     /**
      * Creates a new order and updates assets accordingly.
+     * Orders of the same customer are created one at a time, orders of different customers in parallel. The customer
+     * is locked before the transaction starts, waiting for it holds no database connection.
+     * In continuous matching mode the order is matched right away and the response reports whether it was filled.
      *
      * @param orderRequest the request containing order details
      * @return the created order as a response
      */
-    @Transactional
     @AuthorizeCustomer
     public OrderResponse createOrder(OrderRequest orderRequest) {
-        validateOrderRequest(orderRequest);
-
-        OrderHandler orderHandler = handlerFactory.getHandler(orderRequest.orderSide());
-        orderHandler.handleOrder(orderRequest);
-
-        var order = OrderMapper.toEntity(orderRequest);
-        var savedOrder = orderRepository.save(order);
+        var savedOrder = customerLocks.callLocked(orderRequest.customerId(),
+            () -> transactionTemplate.execute(status -> saveOrder(orderRequest)));
+        var settledOrders = matchCreatedOrders(List.of(savedOrder));
+        return OrderMapper.toResponse(settledOrders.getOrDefault(savedOrder.getId(), savedOrder));
+    }
 
-        return OrderMapper.toResponse(savedOrder);
+    /**
+     * Creates the orders of one customer's basket in one transaction.
+     * The customer's balances are read once, every reserved asset is updated once for the whole basket and the orders
+     * are inserted in JDBC batches. In continuous matching mode the orders are matched right away, in request order.
+     *
+     * @param batchRequest the customer, the orders and how failing orders are handled
+     * @return one result per requested order
+     */
+    @AuthorizeCustomer
+    public BatchOrderResponse createOrders(BatchOrderRequest batchRequest) {
+        var orderRequests = batchRequest.orders();
+        if (orderRequests.size() > batchMaxSize) {
+            throw new IllegalArgumentException("A batch can contain at most " + batchMaxSize + " orders.");
+        }
+        var mode = batchRequest.mode() == null ? batchMode : batchRequest.mode();
+        Map<Integer, String> errors = new HashMap<>();
+        Map<Integer, Order> accepted = customerLocks.callLocked(batchRequest.customerId(),
+            () -> transactionTemplate.execute(status -> saveBasket(batchRequest, mode, errors)));
+        var settledOrders = matchCreatedOrders(List.copyOf(accepted.values()));
+
+        List<BatchOrderResponse.Result> results = new ArrayList<>(orderRequests.size());
+        for (int i = 0; i < orderRequests.size(); i++) {
+            var order = accepted.get(i);
+            results.add(new BatchOrderResponse.Result(i,
+                order == null ? null : OrderMapper.toResponse(settledOrders.getOrDefault(order.getId(), order)), errors.get(i)));
+        }
+        log.info("Created {} of {} orders for customer {}", accepted.size(), orderRequests.size(), batchRequest.customerId());
+        return new BatchOrderResponse(accepted.size(), errors.size(), results);
     }
 
     /**
@@ -62,116 +134,295 @@ public class OrderService {
      */
     @AuthorizeCustomer
     public List<OrderResponse> listOrders(@CustomerId Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
-        return orderRepository.findByCustomerIdAndCreateDateBetween(customerId, startDate, endDate)
-            .stream()
-            .map(OrderMapper::toResponse)
-            .toList();
+        return orderHistory.list(customerId, startDate, endDate);
+    }
+
+    /**
+     * Lists one page of the orders within a given date range for a customer, in creation order.
+     *
+     * @param customerId the customer ID
+     * @param startDate  the start date for the query
+     * @param endDate    the end date for the query
+     * @param after      the cursor returned with the previous page, null for the first page
+     * @param limit      the maximum number of orders of the page
+     * @return the page and the cursor of the next one
+     */
+    @AuthorizeCustomer
+    public OrderPage listOrders(@CustomerId Long customerId, LocalDateTime startDate, LocalDateTime endDate,
+                                OrderCursor after, int limit) {
+        return orderHistory.page(customerId, startDate, endDate, after, limit);
+    }
+
+    /**
+     * Streams the orders within a given date range for a customer in creation order, without loading the whole range.
+     *
+     * @param customerId the customer ID
+     * @param startDate  the start date for the query
+     * @param endDate    the end date for the query
+     * @return the orders, read page by page while the stream is consumed
+     */
+    @AuthorizeCustomer
+    public Stream<OrderResponse> streamOrders(@CustomerId Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        return orderHistory.stream(customerId, startDate, endDate);
     }
 
     /**
      * Deletes an order and reverses its effects on assets.
+     * The customer is locked before the transaction starts, like when creating orders.
      *
      * @param customerId the customer ID
      * @param orderId    the order ID
      * @throws IllegalAccessException if the customer is unauthorized to delete the order
      */
-    @Transactional
     @AuthorizeCustomer
     public void deleteOrder(@CustomerId Long customerId, Long orderId) throws IllegalAccessException {
         log.info("Deleting order with id {}, for customer {}", orderId, customerId);
-
-        var order = findOrderById(orderId);
-        validateOrderOwnership(order, customerId);
-        validateOrderStatus(order);
-
-        reverseOrderEffects(order);
-        markOrderAsCancelled(order);
+        var owned = customerLocks.callLocked(customerId,
+            () -> transactionTemplate.execute(status -> cancelOrder(customerId, orderId)));
+        if (!Boolean.TRUE.equals(owned)) {
+            throw new IllegalAccessException("Unauthorized: Access Denied.");
+        }
 
         log.info("Order with id {} successfully canceled for customer {}", orderId, customerId);
     }
 
     /**
      * Matches the orders and updates assets accordingly.
+     * In continuous matching mode this only catches up on books that were left crossed, e.g. after a restart.
+     * Books are crossed a chunk of trades at a time, each chunk is committed in its own transaction before the next is matched.
+     *
+     * @return summary of the matching run
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    public MatchSummary matchOrders() {
+        return settleInChunks(matchingEngine::matchAll);
+    }
+
+    /**
+     * Matches the orders of the given assets only and updates assets accordingly.
      *
-     * @return matched order list as a response
+     * @param assetNames the asset names to match
+     * @return summary of the matching run
      */
-    @Transactional
     @PreAuthorize("hasRole('ADMIN')")
-    public List<OrderResponse> matchOrders() {
-        return orderRepository.findByStatusOrderById(OrderStatus.PENDING)
-            .stream()
-            .peek(order -> log.info("Matching Order: {}", order))
-            .map(this::handlePendingOrder)
-            .peek(response -> log.info("Matched Order: {}", response))
-            .toList();
+    public MatchSummary matchOrders(Set<String> assetNames) {
+        return settleInChunks(limit -> matchingEngine.matchAssets(assetNames, limit));
     }
 
     // --- HANDLER METHODS ---
 
-    private OrderResponse handlePendingOrder(Order order) {
-        Asset tryAsset = getValidatedAsset(order.getCustomerId(), TRY);
-        Asset orderAsset = getValidatedAsset(order.getCustomerId(), order.getAssetName());
+    private Order saveOrder(OrderRequest orderRequest) {
+        long start = System.nanoTime();
+        OrderHandler orderHandler = handlerFactory.getHandler(orderRequest.orderSide());
+        boolean holdsTry = assetService.getAsset(orderRequest.customerId(), TRY).isPresent();
+        var reservation = orderHandler.reservation(orderRequest, holdsTry);
+        start = latencyMetrics.record(LatencyStage.VALIDATION, start);
 
-        BigDecimal tryChangeValue = calculateChangeValue(order);
+        orderHandler.reserve(orderRequest, reservation);
+        latencyMetrics.record(LatencyStage.RESERVATION, start);
 
-        if (order.getOrderSide() == OrderSide.BUY) {
-            updateAssetsForBuyOrder(tryAsset, orderAsset, order.getSize(), tryChangeValue);
-        } else if (order.getOrderSide() == OrderSide.SELL) {
-            updateAssetsForSellOrder(tryAsset, orderAsset, order.getSize(), tryChangeValue);
+        var order = OrderMapper.toEntity(orderRequest);
+        var savedOrder = orderRepository.save(order);
+        commandJournal.record(JournalCommand.CreateOrder.of(savedOrder));
+        latencyMetrics.recordCommit();
+        if (matchingMode != MatchingMode.CONTINUOUS) {
+            // Rest the order once it is visible to other transactions, the next matching run crosses it
+            TransactionHooks.afterCommit(() -> matchingEngine.add(savedOrder));
         }
-
-        order.setStatus(OrderStatus.MATCHED);
-        Order savedOrder = orderRepository.save(order);
-
-        return OrderMapper.toResponse(savedOrder);
+        return savedOrder;
     }
 
-    private void updateAssetsForBuyOrder(Asset tryAsset, Asset orderAsset, BigDecimal size, BigDecimal tryChangeValue) {
-        tryAsset.setSize(tryAsset.getSize().subtract(tryChangeValue));
-        assetService.save(tryAsset);
-
-        orderAsset.setSize(orderAsset.getSize().add(size));
-        orderAsset.setUsableSize(orderAsset.getUsableSize().add(size));
-        assetService.save(orderAsset);
+    private Map<Integer, Order> saveBasket(BatchOrderRequest batchRequest, BatchMode mode, Map<Integer, String> errors) {
+        var orderRequests = batchRequest.orders();
+
+        long start = System.nanoTime();
+        var basket = new Basket(assetService, handlerFactory, batchRequest.customerId());
+        Map<Integer, Order> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < orderRequests.size(); i++) {
+            try {
+                basket.add(orderRequests.get(i));
+                accepted.put(i, OrderMapper.toEntity(orderRequests.get(i)));
+            } catch (IllegalArgumentException | IllegalStateException | ArithmeticException e) {
+                if (mode == BatchMode.ALL_OR_NOTHING) {
+                    throw batchFailure(i, e);
+                }
+                errors.put(i, e.getMessage());
+            }
+        }
+        // One pass through each stage for the whole basket
+        start = latencyMetrics.record(LatencyStage.VALIDATION, start);
+        basket.reserve();
+        latencyMetrics.record(LatencyStage.RESERVATION, start);
+
+        var orders = List.copyOf(accepted.values());
+        orderRepository.saveAll(orders);
+        orders.forEach(order -> commandJournal.record(JournalCommand.CreateOrder.of(order)));
+        latencyMetrics.recordCommit();
+        if (matchingMode != MatchingMode.CONTINUOUS) {
+            TransactionHooks.afterCommit(() -> orders.forEach(matchingEngine::add));
+        }
+        return accepted;
     }
 
-    private void updateAssetsForSellOrder(Asset tryAsset, Asset orderAsset, BigDecimal size, BigDecimal tryChangeValue) {
-        tryAsset.setSize(tryAsset.getSize().add(tryChangeValue));
-        tryAsset.setUsableSize(tryAsset.getUsableSize().add(tryChangeValue));
-        assetService.save(tryAsset);
+    // Cancels the order unless it belongs to another customer, which is reported by returning false
+    private boolean cancelOrder(Long customerId, Long orderId) {
+        long start = System.nanoTime();
 
-        orderAsset.setSize(orderAsset.getSize().subtract(size));
-        assetService.save(orderAsset);
+        var order = findOrderById(orderId);
+        if (!order.getCustomerId().equals(customerId)) {
+            return false;
+        }
+        validateOrderStatus(order);
+
+        reverseOrderEffects(order);
+        markOrderAsCancelled(order);
+        commandJournal.record(new JournalCommand.CancelOrder(orderId, customerId));
+        latencyMetrics.record(LatencyStage.CANCEL, start);
+        latencyMetrics.recordCommit();
+        return true;
     }
 
-    private BigDecimal calculateChangeValue(Order order) {
-        return order.getSize().multiply(order.getPrice());
+    /*
+     * Matches committed orders in request order and settles their trades in a transaction of its own. The creating
+     * transaction held the customer's lock, holding it while the counterparties are locked would take stripes out of
+     * order, this one locks every customer of the trades in a single ascending acquisition instead.
+     */
+    private Map<Long, Order> matchCreatedOrders(List<Order> orders) {
+        if (matchingMode != MatchingMode.CONTINUOUS || orders.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                // Books are crossed and the orders rested before the settlement is committed, rebuild them on rollback
+                TransactionHooks.afterRollback(matchingEngine::reset);
+                List<Trade> trades = new ArrayList<>();
+                for (var order : orders) {
+                    long start = System.nanoTime();
+                    trades.addAll(matchingEngine.match(order));
+                    latencyMetrics.record(LatencyStage.MATCHING, start);
+                }
+                Map<Long, Order> settledOrders = new HashMap<>();
+                // Reloaded under the locks, a counterparty may have filled the orders since they were committed
+                settleTrades(trades).forEach(order -> settledOrders.put(order.getId(), order));
+                return settledOrders;
+            });
+        } catch (RuntimeException e) {
+            // The orders are created, the reloaded books hold them and the next matching run crosses them
+            log.error("Matching created orders {} failed", orders.stream().map(Order::getId).toList(), e);
+            return Map.of();
+        }
     }
 
-    private Asset getValidatedAsset(Long customerId, String assetName) {
-        return assetService.getAsset(customerId, assetName)
-            .orElseThrow(() -> new IllegalArgumentException(String.format("Asset %s not found for customerId %d", assetName, customerId)));
+    // The matcher crosses at most a chunk per shard, only those trades are held until they are committed
+    private MatchSummary settleInChunks(IntFunction<List<Trade>> matcher) {
+        long startTime = System.nanoTime();
+
+        int tradeCount = 0;
+        int matchedOrders = 0;
+        int chunks = 0;
+        Long lastOrderId = null;
+        try {
+            List<Trade> trades;
+            while (!(trades = matcher.apply(matchChunkSize)).isEmpty()) {
+                for (int from = 0; from < trades.size(); from += matchChunkSize) {
+                    var chunk = trades.subList(from, Math.min(from + matchChunkSize, trades.size()));
+                    var settledOrders = transactionTemplate.execute(status -> settleTrades(chunk));
+
+                    chunks++;
+                    tradeCount += chunk.size();
+                    for (Order order : settledOrders) {
+                        matchedOrders += order.getStatus() == OrderStatus.MATCHED ? 1 : 0;
+                        lastOrderId = lastOrderId == null ? order.getId() : Math.max(lastOrderId, order.getId());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Trades of the current round after the last committed chunk only exist in memory, the next run matches them again
+            log.error("Matching stopped after {} committed chunks, last order id {}", chunks, lastOrderId, e);
+            matchingEngine.reset();
+            throw e;
+        }
+
+        var summary = new MatchSummary(tradeCount, matchedOrders, chunks,
+            Duration.ofNanos(System.nanoTime() - startTime).toMillis(), lastOrderId);
+        log.info("Matching finished: {}", summary);
+        return summary;
     }
 
-    // --- VALIDATION METHODS ---
-    private void validateOrderRequest(OrderRequest orderRequest) {
-        var tryAsset = assetService.getAsset(orderRequest.customerId(), TRY);
+    private List<Order> settleTrades(List<Trade> trades) {
+        if (trades.isEmpty()) {
+            return List.of();
+        }
 
-        if (tryAsset.isEmpty() && orderRequest.orderSide() == OrderSide.BUY) {
-            throw new IllegalArgumentException("Missing TRY balance for BUY order.");
+        // All customers are locked in one call before their orders are read, a concurrent cancel completes first or waits
+        Set<Long> customerIds = new HashSet<>();
+        trades.forEach(trade -> {
+            customerIds.add(trade.buyCustomerId());
+            customerIds.add(trade.sellCustomerId());
+        });
+        customerLocks.lock(customerIds);
+
+        Set<Long> orderIds = new LinkedHashSet<>();
+        trades.forEach(trade -> {
+            orderIds.add(trade.buyOrderId());
+            orderIds.add(trade.sellOrderId());
+        });
+        Map<Long, Order> orders = new LinkedHashMap<>();
+        orderRepository.findAllById(orderIds).forEach(order -> orders.put(order.getId(), order));
+
+        for (Trade trade : trades) {
+            log.info("Matching Trade: {}", trade);
+            handleFill(getMatchedOrder(orders, trade.buyOrderId()), trade);
+            handleFill(getMatchedOrder(orders, trade.sellOrderId()), trade);
         }
 
-        if (tryAsset.isPresent() && orderRequest.assetName().equals(TRY)) {
-            throw new IllegalArgumentException("TRY order is invalid.");
+        var settledOrders = orderRepository.saveAll(orders.values());
+        commandJournal.record(new JournalCommand.Match(List.copyOf(trades)));
+        TransactionHooks.afterCommit(() -> {
+            marketData.record(trades);
+            orderUpdates.publish(settledOrders);
+        });
+        settledOrders.forEach(order -> log.info("Matched Order: {}", order));
+        return settledOrders;
+    }
+
+    private void handleFill(Order order, Trade trade) {
+        handlerFactory.getHandler(order.getOrderSide()).handleFill(order, trade.size(), trade.price());
+
+        order.setFilledSize(order.getFilledSize() + trade.size());
+        if (order.getFilledSize() >= order.getSize()) {
+            order.setStatus(OrderStatus.MATCHED);
         }
     }
 
-    private void validateOrderOwnership(Order order, Long customerId) throws IllegalAccessException {
-        if (!order.getCustomerId().equals(customerId)) {
-            throw new IllegalAccessException("Unauthorized: Access Denied.");
+    private Order getMatchedOrder(Map<Long, Order> orders, Long orderId) {
+        var order = orders.get(orderId);
+        if (order == null || order.getStatus() != OrderStatus.PENDING) {
+            throw new IllegalStateException("Order " + orderId + " is no longer PENDING, order books are out of sync.");
         }
+        return order;
     }
 
+    private long calculateChangeValue(Order order) {
+        return FixedPoint.multiply(remainingSize(order), order.getPrice());
+    }
+
+    private long remainingSize(Order order) {
+        return order.getSize() - order.getFilledSize();
+    }
+
+    private Asset getValidatedAsset(Long customerId, String assetName) {
+        return assetService.getAsset(customerId, assetName)
+            .orElseThrow(() -> new IllegalArgumentException(String.format("Asset %s not found for customerId %d", assetName, customerId)));
+    }
+
+    // Keeps the status of the failing order's exception and tells which order of the batch it was
+    private RuntimeException batchFailure(int index, RuntimeException e) {
+        var message = "Order " + index + ": " + e.getMessage();
+        return e instanceof IllegalStateException ? new IllegalStateException(message, e) : new IllegalArgumentException(message, e);
+    }
+
+    // --- VALIDATION METHODS ---
     private void validateOrderStatus(Order order) {
         if (!order.getStatus().equals(OrderStatus.PENDING)) {
             throw new IllegalArgumentException("Only PENDING orders can be canceled.");
@@ -182,14 +433,15 @@ public class OrderService {
         var tryAsset = getValidatedAsset(order.getCustomerId(), TRY);
         var asset = getValidatedAsset(order.getCustomerId(), order.getAssetName());
 
-        BigDecimal size = order.getSize();
-        BigDecimal value = calculateChangeValue(order);
+        // Only the unfilled part of the order is still reserved
+        long size = remainingSize(order);
+        long value = calculateChangeValue(order);
 
         if (order.getOrderSide() == OrderSide.BUY) {
-            tryAsset.setUsableSize(tryAsset.getUsableSize().add(value));
+            tryAsset.setUsableSize(Math.addExact(tryAsset.getUsableSize(), value));
             assetService.save(tryAsset);
         } else if (order.getOrderSide() == OrderSide.SELL) {
-            asset.setUsableSize(asset.getUsableSize().add(size));
+            asset.setUsableSize(Math.addExact(asset.getUsableSize(), size));
             assetService.save(asset);
         }
     }
@@ -197,6 +449,10 @@ public class OrderService {
     private void markOrderAsCancelled(Order order) {
         order.setStatus(OrderStatus.CANCELLED);
         orderRepository.save(order);
+        TransactionHooks.afterCommit(() -> {
+            matchingEngine.remove(order);
+            orderUpdates.publish(List.of(order));
+        });
     }
 
     private Order findOrderById(Long orderId) {
@@ -0,0 +1,300 @@
+package com.broker.stock.service.business;
+
+import com.broker.stock.aspect.AuthorizeCustomer;
+import com.broker.stock.aspect.CustomerId;
+import com.broker.stock.entity.Order;
+import com.broker.stock.mapper.OrderMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes status changes of orders to their customer's Server-Sent Events streams.
+ * <p>
+ * Streams are async requests, an idle subscriber holds a connection but no thread. Publishing only appends the event
+ * to a bounded buffer per subscriber, a small pool of dispatchers writes the buffers to the connections. A subscriber
+ * whose buffer is full reads slower than its orders change, it is disconnected and lists its orders again when it
+ * reconnects. Events are not replayed, changes made while a client was not subscribed are only seen by listing.
+ * <p>
+ * A write to a client that stopped reading blocks its dispatcher until the container's connection timeout. A write in
+ * flight for longer than the write timeout evicts its subscriber, and the pool gets a dispatcher more until the write
+ * returns, so clients that stall can not hold up the others. The pool grows up to the maximum number of dispatchers,
+ * beyond that the stalled stream is closed instead and its dispatcher is only back once the write fails.
+ */
+@Component
+@Slf4j
+public class OrderUpdates {
+
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("").build();
+    private static final long IDLE = 0;
+    private static final long STALLED = Long.MIN_VALUE;
+    private static final long CLOSED = Long.MIN_VALUE + 1;
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long writeTimeoutNanos;
+    private final int maxDispatchers;
+    private final ThreadPoolExecutor dispatchers;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // Subscribers a dispatcher is writing to, evicted ones included until their write returns
+    private final Set<Subscriber> dispatching = ConcurrentHashMap.newKeySet();
+
+    public OrderUpdates(ObjectMapper objectMapper,
+                        @Value("${order.updates.buffer-size:64}") int bufferSize,
+                        @Value("${order.updates.timeout:30m}") Duration timeout,
+                        @Value("${order.updates.dispatchers:4}") int dispatchers,
+                        @Value("${order.updates.max-dispatchers:16}") int maxDispatchers,
+                        @Value("${order.updates.write-timeout:10s}") Duration writeTimeout) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        this.maxDispatchers = Math.max(maxDispatchers, dispatchers);
+        var threadIndex = new AtomicInteger();
+        this.dispatchers = new ThreadPoolExecutor(dispatchers, dispatchers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            runnable -> {
+                var thread = new Thread(runnable, "order-updates-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    final class Subscriber implements Runnable {
+
+        private final Long customerId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // Start of the write in flight, IDLE between writes, STALLED once the watchdog replaced its dispatcher and CLOSED
+        // once it closed the stream without a replacement
+        private final AtomicLong writeStarted = new AtomicLong(IDLE);
+        private volatile boolean evicted;
+
+        private Subscriber(Long customerId, SseEmitter emitter) {
+            this.customerId = customerId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        // Never blocks, a full buffer evicts the subscriber instead
+        private void offer(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            if (!buffer.offer(event)) {
+                log.warn("Disconnecting a slow order updates subscriber of customer {}", customerId);
+                evicted = true;
+                remove(this);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                dispatchers.execute(this);
+            }
+        }
+
+        // Writes what is buffered, at most one dispatcher per subscriber at a time
+        @Override
+        public void run() {
+            dispatching.add(this);
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> event;
+                while (!evicted && (event = buffer.poll()) != null) {
+                    writeStarted.set(System.nanoTime());
+                    try {
+                        emitter.send(event);
+                    } finally {
+                        if (writeStarted.getAndSet(IDLE) == STALLED) {
+                            resizeDispatchers(-1);
+                        }
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Disconnected or already completed
+                evicted = true;
+                remove(this);
+            } finally {
+                dispatching.remove(this);
+            }
+            if (evicted) {
+                buffer.clear();
+                complete(emitter);
+                return;
+            }
+            scheduled.set(false);
+            // An event offered after the last poll but before the flag was cleared is written now
+            if (!buffer.isEmpty()) {
+                schedule();
+            }
+        }
+
+        // Claims the write in flight as the given state if it started before the given time, at most once per write
+        private boolean stalledSince(long startedBefore, long state) {
+            long started = writeStarted.get();
+            return started != IDLE && started != STALLED && started != CLOSED && started - startedBefore < 0
+                && writeStarted.compareAndSet(started, state);
+        }
+    }
+
+    /**
+     * Opens a stream of the status changes of a customer's orders. Each event is an order response, its id is the
+     * order id.
+     *
+     * @param customerId the customer whose orders are followed
+     * @return the stream, kept open until the timeout, the client disconnects or it is evicted as too slow
+     */
+    @AuthorizeCustomer
+    public SseEmitter subscribe(@CustomerId Long customerId) {
+        var emitter = new SseEmitter(timeoutMillis);
+        subscribe(customerId, emitter);
+        return emitter;
+    }
+
+    Subscriber subscribe(Long customerId, SseEmitter emitter) {
+        var subscriber = new Subscriber(customerId, emitter);
+        subscribers.computeIfAbsent(customerId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return subscriber;
+    }
+
+    /**
+     * Publishes the current state of the given orders to their customers' subscribers. Orders of customers without
+     * subscribers cost a map lookup.
+     *
+     * @param orders orders whose status or filled size changed, after the change was committed
+     */
+    public void publish(Collection<Order> orders) {
+        for (var order : orders) {
+            var customerSubscribers = subscribers.get(order.getCustomerId());
+            if (customerSubscribers == null || customerSubscribers.isEmpty()) {
+                continue;
+            }
+            // Serialized once for all subscribers of the customer
+            var event = SseEmitter.event()
+                .id(String.valueOf(order.getId()))
+                .name("order")
+                .data(json(order), MediaType.APPLICATION_JSON)
+                .build();
+            customerSubscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    /**
+     * Sends a comment to every subscriber, so idle streams are not closed by proxies and dead ones are noticed.
+     */
+    @Scheduled(fixedDelayString = "${order.updates.heartbeat:30s}", initialDelayString = "${order.updates.heartbeat:30s}")
+    public void heartbeat() {
+        subscribers.values().forEach(customerSubscribers -> customerSubscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT)));
+    }
+
+    /**
+     * Evicts the subscribers whose write has been in flight for longer than the write timeout. Their dispatchers stay
+     * blocked until the write returns, each is replaced by a new one meanwhile. Once the pool has the maximum number
+     * of dispatchers, the stream is closed instead of replacing its dispatcher.
+     */
+    @Scheduled(fixedDelayString = "${order.updates.write-timeout:10s}", initialDelayString = "${order.updates.write-timeout:10s}")
+    public synchronized void evictStalledSubscribers() {
+        long startedBefore = System.nanoTime() - writeTimeoutNanos;
+        dispatching.forEach(subscriber -> {
+            // Only this method grows the pool, a dispatcher returning meanwhile just leaves more room
+            boolean replace = dispatchers.getCorePoolSize() < maxDispatchers;
+            if (subscriber.stalledSince(startedBefore, replace ? STALLED : CLOSED)) {
+                log.warn("Disconnecting an order updates subscriber of customer {} that stopped reading",
+                    subscriber.customerId);
+                subscriber.evicted = true;
+                remove(subscriber);
+                if (replace) {
+                    resizeDispatchers(1);
+                } else {
+                    complete(subscriber.emitter);
+                }
+            }
+        });
+    }
+
+    int dispatcherCount() {
+        return dispatchers.getCorePoolSize();
+    }
+
+    /**
+     * @return the number of open streams
+     */
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        subscribers.values().forEach(customerSubscribers -> customerSubscribers.forEach(subscriber -> {
+            subscriber.evicted = true;
+            subscriber.schedule();
+        }));
+        dispatchers.shutdown();
+        dispatchers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.customerId, (id, customerSubscribers) -> {
+            if (customerSubscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return customerSubscribers.isEmpty() ? null : customerSubscribers;
+        });
+    }
+
+    // Grown before the core size and shrunk after it, the core size never exceeds the maximum
+    private synchronized void resizeDispatchers(int delta) {
+        int size = dispatchers.getCorePoolSize() + delta;
+        if (delta > 0) {
+            dispatchers.setMaximumPoolSize(size);
+            dispatchers.setCorePoolSize(size);
+        } else {
+            dispatchers.setCorePoolSize(size);
+            dispatchers.setMaximumPoolSize(size);
+        }
+    }
+
+    // The response of a client that went away may already be recycled, there is nothing left to complete then
+    private static void complete(SseEmitter emitter) {
+        try {
+            emitter.complete();
+        } catch (RuntimeException e) {
+            log.debug("Order updates stream was already closed", e);
+        }
+    }
+
+    private String json(Order order) {
+        try {
+            return objectMapper.writeValueAsString(OrderMapper.toResponse(order));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.broker.stock.service.business.journal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only journal of the commands accepted by the order service.
+ * <p>
+ * Records are written into memory-mapped segment files and numbered by a gapless sequence. Durability uses group
+ * commit: a caller waiting for its record forces everything appended so far to disk, callers that append while that
+ * force is running are covered by the next one, so one fsync is shared by all concurrent transactions.
+ * <p>
+ * Commands recorded within a transaction are appended right before it commits and the commit waits until they are
+ * durable. If the transaction rolls back afterwards an {@link JournalCommand.Abort} record is appended for them.
+ */
+@Component
+@Slf4j
+public class CommandJournal {
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    // Held shared from a transaction's append until its outcome is known, see stableSequence()
+    private final ReentrantReadWriteLock commitWindows = new ReentrantReadWriteLock();
+
+    private FileChannel lockChannel;
+    private FileLock fileLock;
+    private Segment segment;
+    private long lastSequence;
+    private long durableSequence;
+    private boolean flushing;
+    private long flushes;
+
+    public CommandJournal(@Value("${order.journal.enabled:true}") boolean enabled,
+                          @Value("${order.journal.directory:./data/journal}") Path directory,
+                          @Value("${order.journal.segment-size:64MB}") DataSize segmentSize) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve("journal.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            fileLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (fileLock == null) {
+            throw new IllegalStateException("Journal directory " + directory + " is used by another process.");
+        }
+
+        // Continue after the last intact record, a torn record at the end is overwritten
+        var end = JournalReader.read(directory, journalRecord -> { });
+        lastSequence = end.lastSequence();
+        durableSequence = lastSequence;
+        segment = end.segment() == null
+            ? Segment.create(directory, lastSequence + 1, segmentSize)
+            : Segment.open(end.segment(), end.position());
+        log.info("Opened command journal {} at sequence {}", directory, lastSequence);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled || segment == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            segment.close();
+            fileLock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close command journal {}", directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a command. Inside a transaction it is appended when the transaction commits,
+     * otherwise it is appended right away. Returns once the command is durable.
+     *
+     * @param command the accepted command
+     */
+    public void record(JournalCommand command) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            awaitDurable(append(List.of(command)));
+            return;
+        }
+
+        var pending = (PendingCommands) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingCommands();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.commands.add(command);
+    }
+
+    /**
+     * Appends commands with consecutive sequences. They are not durable before {@link #awaitDurable(long)} returns.
+     *
+     * @param commands the commands to append
+     * @return the sequence of the last appended command
+     */
+    public long append(List<JournalCommand> commands) {
+        // Encoding happens outside the lock, only the copy into the mapped segment is serialized
+        long timestamp = System.currentTimeMillis();
+        var frames = commands.stream().map(command -> JournalCodec.frame(command, timestamp)).toList();
+        for (ByteBuffer frame : frames) {
+            if (frame.capacity() > segmentSize) {
+                throw new IllegalArgumentException("Journal record of " + frame.capacity() + " bytes exceeds the segment size " + segmentSize);
+            }
+        }
+
+        lock.lock();
+        try {
+            for (ByteBuffer frame : frames) {
+                if (frame.capacity() > segment.remaining()) {
+                    roll();
+                }
+                JournalCodec.seal(frame, ++lastSequence);
+                segment.write(frame);
+            }
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the record with the given sequence and all records before it are forced to disk.
+     *
+     * @param sequence the sequence to wait for
+     */
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+
+                // Become the leader of the next group, it covers everything appended until now
+                flushing = true;
+                var flushSegment = segment;
+                long target = lastSequence;
+                int from = flushSegment.flushedPosition;
+                int to = flushSegment.position;
+                lock.unlock();
+                try {
+                    flushSegment.force(from, to);
+                } finally {
+                    lock.lock();
+                    flushing = false;
+                    flushed.signalAll();
+                }
+                flushSegment.flushedPosition = Math.max(flushSegment.flushedPosition, to);
+                durableSequence = Math.max(durableSequence, target);
+                flushes++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a sequence up to which the outcome of every journaled transaction is known, waiting for the
+     * transactions that are committing right now. Records up to it are never aborted afterwards.
+     *
+     * @return the last sequence of the journal at a point where no transaction was committing
+     */
+    public long stableSequence() {
+        commitWindows.writeLock().lock();
+        try {
+            return getLastSequence();
+        } finally {
+            commitWindows.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments that only contain records up to the given sequence, the current segment is kept.
+     *
+     * @param sequence the last sequence that is no longer needed
+     */
+    public void deleteSegmentsBefore(long sequence) {
+        if (!enabled) {
+            return;
+        }
+        var segments = JournalReader.segments(directory);
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (JournalReader.firstSequence(segments.get(i + 1)) > sequence + 1) {
+                break;
+            }
+            try {
+                Files.delete(segments.get(i));
+                log.info("Deleted command journal segment {}", segments.get(i));
+            } catch (IOException e) {
+                log.warn("Failed to delete command journal segment {}", segments.get(i), e);
+                break;
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getFlushes() {
+        lock.lock();
+        try {
+            return flushes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Called with the lock held
+    private void roll() {
+        segment.force(segment.flushedPosition, segment.position);
+        segment.close();
+        durableSequence = lastSequence;
+        flushes++;
+        flushed.signalAll();
+        segment = Segment.create(directory, lastSequence + 1, segmentSize);
+        log.info("Rolled command journal over to {}", segment.path);
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private int flushedPosition;
+
+        private Segment(Path path, FileChannel channel, MappedByteBuffer buffer, int position) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.position = position;
+            this.flushedPosition = position;
+        }
+
+        static Segment create(Path directory, long firstSequence, int size) {
+            return map(JournalReader.segmentPath(directory, firstSequence), size, 0);
+        }
+
+        static Segment open(Path path, int position) {
+            try {
+                var segment = map(path, Math.toIntExact(Files.size(path)), position);
+                // Mark the end, so a torn record behind it is not mistaken for the next one
+                if (segment.remaining() >= JournalCodec.HEADER_SIZE) {
+                    segment.buffer.putInt(position, 0);
+                }
+                return segment;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static Segment map(Path path, int size, int position) {
+            try {
+                var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                return new Segment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), position);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        void write(ByteBuffer frame) {
+            buffer.put(position, frame, 0, frame.capacity());
+            position += frame.capacity();
+        }
+
+        void force(int from, int to) {
+            if (to > from) {
+                buffer.force(from, to - from);
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private class PendingCommands implements TransactionSynchronization {
+
+        private final List<JournalCommand> commands = new ArrayList<>();
+        private long firstSequence;
+        private long lastSequence;
+        private boolean committing;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (commands.isEmpty()) {
+                return;
+            }
+            commitWindows.readLock().lock();
+            committing = true;
+            lastSequence = append(commands);
+            firstSequence = lastSequence - commands.size() + 1;
+            awaitDurable(lastSequence);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                if (status != STATUS_COMMITTED && lastSequence != 0) {
+                    awaitDurable(append(List.of(new JournalCommand.Abort(firstSequence, lastSequence))));
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to journal the rollback of sequences {} to {}", firstSequence, lastSequence, e);
+            } finally {
+                if (committing) {
+                    commitWindows.readLock().unlock();
+                }
+                TransactionSynchronizationManager.unbindResourceIfPossible(CommandJournal.this);
+            }
+        }
+    }
+}
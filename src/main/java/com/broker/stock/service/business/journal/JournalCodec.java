@@ -0,0 +1,160 @@
+package com.broker.stock.service.business.journal;
+
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.service.business.journal.JournalCommand.Abort;
+import com.broker.stock.service.business.journal.JournalCommand.CancelOrder;
+import com.broker.stock.service.business.journal.JournalCommand.CreateOrder;
+import com.broker.stock.service.business.journal.JournalCommand.Match;
+import com.broker.stock.service.business.matching.Trade;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary framing of journal records.
+ * <pre>
+ * int  length     bytes after the CRC
+ * int  crc        CRC32C of the bytes after it
+ * long sequence
+ * long timestamp
+ * byte type
+ * ...  payload of the command
+ * </pre>
+ * A length of 0 marks the end of the written part of a segment, mapped segments are zero-filled.
+ */
+final class JournalCodec {
+
+    static final int HEADER_SIZE = 8;
+    private static final int SEQUENCE_OFFSET = HEADER_SIZE;
+
+    private static final byte CREATE_ORDER = 1;
+    private static final byte CANCEL_ORDER = 2;
+    private static final byte MATCH = 3;
+    private static final byte ABORT = 4;
+
+    private JournalCodec() {
+        // Private constructor to prevent instantiation (utility class)
+    }
+
+    /**
+     * Encodes a command into a frame without sequence and CRC, they are filled in by {@link #seal(ByteBuffer, long)}
+     * once the frame's position in the journal is known.
+     */
+    static ByteBuffer frame(JournalCommand command, long timestamp) {
+        var bytes = new ByteArrayOutputStream(64);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeLong(0);
+            out.writeLong(timestamp);
+            writeCommand(out, command);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var frame = ByteBuffer.wrap(bytes.toByteArray());
+        frame.putInt(0, frame.capacity() - HEADER_SIZE);
+        return frame;
+    }
+
+    static void seal(ByteBuffer frame, long sequence) {
+        frame.putLong(SEQUENCE_OFFSET, sequence);
+        frame.putInt(4, crc(frame.array(), HEADER_SIZE, frame.capacity() - HEADER_SIZE));
+    }
+
+    /**
+     * Decodes the frame at the given position.
+     *
+     * @return the record, or null if there is no complete and intact frame at the position
+     */
+    static JournalRecord read(ByteBuffer buffer, int position) {
+        if (buffer.limit() - position < HEADER_SIZE) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > buffer.limit() - position - HEADER_SIZE) {
+            return null;
+        }
+
+        var body = new byte[length];
+        buffer.get(position + HEADER_SIZE, body);
+        if (crc(body, 0, length) != buffer.getInt(position + 4)) {
+            return null;
+        }
+
+        try (var in = new DataInputStream(new ByteArrayInputStream(body))) {
+            long sequence = in.readLong();
+            long timestamp = in.readLong();
+            return new JournalRecord(sequence, timestamp, readCommand(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCommand(DataOutputStream out, JournalCommand command) throws IOException {
+        if (command instanceof CreateOrder create) {
+            out.writeByte(CREATE_ORDER);
+            out.writeLong(create.orderId());
+            out.writeLong(create.customerId());
+            out.writeUTF(create.assetName());
+            out.writeByte(create.orderSide().ordinal());
+            out.writeLong(create.size());
+            out.writeLong(create.price());
+        } else if (command instanceof CancelOrder cancel) {
+            out.writeByte(CANCEL_ORDER);
+            out.writeLong(cancel.orderId());
+            out.writeLong(cancel.customerId());
+        } else if (command instanceof Match match) {
+            out.writeByte(MATCH);
+            out.writeInt(match.trades().size());
+            for (Trade trade : match.trades()) {
+                out.writeUTF(trade.assetName());
+                out.writeLong(trade.buyOrderId());
+                out.writeLong(trade.buyCustomerId());
+                out.writeLong(trade.sellOrderId());
+                out.writeLong(trade.sellCustomerId());
+                out.writeLong(trade.price());
+                out.writeLong(trade.size());
+            }
+        } else if (command instanceof Abort abort) {
+            out.writeByte(ABORT);
+            out.writeLong(abort.fromSequence());
+            out.writeLong(abort.toSequence());
+        } else {
+            throw new IllegalArgumentException("Unsupported journal command " + command);
+        }
+    }
+
+    private static JournalCommand readCommand(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case CREATE_ORDER -> new CreateOrder(in.readLong(), in.readLong(), in.readUTF(),
+                OrderSide.values()[in.readByte()], in.readLong(), in.readLong());
+            case CANCEL_ORDER -> new CancelOrder(in.readLong(), in.readLong());
+            case MATCH -> {
+                int count = in.readInt();
+                List<Trade> trades = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    trades.add(new Trade(in.readUTF(), in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                        in.readLong(), in.readLong()));
+                }
+                yield new Match(trades);
+            }
+            case ABORT -> new Abort(in.readLong(), in.readLong());
+            default -> throw new IllegalStateException("Unknown journal command type " + type);
+        };
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        var crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
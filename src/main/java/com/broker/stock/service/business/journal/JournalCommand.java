@@ -0,0 +1,36 @@
+package com.broker.stock.service.business.journal;
+
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.entity.Order;
+import com.broker.stock.service.business.matching.Trade;
+
+import java.util.List;
+
+/**
+ * A command accepted by the order service, as it is written to the {@link CommandJournal}.
+ * Prices and sizes are {@link com.broker.stock.util.FixedPoint} values.
+ */
+public sealed interface JournalCommand {
+
+    record CreateOrder(Long orderId, Long customerId, String assetName, OrderSide orderSide, long size, long price)
+        implements JournalCommand {
+
+        public static CreateOrder of(Order order) {
+            return new CreateOrder(order.getId(), order.getCustomerId(), order.getAssetName(), order.getOrderSide(),
+                order.getSize(), order.getPrice());
+        }
+    }
+
+    record CancelOrder(Long orderId, Long customerId) implements JournalCommand {
+    }
+
+    record Match(List<Trade> trades) implements JournalCommand {
+    }
+
+    /**
+     * Marks the commands with sequences from {@code fromSequence} to {@code toSequence} as rolled back,
+     * they were journaled but the transaction that accepted them did not commit.
+     */
+    record Abort(long fromSequence, long toSequence) implements JournalCommand {
+    }
+}
@@ -0,0 +1,114 @@
+package com.broker.stock.service.business.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads the segments of a journal directory in sequence order.
+ * <p>
+ * Reading stops at the first frame that is incomplete, fails its CRC or breaks the sequence. That is expected at the
+ * end of the last segment after a crash, anywhere else the journal is corrupt.
+ */
+@Slf4j
+public final class JournalReader {
+
+    static final String SEGMENT_PREFIX = "commands-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private JournalReader() {
+        // Private constructor to prevent instantiation (utility class)
+    }
+
+    /**
+     * Where the intact part of a journal ends.
+     *
+     * @param segment      the last segment, null if the journal is empty
+     * @param position     the position after the last intact frame of that segment
+     * @param lastSequence the sequence of the last intact record, 0 if there is none
+     */
+    public record End(Path segment, int position, long lastSequence) {
+    }
+
+    /**
+     * Passes every intact record of the journal to the consumer.
+     *
+     * @param directory the journal directory
+     * @param consumer  receives the records in sequence order
+     * @return where the intact part of the journal ends
+     * @throws IllegalStateException if a segment other than the last one is damaged
+     */
+    public static End read(Path directory, Consumer<JournalRecord> consumer) {
+        var segments = segments(directory);
+        long lastSequence = 0;
+        int position = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            var segment = segments.get(i);
+            long firstSequence = firstSequence(segment);
+            if (lastSequence != 0 && firstSequence != lastSequence + 1) {
+                throw new IllegalStateException("Journal segment " + segment + " does not continue at sequence " + (lastSequence + 1));
+            }
+            lastSequence = firstSequence - 1;
+
+            var buffer = map(segment);
+            position = 0;
+            JournalRecord journalRecord;
+            while ((journalRecord = JournalCodec.read(buffer, position)) != null && journalRecord.sequence() == lastSequence + 1) {
+                consumer.accept(journalRecord);
+                lastSequence = journalRecord.sequence();
+                position += JournalCodec.HEADER_SIZE + buffer.getInt(position);
+            }
+
+            boolean clean = position + JournalCodec.HEADER_SIZE > buffer.limit() || buffer.getInt(position) == 0;
+            if (!clean) {
+                if (i < segments.size() - 1) {
+                    throw new IllegalStateException("Journal segment " + segment + " is damaged at position " + position);
+                }
+                log.warn("Journal {} ends with an incomplete record at position {}, it is ignored", segment, position);
+            }
+        }
+        return new End(segments.isEmpty() ? null : segments.get(segments.size() - 1), position, lastSequence);
+    }
+
+    static List<Path> segments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // Segment names carry the zero-padded first sequence, so they sort in sequence order
+            return files
+                .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Path segmentPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    static long firstSequence(Path segment) {
+        var name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static MappedByteBuffer map(Path segment) {
+        try (var channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.broker.stock.service.business.journal;
+
+/**
+ * A journaled command with its sequence number and the time it was appended in epoch milliseconds.
+ */
+public record JournalRecord(long sequence, long timestamp, JournalCommand command) {
+}
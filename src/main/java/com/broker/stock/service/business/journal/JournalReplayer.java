@@ -0,0 +1,132 @@
+package com.broker.stock.service.business.journal;
+
+import com.broker.stock.service.business.journal.JournalCommand.Abort;
+import com.broker.stock.service.business.journal.JournalCommand.CancelOrder;
+import com.broker.stock.service.business.journal.JournalCommand.CreateOrder;
+import com.broker.stock.service.business.journal.JournalCommand.Match;
+import com.broker.stock.service.business.matching.BookOrder;
+import com.broker.stock.service.business.matching.OrderBook;
+import com.broker.stock.service.business.matching.Trade;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rebuilds the order books from a command journal.
+ * <p>
+ * Can be run on a journal directory of a stopped service to check it and print the books it describes:
+ * <pre>
+ * java -cp order-service.jar -Dloader.main=com.broker.stock.service.business.journal.JournalReplayer \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher ./data/journal
+ * </pre>
+ */
+public class JournalReplayer {
+
+    /**
+     * Result of a replay.
+     *
+     * @param lastSequence the sequence of the last replayed record
+     * @param records      the number of intact records in the journal
+     * @param aborted      the number of records skipped because their transaction rolled back
+     * @param books        the order books of the orders left open, by asset name
+     */
+    public record Result(long lastSequence, int records, int aborted, Map<String, OrderBook> books) {
+    }
+
+    private final Map<Long, OpenOrder> openOrders = new LinkedHashMap<>();
+
+    private JournalReplayer() {
+    }
+
+    /**
+     * Replays every committed command of a journal.
+     *
+     * @param directory the journal directory
+     * @return the rebuilt order books
+     */
+    public static Result replay(Path directory) {
+        // Abort records follow the commands they cancel, so they are collected first
+        List<Abort> aborts = new ArrayList<>();
+        List<JournalRecord> records = new ArrayList<>();
+        var end = JournalReader.read(directory, journalRecord -> {
+            if (journalRecord.command() instanceof Abort abort) {
+                aborts.add(abort);
+            } else {
+                records.add(journalRecord);
+            }
+        });
+
+        var replayer = new JournalReplayer();
+        int aborted = 0;
+        for (JournalRecord journalRecord : records) {
+            if (isAborted(aborts, journalRecord.sequence())) {
+                aborted++;
+            } else {
+                replayer.apply(journalRecord.command());
+            }
+        }
+        return new Result(end.lastSequence(), records.size() + aborts.size(), aborted, replayer.books());
+    }
+
+    public static void main(String[] args) {
+        var directory = Path.of(args.length > 0 ? args[0] : "./data/journal");
+        var result = replay(directory);
+
+        System.out.printf("Replayed %s up to sequence %d: %d records, %d rolled back%n",
+            directory, result.lastSequence(), result.records(), result.aborted());
+        result.books().forEach((assetName, book) ->
+            System.out.printf("  %-10s %d open orders%n", assetName, book.size()));
+    }
+
+    private static boolean isAborted(List<Abort> aborts, long sequence) {
+        return aborts.stream().anyMatch(abort -> sequence >= abort.fromSequence() && sequence <= abort.toSequence());
+    }
+
+    private void apply(JournalCommand command) {
+        if (command instanceof CreateOrder create) {
+            openOrders.put(create.orderId(), new OpenOrder(create));
+        } else if (command instanceof CancelOrder cancel) {
+            openOrders.remove(cancel.orderId());
+        } else if (command instanceof Match match) {
+            for (Trade trade : match.trades()) {
+                fill(trade.buyOrderId(), trade.size());
+                fill(trade.sellOrderId(), trade.size());
+            }
+        }
+    }
+
+    private void fill(Long orderId, long size) {
+        var order = openOrders.get(orderId);
+        if (order == null) {
+            // Orders created before the journal was enabled are not part of it
+            return;
+        }
+        order.remainingSize -= size;
+        if (order.remainingSize <= 0) {
+            openOrders.remove(orderId);
+        }
+    }
+
+    private Map<String, OrderBook> books() {
+        Map<String, OrderBook> books = new TreeMap<>();
+        // Journal order is commit order, which is the order the orders were rested in
+        openOrders.values().forEach(order -> books.computeIfAbsent(order.create.assetName(), OrderBook::new)
+            .add(new BookOrder(order.create.orderId(), order.create.customerId(), order.create.orderSide(),
+                order.create.price(), order.remainingSize)));
+        return books;
+    }
+
+    private static final class OpenOrder {
+        private final CreateOrder create;
+        private long remainingSize;
+
+        OpenOrder(CreateOrder create) {
+            this.create = create;
+            this.remainingSize = create.size();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.broker.stock.service.business.market;
+
+import com.broker.stock.constant.CandleInterval;
+
+/**
+ * Last trade and candles of one asset, guarded by the instance's monitor.
+ */
+class AssetMarket {
+
+    private static final long DAY_MILLIS = 24 * CandleInterval.ONE_HOUR.millis();
+
+    private final String assetName;
+    private final CandleRing[] rings = new CandleRing[CandleInterval.values().length];
+    private long lastPrice;
+    private long lastTradeAt = Long.MIN_VALUE;
+
+    AssetMarket(String assetName) {
+        this.assetName = assetName;
+        for (CandleInterval interval : CandleInterval.values()) {
+            rings[interval.ordinal()] = new CandleRing(interval);
+        }
+    }
+
+    String assetName() {
+        return assetName;
+    }
+
+    synchronized void add(long time, long price, long size) {
+        for (CandleRing ring : rings) {
+            ring.add(time, price, size);
+        }
+        if (time >= lastTradeAt) {
+            lastPrice = price;
+            lastTradeAt = time;
+        }
+    }
+
+    synchronized void restore(CandleInterval interval, long openTime, long open, long high, long low, long close,
+                              long volume, int trades, long lastTrade) {
+        rings[interval.ordinal()].restore(openTime, open, high, low, close, volume, trades, lastTrade);
+        if (lastTrade > lastTradeAt) {
+            lastPrice = close;
+            lastTradeAt = lastTrade;
+        }
+    }
+
+    synchronized long lastPrice() {
+        return lastPrice;
+    }
+
+    synchronized long lastTradeAt() {
+        return lastTradeAt;
+    }
+
+    /**
+     * Adds up the hourly candles of the last 24 hours, the current one included.
+     *
+     * @return the volume and the number of trades
+     */
+    synchronized long[] daySummary(long now) {
+        var summary = new long[2];
+        rings[CandleInterval.ONE_HOUR.ordinal()].latest(now, (int) (DAY_MILLIS / CandleInterval.ONE_HOUR.millis()),
+            (openTime, open, high, low, close, volume, trades, lastTrade) -> {
+                summary[0] = Math.addExact(summary[0], volume);
+                summary[1] += trades;
+            });
+        return summary;
+    }
+
+    synchronized void latest(CandleInterval interval, long now, int limit, CandleRing.CandleVisitor visitor) {
+        rings[interval.ordinal()].latest(now, limit, visitor);
+    }
+
+    synchronized void drainDirty(CandleInterval interval, CandleRing.CandleVisitor visitor) {
+        rings[interval.ordinal()].drainDirty(visitor);
+    }
+
+    synchronized void markDirty(CandleInterval interval, long openTime) {
+        rings[interval.ordinal()].markDirty(openTime);
+    }
+}
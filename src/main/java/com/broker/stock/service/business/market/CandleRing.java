@@ -0,0 +1,148 @@
+package com.broker.stock.service.business.market;
+
+import com.broker.stock.constant.CandleInterval;
+
+import java.util.Arrays;
+
+/**
+ * The latest candles of one asset and interval. A candle lives in the slot its open time maps to, a new interval
+ * overwrites the candle of the same slot one ring ago. Every field is a preallocated array, adding a trade or finding
+ * a candle costs the same however many candles are kept. Not thread-safe, guarded by the owning {@link AssetMarket}.
+ */
+class CandleRing {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final CandleInterval interval;
+    private final long[] openTime;
+    private final long[] open;
+    private final long[] high;
+    private final long[] low;
+    private final long[] close;
+    private final long[] volume;
+    private final int[] trades;
+    private final long[] lastTradeAt;
+    // Changed since the candles were last persisted
+    private final boolean[] dirty;
+
+    CandleRing(CandleInterval interval) {
+        this.interval = interval;
+        int capacity = interval.capacity();
+        this.openTime = new long[capacity];
+        this.open = new long[capacity];
+        this.high = new long[capacity];
+        this.low = new long[capacity];
+        this.close = new long[capacity];
+        this.volume = new long[capacity];
+        this.trades = new int[capacity];
+        this.lastTradeAt = new long[capacity];
+        this.dirty = new boolean[capacity];
+        Arrays.fill(openTime, EMPTY);
+    }
+
+    CandleInterval interval() {
+        return interval;
+    }
+
+    void add(long time, long price, long size) {
+        long start = openTimeOf(time);
+        int slot = slotOf(start);
+        if (openTime[slot] == start) {
+            high[slot] = Math.max(high[slot], price);
+            low[slot] = Math.min(low[slot], price);
+            close[slot] = price;
+            volume[slot] = Math.addExact(volume[slot], size);
+            trades[slot]++;
+            lastTradeAt[slot] = Math.max(lastTradeAt[slot], time);
+        } else if (openTime[slot] < start) {
+            openTime[slot] = start;
+            open[slot] = price;
+            high[slot] = price;
+            low[slot] = price;
+            close[slot] = price;
+            volume[slot] = size;
+            trades[slot] = 1;
+            lastTradeAt[slot] = time;
+        } else {
+            // The candle of this trade was already overwritten by a newer one
+            return;
+        }
+        dirty[slot] = true;
+    }
+
+    /**
+     * Puts back a persisted candle, unless its slot already holds a newer one.
+     */
+    void restore(long start, long openPrice, long highPrice, long lowPrice, long closePrice, long size, int count,
+                 long lastTrade) {
+        int slot = slotOf(start);
+        if (openTime[slot] >= start) {
+            return;
+        }
+        openTime[slot] = start;
+        open[slot] = openPrice;
+        high[slot] = highPrice;
+        low[slot] = lowPrice;
+        close[slot] = closePrice;
+        volume[slot] = size;
+        trades[slot] = count;
+        lastTradeAt[slot] = lastTrade;
+        dirty[slot] = false;
+    }
+
+    /**
+     * Hands the candles of the latest intervals up to the given time to the visitor, oldest first. Intervals without
+     * trades have no candle.
+     */
+    void latest(long now, int limit, CandleVisitor visitor) {
+        long current = openTimeOf(now);
+        int count = Math.min(limit, interval.capacity());
+        for (int back = count - 1; back >= 0; back--) {
+            long start = current - back * interval.millis();
+            int slot = slotOf(start);
+            if (openTime[slot] == start) {
+                visit(slot, visitor);
+            }
+        }
+    }
+
+    /**
+     * Hands the candles changed since the last call to the visitor and marks them persisted.
+     */
+    void drainDirty(CandleVisitor visitor) {
+        for (int slot = 0; slot < dirty.length; slot++) {
+            if (dirty[slot]) {
+                dirty[slot] = false;
+                visit(slot, visitor);
+            }
+        }
+    }
+
+    /**
+     * Marks a candle as changed again, e.g. after persisting it failed. Has no effect once its slot moved on.
+     */
+    void markDirty(long start) {
+        int slot = slotOf(start);
+        if (openTime[slot] == start) {
+            dirty[slot] = true;
+        }
+    }
+
+    private void visit(int slot, CandleVisitor visitor) {
+        visitor.visit(openTime[slot], open[slot], high[slot], low[slot], close[slot], volume[slot], trades[slot], lastTradeAt[slot]);
+    }
+
+    private long openTimeOf(long time) {
+        return time - Math.floorMod(time, interval.millis());
+    }
+
+    private int slotOf(long start) {
+        return (int) Math.floorMod(Math.floorDiv(start, interval.millis()), (long) interval.capacity());
+    }
+
+    @FunctionalInterface
+    interface CandleVisitor {
+
+        void visit(long openTime, long open, long high, long low, long close, long volume, int trades, long lastTradeAt);
+    }
+}
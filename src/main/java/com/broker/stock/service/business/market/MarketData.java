@@ -0,0 +1,201 @@
+package com.broker.stock.service.business.market;
+
+import com.broker.stock.constant.CandleInterval;
+import com.broker.stock.model.Candle;
+import com.broker.stock.model.MarketTicker;
+import com.broker.stock.service.business.matching.Trade;
+import com.broker.stock.util.FixedPoint;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last price and OHLCV candles per asset, fed by the trades of every committed match.
+ * <p>
+ * Each asset keeps the latest candles of every {@link CandleInterval} in fixed-size rings, so the market of an asset
+ * is one map lookup away and recording a trade touches one candle per interval. Changed candles are written to the
+ * candle table periodically and on shutdown, and put back into the rings on startup. Trades of the last flush
+ * interval are lost if the process dies.
+ */
+@Component
+@Slf4j
+public class MarketData implements SmartInitializingSingleton {
+
+    private static final String MERGE_SQL = "MERGE INTO candle (asset_name, interval_seconds, open_time, open, high, low, close, volume, trades, last_trade_at) "
+        + "KEY (asset_name, interval_seconds, open_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String LOAD_SQL = "SELECT asset_name, open_time, open, high, low, close, volume, trades, last_trade_at FROM candle "
+        + "WHERE interval_seconds = ? AND open_time >= ?";
+    private static final String PURGE_SQL = "DELETE FROM candle WHERE interval_seconds = ? AND open_time < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, AssetMarket> markets = new ConcurrentHashMap<>();
+
+    public MarketData(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        load(System.currentTimeMillis());
+    }
+
+    /**
+     * Records committed trades as of now.
+     *
+     * @param trades the trades, in execution order
+     */
+    public void record(List<Trade> trades) {
+        record(trades, System.currentTimeMillis());
+    }
+
+    void record(List<Trade> trades, long time) {
+        for (Trade trade : trades) {
+            markets.computeIfAbsent(trade.assetName(), AssetMarket::new).add(time, trade.price(), trade.size());
+        }
+    }
+
+    /**
+     * @param assetName the asset name
+     * @return the last trade of the asset and what was traded within the last 24 hours
+     * @throws ResponseStatusException with status 404 if the asset was never traded
+     */
+    public MarketTicker ticker(String assetName) {
+        return ticker(assetName, System.currentTimeMillis());
+    }
+
+    MarketTicker ticker(String assetName, long now) {
+        var market = market(assetName);
+        var day = market.daySummary(now);
+        return new MarketTicker(assetName, FixedPoint.toBigDecimal(market.lastPrice()), toDateTime(market.lastTradeAt()),
+            FixedPoint.toBigDecimal(day[0]), (int) day[1]);
+    }
+
+    /**
+     * @param assetName the asset name
+     * @param interval  the candle length
+     * @param limit     how many intervals back to look, up to the interval's capacity
+     * @return the candles of the latest intervals, oldest first. Intervals without trades have no candle
+     * @throws ResponseStatusException with status 404 if the asset was never traded
+     */
+    public List<Candle> candles(String assetName, CandleInterval interval, int limit) {
+        return candles(assetName, interval, limit, System.currentTimeMillis());
+    }
+
+    List<Candle> candles(String assetName, CandleInterval interval, int limit, long now) {
+        List<Candle> candles = new ArrayList<>(Math.min(limit, interval.capacity()));
+        market(assetName).latest(interval, now, limit, (openTime, open, high, low, close, volume, trades, lastTradeAt) ->
+            candles.add(new Candle(toDateTime(openTime),
+                FixedPoint.toBigDecimal(open),
+                FixedPoint.toBigDecimal(high),
+                FixedPoint.toBigDecimal(low),
+                FixedPoint.toBigDecimal(close),
+                FixedPoint.toBigDecimal(volume),
+                trades)));
+        return candles;
+    }
+
+    /**
+     * Writes the candles that changed since the last flush and deletes those that fell out of their ring.
+     */
+    @Scheduled(fixedDelayString = "${order.market-data.flush-interval:10s}", initialDelayString = "${order.market-data.flush-interval:10s}")
+    public void flush() {
+        flush(System.currentTimeMillis());
+    }
+
+    void flush(long now) {
+        for (CandleInterval interval : CandleInterval.values()) {
+            List<Object[]> rows = new ArrayList<>();
+            List<AssetMarket> owners = new ArrayList<>();
+            for (AssetMarket market : markets.values()) {
+                market.drainDirty(interval, (openTime, open, high, low, close, volume, trades, lastTradeAt) -> {
+                    rows.add(new Object[]{market.assetName(), seconds(interval), timestamp(openTime),
+                        FixedPoint.toBigDecimal(open), FixedPoint.toBigDecimal(high), FixedPoint.toBigDecimal(low),
+                        FixedPoint.toBigDecimal(close), FixedPoint.toBigDecimal(volume), trades, timestamp(lastTradeAt)});
+                    owners.add(market);
+                });
+            }
+            try {
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(MERGE_SQL, rows);
+                }
+                jdbcTemplate.update(PURGE_SQL, seconds(interval), timestamp(oldestKept(interval, now)));
+            } catch (DataAccessException e) {
+                // Written with the next flush, unless the candle moved on meanwhile
+                log.warn("Failed to persist {} {} candles", rows.size(), interval.label(), e);
+                for (int i = 0; i < rows.size(); i++) {
+                    owners.get(i).markDirty(interval, millis((OffsetDateTime) rows.get(i)[2]));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    void load(long now) {
+        int candles = 0;
+        for (CandleInterval interval : CandleInterval.values()) {
+            candles += jdbcTemplate.query(LOAD_SQL, (rs, rowNum) -> {
+                markets.computeIfAbsent(rs.getString(1), AssetMarket::new).restore(interval,
+                    millis(rs.getObject(2, OffsetDateTime.class)),
+                    FixedPoint.of(rs.getBigDecimal(3)),
+                    FixedPoint.of(rs.getBigDecimal(4)),
+                    FixedPoint.of(rs.getBigDecimal(5)),
+                    FixedPoint.of(rs.getBigDecimal(6)),
+                    FixedPoint.of(rs.getBigDecimal(7)),
+                    rs.getInt(8),
+                    millis(rs.getObject(9, OffsetDateTime.class)));
+                return null;
+            }, seconds(interval), timestamp(oldestKept(interval, now))).size();
+        }
+        log.info("Loaded {} candles of {} assets", candles, markets.size());
+    }
+
+    private AssetMarket market(String assetName) {
+        var market = markets.get(assetName);
+        if (market == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No trades of " + assetName + " are known.");
+        }
+        return market;
+    }
+
+    // Open time of the oldest interval the ring still has a slot for
+    private static long oldestKept(CandleInterval interval, long now) {
+        return now - Math.floorMod(now, interval.millis()) - (interval.capacity() - 1) * interval.millis();
+    }
+
+    private static int seconds(CandleInterval interval) {
+        return (int) (interval.millis() / 1000);
+    }
+
+    // Candles are keyed by an instant, a local time repeats when daylight saving time ends
+    private static OffsetDateTime timestamp(long epochMillis) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    private static long millis(OffsetDateTime timestamp) {
+        return timestamp.toInstant().toEpochMilli();
+    }
+
+    private static OffsetDateTime toDateTime(long epochMillis) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
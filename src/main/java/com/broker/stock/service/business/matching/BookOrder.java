@@ -0,0 +1,45 @@
+package com.broker.stock.service.business.matching;
+
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Resting order entry kept in an {@link OrderBook}. Only the fields needed for matching are held in memory,
+ * the {@link Order} entity stays the system of record. Price and size are {@link com.broker.stock.util.FixedPoint} values.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookOrder {
+
+    private final Long orderId;
+    private final Long customerId;
+    private final OrderSide orderSide;
+    private final long price;
+    private long remainingSize;
+
+    /**
+     * Creates a book entry from a pending order, taking already filled size into account.
+     *
+     * @param order the pending Order entity
+     * @return a book entry carrying the unfilled part of the order
+     */
+    public static BookOrder from(Order order) {
+        return new BookOrder(order.getId(),
+            order.getCustomerId(),
+            order.getOrderSide(),
+            order.getPrice(),
+            order.getSize() - order.getFilledSize());
+    }
+
+    void fill(long size) {
+        remainingSize -= size;
+    }
+
+    boolean isFilled() {
+        return remainingSize <= 0;
+    }
+}
@@ -0,0 +1,216 @@
+package com.broker.stock.service.business.matching;
+
+import com.broker.stock.constant.OrderStatus;
+import com.broker.stock.entity.Order;
+import com.broker.stock.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps one in-memory {@link OrderBook} per asset name and crosses them on demand.
+ * <p>
+ * Assets are partitioned by name across {@link MatchingShard shards}, each shard is the single writer of its
+ * books, so different assets are matched in parallel without locks.
+ * The books are rebuilt from the PENDING orders in the database on startup and after {@link #reset()},
+ * so the database stays the system of record.
+ */
+@Component
+@Slf4j
+public class MatchingEngine {
+
+    private final OrderRepository orderRepository;
+    private final MatchingShard[] shards;
+    private final int chunkSize;
+    private volatile boolean loaded;
+
+    // Not a monitor, loading blocks on the database and virtual threads waiting on a monitor would pin their carriers
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    public MatchingEngine(OrderRepository orderRepository,
+                          @Value("${order.matching.shards:0}") int shardCount,
+                          @Value("${order.matching.chunk-size:1000}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.chunkSize = chunkSize;
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = IntStream.range(0, count)
+            .mapToObj(MatchingShard::new)
+            .toArray(MatchingShard[]::new);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        ensureLoaded();
+    }
+
+    /**
+     * Rests a pending order in the book of its asset.
+     *
+     * @param order the pending Order entity
+     */
+    public void add(Order order) {
+        ensureLoaded();
+        shard(order.getAssetName()).add(order.getAssetName(), BookOrder.from(order));
+    }
+
+    /**
+     * Crosses a new order against the book of its asset and rests its unfilled part in the same step, so two crossing
+     * orders never both rest. The book then holds an order that is not committed yet, callers {@link #reset() reset}
+     * the engine if its transaction rolls back.
+     *
+     * @param order the new Order entity
+     * @return trades of the order in execution order
+     */
+    public List<Trade> match(Order order) {
+        ensureLoaded();
+        return join(shard(order.getAssetName()).match(order.getAssetName(), BookOrder.from(order)));
+    }
+
+    /**
+     * Removes an order from the book of its asset.
+     *
+     * @param order the Order entity
+     */
+    public void remove(Order order) {
+        ensureLoaded();
+        shard(order.getAssetName()).remove(order.getAssetName(), order.getId());
+    }
+
+    /**
+     * Crosses every book, the shards are matched in parallel. Each shard stops after the given number of trades, so
+     * only a bounded number of trades is held at a time. Callers settle them and call again until no trades are left.
+     *
+     * @param limit the maximum number of trades per shard
+     * @return trades of all assets
+     */
+    public List<Trade> matchAll(int limit) {
+        ensureLoaded();
+        return joinAll(Arrays.stream(shards).map(shard -> shard.matchAll(limit)).toList());
+    }
+
+    /**
+     * Crosses the books of the given assets only, with the same limit as {@link #matchAll(int)}.
+     *
+     * @param assetNames the asset names to match
+     * @param limit      the maximum number of trades per shard
+     * @return trades of the given assets
+     */
+    public List<Trade> matchAssets(Collection<String> assetNames, int limit) {
+        ensureLoaded();
+        Map<MatchingShard, List<String>> assetsByShard = new HashMap<>();
+        assetNames.forEach(assetName -> assetsByShard.computeIfAbsent(shard(assetName), shard -> new ArrayList<>()).add(assetName));
+
+        return joinAll(assetsByShard.entrySet().stream()
+            .map(entry -> entry.getKey().matchAssets(entry.getValue(), limit))
+            .toList());
+    }
+
+    /**
+     * Fills the books with orders restored from a snapshot instead of loading them from the database.
+     * Does nothing if the books were already loaded.
+     *
+     * @param ordersByAsset the pending orders of each asset in arrival order
+     * @return true if the books were filled with the given orders
+     */
+    public boolean restore(Map<String, List<BookOrder>> ordersByAsset) {
+        loadLock.lock();
+        try {
+            if (loaded) {
+                return false;
+            }
+            ordersByAsset.forEach((assetName, orders) -> {
+                var shard = shard(assetName);
+                orders.forEach(order -> shard.add(assetName, order));
+            });
+            loaded = true;
+            log.info("Restored {} pending orders into {} matching shards",
+                ordersByAsset.values().stream().mapToInt(List::size).sum(), shards.length);
+            return true;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the in-memory state, the books are reloaded from the database on next use.
+     * Used when a transaction that already changed the books is rolled back.
+     */
+    public void reset() {
+        loadLock.lock();
+        try {
+            log.warn("Resetting order books, they will be reloaded from the database");
+            loaded = false;
+            Arrays.stream(shards).map(MatchingShard::clear).toList().forEach(MatchingEngine::join);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Arrays.stream(shards).forEach(MatchingShard::shutdown);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            // Keyset pagination by id keeps at most one chunk of entities in memory
+            long loadedOrders = 0;
+            Long lastId = 0L;
+            List<Order> chunk;
+            do {
+                chunk = orderRepository.findByStatusAndIdGreaterThanOrderById(OrderStatus.PENDING, lastId, Limit.of(chunkSize));
+                chunk.forEach(order -> shard(order.getAssetName()).add(order.getAssetName(), BookOrder.from(order)));
+                loadedOrders += chunk.size();
+                lastId = chunk.isEmpty() ? lastId : chunk.get(chunk.size() - 1).getId();
+            } while (chunk.size() == chunkSize);
+
+            loaded = true;
+            log.info("Loaded {} pending orders into {} matching shards", loadedOrders, shards.length);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private MatchingShard shard(String assetName) {
+        return shards[Math.floorMod(assetName.hashCode(), shards.length)];
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static List<Trade> joinAll(List<CompletableFuture<List<Trade>>> futures) {
+        List<Trade> trades = new ArrayList<>();
+        futures.forEach(future -> trades.addAll(join(future)));
+        return trades;
+    }
+}
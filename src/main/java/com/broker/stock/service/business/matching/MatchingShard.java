@@ -0,0 +1,114 @@
+package com.broker.stock.service.business.matching;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Owns the order books of a subset of assets. Every book operation runs on the shard's own thread,
+ * so the books are never shared between threads and need no locking.
+ * <p>
+ * A cancel can commit after an order was created but before the order reached its shard, its removal then runs
+ * first. Such orders are remembered and never rested when they arrive, a bounded number of them in removal order.
+ */
+class MatchingShard {
+
+    private static final int MAX_REMOVED_BEFORE_ARRIVAL = 10_000;
+
+    private final Map<String, OrderBook> books = new HashMap<>();
+    private final Set<Long> removedBeforeArrival = new LinkedHashSet<>();
+    private final ExecutorService executor;
+
+    MatchingShard(int index) {
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "matching-shard-" + index);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void add(String assetName, BookOrder order) {
+        executor.execute(() -> {
+            if (!removedBeforeArrival.remove(order.getOrderId())) {
+                books.computeIfAbsent(assetName, OrderBook::new).add(order);
+            }
+        });
+    }
+
+    void remove(String assetName, Long orderId) {
+        executor.execute(() -> {
+            var book = books.get(assetName);
+            if (book == null || !book.remove(orderId)) {
+                rememberRemoved(orderId);
+            }
+        });
+    }
+
+    // Crossing and resting are one task, an order matched after this one always finds its unfilled part
+    CompletableFuture<List<Trade>> match(String assetName, BookOrder incoming) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (removedBeforeArrival.remove(incoming.getOrderId())) {
+                return List.<Trade>of();
+            }
+            var book = books.computeIfAbsent(assetName, OrderBook::new);
+            // Books reloaded since the order was saved may already hold it with its full size
+            book.remove(incoming.getOrderId());
+            var trades = book.match(incoming);
+            book.add(incoming);
+            if (book.isEmpty()) {
+                books.remove(assetName);
+            }
+            return trades;
+        }, executor);
+    }
+
+    CompletableFuture<List<Trade>> matchAll(int limit) {
+        return CompletableFuture.supplyAsync(() -> matchBooks(List.copyOf(books.keySet()), limit), executor);
+    }
+
+    CompletableFuture<List<Trade>> matchAssets(Collection<String> assetNames, int limit) {
+        return CompletableFuture.supplyAsync(() -> matchBooks(List.copyOf(assetNames), limit), executor);
+    }
+
+    // Orders still on their way stay remembered, their creation may arrive after the books were cleared
+    CompletableFuture<Void> clear() {
+        return CompletableFuture.runAsync(books::clear, executor);
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private void rememberRemoved(Long orderId) {
+        removedBeforeArrival.add(orderId);
+        var iterator = removedBeforeArrival.iterator();
+        while (removedBeforeArrival.size() > MAX_REMOVED_BEFORE_ARRIVAL) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private List<Trade> matchBooks(List<String> assetNames, int limit) {
+        List<Trade> trades = new ArrayList<>();
+        for (String assetName : assetNames) {
+            if (trades.size() >= limit) {
+                break;
+            }
+            var book = books.get(assetName);
+            if (book != null) {
+                trades.addAll(book.match(limit - trades.size()));
+                if (book.isEmpty()) {
+                    books.remove(assetName);
+                }
+            }
+        }
+        return trades;
+    }
+}
@@ -0,0 +1,186 @@
+package com.broker.stock.service.business.matching;
+
+import com.broker.stock.constant.OrderSide;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Price-time priority order book of a single asset.
+ * <p>
+ * BUY levels are sorted by descending price, SELL levels by ascending price and every level keeps its orders
+ * in arrival order. The book is not thread-safe, callers must confine it to a single writer.
+ * <p>
+ * Orders of the same customer never trade with each other. A crossing order of the same customer is passed over and
+ * the order trades with the next one in price-time priority, orders that only cross the customer's own rest crossed.
+ */
+public class OrderBook {
+
+    private final String assetName;
+    private final NavigableMap<Long, Deque<BookOrder>> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final NavigableMap<Long, Deque<BookOrder>> asks = new TreeMap<>();
+    private final Map<Long, BookOrder> ordersById = new HashMap<>();
+
+    public OrderBook(String assetName) {
+        this.assetName = assetName;
+    }
+
+    /**
+     * Adds an order to the end of its price level. Orders that are already in the book are ignored.
+     *
+     * @param order the order to rest in the book
+     */
+    public void add(BookOrder order) {
+        if (order.isFilled() || ordersById.putIfAbsent(order.getOrderId(), order) != null) {
+            return;
+        }
+        levels(order.getOrderSide())
+            .computeIfAbsent(order.getPrice(), price -> new ArrayDeque<>())
+            .addLast(order);
+    }
+
+    /**
+     * Removes an order from the book.
+     *
+     * @param orderId the order ID
+     * @return true if the order was resting in the book
+     */
+    public boolean remove(Long orderId) {
+        var order = ordersById.remove(orderId);
+        if (order == null) {
+            return false;
+        }
+        var sideLevels = levels(order.getOrderSide());
+        var level = sideLevels.get(order.getPrice());
+        level.remove(order);
+        if (level.isEmpty()) {
+            sideLevels.remove(order.getPrice());
+        }
+        return true;
+    }
+
+    /**
+     * Crosses the book while a bid is at or above an ask of another customer.
+     * Each trade is executed at the price of the order that arrived first.
+     *
+     * @return trades in execution order
+     */
+    public List<Trade> match() {
+        return match(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Crosses the book like {@link #match()}, but stops after the given number of trades. The book stays crossed
+     * where it was not matched yet.
+     *
+     * @param limit the maximum number of trades
+     * @return trades in execution order
+     */
+    public List<Trade> match(int limit) {
+        List<Trade> trades = new ArrayList<>();
+
+        BookOrder bid;
+        BookOrder ask = null;
+        do {
+            // The best bid that crosses an ask of another customer, usually the first one
+            bid = null;
+            search:
+            for (var level : bids.values()) {
+                for (var candidate : level) {
+                    ask = counterparty(candidate, asks);
+                    if (ask != null) {
+                        bid = candidate;
+                        break search;
+                    }
+                    if (asks.isEmpty() || candidate.getPrice() < asks.firstKey()) {
+                        break search;
+                    }
+                }
+            }
+
+            if (bid != null) {
+                long size = Math.min(bid.getRemainingSize(), ask.getRemainingSize());
+                long price = bid.getOrderId() < ask.getOrderId() ? bid.getPrice() : ask.getPrice();
+                trades.add(trade(bid, ask, price, size));
+                fill(bid, size);
+                fill(ask, size);
+            }
+        } while (bid != null && trades.size() < limit);
+        return trades;
+    }
+
+    /**
+     * Crosses an incoming order against the opposite side of the book without resting it.
+     * Each trade is executed at the price of the resting order.
+     *
+     * @param incoming the incoming order, its remaining size is reduced by the executed size
+     * @return trades in execution order
+     */
+    public List<Trade> match(BookOrder incoming) {
+        List<Trade> trades = new ArrayList<>();
+        boolean isBuy = incoming.getOrderSide() == OrderSide.BUY;
+        var oppositeLevels = isBuy ? asks : bids;
+
+        BookOrder resting;
+        while (!incoming.isFilled() && (resting = counterparty(incoming, oppositeLevels)) != null) {
+            long size = Math.min(incoming.getRemainingSize(), resting.getRemainingSize());
+            trades.add(isBuy
+                ? trade(incoming, resting, resting.getPrice(), size)
+                : trade(resting, incoming, resting.getPrice(), size));
+
+            incoming.fill(size);
+            fill(resting, size);
+        }
+        return trades;
+    }
+
+    public String getAssetName() {
+        return assetName;
+    }
+
+    public boolean isEmpty() {
+        return ordersById.isEmpty();
+    }
+
+    public int size() {
+        return ordersById.size();
+    }
+
+    private Trade trade(BookOrder bid, BookOrder ask, long price, long size) {
+        return new Trade(assetName, bid.getOrderId(), bid.getCustomerId(), ask.getOrderId(), ask.getCustomerId(), price, size);
+    }
+
+    // The first order in price-time priority that crosses the given one and belongs to another customer
+    private BookOrder counterparty(BookOrder order, NavigableMap<Long, Deque<BookOrder>> oppositeLevels) {
+        boolean isBuy = order.getOrderSide() == OrderSide.BUY;
+        for (var level : oppositeLevels.entrySet()) {
+            if (isBuy ? order.getPrice() < level.getKey() : order.getPrice() > level.getKey()) {
+                return null;
+            }
+            for (var resting : level.getValue()) {
+                if (!resting.getCustomerId().equals(order.getCustomerId())) {
+                    return resting;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void fill(BookOrder order, long size) {
+        order.fill(size);
+        if (order.isFilled()) {
+            remove(order.getOrderId());
+        }
+    }
+
+    private NavigableMap<Long, Deque<BookOrder>> levels(OrderSide orderSide) {
+        return orderSide == OrderSide.BUY ? bids : asks;
+    }
+}
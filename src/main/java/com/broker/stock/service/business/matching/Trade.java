@@ -0,0 +1,14 @@
+package com.broker.stock.service.business.matching;
+
+/**
+ * A single execution between a BUY and a SELL order of the same asset.
+ * The price is the limit price of the resting (earlier) order, price and size are {@link com.broker.stock.util.FixedPoint} values.
+ */
+public record Trade(String assetName,
+                    Long buyOrderId,
+                    Long buyCustomerId,
+                    Long sellOrderId,
+                    Long sellCustomerId,
+                    long price,
+                    long size) {
+}
@@ -0,0 +1,208 @@
+package com.broker.stock.service.business.snapshot;
+
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.service.business.snapshot.SnapshotState.Balance;
+import com.broker.stock.service.business.snapshot.SnapshotState.BalanceKey;
+import com.broker.stock.service.business.snapshot.SnapshotState.PendingOrder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot files, named by the journal sequence they were taken at.
+ * <pre>
+ * int    magic, int version, long sequence
+ * int    asset name count, UTF names
+ * int    pending order count, per order: long id, long customer id, int name index, byte side, long price, long remaining size
+ * int    balance count, per balance: long id (-1 if unknown), long customer id, int name index, long size, long usable size
+ * long   CRC32C of everything before
+ * </pre>
+ * Asset names are stored once and referenced by index, an order takes 37 bytes.
+ */
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x4F534E50; // OSNP
+    private static final int VERSION = 1;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private SnapshotFile() {
+        // Private constructor to prevent instantiation (utility class)
+    }
+
+    static Path write(Path directory, SnapshotState state) {
+        var target = directory.resolve(String.format("%s%020d%s", PREFIX, state.getSequence(), SUFFIX));
+        var temporary = directory.resolve(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            var crc = new CRC32C();
+            try (var file = Files.newOutputStream(temporary);
+                 var checked = new CheckedOutputStream(new BufferedOutputStream(file, BUFFER_SIZE), crc);
+                 var out = new DataOutputStream(checked)) {
+                writeState(out, state);
+                out.flush();
+                // The checksum itself is written past the checked stream
+                new DataOutputStream(file).writeLong(crc.getValue());
+            }
+            // Readers only ever see complete files
+            try (var channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static SnapshotState read(Path file) {
+        // The checksum is verified before parsing, so damaged counts and indexes are never trusted
+        if (!isIntact(file)) {
+            throw new IllegalStateException("Snapshot " + file + " is damaged.");
+        }
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IllegalStateException("Snapshot " + file + " has an unknown format.");
+            }
+            return readState(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isIntact(Path file) {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long contentSize = channel.size() - Long.BYTES;
+            if (contentSize < 0) {
+                return false;
+            }
+            var crc = new CRC32C();
+            var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long position = 0;
+            while (position < contentSize) {
+                buffer.clear().limit((int) Math.min(BUFFER_SIZE, contentSize - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    return false;
+                }
+                position += read;
+                crc.update(buffer.flip());
+            }
+            var trailer = ByteBuffer.allocate(Long.BYTES);
+            while (trailer.hasRemaining() && channel.read(trailer, contentSize + trailer.position()) >= 0) {
+                // Read until the trailer is complete
+            }
+            return trailer.getLong(0) == crc.getValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lists the snapshot files of a directory, newest first.
+     */
+    static List<Path> list(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> file.getFileName().toString().startsWith(PREFIX) && file.getFileName().toString().endsWith(SUFFIX))
+                .sorted((first, second) -> second.getFileName().compareTo(first.getFileName()))
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Optional<Path> latest(Path directory) {
+        return list(directory).stream().findFirst();
+    }
+
+    static long sequence(Path file) {
+        var name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static void writeState(DataOutputStream out, SnapshotState state) throws IOException {
+        Map<String, Integer> names = new HashMap<>();
+        List<String> nameList = new ArrayList<>();
+        state.getOrders().forEach(order -> names.computeIfAbsent(order.assetName, name -> add(nameList, name)));
+        state.getBalances().keySet().forEach(key -> names.computeIfAbsent(key.assetName(), name -> add(nameList, name)));
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(state.getSequence());
+
+        out.writeInt(nameList.size());
+        for (String name : nameList) {
+            out.writeUTF(name);
+        }
+
+        out.writeInt(state.getOrders().size());
+        for (PendingOrder order : state.getOrders()) {
+            out.writeLong(order.id);
+            out.writeLong(order.customerId);
+            out.writeInt(names.get(order.assetName));
+            out.writeByte(order.orderSide.ordinal());
+            out.writeLong(order.price);
+            out.writeLong(order.remainingSize);
+        }
+
+        out.writeInt(state.getBalances().size());
+        for (Map.Entry<BalanceKey, Balance> entry : state.getBalances().entrySet()) {
+            out.writeLong(entry.getValue().id == null ? -1 : entry.getValue().id);
+            out.writeLong(entry.getKey().customerId());
+            out.writeInt(names.get(entry.getKey().assetName()));
+            out.writeLong(entry.getValue().size);
+            out.writeLong(entry.getValue().usableSize);
+        }
+    }
+
+    private static SnapshotState readState(DataInputStream in) throws IOException {
+        var state = new SnapshotState(in.readLong());
+
+        var names = new String[in.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = in.readUTF();
+        }
+
+        var sides = OrderSide.values();
+        int orderCount = in.readInt();
+        for (int i = 0; i < orderCount; i++) {
+            state.addOrder(new PendingOrder(in.readLong(), in.readLong(), names[in.readInt()], sides[in.readByte()],
+                in.readLong(), in.readLong()));
+        }
+
+        int balanceCount = in.readInt();
+        for (int i = 0; i < balanceCount; i++) {
+            long id = in.readLong();
+            state.addBalance(id == -1 ? null : id, in.readLong(), names[in.readInt()], in.readLong(), in.readLong());
+        }
+        return state;
+    }
+
+    private static int add(List<String> nameList, String name) {
+        nameList.add(name);
+        return nameList.size() - 1;
+    }
+}
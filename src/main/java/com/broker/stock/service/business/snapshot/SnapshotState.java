@@ -0,0 +1,200 @@
+package com.broker.stock.service.business.snapshot;
+
+import static com.broker.stock.constant.AssetConstants.TRY;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.entity.Asset;
+import com.broker.stock.service.business.journal.JournalCommand;
+import com.broker.stock.service.business.journal.JournalCommand.CancelOrder;
+import com.broker.stock.service.business.journal.JournalCommand.CreateOrder;
+import com.broker.stock.service.business.journal.JournalCommand.Match;
+import com.broker.stock.service.business.matching.BookOrder;
+import com.broker.stock.service.business.matching.Trade;
+import com.broker.stock.util.FixedPoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pending orders and balances as of a journal sequence.
+ * <p>
+ * Journaled commands are applied with the same balance rules as the order handlers, so a snapshot plus the journal
+ * records after it describes the same state as the database. Changes to those rules have to be made here as well.
+ */
+class SnapshotState {
+
+    private final Map<Long, PendingOrder> orders = new LinkedHashMap<>();
+    private final Map<BalanceKey, Balance> balances = new LinkedHashMap<>();
+    private long sequence;
+
+    SnapshotState(long sequence) {
+        this.sequence = sequence;
+    }
+
+    record BalanceKey(Long customerId, String assetName) {
+    }
+
+    static final class PendingOrder {
+        final Long id;
+        final Long customerId;
+        final String assetName;
+        final OrderSide orderSide;
+        final long price;
+        long remainingSize;
+
+        PendingOrder(Long id, Long customerId, String assetName, OrderSide orderSide, long price, long remainingSize) {
+            this.id = id;
+            this.customerId = customerId;
+            this.assetName = assetName;
+            this.orderSide = orderSide;
+            this.price = price;
+            this.remainingSize = remainingSize;
+        }
+    }
+
+    static final class Balance {
+        // Unknown for assets created after the last snapshot, see StateSnapshots#resolveIds
+        Long id;
+        long size;
+        long usableSize;
+
+        Balance(Long id, long size, long usableSize) {
+            this.id = id;
+            this.size = size;
+            this.usableSize = usableSize;
+        }
+    }
+
+    void addOrder(PendingOrder order) {
+        orders.put(order.id, order);
+    }
+
+    void addBalance(Long id, Long customerId, String assetName, long size, long usableSize) {
+        balances.put(new BalanceKey(customerId, assetName), new Balance(id, size, usableSize));
+    }
+
+    /**
+     * Applies a journaled command, see BuyOrderHandler, SellOrderHandler and OrderService#reverseOrderEffects.
+     *
+     * @param command the command
+     */
+    void apply(JournalCommand command) {
+        if (command instanceof CreateOrder create) {
+            orders.put(create.orderId(), new PendingOrder(create.orderId(), create.customerId(), create.assetName(),
+                create.orderSide(), create.price(), create.size()));
+            if (create.orderSide() == OrderSide.BUY) {
+                var tryBalance = balance(create.customerId(), TRY);
+                tryBalance.usableSize = Math.subtractExact(tryBalance.usableSize, FixedPoint.multiply(create.size(), create.price()));
+                balance(create.customerId(), create.assetName());
+            } else {
+                var balance = balance(create.customerId(), create.assetName());
+                balance.usableSize = Math.subtractExact(balance.usableSize, create.size());
+            }
+        } else if (command instanceof CancelOrder cancel) {
+            var order = orders.remove(cancel.orderId());
+            if (order != null) {
+                if (order.orderSide == OrderSide.BUY) {
+                    var tryBalance = balance(order.customerId, TRY);
+                    tryBalance.usableSize = Math.addExact(tryBalance.usableSize, FixedPoint.multiply(order.remainingSize, order.price));
+                } else {
+                    var balance = balance(order.customerId, order.assetName);
+                    balance.usableSize = Math.addExact(balance.usableSize, order.remainingSize);
+                }
+            }
+        } else if (command instanceof Match match) {
+            match.trades().forEach(this::settle);
+        }
+    }
+
+    void advanceTo(long journalSequence) {
+        sequence = journalSequence;
+    }
+
+    private void settle(Trade trade) {
+        var buyOrder = orders.get(trade.buyOrderId());
+        var sellOrder = orders.get(trade.sellOrderId());
+        if (buyOrder == null || sellOrder == null) {
+            throw new IllegalStateException("Journal settles order " + (buyOrder == null ? trade.buyOrderId() : trade.sellOrderId())
+                + " which is not pending in the snapshot.");
+        }
+
+        // TRY was reserved at the buyer's limit price, the difference to the trade price is released
+        long cost = FixedPoint.multiply(trade.size(), trade.price());
+        long reserved = FixedPoint.multiply(trade.size(), buyOrder.price);
+        var buyerTry = balance(buyOrder.customerId, TRY);
+        buyerTry.size = Math.subtractExact(buyerTry.size, cost);
+        buyerTry.usableSize = Math.addExact(buyerTry.usableSize, reserved - cost);
+        var buyerAsset = balance(buyOrder.customerId, trade.assetName());
+        buyerAsset.size = Math.addExact(buyerAsset.size, trade.size());
+        buyerAsset.usableSize = Math.addExact(buyerAsset.usableSize, trade.size());
+
+        var sellerAsset = balance(sellOrder.customerId, trade.assetName());
+        sellerAsset.size = Math.subtractExact(sellerAsset.size, trade.size());
+        var sellerTry = balance(sellOrder.customerId, TRY);
+        sellerTry.size = Math.addExact(sellerTry.size, cost);
+        sellerTry.usableSize = Math.addExact(sellerTry.usableSize, cost);
+
+        fill(buyOrder, trade.size());
+        fill(sellOrder, trade.size());
+    }
+
+    private void fill(PendingOrder order, long size) {
+        order.remainingSize -= size;
+        if (order.remainingSize <= 0) {
+            orders.remove(order.id);
+        }
+    }
+
+    // Assets are created with zero balances on first use, like the handlers do
+    private Balance balance(Long customerId, String assetName) {
+        return balances.computeIfAbsent(new BalanceKey(customerId, assetName), key -> new Balance(null, 0, 0));
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    Collection<PendingOrder> getOrders() {
+        return orders.values();
+    }
+
+    Map<BalanceKey, Balance> getBalances() {
+        return balances;
+    }
+
+    Map<String, List<BookOrder>> bookOrders() {
+        Map<String, List<BookOrder>> bookOrders = new LinkedHashMap<>();
+        orders.values().forEach(order -> bookOrders.computeIfAbsent(order.assetName, assetName -> new ArrayList<>())
+            .add(new BookOrder(order.id, order.customerId, order.orderSide, order.price, order.remainingSize)));
+        return bookOrders;
+    }
+
+    List<Asset> assets() {
+        return balances.entrySet().stream()
+            .map(entry -> new Asset(entry.getValue().id, entry.getKey().customerId(), entry.getKey().assetName(),
+                entry.getValue().size, entry.getValue().usableSize))
+            .toList();
+    }
+
+    /**
+     * Counts and sums that can be compared against aggregates of the database.
+     */
+    record Fingerprint(long pendingOrders, long remainingSize, long assets, long size, long usableSize) {
+    }
+
+    Fingerprint fingerprint() {
+        long remainingSize = 0;
+        for (PendingOrder order : orders.values()) {
+            remainingSize = Math.addExact(remainingSize, order.remainingSize);
+        }
+        long size = 0;
+        long usableSize = 0;
+        for (Balance balance : balances.values()) {
+            size = Math.addExact(size, balance.size);
+            usableSize = Math.addExact(usableSize, balance.usableSize);
+        }
+        return new Fingerprint(orders.size(), remainingSize, balances.size(), size, usableSize);
+    }
+}
@@ -0,0 +1,270 @@
+package com.broker.stock.service.business.snapshot;
+
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.service.business.AssetService;
+import com.broker.stock.service.business.journal.CommandJournal;
+import com.broker.stock.service.business.journal.JournalCommand;
+import com.broker.stock.service.business.journal.JournalReader;
+import com.broker.stock.service.business.journal.JournalRecord;
+import com.broker.stock.service.business.matching.MatchingEngine;
+import com.broker.stock.service.business.snapshot.SnapshotState.Fingerprint;
+import com.broker.stock.service.business.snapshot.SnapshotState.PendingOrder;
+import com.broker.stock.util.FixedPoint;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps binary snapshots of the pending orders and balances, so a restart does not have to rebuild them from the
+ * database.
+ * <p>
+ * A snapshot is taken at a journal sequence up to which every transaction has completed. It is built from the previous
+ * snapshot and the journal records after it, the database is only scanned for the very first one. On startup the
+ * latest snapshot plus the journal tail fill the order books and the balance cache. The result is compared against
+ * aggregates of the database first, if they differ, e.g. after a crash between journal and database commit, the state
+ * is loaded from the database instead.
+ */
+@Component
+@Slf4j
+public class StateSnapshots implements SmartInitializingSingleton {
+
+    private static final String PENDING_ORDERS_SQL = "SELECT id, customer_id, asset_name, order_side, price, size - filled_size FROM orders WHERE status = 'PENDING' ORDER BY id";
+    private static final String ASSETS_SQL = "SELECT id, customer_id, asset_name, size, usable_size FROM asset ORDER BY id";
+    private static final String ORDERS_FINGERPRINT_SQL = "SELECT COUNT(*), COALESCE(SUM(size - filled_size), 0) FROM orders WHERE status = 'PENDING'";
+    private static final String ASSETS_FINGERPRINT_SQL = "SELECT COUNT(*), COALESCE(SUM(size), 0), COALESCE(SUM(usable_size), 0) FROM asset";
+    private static final String ASSET_ID_SQL = "SELECT id FROM asset WHERE customer_id = ? AND asset_name = ?";
+
+    private final CommandJournal commandJournal;
+    private final JdbcTemplate jdbcTemplate;
+    private final MatchingEngine matchingEngine;
+    private final AssetService assetService;
+    private final boolean enabled;
+    private final Path directory;
+    private final boolean verify;
+    private final int retained;
+
+    public StateSnapshots(CommandJournal commandJournal,
+                          JdbcTemplate jdbcTemplate,
+                          MatchingEngine matchingEngine,
+                          AssetService assetService,
+                          @Value("${order.snapshot.enabled:true}") boolean enabled,
+                          @Value("${order.snapshot.directory:./data/snapshots}") Path directory,
+                          @Value("${order.snapshot.verify:true}") boolean verify,
+                          @Value("${order.snapshot.retained:2}") int retained) {
+        this.commandJournal = commandJournal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.matchingEngine = matchingEngine;
+        this.assetService = assetService;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.verify = verify;
+        this.retained = Math.max(1, retained);
+    }
+
+    // Runs once all beans exist and before the web server accepts requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isActive()) {
+            return;
+        }
+        long start = System.nanoTime();
+        long journalEnd = commandJournal.getLastSequence();
+
+        var restored = restoreState(journalEnd);
+        var state = restored.orElseGet(() -> {
+            // The first snapshot, or a replacement for one that no longer matches the database
+            var loaded = loadFromDatabase(journalEnd);
+            SnapshotFile.write(directory, loaded);
+            return loaded;
+        });
+
+        matchingEngine.restore(state.bookOrders());
+        assetService.warm(state.assets());
+        log.info("Restored {} pending orders and {} balances at journal sequence {} from the {} in {} ms",
+            state.getOrders().size(), state.getBalances().size(), state.getSequence(),
+            restored.isPresent() ? "latest snapshot" : "database", Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${order.snapshot.interval:10m}", initialDelayString = "${order.snapshot.interval:10m}")
+    public void takeScheduledSnapshot() {
+        try {
+            takeSnapshot();
+        } catch (RuntimeException e) {
+            log.error("Failed to take a state snapshot", e);
+        }
+    }
+
+    // Taking one on shutdown leaves no journal tail to replay on the next start
+    @PreDestroy
+    public void takeFinalSnapshot() {
+        takeScheduledSnapshot();
+    }
+
+    /**
+     * Writes a new snapshot from the latest one and the journal records after it.
+     *
+     * @return the new snapshot file, or empty if nothing changed since the latest one
+     */
+    public synchronized Optional<Path> takeSnapshot() {
+        if (!isActive()) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        long stableSequence = commandJournal.stableSequence();
+        var latest = SnapshotFile.latest(directory);
+        if (latest.isEmpty()) {
+            log.warn("No snapshot to continue from in {}, the next start will take one from the database", directory);
+            return Optional.empty();
+        }
+
+        var state = SnapshotFile.read(latest.get());
+        if (state.getSequence() >= stableSequence) {
+            return Optional.empty();
+        }
+        if (!replayJournal(state, stableSequence)) {
+            throw new IllegalStateException("Journal does not continue snapshot " + latest.get());
+        }
+        resolveIds(state);
+
+        var file = SnapshotFile.write(directory, state);
+        deleteOldSnapshots();
+        log.info("Took snapshot {} with {} pending orders and {} balances in {} ms", file, state.getOrders().size(),
+            state.getBalances().size(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return Optional.of(file);
+    }
+
+    /**
+     * Rebuilds the state from the newest usable snapshot and the journal tail after it.
+     *
+     * @param journalEnd the last journal sequence to apply
+     * @return the state, or empty if no snapshot can be continued up to the journal end or it differs from the database
+     */
+    Optional<SnapshotState> restoreState(long journalEnd) {
+        for (Path file : SnapshotFile.list(directory)) {
+            try {
+                var state = SnapshotFile.read(file);
+                if (state.getSequence() > journalEnd || !replayJournal(state, journalEnd)) {
+                    log.warn("Snapshot {} does not fit the journal ending at sequence {}", file, journalEnd);
+                    continue;
+                }
+                var databaseFingerprint = verify ? databaseFingerprint() : state.fingerprint();
+                if (!state.fingerprint().equals(databaseFingerprint)) {
+                    log.warn("Snapshot {} and journal differ from the database: {} vs {}", file, state.fingerprint(), databaseFingerprint);
+                    return Optional.empty();
+                }
+                return Optional.of(state);
+            } catch (RuntimeException e) {
+                log.warn("Snapshot {} can not be restored", file, e);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean replayJournal(SnapshotState state, long toSequence) {
+        if (state.getSequence() == toSequence) {
+            return true;
+        }
+
+        // Abort records follow the commands they cancel, so the tail is collected before it is applied
+        List<JournalRecord> tail = new ArrayList<>();
+        List<JournalCommand.Abort> aborts = new ArrayList<>();
+        JournalReader.read(commandJournal.getDirectory(), journalRecord -> {
+            if (journalRecord.sequence() <= state.getSequence() || journalRecord.sequence() > toSequence) {
+                return;
+            }
+            if (journalRecord.command() instanceof JournalCommand.Abort abort) {
+                aborts.add(abort);
+            }
+            tail.add(journalRecord);
+        });
+        if (tail.isEmpty() || tail.get(0).sequence() != state.getSequence() + 1 || tail.get(tail.size() - 1).sequence() != toSequence) {
+            return false;
+        }
+
+        for (JournalRecord journalRecord : tail) {
+            boolean aborted = aborts.stream().anyMatch(abort ->
+                journalRecord.sequence() >= abort.fromSequence() && journalRecord.sequence() <= abort.toSequence());
+            if (!aborted) {
+                state.apply(journalRecord.command());
+            }
+        }
+        state.advanceTo(toSequence);
+        return true;
+    }
+
+    SnapshotState loadFromDatabase(long sequence) {
+        var state = new SnapshotState(sequence);
+        jdbcTemplate.query(PENDING_ORDERS_SQL, resultSet -> {
+            state.addOrder(new PendingOrder(resultSet.getLong(1),
+                resultSet.getLong(2),
+                resultSet.getString(3),
+                OrderSide.valueOf(resultSet.getString(4)),
+                FixedPoint.of(resultSet.getBigDecimal(5)),
+                FixedPoint.of(resultSet.getBigDecimal(6))));
+        });
+        jdbcTemplate.query(ASSETS_SQL, resultSet -> {
+            state.addBalance(resultSet.getLong(1),
+                resultSet.getLong(2),
+                resultSet.getString(3),
+                FixedPoint.of(resultSet.getBigDecimal(4)),
+                FixedPoint.of(resultSet.getBigDecimal(5)));
+        });
+        return state;
+    }
+
+    Fingerprint databaseFingerprint() {
+        long[] orders = jdbcTemplate.queryForObject(ORDERS_FINGERPRINT_SQL, (resultSet, rowNum) ->
+            new long[]{resultSet.getLong(1), FixedPoint.of(resultSet.getBigDecimal(2))});
+        long[] assets = jdbcTemplate.queryForObject(ASSETS_FINGERPRINT_SQL, (resultSet, rowNum) ->
+            new long[]{resultSet.getLong(1), FixedPoint.of(resultSet.getBigDecimal(2)), FixedPoint.of(resultSet.getBigDecimal(3))});
+        return new Fingerprint(orders[0], orders[1], assets[0], assets[1], assets[2]);
+    }
+
+    // Assets created since the previous snapshot are only known by customer and name
+    private void resolveIds(SnapshotState state) {
+        try {
+            state.getBalances().forEach((key, balance) -> {
+                if (balance.id == null) {
+                    jdbcTemplate.query(ASSET_ID_SQL, resultSet -> {
+                        balance.id = resultSet.getLong(1);
+                    }, key.customerId(), key.assetName());
+                }
+            });
+        } catch (DataAccessException e) {
+            // E.g. on shutdown, when the database may already be closed. Unknown ids are resolved by the next snapshot
+            log.warn("Failed to resolve asset ids for the snapshot: {}", e.getMessage());
+        }
+    }
+
+    private void deleteOldSnapshots() {
+        var snapshots = SnapshotFile.list(directory);
+        for (Path old : snapshots.subList(Math.min(retained, snapshots.size()), snapshots.size())) {
+            try {
+                Files.delete(old);
+            } catch (Exception e) {
+                log.warn("Failed to delete snapshot {}", old, e);
+            }
+        }
+        // The oldest kept snapshot still needs the journal records after it
+        var kept = SnapshotFile.list(directory);
+        if (!kept.isEmpty()) {
+            commandJournal.deleteSegmentsBefore(SnapshotFile.sequence(kept.get(kept.size() - 1)));
+        }
+    }
+
+    private boolean isActive() {
+        return enabled && commandJournal.isEnabled();
+    }
+}
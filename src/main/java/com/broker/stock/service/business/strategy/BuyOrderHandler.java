@@ -2,13 +2,13 @@ package com.broker.stock.service.business.strategy;
 
 import static com.broker.stock.constant.AssetConstants.TRY;
 import com.broker.stock.entity.Asset;
+import com.broker.stock.entity.Order;
 import com.broker.stock.model.OrderRequest;
 import com.broker.stock.service.business.AssetService;
+import com.broker.stock.util.FixedPoint;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-
 @Component
 @RequiredArgsConstructor
 public class BuyOrderHandler implements OrderHandler {
@@ -17,18 +17,27 @@ public class BuyOrderHandler implements OrderHandler {
 
     @Override
     public void handleOrder(OrderRequest orderRequest) {
-        // Retrieve and validate TRY asset
-        Asset tryAsset = assetService.getAsset(orderRequest.customerId(), TRY)
-            .orElseThrow(() -> new IllegalArgumentException("Insufficient TRY balance."));
+        boolean holdsTry = assetService.getAsset(orderRequest.customerId(), TRY).isPresent();
+        reserve(orderRequest, reservation(orderRequest, holdsTry));
+    }
 
-        BigDecimal requiredTRY = orderRequest.size().multiply(orderRequest.price());
-        if (tryAsset.getUsableSize().compareTo(requiredTRY) < 0) {
-            throw new IllegalStateException("Insufficient TRY balance.");
+    @Override
+    public Reservation reservation(OrderRequest orderRequest, boolean holdsTry) {
+        if (!holdsTry) {
+            throw new IllegalArgumentException("Missing TRY balance for BUY order.");
         }
+        if (orderRequest.assetName().equals(TRY)) {
+            throw new IllegalArgumentException("TRY order is invalid.");
+        }
+        return new Reservation(TRY, FixedPoint.multiply(FixedPoint.of(orderRequest.size()), FixedPoint.of(orderRequest.price())));
+    }
 
-        // Update TRY asset
-        tryAsset.setUsableSize(tryAsset.getUsableSize().subtract(requiredTRY));
-        assetService.save(tryAsset);
+    @Override
+    public void reserve(OrderRequest orderRequest, Reservation reservation) {
+        // Reserve TRY, fails if concurrent orders already used up the usable size
+        if (!assetService.reserve(orderRequest.customerId(), reservation.assetName(), reservation.amount())) {
+            throw insufficientBalance();
+        }
 
         // Check if the order's asset exists; if not, initialize it
         assetService.getAsset(orderRequest.customerId(), orderRequest.assetName())
@@ -36,15 +45,46 @@ public class BuyOrderHandler implements OrderHandler {
                 asset -> {
                     // Do nothing; asset already exists
                 },
-                () -> {
-                    // Initialize asset with zero values
-                    Asset newAsset = new Asset();
-                    newAsset.setCustomerId(orderRequest.customerId());
-                    newAsset.setAssetName(orderRequest.assetName());
-                    newAsset.setUsableSize(BigDecimal.ZERO);
-                    newAsset.setSize(BigDecimal.ZERO);
-                    assetService.save(newAsset);
-                }
+                () -> assetService.save(newAsset(orderRequest.customerId(), orderRequest.assetName()))
             );
     }
+
+    @Override
+    public RuntimeException insufficientBalance() {
+        return new IllegalStateException("Insufficient TRY balance.");
+    }
+
+    /**
+     * A bought asset the customer does not hold yet, with zero sizes.
+     */
+    public static Asset newAsset(Long customerId, String assetName) {
+        Asset newAsset = new Asset();
+        newAsset.setCustomerId(customerId);
+        newAsset.setAssetName(assetName);
+        newAsset.setUsableSize(0);
+        newAsset.setSize(0);
+        return newAsset;
+    }
+
+    @Override
+    public void handleFill(Order order, long size, long price) {
+        Asset tryAsset = getValidatedAsset(order.getCustomerId(), TRY);
+        Asset orderAsset = getValidatedAsset(order.getCustomerId(), order.getAssetName());
+
+        // TRY was reserved at the limit price, release the difference when executed at a better price
+        long cost = FixedPoint.multiply(size, price);
+        long reserved = FixedPoint.multiply(size, order.getPrice());
+        tryAsset.setSize(Math.subtractExact(tryAsset.getSize(), cost));
+        tryAsset.setUsableSize(Math.addExact(tryAsset.getUsableSize(), reserved - cost));
+        assetService.save(tryAsset);
+
+        orderAsset.setSize(Math.addExact(orderAsset.getSize(), size));
+        orderAsset.setUsableSize(Math.addExact(orderAsset.getUsableSize(), size));
+        assetService.save(orderAsset);
+    }
+
+    private Asset getValidatedAsset(Long customerId, String assetName) {
+        return assetService.getAsset(customerId, assetName)
+            .orElseThrow(() -> new IllegalArgumentException(String.format("Asset %s not found for customerId %d", assetName, customerId)));
+    }
 }
@@ -1,7 +1,42 @@
 package com.broker.stock.service.business.strategy;
 
+import com.broker.stock.entity.Order;
 import com.broker.stock.model.OrderRequest;
 
 public interface OrderHandler {
     void handleOrder(OrderRequest orderRequest);
+
+    /**
+     * Checks the order and tells what it reserves. These are the rules orders are accepted by, for single orders and
+     * for the orders of a basket alike.
+     *
+     * @param orderRequest the order
+     * @param holdsTry     whether the customer holds TRY
+     * @return the asset and amount the order reserves
+     * @throws IllegalArgumentException if the order is invalid
+     */
+    Reservation reservation(OrderRequest orderRequest, boolean holdsTry);
+
+    /**
+     * Makes the order's reservation, it is only made if the usable size still covers it.
+     *
+     * @param orderRequest the order
+     * @param reservation  the order's reservation
+     * @throws RuntimeException the {@link #insufficientBalance()} error if the usable size does not cover it
+     */
+    void reserve(OrderRequest orderRequest, Reservation reservation);
+
+    /**
+     * The error an order is rejected with when the usable size of its reserved asset does not cover it.
+     */
+    RuntimeException insufficientBalance();
+
+    /**
+     * Settles an execution of the given order against the customer's assets.
+     *
+     * @param order the executed order
+     * @param size  the executed size as a {@link com.broker.stock.util.FixedPoint} value
+     * @param price the execution price as a {@link com.broker.stock.util.FixedPoint} value
+     */
+    void handleFill(Order order, long size, long price);
 }
@@ -0,0 +1,10 @@
+package com.broker.stock.service.business.strategy;
+
+/**
+ * The amount of one of the customer's assets that an order takes from its usable size on creation.
+ *
+ * @param assetName the reserved asset
+ * @param amount    the reserved amount as a {@link com.broker.stock.util.FixedPoint} value
+ */
+public record Reservation(String assetName, long amount) {
+}
@@ -1,8 +1,11 @@
 package com.broker.stock.service.business.strategy;
 
+import static com.broker.stock.constant.AssetConstants.TRY;
 import com.broker.stock.entity.Asset;
+import com.broker.stock.entity.Order;
 import com.broker.stock.model.OrderRequest;
 import com.broker.stock.service.business.AssetService;
+import com.broker.stock.util.FixedPoint;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -11,19 +14,57 @@ import org.springframework.stereotype.Component;
 public class SellOrderHandler implements OrderHandler {
 
     private final AssetService assetService;
+
     @Override
     public void handleOrder(OrderRequest orderRequest) {
-        // Retrieve and validate the asset to be sold
-        Asset asset = assetService.getAsset(orderRequest.customerId(), orderRequest.assetName())
-            .orElseThrow(() -> new IllegalArgumentException("Insufficient asset balance."));
+        boolean holdsTry = assetService.getAsset(orderRequest.customerId(), TRY).isPresent();
+        reserve(orderRequest, reservation(orderRequest, holdsTry));
+    }
+
+    @Override
+    public Reservation reservation(OrderRequest orderRequest, boolean holdsTry) {
+        if (holdsTry && orderRequest.assetName().equals(TRY)) {
+            throw new IllegalArgumentException("TRY order is invalid.");
+        }
+        return new Reservation(orderRequest.assetName(), FixedPoint.of(orderRequest.size()));
+    }
 
-        // Validate sufficient usable size for the sell order
-        if (asset.getUsableSize().compareTo(orderRequest.size()) < 0) {
-            throw new IllegalArgumentException("Insufficient asset balance.");
+    @Override
+    public void reserve(OrderRequest orderRequest, Reservation reservation) {
+        // Reserve the asset to be sold, fails if it is missing or its usable size is not sufficient
+        if (!assetService.reserve(orderRequest.customerId(), reservation.assetName(), reservation.amount())) {
+            throw insufficientBalance();
         }
+    }
 
-        // Update asset for the sell order
-        asset.setUsableSize(asset.getUsableSize().subtract(orderRequest.size()));
+    @Override
+    public RuntimeException insufficientBalance() {
+        return new IllegalArgumentException("Insufficient asset balance.");
+    }
+
+    @Override
+    public void handleFill(Order order, long size, long price) {
+        Asset asset = assetService.getAsset(order.getCustomerId(), order.getAssetName())
+            .orElseThrow(() -> new IllegalArgumentException(String.format("Asset %s not found for customerId %d", order.getAssetName(), order.getCustomerId())));
+
+        // Sold size was already taken from usable size on order creation
+        asset.setSize(Math.subtractExact(asset.getSize(), size));
         assetService.save(asset);
+
+        // Sellers are not required to hold TRY, initialize it on their first sale
+        Asset tryAsset = assetService.getAsset(order.getCustomerId(), TRY)
+            .orElseGet(() -> {
+                Asset newAsset = new Asset();
+                newAsset.setCustomerId(order.getCustomerId());
+                newAsset.setAssetName(TRY);
+                newAsset.setUsableSize(0);
+                newAsset.setSize(0);
+                return newAsset;
+            });
+
+        long proceeds = FixedPoint.multiply(size, price);
+        tryAsset.setSize(Math.addExact(tryAsset.getSize(), proceeds));
+        tryAsset.setUsableSize(Math.addExact(tryAsset.getUsableSize(), proceeds));
+        assetService.save(tryAsset);
     }
 }
@@ -0,0 +1,130 @@
+package com.broker.stock.service.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets that widen with the value, the way HdrHistogram does: values below 256 ns have a bucket
+ * each, every power of two above is split into 128 buckets. Any value is thus known to within 1% and a range of a
+ * minute takes less than 4000 buckets.
+ * <p>
+ * All buckets are allocated up front, recording is a few atomic increments and allocates nothing, from any number of
+ * threads. Values above the highest trackable one are counted as that value.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >> 1;
+
+    private final long highestTrackableNanos;
+    private final AtomicLongArray counts;
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram(long highestTrackableNanos) {
+        if (highestTrackableNanos < SUB_BUCKETS) {
+            throw new IllegalArgumentException("Highest trackable latency must be at least " + SUB_BUCKETS + " ns");
+        }
+        this.highestTrackableNanos = highestTrackableNanos;
+        this.counts = new AtomicLongArray(index(highestTrackableNanos) + 1);
+    }
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), highestTrackableNanos);
+        counts.incrementAndGet(index(value));
+        totalNanos.addAndGet(value);
+        long max;
+        while (value > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, value)) {
+            // Raced with a larger or another new maximum, check again
+        }
+    }
+
+    /**
+     * Copies the counts. Latencies recorded while copying may or may not be part of the snapshot.
+     */
+    public Snapshot snapshot() {
+        var copy = new long[counts.length()];
+        long count = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, totalNanos.get(), maxNanos.get());
+    }
+
+    /**
+     * Forgets all recorded latencies. Latencies recorded while resetting may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Keeps the highest SUB_BUCKET_BITS bits of the value, the leading one picks the upper half of the sub-buckets
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        private Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        public long maxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the latency that the given percentage of the recorded latencies did not exceed, 0 if none were recorded
+         */
+        public long valueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestEquivalentValue(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+}
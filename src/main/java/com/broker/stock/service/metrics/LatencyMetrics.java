@@ -0,0 +1,108 @@
+package com.broker.stock.service.metrics;
+
+import com.broker.stock.constant.LatencyStage;
+import com.broker.stock.model.LatencyReport;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Latency histograms of the stages an order goes through, see {@link LatencyStage}.
+ * <p>
+ * Callers take {@link System#nanoTime()} when a stage starts and {@link #record} it when the stage is done, which
+ * allocates nothing. The report covers the time since startup or the last {@link #reset}.
+ */
+@Component
+public class LatencyMetrics {
+
+    // A slower stage is counted as taking a minute
+    private static final long HIGHEST_TRACKABLE_NANOS = Duration.ofMinutes(1).toNanos();
+    private static final LatencyStage[] STAGES = LatencyStage.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+    private volatile long intervalStart = System.nanoTime();
+
+    // When the commit of the current thread's transaction started, one array per thread reused for every commit
+    private final ThreadLocal<long[]> commitStart = ThreadLocal.withInitial(() -> new long[1]);
+    private final TransactionSynchronization commitTimer = new CommitTimer();
+
+    public LatencyMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram(HIGHEST_TRACKABLE_NANOS);
+        }
+    }
+
+    /**
+     * Records a pass through a stage that started at the given time.
+     *
+     * @param stage      the stage
+     * @param startNanos the {@link System#nanoTime()} the stage started at
+     * @return the current {@link System#nanoTime()}, to start the next stage at
+     */
+    public long record(LatencyStage stage, long startNanos) {
+        long now = System.nanoTime();
+        histograms[stage.ordinal()].record(now - startNanos);
+        return now;
+    }
+
+    /**
+     * Records the commit of the current transaction as {@link LatencyStage#PERSISTENCE} once it succeeded, from the
+     * start of its flush to the end of the commit. Registering again in the same transaction has no effect.
+     */
+    public void recordCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(commitTimer);
+        }
+    }
+
+    public LatencyReport report() {
+        double intervalSeconds = (System.nanoTime() - intervalStart) / 1e9;
+        List<LatencyReport.StageLatency> stages = new ArrayList<>(STAGES.length);
+        for (var stage : STAGES) {
+            var snapshot = histograms[stage.ordinal()].snapshot();
+            stages.add(new LatencyReport.StageLatency(stage,
+                snapshot.count(),
+                intervalSeconds > 0 ? snapshot.count() / intervalSeconds : 0,
+                snapshot.meanNanos() / 1e3,
+                snapshot.valueAtPercentile(50) / 1e3,
+                snapshot.valueAtPercentile(99) / 1e3,
+                snapshot.valueAtPercentile(99.9) / 1e3,
+                snapshot.maxNanos() / 1e3));
+        }
+        return new LatencyReport(intervalSeconds, stages);
+    }
+
+    /**
+     * Forgets all recorded latencies and starts a new interval.
+     */
+    public void reset() {
+        for (var histogram : histograms) {
+            histogram.reset();
+        }
+        intervalStart = System.nanoTime();
+    }
+
+    private final class CommitTimer implements TransactionSynchronization {
+
+        // Ahead of the other synchronizations, so their flushes are part of the commit
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            commitStart.get()[0] = System.nanoTime();
+        }
+
+        @Override
+        public void afterCommit() {
+            record(LatencyStage.PERSISTENCE, commitStart.get()[0]);
+        }
+    }
+}
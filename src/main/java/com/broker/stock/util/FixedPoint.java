@@ -0,0 +1,59 @@
+package com.broker.stock.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Arithmetic on amounts stored as longs scaled by 10^8, matching the {@code DECIMAL(20, 8)} columns.
+ * <p>
+ * Sizes, prices and balances are kept in this form on the matching and reservation paths, so they do not allocate.
+ * {@link BigDecimal} is only used at the API and JPA edges. Every operation fails with an
+ * {@link ArithmeticException} instead of overflowing, the largest representable amount is about 92 billion.
+ */
+public class FixedPoint {
+
+    public static final int SCALE = 8;
+    public static final long ONE = 100_000_000L;
+
+    private FixedPoint() {
+        // Private constructor to prevent instantiation (utility class)
+    }
+
+    /**
+     * Converts a decimal to its scaled form, rounding half up beyond 8 fraction digits.
+     *
+     * @param value the decimal value
+     * @return the value scaled by 10^8
+     * @throws ArithmeticException if the value does not fit
+     */
+    public static long of(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static long of(long value) {
+        return Math.multiplyExact(value, ONE);
+    }
+
+    public static BigDecimal toBigDecimal(long value) {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+
+    /**
+     * Multiplies two scaled values, e.g. a size by a price, rounding half up to 8 fraction digits.
+     *
+     * @param a the first scaled value
+     * @param b the second scaled value
+     * @return the scaled product
+     * @throws ArithmeticException if the product does not fit
+     */
+    public static long multiply(long a, long b) {
+        // a * b / ONE is split as (ah * ONE + al) * b / ONE = ah * b + al * (bh * ONE + bl) / ONE,
+        // so no intermediate product is larger than the result itself
+        long ah = Math.floorDiv(a, ONE);
+        long al = Math.floorMod(a, ONE);
+        long bh = Math.floorDiv(b, ONE);
+        long bl = Math.floorMod(b, ONE);
+        long product = Math.addExact(Math.multiplyExact(ah, b), Math.multiplyExact(al, bh));
+        return Math.addExact(product, (al * bl + ONE / 2) / ONE);
+    }
+}
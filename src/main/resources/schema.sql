@@ -5,11 +5,28 @@ CREATE TABLE IF NOT EXISTS `orders` (
     `order_side` ENUM('BUY', 'SELL') NOT NULL,
     `size` DECIMAL(20, 8) NOT NULL,
     `price` DECIMAL(20, 8) NOT NULL,
+    `filled_size` DECIMAL(20, 8) NOT NULL DEFAULT 0,
     `status` ENUM('PENDING', 'MATCHED', 'CANCELLED') NOT NULL,
     `create_date` DATETIME NOT NULL,
     CONSTRAINT unique_customer_order UNIQUE (customer_id, create_date)
     );
 
+ALTER TABLE `orders` ADD COLUMN IF NOT EXISTS `filled_size` DECIMAL(20, 8) NOT NULL DEFAULT 0;
+
+-- Matched and cancelled orders are moved here once they are old, the orders table keeps the pending and recent ones
+CREATE TABLE IF NOT EXISTS `orders_history` (
+    `id` BIGINT PRIMARY KEY,
+    `customer_id` BIGINT NOT NULL,
+    `asset_name` VARCHAR(255) NOT NULL,
+    `order_side` ENUM('BUY', 'SELL') NOT NULL,
+    `size` DECIMAL(20, 8) NOT NULL,
+    `price` DECIMAL(20, 8) NOT NULL,
+    `filled_size` DECIMAL(20, 8) NOT NULL,
+    `status` ENUM('PENDING', 'MATCHED', 'CANCELLED') NOT NULL,
+    `create_date` DATETIME NOT NULL
+);
+CREATE INDEX IF NOT EXISTS `idx_orders_history_customer_create_date` ON `orders_history` (`customer_id`, `create_date`, `id`);
+
 CREATE TABLE IF NOT EXISTS `asset` (
     `id` BIGINT AUTO_INCREMENT PRIMARY KEY,
     `customer_id` BIGINT NOT NULL,
@@ -19,6 +36,11 @@ CREATE TABLE IF NOT EXISTS `asset` (
     CONSTRAINT unique_customer_asset UNIQUE (customer_id, asset_name)
     );
 
+-- Asset names are filtered ignoring case, on this upper-cased copy so the filter can use an index
+ALTER TABLE `asset` ADD COLUMN IF NOT EXISTS `asset_name_key` VARCHAR(255) GENERATED ALWAYS AS (UPPER(`asset_name`));
+CREATE INDEX IF NOT EXISTS `idx_asset_customer_name_key` ON `asset` (`customer_id`, `asset_name_key`);
+CREATE INDEX IF NOT EXISTS `idx_asset_customer_usable_size` ON `asset` (`customer_id`, `usable_size`);
+
 CREATE TABLE IF NOT EXISTS `customer` (
     `id` BIGINT AUTO_INCREMENT PRIMARY KEY,
     `username` VARCHAR(255) NOT NULL UNIQUE,
@@ -26,6 +48,30 @@ CREATE TABLE IF NOT EXISTS `customer` (
     `role` VARCHAR(255) NOT NULL
 );
 
+-- Refresh tokens are only stored as SHA-256 hashes
+CREATE TABLE IF NOT EXISTS `refresh_token` (
+    `token_hash` CHAR(64) PRIMARY KEY,
+    `customer_id` BIGINT NOT NULL,
+    `expires_at` TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS `idx_refresh_token_expires_at` ON `refresh_token` (`expires_at`);
+
+-- Candles of the market data, the latest ones are kept in memory and written here periodically
+CREATE TABLE IF NOT EXISTS `candle` (
+    `asset_name` VARCHAR(255) NOT NULL,
+    `interval_seconds` INT NOT NULL,
+    `open_time` TIMESTAMP WITH TIME ZONE NOT NULL,
+    `open` DECIMAL(20, 8) NOT NULL,
+    `high` DECIMAL(20, 8) NOT NULL,
+    `low` DECIMAL(20, 8) NOT NULL,
+    `close` DECIMAL(20, 8) NOT NULL,
+    `volume` DECIMAL(20, 8) NOT NULL,
+    `trades` INT NOT NULL,
+    `last_trade_at` TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (`asset_name`, `interval_seconds`, `open_time`)
+);
+CREATE INDEX IF NOT EXISTS `idx_candle_interval_open_time` ON `candle` (`interval_seconds`, `open_time`);
+
 INSERT INTO `customer` (`username`, `password`, `role`) SELECT 'admin','$2a$10$/xik00KrhYg6dppvAW2uUenhyG.vSlRicilxfmgbCzFwnAfsUaDf2', 'ADMIN' WHERE NOT EXISTS (SELECT 1 FROM customer where username = 'admin'); --admin123
 INSERT INTO `customer` (`username`, `password`, `role`) SELECT 'customer1','$2a$10$m3/k4XhBjYmq1eEIEL0DBOn6jbAHVpKi.u1j1HOWrM5CgvzHP43TK', 'USER' WHERE NOT EXISTS (SELECT 1 FROM customer where username = 'customer1'); --password123
 INSERT INTO `customer` (`username`, `password`, `role`) SELECT 'customer2','$2a$10$KlxoGTqzNJDJNfOC8c2DV.m3St/.ORrRaOaiuKfUMAYrD5Iu/9Pui', 'USER' WHERE NOT EXISTS (SELECT 1 FROM customer where username = 'customer2'); --password234
@@ -35,4 +81,8 @@ INSERT INTO `customer` (`username`, `password`, `role`) SELECT 'customer4','$2a$
 INSERT INTO `asset` (`customer_id`, `asset_name`, `size`, `usable_size`) SELECT 2,'TRY', 10000.00, 10000.00 WHERE NOT EXISTS (SELECT 1 FROM asset where customer_id = 2 and asset_name = 'TRY'); --define default TRY size
 INSERT INTO `asset` (`customer_id`, `asset_name`, `size`, `usable_size`) SELECT 3,'TRY', 10000.00, 10000.00 WHERE NOT EXISTS (SELECT 1 FROM asset where customer_id = 3 and asset_name = 'TRY'); --define default TRY size
 INSERT INTO `asset` (`customer_id`, `asset_name`, `size`, `usable_size`) SELECT 4,'TRY', 10000.00, 10000.00 WHERE NOT EXISTS (SELECT 1 FROM asset where customer_id = 4 and asset_name = 'TRY'); --define default TRY size
-INSERT INTO `asset` (`customer_id`, `asset_name`, `size`, `usable_size`) SELECT 5,'TRY', 10000.00, 10000.00 WHERE NOT EXISTS (SELECT 1 FROM asset where customer_id = 5 and asset_name = 'TRY'); --define default TRY size
\ No newline at end of file
+INSERT INTO `asset` (`customer_id`, `asset_name`, `size`, `usable_size`) SELECT 5,'TRY', 10000.00, 10000.00 WHERE NOT EXISTS (SELECT 1 FROM asset where customer_id = 5 and asset_name = 'TRY'); --define default TRY size
+
+-- Hibernate allocates ids in blocks of 50, the sequences continue after the rows that already exist
+CREATE SEQUENCE IF NOT EXISTS `orders_seq` START WITH (SELECT COALESCE(MAX(`id`), 0) + 50 FROM (SELECT `id` FROM `orders` UNION ALL SELECT `id` FROM `orders_history`)) INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS `asset_seq` START WITH (SELECT COALESCE(MAX(`id`), 0) + 50 FROM `asset`) INCREMENT BY 50;
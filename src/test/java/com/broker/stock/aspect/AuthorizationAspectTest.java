@@ -0,0 +1,121 @@
+package com.broker.stock.aspect;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.entity.Customer;
+import com.broker.stock.model.OrderRequest;
+import com.broker.stock.repository.CustomerRepository;
+import com.broker.stock.service.auth.CustomerPrincipal;
+import com.broker.stock.service.metrics.LatencyMetrics;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Optional;
+
+class AuthorizationAspectTest {
+
+    private CustomerRepository customerRepository;
+
+    private AuthorizationAspect authorizationAspect;
+
+    @BeforeEach
+    void setUp() {
+        customerRepository = mock(CustomerRepository.class);
+        authorizationAspect = new AuthorizationAspect(customerRepository, new LatencyMetrics());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testAuthorizeAccess_CustomerIdOfTokenIsComparedWithoutLookup() throws Exception {
+        // Given
+        authenticate("customer1", "ROLE_USER", 2L);
+        var method = Service.class.getDeclaredMethod("listOrders", Long.class, String.class);
+
+        // When / Then
+        assertDoesNotThrow(() -> authorizationAspect.authorizeAccess(joinPoint(method, 2L, "GOLD")));
+        assertDoesNotThrow(() -> authorizationAspect.authorizeAccess(joinPoint(method, 2L, "SILVER")));
+        assertThrows(IllegalArgumentException.class, () -> authorizationAspect.authorizeAccess(joinPoint(method, 3L, "GOLD")));
+        verify(customerRepository, never()).findByUsername(ArgumentMatchers.any());
+    }
+
+    @Test
+    void testAuthorizeAccess_CustomerIdFromAnnotatedField() throws Exception {
+        // Given
+        authenticate("customer1", "ROLE_USER", 2L);
+        var method = Service.class.getDeclaredMethod("createOrder", OrderRequest.class);
+
+        // When / Then
+        assertDoesNotThrow(() -> authorizationAspect.authorizeAccess(joinPoint(method, orderRequest(2L))));
+        assertThrows(IllegalArgumentException.class, () -> authorizationAspect.authorizeAccess(joinPoint(method, orderRequest(3L))));
+        assertThrows(IllegalArgumentException.class, () -> authorizationAspect.authorizeAccess(joinPoint(method, (Object) null)));
+    }
+
+    @Test
+    void testAuthorizeAccess_AdminBypasses() throws Exception {
+        // Given
+        authenticate("admin", "ROLE_ADMIN", 1L);
+        var method = Service.class.getDeclaredMethod("createOrder", OrderRequest.class);
+
+        // When / Then
+        assertDoesNotThrow(() -> authorizationAspect.authorizeAccess(joinPoint(method, orderRequest(3L))));
+    }
+
+    @Test
+    void testAuthorizeAccess_PrincipalWithoutCustomerIdIsLookedUp() throws Exception {
+        // Given
+        authenticate("customer1", "ROLE_USER", null);
+        when(customerRepository.findByUsername("customer1")).thenReturn(Optional.of(new Customer(2L, "customer1", "hash", "USER")));
+        var method = Service.class.getDeclaredMethod("listOrders", Long.class, String.class);
+
+        // When / Then
+        assertDoesNotThrow(() -> authorizationAspect.authorizeAccess(joinPoint(method, 2L, "GOLD")));
+        assertThrows(IllegalArgumentException.class, () -> authorizationAspect.authorizeAccess(joinPoint(method, 3L, "GOLD")));
+    }
+
+    private void authenticate(String username, String role, Long customerId) {
+        var authorities = AuthorityUtils.createAuthorityList(role);
+        var principal = new CustomerPrincipal(username, "", authorities, customerId);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, authorities));
+    }
+
+    private JoinPoint joinPoint(Method method, Object... args) {
+        var signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(method);
+        var joinPoint = mock(JoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(args);
+        return joinPoint;
+    }
+
+    private OrderRequest orderRequest(Long customerId) {
+        return new OrderRequest(customerId, "GOLD", OrderSide.BUY, BigDecimal.ONE, BigDecimal.TEN);
+    }
+
+    // Signatures like the ones of the order and asset services
+    private static class Service {
+
+        void listOrders(@CustomerId Long customerId, String assetName) {
+        }
+
+        void createOrder(OrderRequest orderRequest) {
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.broker.stock.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+class ConnectionLimitingDataSourceTest {
+
+    private final DataSource pool = mock(DataSource.class);
+    private final ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(pool, 2, Duration.ofMillis(50));
+
+    @Test
+    void testGetConnection_PermitIsReturnedOnceOnClose() throws Exception {
+        // Given
+        var connection = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(connection);
+
+        // When
+        var limited = dataSource.getConnection();
+        limited.close();
+        limited.close();
+
+        // Then
+        verify(connection, times(2)).close();
+        assertEquals(2, dataSource.availablePermits());
+    }
+
+    @Test
+    void testGetConnection_TimesOutWhenPermitsAreTaken() throws Exception {
+        // Given
+        when(pool.getConnection()).thenReturn(mock(Connection.class));
+        var first = dataSource.getConnection();
+        dataSource.getConnection();
+
+        // When/Then
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        first.close();
+        dataSource.getConnection();
+        assertEquals(0, dataSource.availablePermits());
+    }
+
+    @Test
+    void testGetConnection_PermitIsReturnedIfPoolFails() throws Exception {
+        // Given
+        when(pool.getConnection()).thenThrow(new SQLException("Pool is closed"));
+
+        // When/Then
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(2, dataSource.availablePermits());
+    }
+
+    @Test
+    void testGetConnection_DelegatesStatements() throws Exception {
+        // Given
+        var connection = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(false);
+
+        // When
+        var limited = dataSource.getConnection();
+
+        // Then
+        assertFalse(limited.getAutoCommit());
+        assertEquals(limited, limited);
+    }
+}
@@ -0,0 +1,56 @@
+package com.broker.stock.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import com.broker.stock.controller.business.AssetController;
+import com.broker.stock.model.AssetResponse;
+import com.broker.stock.model.VersionedAssets;
+import com.broker.stock.service.business.AssetService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+class AssetControllerTest {
+
+    private final AssetService assetService = mock(AssetService.class);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new AssetController(assetService)).build();
+        when(assetService.listAssets(2L, null, null)).thenReturn(new VersionedAssets("m1-7",
+            List.of(new AssetResponse(2L, "TRY", new BigDecimal("10000.00000000"), new BigDecimal("10000.0000")))));
+    }
+
+    @Test
+    void testListAssets_ReturnsVersionAsETag() throws Exception {
+        // When / Then
+        mockMvc.perform(get("/api/assets").param("customerId", "2"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"m1-7\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+            .andExpect(jsonPath("$[0].assetName").value("TRY"));
+    }
+
+    @Test
+    void testListAssets_NotModifiedForCurrentVersion() throws Exception {
+        // When / Then
+        mockMvc.perform(get("/api/assets").param("customerId", "2").header(HttpHeaders.IF_NONE_MATCH, "\"m1-7\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"m1-7\""))
+            .andExpect(content().string(""));
+        mockMvc.perform(get("/api/assets").param("customerId", "2").header(HttpHeaders.IF_NONE_MATCH, "\"m1-6\""))
+            .andExpect(status().isOk());
+    }
+}
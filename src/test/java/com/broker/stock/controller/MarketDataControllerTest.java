@@ -0,0 +1,56 @@
+package com.broker.stock.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import com.broker.stock.constant.CandleInterval;
+import com.broker.stock.controller.business.MarketDataController;
+import com.broker.stock.exception.GeneralExceptionHandler;
+import com.broker.stock.model.Candle;
+import com.broker.stock.service.business.market.MarketData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+class MarketDataControllerTest {
+
+    private final MarketData marketData = mock(MarketData.class);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new MarketDataController(marketData))
+            .setControllerAdvice(new GeneralExceptionHandler())
+            .build();
+    }
+
+    @Test
+    void testGetCandles_ByIntervalLabel() throws Exception {
+        // Given
+        when(marketData.candles("GOLD", CandleInterval.FIVE_MINUTES, 12)).thenReturn(List.of(new Candle(
+            OffsetDateTime.of(2025, 3, 1, 10, 0, 0, 0, ZoneOffset.ofHours(1)), BigDecimal.TEN, BigDecimal.TEN, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.TEN, 2)));
+
+        // When / Then
+        mockMvc.perform(get("/api/market/GOLD/candles").param("interval", "5m").param("limit", "12"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].trades").value(2));
+    }
+
+    @Test
+    void testGetCandles_InvalidIntervalOrLimit() throws Exception {
+        // When / Then
+        mockMvc.perform(get("/api/market/GOLD/candles").param("interval", "2m"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/market/GOLD/candles").param("interval", "1m").param("limit", "61"))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -1,44 +1,70 @@
 package com.broker.stock.controller;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import com.broker.stock.constant.BatchMode;
+import com.broker.stock.constant.IntakeState;
 import com.broker.stock.constant.OrderSide;
 import com.broker.stock.constant.OrderStatus;
 import com.broker.stock.controller.business.OrderController;
+import com.broker.stock.model.BatchOrderRequest;
+import com.broker.stock.model.BatchOrderResponse;
+import com.broker.stock.model.IntakeStatus;
+import com.broker.stock.model.OrderCursor;
+import com.broker.stock.model.OrderPage;
 import com.broker.stock.model.OrderRequest;
 import com.broker.stock.model.OrderResponse;
+import com.broker.stock.service.business.OrderIntake;
 import com.broker.stock.service.business.OrderService;
+import com.broker.stock.service.business.OrderUpdates;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 class OrderControllerTest {
 
     @Mock
     private OrderService orderService;
 
-    @InjectMocks
+    @Mock
+    private OrderIntake orderIntake;
+
+    @Mock
+    private OrderUpdates orderUpdates;
+
     private OrderController orderController;
 
     private MockMvc mockMvc;
@@ -48,15 +74,16 @@ class OrderControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        objectMapper = JsonMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        orderController = new OrderController(orderService, orderIntake, orderUpdates, objectMapper);
         mockMvc = MockMvcBuilders.standaloneSetup(orderController).build();
-        objectMapper = new ObjectMapper();
     }
 
     @Test
     void testCreateOrder_Successful() throws Exception {
         // Given
         OrderRequest orderRequest = new OrderRequest(1L, "GOLD", OrderSide.BUY, BigDecimal.valueOf(10), BigDecimal.valueOf(100));
-        OrderResponse orderResponse = new OrderResponse(1L, 1L, "GOLD", OrderSide.BUY, OrderStatus.PENDING, LocalDateTime.now());
+        OrderResponse orderResponse = new OrderResponse(1L, 1L, "GOLD", OrderSide.BUY, OrderStatus.PENDING, BigDecimal.ZERO, LocalDateTime.now());
 
         when(orderService.createOrder(any(OrderRequest.class))).thenReturn(orderResponse);
 
@@ -84,6 +111,108 @@ class OrderControllerTest {
             .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void testCreateOrders_AllCreated() throws Exception {
+        // Given
+        OrderRequest orderRequest = new OrderRequest(1L, "GOLD", OrderSide.BUY, BigDecimal.valueOf(10), BigDecimal.valueOf(100));
+        OrderResponse orderResponse = new OrderResponse(1L, 1L, "GOLD", OrderSide.BUY, OrderStatus.PENDING, BigDecimal.ZERO, LocalDateTime.now());
+        BatchOrderRequest batchRequest = new BatchOrderRequest(1L, null, List.of(orderRequest));
+
+        when(orderService.createOrders(any(BatchOrderRequest.class)))
+            .thenReturn(new BatchOrderResponse(1, 0, List.of(new BatchOrderResponse.Result(0, orderResponse, null))));
+
+        // When/Then
+        mockMvc.perform(post("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.created").value(1))
+            .andExpect(jsonPath("$.results[0].order.id").value(1));
+    }
+
+    @Test
+    void testCreateOrders_PartiallyCreated() throws Exception {
+        // Given
+        OrderRequest orderRequest = new OrderRequest(1L, "GOLD", OrderSide.BUY, BigDecimal.valueOf(10), BigDecimal.valueOf(100));
+        BatchOrderRequest batchRequest = new BatchOrderRequest(1L, BatchMode.PER_ITEM, List.of(orderRequest));
+
+        when(orderService.createOrders(any(BatchOrderRequest.class)))
+            .thenReturn(new BatchOrderResponse(0, 1, List.of(new BatchOrderResponse.Result(0, null, "Insufficient TRY balance."))));
+
+        // When/Then
+        mockMvc.perform(post("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.failed").value(1))
+            .andExpect(jsonPath("$.results[0].error").value("Insufficient TRY balance."));
+    }
+
+    @Test
+    void testCreateOrders_EmptyBatch() throws Exception {
+        // Given
+        BatchOrderRequest batchRequest = new BatchOrderRequest(1L, null, List.of());
+
+        // When/Then
+        mockMvc.perform(post("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+            .andExpect(status().isBadRequest());
+
+        verify(orderService, never()).createOrders(any());
+    }
+
+    @Test
+    void testSubmitOrder_Accepted() throws Exception {
+        // Given
+        OrderRequest orderRequest = new OrderRequest(1L, "GOLD", OrderSide.BUY, BigDecimal.valueOf(10), BigDecimal.valueOf(100));
+        UUID id = UUID.randomUUID();
+
+        when(orderIntake.submit(any(OrderRequest.class))).thenReturn(new IntakeStatus(id, IntakeState.QUEUED, null, null));
+
+        // When/Then
+        mockMvc.perform(post("/api/orders/intake")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(orderRequest)))
+            .andExpect(status().isAccepted())
+            .andExpect(header().string("Location", "/api/orders/intake/" + id + "?customerId=1"))
+            .andExpect(jsonPath("$.state").value("QUEUED"));
+    }
+
+    @Test
+    void testGetIntakeStatus_LongPoll() throws Exception {
+        // Given
+        UUID id = UUID.randomUUID();
+        OrderResponse orderResponse = new OrderResponse(1L, 1L, "GOLD", OrderSide.BUY, OrderStatus.PENDING, BigDecimal.ZERO, LocalDateTime.now());
+
+        when(orderIntake.status(1L, id, Duration.ofSeconds(10)))
+            .thenReturn(CompletableFuture.completedFuture(new IntakeStatus(id, IntakeState.CREATED, orderResponse, null)));
+
+        // When
+        var result = mockMvc.perform(get("/api/orders/intake/" + id)
+                .param("customerId", "1")
+                .param("wait", "10"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.state").value("CREATED"))
+            .andExpect(jsonPath("$.order.id").value(1));
+    }
+
+    @Test
+    void testGetIntakeStatus_WaitTooLong() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/orders/intake/" + UUID.randomUUID())
+                .param("customerId", "1")
+                .param("wait", "31"))
+            .andExpect(status().isBadRequest());
+
+        verify(orderIntake, never()).status(any(), any(), any());
+    }
+
     @Test
     void testListOrders_Successful() throws Exception {
         // Given
@@ -91,8 +220,8 @@ class OrderControllerTest {
         String startDate = "2025-03-01T12:00:00";
         String endDate = "2025-03-10T12:00:00";
 
-        OrderResponse order1 = new OrderResponse(1L, customerId, "GOLD", OrderSide.BUY, OrderStatus.PENDING, LocalDateTime.parse("2025-03-03T10:00:00"));
-        OrderResponse order2 = new OrderResponse(2L, customerId, "SILVER", OrderSide.SELL, OrderStatus.MATCHED, LocalDateTime.parse("2025-03-05T14:00:00"));
+        OrderResponse order1 = new OrderResponse(1L, customerId, "GOLD", OrderSide.BUY, OrderStatus.PENDING, BigDecimal.ZERO, LocalDateTime.parse("2025-03-03T10:00:00"));
+        OrderResponse order2 = new OrderResponse(2L, customerId, "SILVER", OrderSide.SELL, OrderStatus.MATCHED, BigDecimal.valueOf(5), LocalDateTime.parse("2025-03-05T14:00:00"));
 
         when(orderService.listOrders(customerId, LocalDateTime.parse(startDate), LocalDateTime.parse(endDate)))
             .thenReturn(List.of(order1, order2));
@@ -112,6 +241,94 @@ class OrderControllerTest {
         verify(orderService, times(1)).listOrders(customerId, LocalDateTime.parse(startDate), LocalDateTime.parse(endDate));
     }
 
+    @Test
+    void testListOrders_PageReturnsCursorOfNextPage() throws Exception {
+        // Given
+        Long customerId = 1L;
+        var start = LocalDateTime.parse("2025-03-01T12:00:00");
+        var end = LocalDateTime.parse("2025-03-10T12:00:00");
+        var after = new OrderCursor(LocalDateTime.parse("2025-03-02T10:00:00"), 7L);
+        var next = new OrderCursor(LocalDateTime.parse("2025-03-03T10:00:00"), 8L);
+        OrderResponse order = new OrderResponse(8L, customerId, "GOLD", OrderSide.BUY, OrderStatus.PENDING, BigDecimal.ZERO, next.createDate());
+
+        when(orderService.listOrders(customerId, start, end, after, 1)).thenReturn(new OrderPage(List.of(order), next));
+
+        // When/Then
+        mockMvc.perform(get("/api/orders")
+                .param("customerId", customerId.toString())
+                .param("startDate", start.toString())
+                .param("endDate", end.toString())
+                .param("cursor", after.encode())
+                .param("limit", "1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(OrderController.NEXT_CURSOR_HEADER, next.encode()))
+            .andExpect(jsonPath("$.size()").value(1))
+            .andExpect(jsonPath("$[0].id").value(8));
+    }
+
+    @Test
+    void testListOrders_LastPageHasNoCursor() throws Exception {
+        // Given
+        Long customerId = 1L;
+        var start = LocalDateTime.parse("2025-03-01T12:00:00");
+        var end = LocalDateTime.parse("2025-03-10T12:00:00");
+
+        when(orderService.listOrders(customerId, start, end, null, 100)).thenReturn(new OrderPage(List.of(), null));
+
+        // When/Then
+        mockMvc.perform(get("/api/orders")
+                .param("customerId", customerId.toString())
+                .param("startDate", start.toString())
+                .param("endDate", end.toString())
+                .param("limit", "100"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(OrderController.NEXT_CURSOR_HEADER))
+            .andExpect(jsonPath("$.size()").value(0));
+    }
+
+    @Test
+    void testListOrders_InvalidLimit() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/orders")
+                .param("customerId", "1")
+                .param("startDate", "2025-03-01T12:00:00")
+                .param("endDate", "2025-03-10T12:00:00")
+                .param("limit", "0"))
+            .andExpect(status().isBadRequest());
+
+        verify(orderService, never()).listOrders(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testStreamOrders_WritesOneOrderPerLine() throws Exception {
+        // Given
+        Long customerId = 1L;
+        var start = LocalDateTime.parse("2025-03-01T12:00:00");
+        var end = LocalDateTime.parse("2025-03-10T12:00:00");
+        OrderResponse order1 = new OrderResponse(1L, customerId, "GOLD", OrderSide.BUY, OrderStatus.PENDING, BigDecimal.ZERO, LocalDateTime.parse("2025-03-03T10:00:00"));
+        OrderResponse order2 = new OrderResponse(2L, customerId, "SILVER", OrderSide.SELL, OrderStatus.MATCHED, BigDecimal.valueOf(5), LocalDateTime.parse("2025-03-05T14:00:00"));
+
+        when(orderService.streamOrders(customerId, start, end)).thenReturn(Stream.of(order1, order2));
+
+        // When
+        var result = mockMvc.perform(get("/api/orders")
+                .accept(OrderController.NDJSON_VALUE)
+                .param("customerId", customerId.toString())
+                .param("startDate", start.toString())
+                .param("endDate", end.toString()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Then
+        var lines = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(OrderController.NDJSON_VALUE))
+            .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readValue(lines[0], OrderResponse.class).id());
+        assertEquals("SILVER", objectMapper.readValue(lines[1], OrderResponse.class).assetName());
+    }
+
     @Test
     void testListOrders_InvalidDateFormat() throws Exception {
         // Given
@@ -146,6 +363,18 @@ class OrderControllerTest {
             .andExpect(result -> assertTrue(result.getResolvedException().getMessage().contains("Start date cannot be after end date")));
     }
 
+    @Test
+    void testStreamUpdates_OpensEventStream() throws Exception {
+        // Given
+        when(orderUpdates.subscribe(1L)).thenReturn(new SseEmitter());
+
+        // When/Then
+        mockMvc.perform(get("/api/orders/updates").param("customerId", "1"))
+            .andExpect(request().asyncStarted());
+
+        verify(orderUpdates).subscribe(1L);
+    }
+
     @Test
     void testDeleteOrder_Successful() throws Exception {
         // Given
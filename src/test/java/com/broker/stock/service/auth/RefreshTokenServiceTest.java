@@ -0,0 +1,103 @@
+package com.broker.stock.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Duration;
+import java.util.UUID;
+
+class RefreshTokenServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private RefreshTokenService refreshTokenService;
+
+    private final CustomerPrincipal customer1 = new CustomerPrincipal("customer1", "hash",
+        AuthorityUtils.createAuthorityList("ROLE_USER"), 2L);
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        refreshTokenService = new RefreshTokenService(jdbcTemplate, Duration.ofDays(7));
+    }
+
+    @Test
+    void testRefresh_RotatesToken() {
+        // Given
+        var token = refreshTokenService.issue(customer1);
+
+        // When
+        var refreshed = refreshTokenService.refresh(token).orElseThrow();
+
+        // Then
+        assertEquals("customer1", refreshed.principal().getUsername());
+        assertEquals(2L, refreshed.principal().getCustomerId());
+        assertEquals("", refreshed.principal().getPassword());
+        assertNotEquals(token, refreshed.refreshToken());
+        assertTrue(refreshTokenService.refresh(token).isEmpty());
+        assertTrue(refreshTokenService.refresh(refreshed.refreshToken()).isPresent());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_token", Integer.class));
+    }
+
+    @Test
+    void testRefresh_TokenIssuedBeforeRestartIsLoadedOnce() {
+        // Given
+        var token = refreshTokenService.issue(customer1);
+        var restarted = new RefreshTokenService(jdbcTemplate, Duration.ofDays(7));
+
+        // When
+        var refreshed = restarted.refresh(token).orElseThrow();
+
+        // Then
+        assertEquals("customer1", refreshed.principal().getUsername());
+        assertEquals(2L, refreshed.principal().getCustomerId());
+        assertEquals("ROLE_USER", refreshed.principal().getAuthorities().iterator().next().getAuthority());
+        assertTrue(restarted.refresh(token).isEmpty());
+        // Redeemed on the restarted instance, the row is gone
+        assertTrue(refreshTokenService.refresh(token).isEmpty());
+    }
+
+    @Test
+    void testRefresh_PrincipalCarriesCurrentRole() {
+        // Given
+        var token = refreshTokenService.issue(customer1);
+        jdbcTemplate.update("UPDATE customer SET role = 'ADMIN' WHERE id = 2");
+
+        // When
+        var refreshed = refreshTokenService.refresh(token).orElseThrow();
+
+        // Then
+        assertEquals("ROLE_ADMIN", refreshed.principal().getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void testRefresh_ExpiredTokenIsRejectedAndPurged() {
+        // Given
+        var expiring = new RefreshTokenService(jdbcTemplate, Duration.ofMillis(-1));
+        var token = expiring.issue(customer1);
+        var other = expiring.issue(customer1);
+
+        // When / Then
+        assertTrue(expiring.refresh(token).isEmpty());
+        expiring.purgeExpired();
+        assertTrue(expiring.refresh(other).isEmpty());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_token", Integer.class));
+    }
+
+    @Test
+    void testRefresh_UnknownTokenIsRejected() {
+        assertTrue(refreshTokenService.refresh("unknown").isEmpty());
+        assertTrue(refreshTokenService.refresh(null).isEmpty());
+        assertTrue(refreshTokenService.refresh("").isEmpty());
+    }
+}
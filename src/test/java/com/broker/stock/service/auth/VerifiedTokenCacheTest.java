@@ -0,0 +1,113 @@
+package com.broker.stock.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import com.broker.stock.service.metrics.LatencyMetrics;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET = "ThisIsA32CharLongSecureTestKeyAsString!";
+
+    private JwtUtil jwtUtil;
+
+    private UserDetailsService userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = spy(new JwtUtil());
+        ReflectionTestUtils.setField(jwtUtil, "secretKeyString", SECRET);
+        jwtUtil.init();
+        userDetailsService = mock(UserDetailsService.class);
+    }
+
+    @Test
+    void testVerify_TokenIsParsedOnceAndNeedsNoUserLookup() {
+        // Given
+        var cache = new VerifiedTokenCache(jwtUtil, userDetailsService, new LatencyMetrics(), 100);
+        var token = jwtUtil.generateToken("admin", AuthorityUtils.createAuthorityList("ROLE_ADMIN"), 1L);
+
+        // When
+        var first = cache.verify(token).orElseThrow();
+        var second = cache.verify(token).orElseThrow();
+
+        // Then
+        assertEquals("admin", first.getUsername());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_ADMIN"), List.copyOf(first.getAuthorities()));
+        assertEquals(1L, ((CustomerPrincipal) first).getCustomerId());
+        assertEquals(first, second);
+        verify(jwtUtil, times(1)).parseToken(token);
+        verify(userDetailsService, never()).loadUserByUsername("admin");
+    }
+
+    @Test
+    void testVerify_TokenWithoutRolesLoadsUserOnce() {
+        // Given
+        var cache = new VerifiedTokenCache(jwtUtil, userDetailsService, new LatencyMetrics(), 100);
+        var token = Jwts.builder()
+            .setSubject("customer1")
+            .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+            .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+            .compact();
+        when(userDetailsService.loadUserByUsername("customer1"))
+            .thenReturn(User.withUsername("customer1").password("hash").roles("USER").build());
+
+        // When
+        cache.verify(token);
+        var userDetails = cache.verify(token).orElseThrow();
+
+        // Then
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER"), List.copyOf(userDetails.getAuthorities()));
+        verify(userDetailsService, times(1)).loadUserByUsername("customer1");
+    }
+
+    @Test
+    void testVerify_InvalidTokensAreRejectedAndNotCached() {
+        // Given
+        var cache = new VerifiedTokenCache(jwtUtil, userDetailsService, new LatencyMetrics(), 100);
+        var token = jwtUtil.generateToken("admin", AuthorityUtils.createAuthorityList("ROLE_ADMIN"), 1L);
+        var tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        var expired = Jwts.builder()
+            .setSubject("admin")
+            .setExpiration(new Date(System.currentTimeMillis() - 1_000))
+            .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+            .compact();
+
+        // When / Then
+        assertTrue(cache.verify(tampered).isEmpty());
+        assertTrue(cache.verify(expired).isEmpty());
+        assertTrue(cache.verify("not-a-token").isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testVerify_CacheIsBounded() {
+        // Given
+        var cache = new VerifiedTokenCache(jwtUtil, userDetailsService, new LatencyMetrics(), 10);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            var token = jwtUtil.generateToken("customer" + i, AuthorityUtils.createAuthorityList("ROLE_USER"), (long) i);
+            assertEquals("customer" + i, cache.verify(token).orElseThrow().getUsername());
+        }
+
+        // Then
+        assertTrue(cache.size() <= 10);
+    }
+}
@@ -0,0 +1,115 @@
+package com.broker.stock.service.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.broker.stock.model.AssetResponse;
+import com.broker.stock.util.FixedPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+class AssetServiceListAssetsTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private AssetService assetService;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        assetService = new AssetService(null, jdbcTemplate, 4);
+
+        // Customer 2 holds TRY from the schema
+        insertAsset(2L, "Gold", "100", "70.12345");
+        insertAsset(2L, "SILVER", "50", "20");
+        insertAsset(3L, "GOLD", "10", "10");
+    }
+
+    @Test
+    void testListAssets_NoFilters() {
+        // When
+        List<AssetResponse> result = assetService.listAssets(2L, null, null).assets();
+
+        // Then
+        assertEquals(List.of("Gold", "SILVER", "TRY"), result.stream().map(AssetResponse::assetName).sorted().toList());
+        var gold = result.stream().filter(asset -> asset.assetName().equals("Gold")).findFirst().orElseThrow();
+        assertEquals(2L, gold.customerId());
+        assertEquals(new BigDecimal("100.00000000"), gold.size());
+        assertEquals(new BigDecimal("70.1235"), gold.usableSize());
+    }
+
+    @Test
+    void testListAssets_AssetNameIgnoresCase() {
+        // When
+        List<AssetResponse> result = assetService.listAssets(2L, "gOLD", null).assets();
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("Gold", result.get(0).assetName());
+    }
+
+    @Test
+    void testListAssets_MinUsableSize() {
+        // When
+        List<AssetResponse> result = assetService.listAssets(2L, null, new BigDecimal("20")).assets();
+        List<AssetResponse> filtered = assetService.listAssets(2L, "silver", new BigDecimal("20.00000001")).assets();
+
+        // Then
+        assertEquals(List.of("Gold", "SILVER", "TRY"), result.stream().map(AssetResponse::assetName).sorted().toList());
+        assertTrue(filtered.isEmpty());
+    }
+
+    @Test
+    void testListAssets_CachedUntilAssetsChange() {
+        // Given
+        var first = assetService.listAssets(2L, null, null);
+        // Written around the service, the cache does not know
+        insertAsset(2L, "COPPER", "1", "1");
+
+        // When
+        var cached = assetService.listAssets(2L, null, null);
+        assetService.reserve(2L, "SILVER", FixedPoint.of(5));
+        var changed = assetService.listAssets(2L, null, null);
+
+        // Then
+        assertEquals(first.version(), cached.version());
+        assertSame(first.assets(), cached.assets());
+        assertNotEquals(first.version(), changed.version());
+        assertEquals(4, changed.assets().size());
+        assertEquals(new BigDecimal("15.0000"), changed.assets().stream()
+            .filter(asset -> asset.assetName().equals("SILVER")).findFirst().orElseThrow().usableSize());
+    }
+
+    @Test
+    void testListAssets_CacheBoundedByAssets() {
+        // Given 3 assets of customer 2 and 1 of customer 3 fill the cache
+        var customer2 = assetService.listAssets(2L, null, null);
+        var customer3 = assetService.listAssets(3L, null, null);
+
+        // When one more evicts the least recently used list
+        assetService.listAssets(2L, "gold", null);
+
+        // Then
+        assertSame(customer3.assets(), assetService.listAssets(3L, null, null).assets());
+        var reread = assetService.listAssets(2L, null, null);
+        assertEquals(customer2.version(), reread.version());
+        assertNotSame(customer2.assets(), reread.assets());
+    }
+
+    private void insertAsset(Long customerId, String assetName, String size, String usableSize) {
+        jdbcTemplate.update("INSERT INTO asset (id, customer_id, asset_name, size, usable_size) VALUES (NEXT VALUE FOR asset_seq, ?, ?, ?, ?)",
+            customerId, assetName, new BigDecimal(size), new BigDecimal(usableSize));
+    }
+}
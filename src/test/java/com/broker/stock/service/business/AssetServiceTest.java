@@ -1,19 +1,30 @@
 package com.broker.stock.service.business;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import com.broker.stock.entity.Asset;
-import com.broker.stock.model.AssetResponse;
 import com.broker.stock.repository.AssetRepository;
 import com.broker.stock.service.business.AssetService;
+import com.broker.stock.util.FixedPoint;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -23,12 +34,22 @@ class AssetServiceTest {
     @Mock
     private AssetRepository assetRepository;
 
-    @InjectMocks
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     private AssetService assetService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        assetService = new AssetService(assetRepository, jdbcTemplate, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
@@ -40,8 +61,8 @@ class AssetServiceTest {
         Asset mockAsset = new Asset();
         mockAsset.setCustomerId(customerId);
         mockAsset.setAssetName(assetName);
-        mockAsset.setSize(BigDecimal.valueOf(100));
-        mockAsset.setUsableSize(BigDecimal.valueOf(50));
+        mockAsset.setSize(FixedPoint.of(100));
+        mockAsset.setUsableSize(FixedPoint.of(50));
 
         // Mock repository behavior
         when(assetRepository.findByCustomerIdAndAssetName(customerId, assetName)).thenReturn(Optional.of(mockAsset));
@@ -52,41 +73,149 @@ class AssetServiceTest {
         // Then
         assertTrue(result.isPresent());
         assertEquals("GOLD", result.get().getAssetName());
-        assertEquals(BigDecimal.valueOf(100), result.get().getSize());
-        assertEquals(BigDecimal.valueOf(50), result.get().getUsableSize());
+        assertEquals(FixedPoint.of(100), result.get().getSize());
+        assertEquals(FixedPoint.of(50), result.get().getUsableSize());
         verify(assetRepository, times(1)).findByCustomerIdAndAssetName(customerId, assetName);
     }
 
     @Test
-    void testListAssets_NoFilters() {
+    void testGetAsset_ServedFromCacheAfterFirstLoad() {
         // Given
         Long customerId = 1L;
+        when(assetRepository.findByCustomerIdAndAssetName(customerId, "TRY"))
+            .thenReturn(Optional.of(new Asset(10L, customerId, "TRY", FixedPoint.of(1000), FixedPoint.of(800))));
 
-        Asset asset1 = new Asset();
-        asset1.setCustomerId(customerId);
-        asset1.setAssetName("GOLD");
-        asset1.setSize(BigDecimal.valueOf(100));
-        asset1.setUsableSize(BigDecimal.valueOf(70));
+        // When
+        assetService.getAsset(customerId, "TRY");
+        Optional<Asset> result = assetService.getAsset(customerId, "TRY");
 
-        Asset asset2 = new Asset();
-        asset2.setCustomerId(customerId);
-        asset2.setAssetName("SILVER");
-        asset2.setSize(BigDecimal.valueOf(50));
-        asset2.setUsableSize(BigDecimal.valueOf(20));
+        // Then
+        assertEquals(FixedPoint.of(800), result.get().getUsableSize());
+        verify(assetRepository, times(1)).findByCustomerIdAndAssetName(customerId, "TRY");
+    }
 
-        List<Asset> mockAssets = List.of(asset1, asset2);
+    @Test
+    void testSave_FlushesDeltaOnCommit() {
+        // Given
+        Long customerId = 1L;
+        when(assetRepository.findByCustomerIdAndAssetName(customerId, "TRY"))
+            .thenReturn(Optional.of(new Asset(10L, customerId, "TRY", FixedPoint.of(1000), FixedPoint.of(800))));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
 
-        // Mock repository behavior
-        when(assetRepository.findByCustomerId(customerId)).thenReturn(mockAssets);
+        // When
+        TransactionSynchronizationManager.initSynchronization();
+        Asset tryAsset = assetService.getAsset(customerId, "TRY").orElseThrow();
+        tryAsset.setUsableSize(tryAsset.getUsableSize() - FixedPoint.of(300));
+        assetService.save(tryAsset);
+        // Later reads of the same transaction see the working copy
+        assertEquals(FixedPoint.of(500), assetService.getAsset(customerId, "TRY").get().getUsableSize());
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<Object[]> updates) -> updates.size() == 1
+            && BigDecimal.ZERO.compareTo((BigDecimal) updates.get(0)[0]) == 0
+            && BigDecimal.valueOf(-300).compareTo((BigDecimal) updates.get(0)[1]) == 0
+            && updates.get(0)[2].equals(10L)));
+        assertEquals(FixedPoint.of(500), assetService.getAsset(customerId, "TRY").get().getUsableSize());
+        verify(assetRepository, never()).save(tryAsset);
+        verify(assetRepository, times(1)).findByCustomerIdAndAssetName(customerId, "TRY");
+    }
+
+    @Test
+    void testSave_DiscardedOnRollback() {
+        // Given
+        Long customerId = 1L;
+        when(assetRepository.findByCustomerIdAndAssetName(customerId, "TRY"))
+            .thenReturn(Optional.of(new Asset(10L, customerId, "TRY", FixedPoint.of(1000), FixedPoint.of(800))));
 
         // When
-        List<AssetResponse> result = assetService.listAssets(customerId, null, null);
+        TransactionSynchronizationManager.initSynchronization();
+        Asset tryAsset = assetService.getAsset(customerId, "TRY").orElseThrow();
+        tryAsset.setUsableSize(0);
+        assetService.save(tryAsset);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
 
         // Then
-        assertEquals(2, result.size()); // All assets should be returned
-        verify(assetRepository, times(1)).findByCustomerId(customerId);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertEquals(FixedPoint.of(800), assetService.getAsset(customerId, "TRY").get().getUsableSize());
     }
 
-}
+    @Test
+    void testSave_NewAssetInsertedOnCommit() {
+        // Given
+        Asset newAsset = new Asset(null, 1L, "GOLD", 0, 0);
+
+        // When
+        TransactionSynchronizationManager.initSynchronization();
+        assetService.save(newAsset);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        verify(assetRepository).saveAll(List.of(newAsset));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertTrue(assetService.getAsset(1L, "GOLD").isPresent());
+        verify(assetRepository, never()).findByCustomerIdAndAssetName(eq(1L), anyString());
+    }
+
+    @Test
+    void testReserve_WrittenOnceAndPublishedOnCommit() {
+        // Given
+        Long customerId = 1L;
+        when(assetRepository.findByCustomerIdAndAssetName(customerId, "TRY"))
+            .thenReturn(Optional.of(new Asset(10L, customerId, "TRY", FixedPoint.of(1000), FixedPoint.of(800))));
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1);
+
+        // When
+        TransactionSynchronizationManager.initSynchronization();
+        boolean reserved = assetService.reserve(customerId, "TRY", FixedPoint.of(300));
+        assertEquals(FixedPoint.of(500), assetService.getAsset(customerId, "TRY").get().getUsableSize());
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        assertTrue(reserved);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList()); // Already written by the conditional update
+        assertEquals(FixedPoint.of(500), assetService.getAsset(customerId, "TRY").get().getUsableSize());
+    }
+
+    @Test
+    void testReserve_CommittedRowIsReadBeforeTheUpdate() {
+        // Given a database that returns the reserved row once the conditional update ran
+        Long customerId = 1L;
+        var row = new Asset[]{new Asset(10L, customerId, "GOLD", FixedPoint.of(10), FixedPoint.of(10))};
+        when(assetRepository.findByCustomerIdAndAssetName(customerId, "GOLD")).thenAnswer(invocation -> Optional.of(row[0]));
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            row[0] = new Asset(10L, customerId, "GOLD", FixedPoint.of(10), FixedPoint.of(9));
+            return 1;
+        });
 
+        // When
+        TransactionSynchronizationManager.initSynchronization();
+        assetService.reserve(customerId, "GOLD", FixedPoint.of(1));
+
+        // Then the reservation is subtracted once, and only cached once committed
+        assertEquals(FixedPoint.of(9), assetService.getAsset(customerId, "GOLD").get().getUsableSize());
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(FixedPoint.of(10), assetService.getAsset(customerId, "GOLD").get().getUsableSize());
+    }
 
+    @Test
+    void testReserve_InsufficientBalance() {
+        // Given
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(0);
+
+        // When
+        boolean reserved = assetService.reserve(1L, "TRY", FixedPoint.of(300));
+
+        // Then
+        assertFalse(reserved);
+        verify(assetRepository, never()).findByCustomerIdAndAssetName(eq(1L), anyString());
+    }
+
+    private void complete(int status) {
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        }
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), status);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
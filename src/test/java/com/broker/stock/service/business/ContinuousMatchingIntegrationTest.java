@@ -0,0 +1,91 @@
+package com.broker.stock.service.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.constant.OrderStatus;
+import com.broker.stock.entity.Asset;
+import com.broker.stock.entity.Order;
+import com.broker.stock.model.OrderRequest;
+import com.broker.stock.repository.AssetRepository;
+import com.broker.stock.repository.OrderRepository;
+import com.broker.stock.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:continuousmatching;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "order.matching.mode=CONTINUOUS",
+    "order.customer-locks.timeout=30s", // A deadlock fails the test instead of answering 503
+    "order.journal.directory=target/continuous-matching-journal",
+    "order.snapshot.directory=target/continuous-matching-snapshots"
+})
+class ContinuousMatchingIntegrationTest {
+
+    private static final int ORDERS = 50;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void testCreateOrder_ConcurrentCrossingOrdersOfTwoCustomersAllMatch() throws Exception {
+        // Given customer 2 sells SILVER to customer 3, which sells GOLD to customer 2, both at the same time
+        assetRepository.saveAll(List.of(
+            new Asset(null, 2L, "GOLD", 0, 0),
+            new Asset(null, 2L, "SILVER", FixedPoint.of(100), FixedPoint.of(100)),
+            new Asset(null, 3L, "GOLD", FixedPoint.of(100), FixedPoint.of(100)),
+            new Asset(null, 3L, "SILVER", 0, 0)));
+        var start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // When
+        var customer2 = CompletableFuture.runAsync(() -> trade(start, 2L, OrderSide.BUY, OrderSide.SELL), executor);
+        var customer3 = CompletableFuture.runAsync(() -> trade(start, 3L, OrderSide.SELL, OrderSide.BUY), executor);
+        start.countDown();
+        CompletableFuture.allOf(customer2, customer3).get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Then every order found its counterpart and no book was left crossed
+        var statuses = orderRepository.findAll().stream().map(Order::getStatus).toList();
+        assertEquals(4 * ORDERS, statuses.size());
+        assertEquals(4 * ORDERS, statuses.stream().filter(OrderStatus.MATCHED::equals).count());
+        asAdmin();
+        assertEquals(0, orderService.matchOrders().trades());
+    }
+
+    private void trade(CountDownLatch start, Long customerId, OrderSide goldSide, OrderSide silverSide) {
+        asAdmin();
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        for (int i = 0; i < ORDERS; i++) {
+            orderService.createOrder(new OrderRequest(customerId, "GOLD", goldSide, BigDecimal.ONE, BigDecimal.TEN));
+            orderService.createOrder(new OrderRequest(customerId, "SILVER", silverSide, BigDecimal.ONE, BigDecimal.TEN));
+        }
+    }
+
+    private static void asAdmin() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+    }
+}
@@ -0,0 +1,108 @@
+package com.broker.stock.service.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.constant.OrderStatus;
+import com.broker.stock.model.OrderRequest;
+import com.broker.stock.model.OrderResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:customerlocks;DB_CLOSE_DELAY=-1",
+    "spring.datasource.hikari.maximum-pool-size=" + CustomerLocksIntegrationTest.POOL_SIZE,
+    "spring.datasource.hikari.connection-timeout=1000",
+    "order.customer-locks.timeout=30s",
+    "order.matching.mode=BATCH",
+    "order.journal.directory=target/customerlocks-journal",
+    "order.snapshot.directory=target/customerlocks-snapshots"
+})
+class CustomerLocksIntegrationTest {
+
+    static final int POOL_SIZE = 2;
+    private static final Long BUSY_CUSTOMER_ID = 2L; // Seeded with 10000 TRY
+    private static final Long OTHER_CUSTOMER_ID = 3L; // Seeded with 10000 TRY
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerLocks customerLocks;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() {
+        authenticateAsAdmin();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testCreateOrder_RequestsWaitingForTheirCustomerHoldNoConnection() throws Exception {
+        // Given the busy customer locked and more of its orders waiting for the lock than the pool has connections
+        var locked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var holder = executor.submit(() -> customerLocks.callLocked(BUSY_CUSTOMER_ID, () -> {
+            locked.countDown();
+            try {
+                return release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        List<Future<OrderResponse>> waiting = new ArrayList<>();
+        for (int i = 0; i < POOL_SIZE + 2; i++) {
+            waiting.add(executor.submit(() -> {
+                authenticateAsAdmin();
+                return orderService.createOrder(buyGold(BUSY_CUSTOMER_ID));
+            }));
+        }
+        Thread.sleep(500); // Until the orders queued up on the lock
+
+        // When
+        var other = orderService.createOrder(buyGold(OTHER_CUSTOMER_ID));
+
+        // Then
+        assertEquals(OrderStatus.PENDING, other.status());
+        waiting.forEach(order -> assertFalse(order.isDone(), "Busy customer's order did not wait for its lock"));
+        release.countDown();
+        assertTrue(holder.get(5, TimeUnit.SECONDS));
+        for (var order : waiting) {
+            assertEquals(OrderStatus.PENDING, order.get(10, TimeUnit.SECONDS).status());
+        }
+    }
+
+    private OrderRequest buyGold(Long customerId) {
+        return new OrderRequest(customerId, "GOLD", OrderSide.BUY, BigDecimal.ONE, BigDecimal.valueOf(10));
+    }
+
+    private void authenticateAsAdmin() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+    }
+}
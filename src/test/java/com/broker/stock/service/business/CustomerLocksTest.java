@@ -0,0 +1,191 @@
+package com.broker.stock.service.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class CustomerLocksTest {
+
+    private final CustomerLocks customerLocks = new CustomerLocks(16, Duration.ofMillis(200));
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testLock_SameCustomerWaitsForTransactionCompletion() throws Exception {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        customerLocks.lock(1L);
+        var acquired = new CountDownLatch(1);
+
+        // When
+        var other = CompletableFuture.runAsync(() -> inTransaction(() -> {
+            customerLocks.lock(List.of(2L, 1L));
+            acquired.countDown();
+        }), executor);
+
+        // Then
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        complete();
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        other.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testLock_DifferentCustomersDoNotBlock() throws Exception {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        customerLocks.lock(1L);
+
+        // When
+        var other = CompletableFuture.runAsync(() -> inTransaction(() -> customerLocks.lock(2L)), executor);
+
+        // Then
+        other.get(100, TimeUnit.MILLISECONDS);
+        complete();
+    }
+
+    @Test
+    void testLock_TimesOutWithServiceUnavailable() throws Exception {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        customerLocks.lock(1L);
+
+        // When
+        var other = CompletableFuture.supplyAsync(() -> assertThrows(ResponseStatusException.class,
+            () -> inTransaction(() -> customerLocks.lock(17L))), executor); // Same stripe as customer 1
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, other.get(1, TimeUnit.SECONDS).getStatusCode());
+        complete();
+    }
+
+    @Test
+    void testLock_ReentrantWithinTransaction() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        customerLocks.lock(1L);
+        customerLocks.lock(List.of(1L, 17L));
+
+        // Then
+        complete();
+        CompletableFuture.runAsync(() -> inTransaction(() -> customerLocks.lock(1L)), executor).join();
+    }
+
+    @Test
+    void testLock_StripeBelowHeldOneIsRejected() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        customerLocks.lock(2L);
+
+        // When
+        customerLocks.lock(List.of(2L, 3L)); // Above, still in order
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> customerLocks.lock(1L));
+        complete();
+        CompletableFuture.runAsync(() -> inTransaction(() -> customerLocks.lock(List.of(1L, 2L, 3L))), executor).join();
+    }
+
+    @Test
+    void testLock_RequiresTransaction() {
+        assertThrows(IllegalStateException.class, () -> customerLocks.lock(1L));
+    }
+
+    @Test
+    void testCallLocked_SameCustomerWaitsUntilActionReturned() throws Exception {
+        // Given
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var first = CompletableFuture.supplyAsync(() -> customerLocks.callLocked(1L, () -> {
+            started.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        // When
+        var second = CompletableFuture.supplyAsync(() -> customerLocks.callLocked(1L, () -> "second"), executor);
+
+        // Then
+        assertFalse(second.isDone());
+        assertEquals("second", CompletableFuture.supplyAsync(() -> customerLocks.callLocked(2L, () -> "second"))
+            .get(100, TimeUnit.MILLISECONDS)); // Other customers go ahead
+        release.countDown();
+        assertEquals("first", first.get(1, TimeUnit.SECONDS));
+        assertEquals("second", second.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCallLocked_UnlocksWhenActionThrows() throws Exception {
+        // When
+        assertThrows(IllegalArgumentException.class, () -> customerLocks.callLocked(1L, () -> {
+            throw new IllegalArgumentException("failed");
+        }));
+
+        // Then
+        assertEquals("next", CompletableFuture.supplyAsync(() -> customerLocks.callLocked(1L, () -> "next"), executor)
+            .get(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testCallLocked_RejectedWithinTransaction() {
+        // Given
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // When/Then
+        try {
+            assertThrows(IllegalStateException.class, () -> customerLocks.callLocked(1L, () -> "locked"));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void inTransaction(Runnable action) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+        } finally {
+            complete();
+        }
+    }
+
+    private void complete() {
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
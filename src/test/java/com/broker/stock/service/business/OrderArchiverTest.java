@@ -0,0 +1,129 @@
+package com.broker.stock.service.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.broker.stock.constant.OrderStatus;
+import com.broker.stock.model.OrderResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+class OrderArchiverTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    private DriverManagerDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private OrderHistory orderHistory;
+
+    private OrderArchiver orderArchiver;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        orderHistory = new OrderHistory(jdbcTemplate);
+        orderArchiver = new OrderArchiver(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+            orderHistory, true, Duration.ofDays(30), 2);
+
+        // Customer 2 has an order every hour, every third one still pending
+        for (int hour = 0; hour < 10; hour++) {
+            insertOrder(2L, START.plusHours(hour), hour % 3 == 0 ? OrderStatus.PENDING
+                : hour % 3 == 1 ? OrderStatus.MATCHED : OrderStatus.CANCELLED);
+        }
+    }
+
+    @Test
+    void testArchive_MovesOldTerminalOrdersInBatches() {
+        // When
+        int archived = orderArchiver.archive(START.plusHours(6));
+
+        // Then the matched and cancelled orders of hours 1, 2, 4 and 5 moved with all their columns
+        assertEquals(4, archived);
+        assertEquals(6, count("orders"));
+        assertEquals(List.of(START.plusHours(1), START.plusHours(2), START.plusHours(4), START.plusHours(5)),
+            jdbcTemplate.queryForList("SELECT create_date FROM orders_history ORDER BY id", LocalDateTime.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders_history WHERE asset_name = 'GOLD' "
+            + "AND order_side = 'BUY' AND size = 10 AND price = 100 AND filled_size = 1 AND status = 'MATCHED' "
+            + "AND create_date = ?", Integer.class, Timestamp.valueOf(START.plusHours(1))));
+        assertEquals(0, orderArchiver.archive(START.plusHours(6)));
+    }
+
+    @Test
+    void testPage_ReadsBothTablesInCreationOrder() {
+        // Given
+        var before = orderHistory.list(2L, START, START.plusHours(9));
+        orderArchiver.archive(START.plusHours(6));
+
+        // When
+        var createDates = new ArrayList<LocalDateTime>();
+        var page = orderHistory.page(2L, START, START.plusHours(9), null, 3);
+        while (true) {
+            page.orders().forEach(order -> createDates.add(order.createDate()));
+            if (page.next() == null) {
+                break;
+            }
+            page = orderHistory.page(2L, START, START.plusHours(9), page.next(), 3);
+        }
+
+        // Then
+        assertEquals(before.stream().map(OrderResponse::createDate).toList(), createDates);
+        assertEquals(before, orderHistory.list(2L, START, START.plusHours(9)));
+        // A restarted service learns what was archived from the table
+        assertEquals(before, new OrderHistory(jdbcTemplate).list(2L, START, START.plusHours(9)));
+    }
+
+    @Test
+    void testPage_RecentRangeOnlyReadsOrdersTable() {
+        // Given
+        orderArchiver.archive(START.plusHours(6));
+        jdbcTemplate.update("DROP TABLE orders_history");
+
+        // When
+        var page = orderHistory.page(2L, START.plusHours(6), START.plusHours(9), null, 10);
+
+        // Then
+        assertEquals(4, page.orders().size());
+        assertNull(page.next());
+    }
+
+    @Test
+    void testSchema_SequenceContinuesAfterArchivedOrders() {
+        // Given every order archived and the sequence created anew
+        orderArchiver.archive(START.plusDays(1));
+        jdbcTemplate.update("DELETE FROM orders");
+        jdbcTemplate.update("DROP SEQUENCE orders_seq");
+
+        // When
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+        // Then
+        long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders_history", Long.class);
+        assertTrue(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR orders_seq", Long.class) > maxId);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private void insertOrder(Long customerId, LocalDateTime createDate, OrderStatus status) {
+        jdbcTemplate.update("INSERT INTO orders (customer_id, asset_name, order_side, size, price, filled_size, status, create_date) "
+            + "VALUES (?, 'GOLD', 'BUY', 10, 100, 1, ?, ?)", customerId, status.name(), Timestamp.valueOf(createDate));
+    }
+}
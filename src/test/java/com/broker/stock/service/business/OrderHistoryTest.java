@@ -0,0 +1,117 @@
+package com.broker.stock.service.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.constant.OrderStatus;
+import com.broker.stock.model.OrderResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+class OrderHistoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    private JdbcTemplate jdbcTemplate;
+
+    private OrderHistory orderHistory;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        orderHistory = new OrderHistory(jdbcTemplate);
+
+        // Customer 2 has an order every hour, inserted out of order, customer 3 one in between
+        for (int hour = 9; hour >= 0; hour--) {
+            insertOrder(2L, START.plusHours(hour));
+        }
+        insertOrder(3L, START.plusMinutes(30));
+    }
+
+    @Test
+    void testPage_WalksRangeInCreationOrder() {
+        // Given
+        var end = START.plusHours(8);
+        var createDates = new ArrayList<LocalDateTime>();
+        int pages = 0;
+
+        // When
+        var page = orderHistory.page(2L, START, end, null, 4);
+        while (true) {
+            pages++;
+            page.orders().forEach(order -> createDates.add(order.createDate()));
+            if (page.next() == null) {
+                break;
+            }
+            page = orderHistory.page(2L, START, end, page.next(), 4);
+        }
+
+        // Then
+        assertEquals(3, pages);
+        assertEquals(9, createDates.size());
+        for (int hour = 0; hour <= 8; hour++) {
+            assertEquals(START.plusHours(hour), createDates.get(hour));
+        }
+    }
+
+    @Test
+    void testPage_ExactlyFullLastPageHasNoCursor() {
+        // When
+        var page = orderHistory.page(2L, START, START.plusHours(9), null, 10);
+
+        // Then
+        assertEquals(10, page.orders().size());
+        assertNull(page.next());
+    }
+
+    @Test
+    void testStream_ReadsRangeOfCustomerInCreationOrder() {
+        // When
+        var orders = orderHistory.stream(2L, START.plusHours(2), START.plusHours(5)).toList();
+
+        // Then
+        assertEquals(List.of(START.plusHours(2), START.plusHours(3), START.plusHours(4), START.plusHours(5)),
+            orders.stream().map(OrderResponse::createDate).toList());
+        var order = orders.get(0);
+        assertEquals(2L, order.customerId());
+        assertEquals("GOLD", order.assetName());
+        assertEquals(OrderSide.BUY, order.orderSide());
+        assertEquals(OrderStatus.PENDING, order.status());
+        assertEquals(0, BigDecimal.ONE.compareTo(order.filledSize()));
+    }
+
+    @Test
+    void testStream_ContinuesAcrossPages() {
+        // Given
+        for (int second = 0; second < 2500; second++) {
+            insertOrder(4L, START.plusSeconds(second));
+        }
+
+        // When
+        var orders = orderHistory.stream(4L, START, START.plusHours(1)).toList();
+
+        // Then
+        assertEquals(2500, orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            assertEquals(START.plusSeconds(i), orders.get(i).createDate());
+        }
+    }
+
+    private void insertOrder(Long customerId, LocalDateTime createDate) {
+        jdbcTemplate.update("INSERT INTO orders (customer_id, asset_name, order_side, size, price, filled_size, status, create_date) "
+            + "VALUES (?, 'GOLD', 'BUY', 10, 100, 1, 'PENDING', ?)", customerId, Timestamp.valueOf(createDate));
+    }
+}
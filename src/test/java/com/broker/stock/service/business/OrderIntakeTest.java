@@ -0,0 +1,152 @@
+package com.broker.stock.service.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import com.broker.stock.constant.IntakeState;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.constant.OrderStatus;
+import com.broker.stock.exception.RetryLaterException;
+import com.broker.stock.model.OrderRequest;
+import com.broker.stock.model.OrderResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class OrderIntakeTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderIntake orderIntake = new OrderIntake(orderService, 1, 1, Duration.ofMillis(1500), Duration.ofMinutes(10), 2);
+
+    private final OrderRequest orderRequest = new OrderRequest(1L, "GOLD", OrderSide.BUY, BigDecimal.ONE, BigDecimal.TEN);
+    private final OrderResponse orderResponse = new OrderResponse(1L, 1L, "GOLD", OrderSide.BUY, OrderStatus.PENDING, BigDecimal.ZERO, LocalDateTime.now());
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        SecurityContextHolder.clearContext();
+        orderIntake.shutdown();
+    }
+
+    @Test
+    void testSubmit_CreatesOrderAsSubmittingUser() throws Exception {
+        // Given
+        var authentication = new UsernamePasswordAuthenticationToken("customer1", null, List.of());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(orderService.createOrder(orderRequest)).thenAnswer(invocation -> {
+            assertEquals(authentication, SecurityContextHolder.getContext().getAuthentication());
+            return orderResponse;
+        });
+
+        // When
+        var queued = orderIntake.submit(orderRequest);
+        var status = orderIntake.status(1L, queued.id(), Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(IntakeState.QUEUED, queued.state());
+        assertEquals(IntakeState.CREATED, status.state());
+        assertEquals(orderResponse, status.order());
+        assertNull(status.error());
+    }
+
+    @Test
+    void testSubmit_RejectedOrderCarriesReason() throws Exception {
+        // Given
+        when(orderService.createOrder(orderRequest)).thenThrow(new IllegalStateException("Insufficient TRY balance."));
+
+        // When
+        var queued = orderIntake.submit(orderRequest);
+        var status = orderIntake.status(1L, queued.id(), Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(IntakeState.REJECTED, status.state());
+        assertEquals("Insufficient TRY balance.", status.error());
+    }
+
+    @Test
+    void testSubmit_FullQueueAnswersRetryLater() throws Exception {
+        // Given one order being created and one waiting
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(orderService.createOrder(orderRequest)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return orderResponse;
+        });
+        var first = orderIntake.submit(orderRequest);
+        started.await(5, TimeUnit.SECONDS);
+        var second = orderIntake.submit(orderRequest);
+
+        // When/Then
+        var exception = assertThrows(RetryLaterException.class, () -> orderIntake.submit(orderRequest));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertEquals("2", exception.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        // The wait is over before the order is created
+        assertEquals(IntakeState.QUEUED, orderIntake.status(1L, first.id(), Duration.ofMillis(50)).get(5, TimeUnit.SECONDS).state());
+        release.countDown();
+        assertEquals(IntakeState.CREATED, orderIntake.status(1L, second.id(), Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS).state());
+        assertEquals(IntakeState.CREATED, orderIntake.status(1L, first.id(), Duration.ZERO).get().state());
+    }
+
+    @Test
+    void testStatus_UnknownToOtherCustomers() {
+        // Given
+        when(orderService.createOrder(orderRequest)).thenReturn(orderResponse);
+        var queued = orderIntake.submit(orderRequest);
+
+        // When/Then
+        var exception = assertThrows(ResponseStatusException.class, () -> orderIntake.status(2L, queued.id(), Duration.ZERO));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> orderIntake.status(1L, UUID.randomUUID(), Duration.ZERO));
+    }
+
+    @Test
+    void testPurgeCompleted_KeepsStatusesWithinRetention() throws Exception {
+        // Given
+        when(orderService.createOrder(orderRequest)).thenReturn(orderResponse);
+        var queued = orderIntake.submit(orderRequest);
+        orderIntake.status(1L, queued.id(), Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+
+        // When
+        orderIntake.purgeCompleted();
+
+        // Then
+        assertFalse(orderIntake.status(1L, queued.id(), Duration.ZERO).isCompletedExceptionally());
+    }
+
+    @Test
+    void testStatus_OldestDoneOrdersForgottenBeyondMaximum() throws Exception {
+        // Given
+        when(orderService.createOrder(orderRequest)).thenReturn(orderResponse);
+        List<UUID> ids = new ArrayList<>();
+
+        // When more orders are done within the retention than are kept
+        for (int i = 0; i < 3; i++) {
+            var queued = orderIntake.submit(orderRequest);
+            orderIntake.status(1L, queued.id(), Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+            ids.add(queued.id());
+        }
+
+        // Then
+        var exception = assertThrows(ResponseStatusException.class, () -> orderIntake.status(1L, ids.get(0), Duration.ZERO));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        assertEquals(IntakeState.CREATED, orderIntake.status(1L, ids.get(1), Duration.ZERO).get().state());
+        assertEquals(IntakeState.CREATED, orderIntake.status(1L, ids.get(2), Duration.ZERO).get().state());
+    }
+}
@@ -2,12 +2,15 @@ package com.broker.stock.service.business;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -49,6 +52,29 @@ class OrderServiceAuthorizationIntegrationTest {
             .andExpect(status().isOk());
     }
 
+    @Test
+    @WithMockUser(username = "customer2", roles = "USER", password = "password234")
+    void testStreamOrders_OfOtherCustomerIsRejectedBeforeStreaming() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/orders")
+                .accept("application/x-ndjson")
+                .param("customerId", "2")
+                .param("startDate", "2025-01-01T00:00:00")
+                .param("endDate", "2025-12-31T23:59:59"))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "customer2", roles = "USER", password = "password234")
+    void testSubmitOrder_ForOtherCustomerIsRejectedBeforeQueueing() throws Exception {
+        // When/Then
+        mockMvc.perform(post("/api/orders/intake")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"customerId\":2,\"assetName\":\"GOLD\",\"orderSide\":\"BUY\",\"size\":1,\"price\":10}"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "customer2", roles = "USER", password = "password234")
     void testDeleteOrder_BadRequest_NoToken() throws Exception {
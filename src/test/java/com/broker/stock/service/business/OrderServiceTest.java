@@ -5,23 +5,39 @@ import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import com.broker.stock.constant.BatchMode;
+import com.broker.stock.constant.LatencyStage;
 import com.broker.stock.constant.OrderSide;
 import com.broker.stock.constant.OrderStatus;
 import com.broker.stock.entity.Asset;
 import com.broker.stock.entity.Order;
+import com.broker.stock.mapper.OrderMapper;
+import com.broker.stock.model.BatchOrderRequest;
+import com.broker.stock.model.BatchOrderResponse;
+import com.broker.stock.model.MatchSummary;
 import com.broker.stock.model.OrderRequest;
 import com.broker.stock.model.OrderResponse;
 import com.broker.stock.repository.OrderRepository;
 import com.broker.stock.service.business.AssetService;
 import com.broker.stock.service.business.OrderService;
+import com.broker.stock.service.business.journal.CommandJournal;
+import com.broker.stock.service.business.journal.JournalCommand;
+import com.broker.stock.service.business.market.MarketData;
+import com.broker.stock.service.business.matching.MatchingEngine;
+import com.broker.stock.service.business.matching.Trade;
 import com.broker.stock.service.business.strategy.BuyOrderHandler;
 import com.broker.stock.service.business.strategy.OrderHandlerFactory;
 import com.broker.stock.service.business.strategy.SellOrderHandler;
+import com.broker.stock.service.metrics.LatencyMetrics;
+import com.broker.stock.util.FixedPoint;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -29,11 +45,18 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 class OrderServiceTest {
     @Mock
@@ -45,6 +68,30 @@ class OrderServiceTest {
     @Mock
     private OrderHandlerFactory orderHandlerFactory;
 
+    @Mock
+    private CustomerLocks customerLocks;
+
+    @Mock
+    private CommandJournal commandJournal;
+
+    @Mock
+    private MatchingEngine matchingEngine;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private MarketData marketData;
+
+    @Mock
+    private OrderUpdates orderUpdates;
+
+    @Mock
+    private OrderHistory orderHistory;
+
+    @Spy
+    private LatencyMetrics latencyMetrics = new LatencyMetrics();
+
     @InjectMocks
     private OrderService orderService;
 
@@ -54,6 +101,10 @@ class OrderServiceTest {
         MockitoAnnotations.openMocks(this);
         when(orderHandlerFactory.getHandler(OrderSide.BUY)).thenReturn(new BuyOrderHandler(assetService));
         when(orderHandlerFactory.getHandler(OrderSide.SELL)).thenReturn(new SellOrderHandler(assetService));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(customerLocks.callLocked(any(), any())).thenAnswer(invocation ->
+            invocation.<Supplier<?>>getArgument(1).get());
     }
 
     @Test
@@ -68,12 +119,13 @@ class OrderServiceTest {
         Asset tryAsset = new Asset();
         tryAsset.setCustomerId(customerId);
         tryAsset.setAssetName(TRY);
-        tryAsset.setSize(BigDecimal.valueOf(10000));
-        tryAsset.setUsableSize(BigDecimal.valueOf(10000));
+        tryAsset.setSize(FixedPoint.of(10000));
+        tryAsset.setUsableSize(FixedPoint.of(10000));
 
         // Mock TRY asset availability
         when(assetService.getAsset(customerId, TRY)).thenReturn(Optional.of(tryAsset));
         when(assetService.getAsset(customerId, "GOLD")).thenReturn(Optional.empty());
+        when(assetService.reserve(customerId, TRY, FixedPoint.of(1000))).thenReturn(true);
         when(orderRepository.save(any())).thenReturn(mockOrder);
         when(mockOrder.getId()).thenReturn(1L);
         // When
@@ -87,32 +139,29 @@ class OrderServiceTest {
             Order savedOrder = orderCaptor.getValue();
             assertEquals(OrderStatus.PENDING, savedOrder.getStatus());
             assertEquals(OrderSide.BUY, savedOrder.getOrderSide());
-            assertEquals(BigDecimal.valueOf(10), savedOrder.getSize());
-            assertEquals(BigDecimal.valueOf(100), savedOrder.getPrice());
+            assertEquals(FixedPoint.of(10), savedOrder.getSize());
+            assertEquals(FixedPoint.of(100), savedOrder.getPrice());
         });
 
         // Then
+        // Verify TRY reservation
+        verify(assetService).reserve(customerId, TRY, FixedPoint.of(1000)); // 10 * 100
+
         // Verify Saved Asset count
         ArgumentCaptor<Asset> assetCaptor = ArgumentCaptor.forClass(Asset.class);
-        verify(assetService, times(2)).save(assetCaptor.capture());
-
-        Asset updatedTRYAsset = assetCaptor.getAllValues().stream()
-            .filter(asset -> asset.getAssetName().equals(TRY))
-            .findFirst()
-            .orElseThrow();
-
-        Asset createdGoldAsset = assetCaptor.getAllValues().stream()
-            .filter(asset -> asset.getAssetName().equals("GOLD"))
-            .findFirst()
-            .orElseThrow();
-
-        // Verify TRY asset update
-        assertEquals(BigDecimal.valueOf(9000), updatedTRYAsset.getUsableSize()); // 10000 - (10 * 100)
+        verify(assetService, times(1)).save(assetCaptor.capture());
+        Asset createdGoldAsset = assetCaptor.getValue();
 
         // Verify GOLD asset creation
         assertEquals("GOLD", createdGoldAsset.getAssetName());
-        assertEquals(BigDecimal.ZERO, createdGoldAsset.getSize());
-        assertEquals(BigDecimal.ZERO, createdGoldAsset.getUsableSize());
+        assertEquals(0, createdGoldAsset.getSize());
+        assertEquals(0, createdGoldAsset.getUsableSize());
+
+        // Verify the stages of the order were timed
+        verify(latencyMetrics).record(eq(LatencyStage.VALIDATION), anyLong());
+        verify(latencyMetrics).record(eq(LatencyStage.RESERVATION), anyLong());
+        verify(latencyMetrics).record(eq(LatencyStage.MATCHING), anyLong());
+        verify(latencyMetrics).recordCommit();
     }
 
     @Test()
@@ -125,20 +174,21 @@ class OrderServiceTest {
         Asset tryAsset = new Asset();
         tryAsset.setCustomerId(customerId);
         tryAsset.setAssetName(TRY);
-        tryAsset.setSize(BigDecimal.valueOf(10000));
-        tryAsset.setUsableSize(BigDecimal.valueOf(10000));
+        tryAsset.setSize(FixedPoint.of(10000));
+        tryAsset.setUsableSize(FixedPoint.of(10000));
 
         Asset goldAsset = new Asset();
         goldAsset.setCustomerId(customerId);
         goldAsset.setAssetName("GOLD");
-        goldAsset.setSize(BigDecimal.valueOf(20));
-        goldAsset.setUsableSize(BigDecimal.valueOf(20));
+        goldAsset.setSize(FixedPoint.of(20));
+        goldAsset.setUsableSize(FixedPoint.of(20));
 
         Order mockOrder = mock(Order.class);
 
         // Mock asset availability
         when(assetService.getAsset(customerId, TRY)).thenReturn(Optional.of(tryAsset));
         when(assetService.getAsset(customerId, "GOLD")).thenReturn(Optional.of(goldAsset));
+        when(assetService.reserve(customerId, TRY, FixedPoint.of(500))).thenReturn(true);
         when(orderRepository.save(any())).thenReturn(mockOrder);
         when(mockOrder.getId()).thenReturn(1L);
 
@@ -155,13 +205,9 @@ class OrderServiceTest {
             assertEquals(OrderSide.BUY, savedOrder.getOrderSide());
         });
 
-        // Verify Saved Asset count
-        ArgumentCaptor<Asset> assetCaptor = ArgumentCaptor.forClass(Asset.class);
-        verify(assetService, times(1)).save(assetCaptor.capture());
-
-        // Validate the TRY asset update
-        Asset updatedTRYAsset = assetCaptor.getValue();
-        assertEquals(BigDecimal.valueOf(9500), updatedTRYAsset.getUsableSize()); // TRY usable size is updated
+        // No asset is created, only TRY is reserved
+        verify(assetService, never()).save(any());
+        verify(assetService).reserve(customerId, TRY, FixedPoint.of(500)); // TRY usable size is updated
     }
 
     @Test
@@ -174,20 +220,21 @@ class OrderServiceTest {
         Asset tryAsset = new Asset();
         tryAsset.setCustomerId(customerId);
         tryAsset.setAssetName(TRY);
-        tryAsset.setSize(BigDecimal.valueOf(10000));
-        tryAsset.setUsableSize(BigDecimal.valueOf(10000));
+        tryAsset.setSize(FixedPoint.of(10000));
+        tryAsset.setUsableSize(FixedPoint.of(10000));
 
         Asset goldAsset = new Asset();
         goldAsset.setCustomerId(customerId);
         goldAsset.setAssetName("GOLD");
-        goldAsset.setSize(BigDecimal.valueOf(20));
-        goldAsset.setUsableSize(BigDecimal.valueOf(20));
+        goldAsset.setSize(FixedPoint.of(20));
+        goldAsset.setUsableSize(FixedPoint.of(20));
 
         Order mockOrder = mock(Order.class);
 
         // Mock asset availability
         when(assetService.getAsset(customerId, TRY)).thenReturn(Optional.of(tryAsset));
         when(assetService.getAsset(customerId, "GOLD")).thenReturn(Optional.of(goldAsset));
+        when(assetService.reserve(customerId, "GOLD", FixedPoint.of(5))).thenReturn(true);
         when(orderRepository.save(any())).thenReturn(mockOrder);
         when(mockOrder.getId()).thenReturn(1L);
 
@@ -195,14 +242,65 @@ class OrderServiceTest {
         orderService.createOrder(orderRequest);
 
         // Then
-        // Capture both calls to assetService.save()
-        ArgumentCaptor<Asset> assetCaptor = ArgumentCaptor.forClass(Asset.class);
-        verify(assetService, times(1)).save(assetCaptor.capture());
+        // Only the sold GOLD is reserved, its size stays until the order is matched
+        verify(customerLocks).callLocked(eq(customerId), any());
+        verify(commandJournal).record(any(JournalCommand.CreateOrder.class));
+        verify(assetService).reserve(customerId, "GOLD", FixedPoint.of(5));
+        verify(assetService, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("BUY Order is MATCHED on creation against a resting SELL order")
+    void testBuyOrder_ContinuousMatching_FilledImmediately() {
+        // Given
+        OrderRequest orderRequest = new OrderRequest(1L, "GOLD", OrderSide.BUY, BigDecimal.valueOf(5), BigDecimal.valueOf(100));
+        Order restingSellOrder = createOrder(3L, 2L, "GOLD", OrderSide.SELL, FixedPoint.of(5), FixedPoint.of(95));
+
+        Asset buyerTryAsset = createAsset(1L, TRY, FixedPoint.of(10000), FixedPoint.of(10000));
+        Asset buyerGoldAsset = createAsset(1L, "GOLD", 0, 0);
+        Asset sellerTryAsset = createAsset(2L, TRY, 0, 0);
+        Asset sellerGoldAsset = createAsset(2L, "GOLD", FixedPoint.of(5), 0);
+
+        when(assetService.getAsset(1L, TRY)).thenReturn(Optional.of(buyerTryAsset));
+        when(assetService.getAsset(1L, "GOLD")).thenReturn(Optional.of(buyerGoldAsset));
+        when(assetService.getAsset(2L, TRY)).thenReturn(Optional.of(sellerTryAsset));
+        when(assetService.getAsset(2L, "GOLD")).thenReturn(Optional.of(sellerGoldAsset));
+        when(assetService.reserve(1L, TRY, FixedPoint.of(500))).thenAnswer(invocation -> {
+            // The reservation shows up in the transaction's working copy
+            buyerTryAsset.setUsableSize(buyerTryAsset.getUsableSize() - FixedPoint.of(500));
+            return true;
+        });
+        List<Order> savedOrders = new ArrayList<>();
+        when(orderRepository.save(any())).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(10L);
+            savedOrders.add(order);
+            return order;
+        });
+        // Both orders are reloaded for the settlement, after the new one was committed
+        when(orderRepository.findAllById(any())).thenAnswer(invocation -> List.of(savedOrders.get(0), restingSellOrder));
+        when(orderRepository.saveAll(any())).thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+        when(matchingEngine.match(any())).thenReturn(List.of(
+            new Trade("GOLD", 10L, 1L, 3L, 2L, FixedPoint.of(95), FixedPoint.of(5))));
 
-        // Validate the GOLD asset update
-        Asset updatedGoldAsset = assetCaptor.getValue();
-        assertEquals(BigDecimal.valueOf(20), updatedGoldAsset.getSize()); // 20 - 5
-        assertEquals(BigDecimal.valueOf(15), updatedGoldAsset.getUsableSize());
+        // When
+        OrderResponse response = orderService.createOrder(orderRequest);
+
+        // Then
+        assertAll(() -> {
+            assertEquals(OrderStatus.MATCHED, response.status());
+            assertEquals(0, BigDecimal.valueOf(5).compareTo(response.filledSize()));
+            assertEquals(OrderStatus.MATCHED, restingSellOrder.getStatus());
+        });
+        assertAll(() -> {
+            assertEquals(FixedPoint.of(9525), buyerTryAsset.getSize()); // 10000 - 5 * 95
+            assertEquals(FixedPoint.of(9525), buyerTryAsset.getUsableSize()); // Price improvement released
+            assertEquals(FixedPoint.of(5), buyerGoldAsset.getUsableSize());
+            assertEquals(FixedPoint.of(475), sellerTryAsset.getUsableSize());
+        });
+        verify(matchingEngine, never()).add(any(Order.class)); // Rested by the match itself
+        verify(customerLocks).callLocked(eq(1L), any());
+        verify(customerLocks).lock(Set.of(1L, 2L)); // In a second transaction, both customers in one call
     }
 
     @Test
@@ -215,8 +313,8 @@ class OrderServiceTest {
         Asset tryAsset = new Asset();
         tryAsset.setCustomerId(customerId);
         tryAsset.setAssetName(TRY);
-        tryAsset.setSize(BigDecimal.valueOf(1500));
-        tryAsset.setUsableSize(BigDecimal.valueOf(1500));
+        tryAsset.setSize(FixedPoint.of(1500));
+        tryAsset.setUsableSize(FixedPoint.of(1500));
 
         // Mock TRY asset availability
         when(assetService.getAsset(customerId, TRY)).thenReturn(Optional.of(tryAsset));
@@ -238,8 +336,8 @@ class OrderServiceTest {
         Asset goldAsset = new Asset();
         goldAsset.setCustomerId(customerId);
         goldAsset.setAssetName("GOLD");
-        goldAsset.setSize(BigDecimal.valueOf(20));
-        goldAsset.setUsableSize(BigDecimal.valueOf(20));
+        goldAsset.setSize(FixedPoint.of(20));
+        goldAsset.setUsableSize(FixedPoint.of(20));
 
         // Mock GOLD asset availability
         when(assetService.getAsset(customerId, "GOLD")).thenReturn(Optional.of(goldAsset));
@@ -265,22 +363,22 @@ class OrderServiceTest {
         order.setAssetName("GOLD");
         order.setOrderSide(OrderSide.BUY);
         order.setStatus(OrderStatus.PENDING);
-        order.setSize(BigDecimal.valueOf(5));
-        order.setPrice(BigDecimal.valueOf(200));
+        order.setSize(FixedPoint.of(5));
+        order.setPrice(FixedPoint.of(200));
 
         // Mock TRY asset
         Asset tryAsset = new Asset();
         tryAsset.setCustomerId(customerId);
         tryAsset.setAssetName(TRY);
-        tryAsset.setSize(BigDecimal.valueOf(10000));
-        tryAsset.setUsableSize(BigDecimal.valueOf(9000));
+        tryAsset.setSize(FixedPoint.of(10000));
+        tryAsset.setUsableSize(FixedPoint.of(9000));
 
         // Mock GOLD asset
         Asset goldAsset = new Asset();
         goldAsset.setCustomerId(customerId);
         goldAsset.setAssetName("GOLD");
-        goldAsset.setSize(BigDecimal.valueOf(15));
-        goldAsset.setUsableSize(BigDecimal.valueOf(15));
+        goldAsset.setSize(FixedPoint.of(15));
+        goldAsset.setUsableSize(FixedPoint.of(15));
 
         // Mock dependencies
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
@@ -306,8 +404,13 @@ class OrderServiceTest {
 
 
         Asset updatedTRYAsset = assetCaptor.getValue();
-        assertEquals(BigDecimal.valueOf(10000), updatedTRYAsset.getSize()); // no change
-        assertEquals(BigDecimal.valueOf(10000), updatedTRYAsset.getUsableSize()); // Reversed to original usable size
+        assertEquals(FixedPoint.of(10000), updatedTRYAsset.getSize()); // no change
+        assertEquals(FixedPoint.of(10000), updatedTRYAsset.getUsableSize()); // Reversed to original usable size
+        verify(customerLocks).callLocked(eq(customerId), any());
+        verify(commandJournal).record(new JournalCommand.CancelOrder(orderId, customerId));
+        verify(orderUpdates).publish(any());
+        verify(latencyMetrics).record(eq(LatencyStage.CANCEL), anyLong());
+        verify(latencyMetrics).recordCommit();
     }
 
     @Test
@@ -324,22 +427,22 @@ class OrderServiceTest {
         order.setAssetName("GOLD");
         order.setOrderSide(OrderSide.SELL);
         order.setStatus(OrderStatus.PENDING);
-        order.setSize(BigDecimal.valueOf(5));
-        order.setPrice(BigDecimal.valueOf(200));
+        order.setSize(FixedPoint.of(5));
+        order.setPrice(FixedPoint.of(200));
 
         // Mock TRY asset
         Asset tryAsset = new Asset();
         tryAsset.setCustomerId(customerId);
         tryAsset.setAssetName(TRY);
-        tryAsset.setSize(BigDecimal.valueOf(10000));
-        tryAsset.setUsableSize(BigDecimal.valueOf(9000));
+        tryAsset.setSize(FixedPoint.of(10000));
+        tryAsset.setUsableSize(FixedPoint.of(9000));
 
         // Mock GOLD asset
         Asset goldAsset = new Asset();
         goldAsset.setCustomerId(customerId);
         goldAsset.setAssetName("GOLD");
-        goldAsset.setSize(BigDecimal.valueOf(15));
-        goldAsset.setUsableSize(BigDecimal.valueOf(15));
+        goldAsset.setSize(FixedPoint.of(15));
+        goldAsset.setUsableSize(FixedPoint.of(15));
 
         // Mock dependencies
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
@@ -365,8 +468,34 @@ class OrderServiceTest {
 
 
         Asset updatedAsset = assetCaptor.getValue();
-        assertEquals(BigDecimal.valueOf(15), updatedAsset.getSize()); // no change
-        assertEquals(BigDecimal.valueOf(20), updatedAsset.getUsableSize()); // Reversed to original usable size
+        assertEquals(FixedPoint.of(15), updatedAsset.getSize()); // no change
+        assertEquals(FixedPoint.of(20), updatedAsset.getUsableSize()); // Reversed to original usable size
+    }
+
+    @Test
+    @DisplayName("Partially filled BUY Order is CANCELLED and only the open part is released")
+    void testDeleteOrder_PartiallyFilled() throws IllegalAccessException {
+        // Given
+        Long customerId = 1L;
+        Long orderId = 100L;
+
+        Order order = createOrder(orderId, customerId, "GOLD", OrderSide.BUY, FixedPoint.of(5), FixedPoint.of(200));
+        order.setFilledSize(FixedPoint.of(3));
+
+        Asset tryAsset = createAsset(customerId, TRY, FixedPoint.of(9400), FixedPoint.of(9000));
+        Asset goldAsset = createAsset(customerId, "GOLD", FixedPoint.of(3), FixedPoint.of(3));
+
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        when(assetService.getAsset(customerId, TRY)).thenReturn(Optional.of(tryAsset));
+        when(assetService.getAsset(customerId, "GOLD")).thenReturn(Optional.of(goldAsset));
+
+        // When
+        orderService.deleteOrder(customerId, orderId);
+
+        // Then
+        assertEquals(OrderStatus.CANCELLED, order.getStatus());
+        assertEquals(FixedPoint.of(9400), tryAsset.getUsableSize()); // 9000 + 2 * 200
+        verify(matchingEngine, times(1)).remove(order);
     }
 
     @Test
@@ -383,8 +512,8 @@ class OrderServiceTest {
         order1.setAssetName("GOLD");
         order1.setOrderSide(OrderSide.BUY);
         order1.setStatus(OrderStatus.PENDING);
-        order1.setSize(BigDecimal.valueOf(10));
-        order1.setPrice(BigDecimal.valueOf(100));
+        order1.setSize(FixedPoint.of(10));
+        order1.setPrice(FixedPoint.of(100));
         order1.setCreateDate(LocalDateTime.of(2025, 3, 15, 10, 30));
 
         Order order2 = new Order();
@@ -393,14 +522,14 @@ class OrderServiceTest {
         order2.setAssetName("SILVER");
         order2.setOrderSide(OrderSide.SELL);
         order2.setStatus(OrderStatus.MATCHED);
-        order2.setSize(BigDecimal.valueOf(5));
-        order2.setPrice(BigDecimal.valueOf(50));
+        order2.setSize(FixedPoint.of(5));
+        order2.setPrice(FixedPoint.of(50));
         order2.setCreateDate(LocalDateTime.of(2025, 6, 10, 14, 0));
 
         List<Order> mockOrderList = List.of(order1, order2);
 
-        // Mock repository behavior
-        when(orderRepository.findByCustomerIdAndCreateDateBetween(customerId, startDate, endDate)).thenReturn(mockOrderList);
+        // Mock history behavior
+        when(orderHistory.list(customerId, startDate, endDate)).thenReturn(mockOrderList.stream().map(OrderMapper::toResponse).toList());
 
         // When
         List<OrderResponse> orderResponses = orderService.listOrders(customerId, startDate, endDate);
@@ -428,45 +557,271 @@ class OrderServiceTest {
             assertEquals(LocalDateTime.of(2025, 6, 10, 14, 0), response2.createDate());
         });
 
-        // Verify repository interaction
-        verify(orderRepository, times(1)).findByCustomerIdAndCreateDateBetween(customerId, startDate, endDate);
+        // Verify history interaction
+        verify(orderHistory, times(1)).list(customerId, startDate, endDate);
     }
 
     @Test
+    @DisplayName("BUY and SELL orders are matched against each other and assets are settled")
     void testMatchOrders_Successful() {
         // Given
-        Order buyOrder1 = createOrder(1L, 1L, "GOLD", OrderSide.BUY, BigDecimal.valueOf(10), BigDecimal.valueOf(100)); // BUY size 1000
-        Order buyOrder2 = createOrder(2L, 1L, "GOLD", OrderSide.BUY, BigDecimal.valueOf(5), BigDecimal.valueOf(100)); // BUY size 500
-        Order sellOrder = createOrder(3L, 1L, "GOLD", OrderSide.SELL, BigDecimal.valueOf(8), BigDecimal.valueOf(100)); // SELL size 800
-        Asset tryAsset = createAsset(1L, TRY, BigDecimal.valueOf(10000), BigDecimal.valueOf(9200));
-        Asset goldAsset = createAsset(1L, "GOLD", BigDecimal.valueOf(10), BigDecimal.valueOf(10));
+        Order buyOrder = createOrder(1L, 1L, "GOLD", OrderSide.BUY, FixedPoint.of(10), FixedPoint.of(100)); // 1000 TRY reserved
+        Order sellOrder = createOrder(2L, 2L, "GOLD", OrderSide.SELL, FixedPoint.of(8), FixedPoint.of(90)); // 8 GOLD reserved
+        Asset buyerTryAsset = createAsset(1L, TRY, FixedPoint.of(10000), FixedPoint.of(9000));
+        Asset buyerGoldAsset = createAsset(1L, "GOLD", 0, 0);
+        Asset sellerTryAsset = createAsset(2L, TRY, FixedPoint.of(500), FixedPoint.of(500));
+        Asset sellerGoldAsset = createAsset(2L, "GOLD", FixedPoint.of(10), FixedPoint.of(2));
+
+        // BUY order rested first, so the trade is executed at its price
+        Trade trade = new Trade("GOLD", 1L, 1L, 2L, 2L, FixedPoint.of(100), FixedPoint.of(8));
 
         // Mock repository behavior
-        when(orderRepository.findByStatusOrderById(OrderStatus.PENDING)).thenReturn(List.of(buyOrder1, buyOrder2, sellOrder));
-        when(assetService.getAsset(1L, TRY)).thenReturn(Optional.of(tryAsset));
-        when(assetService.getAsset(1L, "GOLD")).thenReturn(Optional.of(goldAsset));
-        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0)); // Save returns the order itself
+        when(matchingEngine.matchAll(anyInt())).thenReturn(List.of(trade), List.of());
+        when(orderRepository.findAllById(any())).thenReturn(List.of(buyOrder, sellOrder));
+        when(orderRepository.saveAll(any())).thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+        when(assetService.getAsset(1L, TRY)).thenReturn(Optional.of(buyerTryAsset));
+        when(assetService.getAsset(1L, "GOLD")).thenReturn(Optional.of(buyerGoldAsset));
+        when(assetService.getAsset(2L, TRY)).thenReturn(Optional.of(sellerTryAsset));
+        when(assetService.getAsset(2L, "GOLD")).thenReturn(Optional.of(sellerGoldAsset));
 
         // When
-        List<OrderResponse> responses = orderService.matchOrders();
+        MatchSummary summary = orderService.matchOrders();
 
         // Then
-        assertEquals(3, responses.size());
-        assertEquals(OrderStatus.MATCHED, buyOrder1.getStatus());
+        assertAll(() -> {
+            assertEquals(1, summary.trades());
+            assertEquals(1, summary.matchedOrders());
+            assertEquals(1, summary.chunks());
+            assertEquals(2L, summary.lastOrderId());
+        });
+        assertAll(() -> {
+            assertEquals(OrderStatus.PENDING, buyOrder.getStatus()); // 2 of 10 still open
+            assertEquals(FixedPoint.of(8), buyOrder.getFilledSize());
+            assertEquals(OrderStatus.MATCHED, sellOrder.getStatus());
+            assertEquals(FixedPoint.of(8), sellOrder.getFilledSize());
+        });
+
+        assertAll(() -> {
+            assertEquals(FixedPoint.of(9200), buyerTryAsset.getSize()); // 10000 - 8 * 100
+            assertEquals(FixedPoint.of(9000), buyerTryAsset.getUsableSize()); // still reserved for the open 2
+            assertEquals(FixedPoint.of(8), buyerGoldAsset.getSize());
+            assertEquals(FixedPoint.of(8), buyerGoldAsset.getUsableSize());
+            assertEquals(FixedPoint.of(1300), sellerTryAsset.getSize()); // 500 + 8 * 100
+            assertEquals(FixedPoint.of(1300), sellerTryAsset.getUsableSize());
+            assertEquals(FixedPoint.of(2), sellerGoldAsset.getSize());
+            assertEquals(FixedPoint.of(2), sellerGoldAsset.getUsableSize());
+        });
+
+        verify(assetService, times(4)).save(any());
+        verify(customerLocks).lock(Set.of(1L, 2L));
+        verify(commandJournal).record(new JournalCommand.Match(List.of(trade)));
+        verify(orderUpdates).publish(any());
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    @DisplayName("BUY order executed below its limit price releases the unused TRY reservation")
+    void testMatchOrders_PriceImprovement() {
+        // Given
+        Order sellOrder = createOrder(1L, 2L, "GOLD", OrderSide.SELL, FixedPoint.of(5), FixedPoint.of(90));
+        Order buyOrder = createOrder(2L, 1L, "GOLD", OrderSide.BUY, FixedPoint.of(5), FixedPoint.of(100)); // 500 TRY reserved
+        Asset buyerTryAsset = createAsset(1L, TRY, FixedPoint.of(1000), FixedPoint.of(500));
+        Asset buyerGoldAsset = createAsset(1L, "GOLD", 0, 0);
+        Asset sellerGoldAsset = createAsset(2L, "GOLD", FixedPoint.of(5), 0);
+
+        // SELL order rested first, so the trade is executed at its price
+        Trade trade = new Trade("GOLD", 2L, 1L, 1L, 2L, FixedPoint.of(90), FixedPoint.of(5));
+
+        when(matchingEngine.matchAll(anyInt())).thenReturn(List.of(trade), List.of());
+        when(orderRepository.findAllById(any())).thenReturn(List.of(buyOrder, sellOrder));
+        when(orderRepository.saveAll(any())).thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+        when(assetService.getAsset(1L, TRY)).thenReturn(Optional.of(buyerTryAsset));
+        when(assetService.getAsset(1L, "GOLD")).thenReturn(Optional.of(buyerGoldAsset));
+        when(assetService.getAsset(2L, TRY)).thenReturn(Optional.empty()); // Seller has no TRY asset yet
+        when(assetService.getAsset(2L, "GOLD")).thenReturn(Optional.of(sellerGoldAsset));
+
+        // When
+        orderService.matchOrders();
+
+        // Then
+        assertEquals(OrderStatus.MATCHED, buyOrder.getStatus());
+        assertEquals(OrderStatus.MATCHED, sellOrder.getStatus());
+        assertEquals(FixedPoint.of(550), buyerTryAsset.getSize()); // 1000 - 5 * 90
+        assertEquals(FixedPoint.of(550), buyerTryAsset.getUsableSize()); // 50 TRY released
+
         ArgumentCaptor<Asset> assetCaptor = ArgumentCaptor.forClass(Asset.class);
+        verify(assetService, times(4)).save(assetCaptor.capture());
+        Asset sellerTryAsset = assetCaptor.getAllValues().stream()
+            .filter(asset -> asset.getCustomerId().equals(2L) && asset.getAssetName().equals(TRY))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(FixedPoint.of(450), sellerTryAsset.getUsableSize());
+    }
 
-        verify(assetService, times(6)).save(assetCaptor.capture()); // TRY and GOLD assets updated
-        Asset updatedTRYAsset = assetCaptor.getAllValues().stream().filter(asset -> asset.getAssetName().equals(TRY)).findFirst().orElseThrow();
-        assertEquals(BigDecimal.valueOf(9300), updatedTRYAsset.getSize());// (10000 - 1000 - 500 + 800)
-        assertEquals(BigDecimal.valueOf(10000), updatedTRYAsset.getUsableSize());
+    @Test
+    @DisplayName("Nothing is saved when order books do not cross")
+    void testMatchOrders_NoTrades() {
+        // Given
+        when(matchingEngine.matchAll(anyInt())).thenReturn(List.of());
 
-        verify(orderRepository, times(1)).save(buyOrder1);
-        verify(orderRepository, times(1)).save(buyOrder2);
-        verify(orderRepository, times(1)).save(sellOrder);
+        // When
+        MatchSummary summary = orderService.matchOrders();
+
+        // Then
+        assertEquals(0, summary.trades());
+        assertEquals(0, summary.chunks());
+        verify(transactionTemplate, never()).execute(any());
+        verify(orderRepository, never()).saveAll(any());
+        verify(assetService, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Books are crossed one chunk at a time and each chunk is committed before the next is matched")
+    void testMatchOrders_MatchesOneChunkAtATime() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "matchChunkSize", 1);
+        Order buyOrder = createOrder(1L, 1L, "GOLD", OrderSide.BUY, FixedPoint.of(10), FixedPoint.of(100));
+        Order sellOrder = createOrder(2L, 2L, "GOLD", OrderSide.SELL, FixedPoint.of(4), FixedPoint.of(100));
+        Order otherSellOrder = createOrder(3L, 2L, "GOLD", OrderSide.SELL, FixedPoint.of(6), FixedPoint.of(100));
+        Trade firstTrade = new Trade("GOLD", 1L, 1L, 2L, 2L, FixedPoint.of(100), FixedPoint.of(4));
+        Trade secondTrade = new Trade("GOLD", 1L, 1L, 3L, 2L, FixedPoint.of(100), FixedPoint.of(6));
+
+        when(matchingEngine.matchAll(1)).thenReturn(List.of(firstTrade), List.of(secondTrade), List.of());
+        when(orderRepository.findAllById(any())).thenReturn(List.of(buyOrder, sellOrder), List.of(buyOrder, otherSellOrder));
+        when(orderRepository.saveAll(any())).thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+        when(assetService.getAsset(anyLong(), any())).thenAnswer(invocation ->
+            Optional.of(createAsset(invocation.getArgument(0), invocation.getArgument(1), FixedPoint.of(10000), FixedPoint.of(10000))));
+
+        // When
+        MatchSummary summary = orderService.matchOrders();
+
+        // Then
+        assertEquals(2, summary.trades());
+        assertEquals(2, summary.chunks());
+        assertEquals(3, summary.matchedOrders());
+        verify(matchingEngine, times(3)).matchAll(1);
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    @DisplayName("Order books are reloaded when a settlement chunk fails")
+    void testMatchOrders_FailedChunkResetsOrderBooks() {
+        // Given
+        Trade trade = new Trade("GOLD", 1L, 1L, 2L, 2L, FixedPoint.of(100), FixedPoint.of(8));
+        when(matchingEngine.matchAll(anyInt())).thenReturn(List.of(trade));
+        when(orderRepository.findAllById(any())).thenReturn(List.of()); // Orders are gone from the database
+
+        // When/Then
+        assertThrows(IllegalStateException.class, () -> orderService.matchOrders());
+        verify(matchingEngine, times(1)).reset();
+        verify(orderRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Batch reserves TRY once for all BUY orders and inserts them together")
+    void testCreateOrders_AllOrNothing_ReservesOncePerAsset() {
+        // Given
+        Long customerId = 1L;
+        var batch = new BatchOrderRequest(customerId, null, List.of(
+            new OrderRequest(customerId, "GOLD", OrderSide.BUY, BigDecimal.valueOf(5), BigDecimal.valueOf(100)),
+            new OrderRequest(customerId, "GOLD", OrderSide.BUY, BigDecimal.valueOf(2), BigDecimal.valueOf(100)),
+            new OrderRequest(customerId, "SILVER", OrderSide.SELL, BigDecimal.valueOf(3), BigDecimal.valueOf(10))));
+
+        when(assetService.getAsset(customerId, TRY)).thenReturn(Optional.of(createAsset(customerId, TRY, FixedPoint.of(1000), FixedPoint.of(1000))));
+        when(assetService.getAsset(customerId, "GOLD")).thenReturn(Optional.empty());
+        when(assetService.getAsset(customerId, "SILVER")).thenReturn(Optional.of(createAsset(customerId, "SILVER", FixedPoint.of(3), FixedPoint.of(3))));
+        when(assetService.reserve(any(), any(), any(Long.class))).thenReturn(true);
+        when(matchingEngine.match(any())).thenReturn(List.of());
+
+        // When
+        BatchOrderResponse response = orderService.createOrders(batch);
+
+        // Then
+        assertEquals(3, response.created());
+        assertEquals(0, response.failed());
+        verify(assetService, times(1)).reserve(customerId, TRY, FixedPoint.of(700));
+        verify(assetService, times(1)).reserve(customerId, "SILVER", FixedPoint.of(3));
+        verify(assetService, times(1)).getAsset(customerId, TRY);
+        verify(assetService, times(1)).save(any(Asset.class)); // GOLD initialized once
+        ArgumentCaptor<List<Order>> ordersCaptor = ArgumentCaptor.forClass(List.class);
+        verify(orderRepository, times(1)).saveAll(ordersCaptor.capture());
+        assertEquals(3, ordersCaptor.getValue().size());
+        verify(orderRepository, never()).save(any());
+        verify(commandJournal, times(3)).record(any());
+        verify(latencyMetrics).record(eq(LatencyStage.VALIDATION), anyLong());
+        verify(latencyMetrics).record(eq(LatencyStage.RESERVATION), anyLong());
+        verify(latencyMetrics, times(3)).record(eq(LatencyStage.MATCHING), anyLong());
+        verify(latencyMetrics).recordCommit();
+    }
+
+    @Test
+    @DisplayName("All-or-nothing batch fails on the first rejected order without reserving")
+    void testCreateOrders_AllOrNothing_RejectsWholeBatch() {
+        // Given
+        Long customerId = 1L;
+        var batch = new BatchOrderRequest(customerId, BatchMode.ALL_OR_NOTHING, List.of(
+            new OrderRequest(customerId, "GOLD", OrderSide.BUY, BigDecimal.valueOf(5), BigDecimal.valueOf(100)),
+            new OrderRequest(customerId, "GOLD", OrderSide.BUY, BigDecimal.valueOf(6), BigDecimal.valueOf(100))));
+
+        when(assetService.getAsset(customerId, TRY)).thenReturn(Optional.of(createAsset(customerId, TRY, FixedPoint.of(1000), FixedPoint.of(1000))));
+
+        // When/Then
+        var exception = assertThrows(IllegalStateException.class, () -> orderService.createOrders(batch));
+        assertEquals("Order 1: Insufficient TRY balance.", exception.getMessage());
+        verify(assetService, never()).reserve(any(), any(), any(Long.class));
+        verify(orderRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Per-item batch creates the valid orders and reports the rejected ones")
+    void testCreateOrders_PerItem_ReportsFailures() {
+        // Given
+        Long customerId = 1L;
+        var batch = new BatchOrderRequest(customerId, BatchMode.PER_ITEM, List.of(
+            new OrderRequest(customerId, "GOLD", OrderSide.BUY, BigDecimal.valueOf(5), BigDecimal.valueOf(100)),
+            new OrderRequest(customerId, "GOLD", OrderSide.BUY, BigDecimal.valueOf(6), BigDecimal.valueOf(100)),
+            new OrderRequest(2L, "GOLD", OrderSide.BUY, BigDecimal.valueOf(1), BigDecimal.valueOf(100)),
+            new OrderRequest(customerId, "SILVER", OrderSide.SELL, BigDecimal.valueOf(1), BigDecimal.valueOf(10))));
+
+        when(assetService.getAsset(customerId, TRY)).thenReturn(Optional.of(createAsset(customerId, TRY, FixedPoint.of(1000), FixedPoint.of(1000))));
+        when(assetService.getAsset(customerId, "GOLD")).thenReturn(Optional.of(createAsset(customerId, "GOLD", 0, 0)));
+        when(assetService.getAsset(customerId, "SILVER")).thenReturn(Optional.empty());
+        when(assetService.reserve(customerId, TRY, FixedPoint.of(500))).thenReturn(true);
+        when(matchingEngine.match(any())).thenReturn(List.of());
+
+        // When
+        BatchOrderResponse response = orderService.createOrders(batch);
+
+        // Then
+        assertEquals(1, response.created());
+        assertEquals(3, response.failed());
+        var results = response.results();
+        assertAll(
+            () -> assertEquals("GOLD", results.get(0).order().assetName()),
+            () -> assertEquals("Insufficient TRY balance.", results.get(1).error()),
+            () -> assertEquals("All orders of a batch must belong to customer 1.", results.get(2).error()),
+            () -> assertEquals("Insufficient asset balance.", results.get(3).error())
+        );
+        verify(assetService, times(1)).reserve(customerId, TRY, FixedPoint.of(500));
+        verify(assetService, never()).save(any(Asset.class));
+        verify(commandJournal, times(1)).record(any());
+    }
+
+    @Test
+    @DisplayName("Batch larger than the maximum size is rejected")
+    void testCreateOrders_TooLarge() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "batchMaxSize", 1);
+        var orderRequest = new OrderRequest(1L, "GOLD", OrderSide.BUY, BigDecimal.ONE, BigDecimal.ONE);
+        var batch = new BatchOrderRequest(1L, null, List.of(orderRequest, orderRequest));
+
+        // When/Then
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrders(batch));
+        verify(customerLocks, never()).callLocked(any(), any());
     }
 
     // Helper to create test Order objects
-    private Order createOrder(Long id, Long customerId, String assetName, OrderSide side, BigDecimal size, BigDecimal price) {
+    private Order createOrder(Long id, Long customerId, String assetName, OrderSide side, long size, long price) {
         Order order = new Order();
         order.setId(id);
         order.setCustomerId(customerId);
@@ -479,7 +834,7 @@ class OrderServiceTest {
     }
 
     // Helper to create test Asset objects
-    private Asset createAsset(Long customerId, String assetName, BigDecimal size, BigDecimal usableSize) {
+    private Asset createAsset(Long customerId, String assetName, long size, long usableSize) {
         Asset asset = new Asset();
         asset.setCustomerId(customerId);
         asset.setAssetName(assetName);
@@ -0,0 +1,197 @@
+package com.broker.stock.service.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.constant.OrderStatus;
+import com.broker.stock.entity.Order;
+import com.broker.stock.util.FixedPoint;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+class OrderUpdatesTest {
+
+    private final OrderUpdates orderUpdates = new OrderUpdates(JsonMapper.builder().findAndAddModules().build(), 4,
+        Duration.ofMinutes(1), 2, 4, Duration.ofMillis(100));
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        orderUpdates.shutdown();
+    }
+
+    @Test
+    void testPublish_SendsOrdersToTheirCustomersSubscribers() throws Exception {
+        // Given
+        var first = new RecordingEmitter();
+        var second = new RecordingEmitter();
+        var other = new RecordingEmitter();
+        orderUpdates.subscribe(1L, first);
+        orderUpdates.subscribe(1L, second);
+        orderUpdates.subscribe(2L, other);
+
+        // When
+        orderUpdates.publish(List.of(order(7L, 1L, OrderStatus.MATCHED)));
+
+        // Then
+        for (var emitter : List.of(first, second)) {
+            var event = emitter.sent.poll(5, TimeUnit.SECONDS);
+            assertTrue(event.contains("id:7\n"), event);
+            assertTrue(event.contains("event:order\n"), event);
+            assertTrue(event.contains("\"status\":\"MATCHED\""), event);
+        }
+        assertNull(other.sent.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(3, orderUpdates.subscriberCount());
+    }
+
+    @Test
+    void testPublish_EvictsSubscriberWithFullBuffer() throws Exception {
+        // Given a subscriber stuck writing its first event
+        var slow = new RecordingEmitter();
+        slow.gate = new CountDownLatch(1);
+        orderUpdates.subscribe(1L, slow);
+        orderUpdates.publish(List.of(order(1L, 1L, OrderStatus.PENDING)));
+        assertTrue(slow.writing.await(5, TimeUnit.SECONDS));
+
+        // When more events arrive than its buffer holds
+        for (long id = 2; id <= 6; id++) {
+            orderUpdates.publish(List.of(order(id, 1L, OrderStatus.PENDING)));
+        }
+
+        // Then it is dropped without waiting for the write, and disconnected once the write returns
+        assertEquals(0, orderUpdates.subscriberCount());
+        slow.gate.countDown();
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, slow.sent.size());
+    }
+
+    @Test
+    void testEvictStalledSubscribers_StalledWritesDoNotHoldUpOthers() throws Exception {
+        // Given both dispatchers stuck writing to clients that stopped reading
+        var stalled = List.of(new RecordingEmitter(), new RecordingEmitter());
+        for (int i = 0; i < stalled.size(); i++) {
+            stalled.get(i).gate = new CountDownLatch(1);
+            orderUpdates.subscribe(1L + i, stalled.get(i));
+            orderUpdates.publish(List.of(order(1L + i, 1L + i, OrderStatus.PENDING)));
+            assertTrue(stalled.get(i).writing.await(5, TimeUnit.SECONDS));
+        }
+        var reading = new RecordingEmitter();
+        orderUpdates.subscribe(3L, reading);
+        Thread.sleep(200);
+
+        // When
+        orderUpdates.evictStalledSubscribers();
+        orderUpdates.publish(List.of(order(3L, 3L, OrderStatus.MATCHED)));
+
+        // Then the reading client gets its event while the stalled writes are still blocked
+        assertTrue(reading.sent.poll(1, TimeUnit.SECONDS).contains("id:3\n"));
+        assertEquals(1, orderUpdates.subscriberCount());
+        assertEquals(4, orderUpdates.dispatcherCount());
+        for (var emitter : stalled) {
+            emitter.gate.countDown();
+            assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testEvictStalledSubscribers_ClosesStreamOnceDispatchersAreAtTheMaximum() throws Exception {
+        // Given a pool that may not grow, its only dispatcher stuck writing to a client that stopped reading
+        var capped = new OrderUpdates(JsonMapper.builder().findAndAddModules().build(), 4,
+            Duration.ofMinutes(1), 1, 1, Duration.ofMillis(100));
+        try {
+            var stalled = new RecordingEmitter();
+            stalled.gate = new CountDownLatch(1);
+            capped.subscribe(1L, stalled);
+            capped.publish(List.of(order(1L, 1L, OrderStatus.PENDING)));
+            assertTrue(stalled.writing.await(5, TimeUnit.SECONDS));
+            Thread.sleep(200);
+
+            // When
+            capped.evictStalledSubscribers();
+
+            // Then the stream is closed while the write is still blocked, and no dispatcher is added
+            assertTrue(stalled.completed.await(1, TimeUnit.SECONDS));
+            assertEquals(0, capped.subscriberCount());
+            assertEquals(1, capped.dispatcherCount());
+            stalled.gate.countDown();
+        } finally {
+            capped.shutdown();
+        }
+    }
+
+    @Test
+    void testSend_FailedWriteRemovesSubscriber() throws Exception {
+        // Given
+        var disconnected = new RecordingEmitter();
+        disconnected.failure = new IOException("Broken pipe");
+        orderUpdates.subscribe(1L, disconnected);
+
+        // When
+        orderUpdates.publish(List.of(order(1L, 1L, OrderStatus.CANCELLED)));
+
+        // Then
+        assertTrue(disconnected.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, orderUpdates.subscriberCount());
+    }
+
+    @Test
+    void testHeartbeat_SendsComment() throws Exception {
+        // Given
+        var idle = new RecordingEmitter();
+        orderUpdates.subscribe(1L, idle);
+
+        // When
+        orderUpdates.heartbeat();
+
+        // Then
+        assertEquals(":\n\n", idle.sent.poll(5, TimeUnit.SECONDS));
+    }
+
+    private static Order order(Long id, Long customerId, OrderStatus status) {
+        return new Order(id, customerId, "GOLD", OrderSide.BUY, FixedPoint.of(1), FixedPoint.of(10), 0, status,
+            LocalDateTime.of(2025, 3, 1, 10, 0));
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile CountDownLatch gate;
+        private volatile IOException failure;
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            writing.countDown();
+            if (failure != null) {
+                throw failure;
+            }
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sent.add(items.stream().map(item -> item.getData().toString()).collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+}
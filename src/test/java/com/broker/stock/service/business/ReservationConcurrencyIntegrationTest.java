@@ -0,0 +1,140 @@
+package com.broker.stock.service.business;
+
+import static com.broker.stock.constant.AssetConstants.TRY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.constant.OrderStatus;
+import com.broker.stock.entity.Asset;
+import com.broker.stock.model.OrderRequest;
+import com.broker.stock.repository.AssetRepository;
+import com.broker.stock.repository.OrderRepository;
+import com.broker.stock.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:reservation;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "order.matching.mode=BATCH",
+    "order.journal.directory=target/reservation-journal",
+    "order.snapshot.directory=target/reservation-snapshots"
+})
+class ReservationConcurrencyIntegrationTest {
+
+    private static final Long CUSTOMER_ID = 2L; // Seeded with 10000 TRY
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AssetService assetService;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void testCreateOrder_ConcurrentBuyOrdersNeverSpendTheSameTRYTwice() throws Exception {
+        // Given
+        assetRepository.save(new Asset(null, CUSTOMER_ID, "GOLD", 0, 0)); // Only the TRY reservations compete
+        int threads = 8;
+        int ordersPerThread = 25; // 200 orders of 100 TRY each, twice the balance
+        var start = new CountDownLatch(1);
+        var accepted = new AtomicInteger();
+        var rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+                start.await();
+                for (int j = 0; j < ordersPerThread; j++) {
+                    try {
+                        orderService.createOrder(new OrderRequest(CUSTOMER_ID, "GOLD", OrderSide.BUY, BigDecimal.ONE, BigDecimal.valueOf(100)));
+                        accepted.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet(); // Insufficient TRY balance
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        var pendingOrders = orderRepository.findAll().stream()
+            .filter(order -> order.getCustomerId().equals(CUSTOMER_ID) && order.getStatus() == OrderStatus.PENDING)
+            .count();
+        assertEquals(100, accepted.get());
+        assertEquals(threads * ordersPerThread - 100, rejected.get());
+        assertEquals(100, pendingOrders);
+        assertEquals(0, assetRepository.findByCustomerIdAndAssetName(CUSTOMER_ID, TRY).orElseThrow().getUsableSize());
+        assertEquals(0, assetService.getAsset(CUSTOMER_ID, TRY).orElseThrow().getUsableSize()); // Cache agrees with the database
+        assertEquals(FixedPoint.of(10000), assetService.getAsset(CUSTOMER_ID, TRY).orElseThrow().getSize());
+    }
+
+    @Test
+    void testCreateOrder_ConcurrentSellOrdersNeverSellTheSameAssetTwice() throws Exception {
+        // Given
+        assetRepository.save(new Asset(null, CUSTOMER_ID, "SILVER", FixedPoint.of(10), FixedPoint.of(10)));
+        int threads = 4;
+        int ordersPerThread = 5; // 20 orders of 1 SILVER each, twice the balance
+        var start = new CountDownLatch(1);
+        var accepted = new AtomicInteger();
+        var rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+                start.await();
+                for (int j = 0; j < ordersPerThread; j++) {
+                    try {
+                        orderService.createOrder(new OrderRequest(CUSTOMER_ID, "SILVER", OrderSide.SELL, BigDecimal.ONE, BigDecimal.valueOf(100)));
+                        accepted.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet(); // Insufficient asset balance
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(10, accepted.get());
+        assertEquals(threads * ordersPerThread - 10, rejected.get());
+        assertEquals(0, assetRepository.findByCustomerIdAndAssetName(CUSTOMER_ID, "SILVER").orElseThrow().getUsableSize());
+        assertEquals(0, assetService.getAsset(CUSTOMER_ID, "SILVER").orElseThrow().getUsableSize()); // Cache agrees with the database
+        assertEquals(FixedPoint.of(10), assetService.getAsset(CUSTOMER_ID, "SILVER").orElseThrow().getSize());
+    }
+}
@@ -0,0 +1,184 @@
+package com.broker.stock.service.business.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.service.business.journal.JournalCommand.Abort;
+import com.broker.stock.service.business.journal.JournalCommand.CancelOrder;
+import com.broker.stock.service.business.journal.JournalCommand.CreateOrder;
+import com.broker.stock.service.business.journal.JournalCommand.Match;
+import com.broker.stock.service.business.matching.Trade;
+import com.broker.stock.util.FixedPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class CommandJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    private final List<CommandJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        journals.forEach(CommandJournal::close);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testRecord_ReadBackAfterReopen() {
+        // Given
+        var journal = open(DataSize.ofMegabytes(1));
+        var create = new CreateOrder(1L, 2L, "GOLD", OrderSide.BUY, FixedPoint.of(5), FixedPoint.of(100));
+        var match = new Match(List.of(new Trade("GOLD", 1L, 2L, 3L, 4L, FixedPoint.of(100), FixedPoint.of(5))));
+
+        // When
+        journal.record(create);
+        journal.record(match);
+        journal.close();
+        journals.remove(journal);
+
+        var reopened = open(DataSize.ofMegabytes(1));
+        reopened.record(new CancelOrder(1L, 2L));
+
+        // Then
+        var records = readAll();
+        assertEquals(List.of(1L, 2L, 3L), records.stream().map(JournalRecord::sequence).toList());
+        assertEquals(List.of(create, match, new CancelOrder(1L, 2L)), records.stream().map(JournalRecord::command).toList());
+    }
+
+    @Test
+    void testRecord_TornTailIsOverwritten() throws IOException {
+        // Given
+        var journal = open(DataSize.ofMegabytes(1));
+        journal.record(new CancelOrder(1L, 2L));
+        journal.record(new CancelOrder(2L, 2L));
+        journal.close();
+        journals.remove(journal);
+        corruptLastByteOf(2);
+
+        // When
+        var reopened = open(DataSize.ofMegabytes(1));
+        reopened.record(new CancelOrder(3L, 2L));
+
+        // Then
+        var records = readAll();
+        assertEquals(List.of(1L, 2L), records.stream().map(JournalRecord::sequence).toList());
+        assertEquals(new CancelOrder(3L, 2L), records.get(1).command());
+    }
+
+    @Test
+    void testAppend_RollsOverToNewSegments() {
+        // Given
+        var journal = open(DataSize.ofBytes(256));
+
+        // When
+        for (long orderId = 1; orderId <= 20; orderId++) {
+            journal.record(new CancelOrder(orderId, 2L));
+        }
+
+        // Then
+        assertTrue(JournalReader.segments(directory).size() > 1);
+        assertEquals(20, readAll().size());
+    }
+
+    @Test
+    void testAwaitDurable_ConcurrentAppendersShareFlushes() throws Exception {
+        // Given
+        var journal = open(DataSize.ofMegabytes(1));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int thread = 0; thread < 8; thread++) {
+            long customerId = thread;
+            futures.add(executor.submit(() -> {
+                for (long orderId = 1; orderId <= 100; orderId++) {
+                    journal.record(new CancelOrder(orderId, customerId));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(800, journal.getLastSequence());
+        assertEquals(800, readAll().size());
+        assertTrue(journal.getFlushes() <= 800);
+    }
+
+    @Test
+    void testRecord_RolledBackTransactionIsAborted() {
+        // Given
+        var journal = open(DataSize.ofMegabytes(1));
+        TransactionSynchronizationManager.initSynchronization();
+        journal.record(new CancelOrder(1L, 2L));
+        journal.record(new CancelOrder(2L, 2L));
+
+        // When
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Then
+        var records = readAll();
+        assertEquals(3, records.size());
+        assertEquals(new Abort(1L, 2L), records.get(2).command());
+    }
+
+    @Test
+    void testOpen_DirectoryInUse() {
+        // Given
+        open(DataSize.ofMegabytes(1));
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> open(DataSize.ofMegabytes(1)));
+    }
+
+    private CommandJournal open(DataSize segmentSize) {
+        var journal = new CommandJournal(true, directory, segmentSize);
+        journal.open();
+        journals.add(journal);
+        return journal;
+    }
+
+    private List<JournalRecord> readAll() {
+        List<JournalRecord> records = new ArrayList<>();
+        JournalReader.read(directory, records::add);
+        return records;
+    }
+
+    // Damages the last byte of the n-th record of the first segment, as if the process died while writing it
+    private void corruptLastByteOf(int recordNumber) throws IOException {
+        try (var channel = FileChannel.open(JournalReader.segments(directory).get(0), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int position = 0;
+            for (int i = 1; i < recordNumber; i++) {
+                position += JournalCodec.HEADER_SIZE + buffer.getInt(position);
+            }
+            int last = position + JournalCodec.HEADER_SIZE + buffer.getInt(position) - 1;
+            buffer.put(last, (byte) (buffer.get(last) ^ 0xFF));
+        }
+    }
+}
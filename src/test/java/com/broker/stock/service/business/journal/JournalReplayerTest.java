@@ -0,0 +1,55 @@
+package com.broker.stock.service.business.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.service.business.journal.JournalCommand.Abort;
+import com.broker.stock.service.business.journal.JournalCommand.CancelOrder;
+import com.broker.stock.service.business.journal.JournalCommand.CreateOrder;
+import com.broker.stock.service.business.journal.JournalCommand.Match;
+import com.broker.stock.service.business.matching.BookOrder;
+import com.broker.stock.service.business.matching.Trade;
+import com.broker.stock.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.List;
+
+class JournalReplayerTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testReplay_RebuildsOpenOrders() {
+        // Given
+        var journal = new CommandJournal(true, directory, DataSize.ofMegabytes(1));
+        journal.open();
+        journal.record(new CreateOrder(1L, 2L, "GOLD", OrderSide.SELL, FixedPoint.of(10), FixedPoint.of(100)));
+        journal.record(new CreateOrder(2L, 3L, "GOLD", OrderSide.BUY, FixedPoint.of(4), FixedPoint.of(100)));
+        journal.record(new Match(List.of(new Trade("GOLD", 2L, 3L, 1L, 2L, FixedPoint.of(100), FixedPoint.of(4)))));
+        journal.record(new CreateOrder(3L, 3L, "SILVER", OrderSide.BUY, FixedPoint.of(1), FixedPoint.of(50)));
+        journal.record(new CancelOrder(3L, 3L));
+        long rolledBack = journal.append(List.of(new CreateOrder(4L, 3L, "GOLD", OrderSide.BUY, FixedPoint.of(1), FixedPoint.of(90))));
+        journal.awaitDurable(journal.append(List.of(new Abort(rolledBack, rolledBack))));
+        journal.close();
+
+        // When
+        var result = JournalReplayer.replay(directory);
+
+        // Then
+        assertEquals(7, result.lastSequence());
+        assertEquals(7, result.records());
+        assertEquals(1, result.aborted());
+        assertEquals(List.of("GOLD"), List.copyOf(result.books().keySet()));
+
+        // Only the rest of the SELL order is left, matching it against a BUY shows what it rests with
+        var book = result.books().get("GOLD");
+        assertEquals(1, book.size());
+        var trades = book.match(new BookOrder(5L, 3L, OrderSide.BUY, FixedPoint.of(100), FixedPoint.of(10)));
+        assertEquals(FixedPoint.of(6), trades.get(0).size());
+        assertTrue(book.isEmpty());
+    }
+}
@@ -0,0 +1,163 @@
+package com.broker.stock.service.business.market;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import com.broker.stock.constant.CandleInterval;
+import com.broker.stock.model.Candle;
+import com.broker.stock.service.business.matching.Trade;
+import com.broker.stock.util.FixedPoint;
+import org.h2.util.DateTimeUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+
+class MarketDataTest {
+
+    private static final long T0 = Instant.parse("2025-03-01T10:00:00Z").toEpochMilli();
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private MarketData marketData;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        marketData = new MarketData(jdbcTemplate);
+    }
+
+    @Test
+    void testRecord_AggregatesCandlesOfEveryInterval() {
+        // When
+        marketData.record(List.of(trade(10, 1), trade(12, 2)), T0);
+        marketData.record(List.of(trade(9, 1)), T0 + 20_000);
+        marketData.record(List.of(trade(11, 1)), T0 + 70_000);
+
+        // Then
+        var minutes = marketData.candles("GOLD", CandleInterval.ONE_MINUTE, 60, T0 + 90_000);
+        assertEquals(2, minutes.size());
+        assertCandle(minutes.get(0), 10, 12, 9, 9, 4, 3);
+        assertCandle(minutes.get(1), 11, 11, 11, 11, 1, 1);
+        assertCandle(marketData.candles("GOLD", CandleInterval.FIVE_MINUTES, 12, T0 + 90_000).get(0), 10, 12, 9, 11, 5, 4);
+
+        var ticker = marketData.ticker("GOLD", T0 + 90_000);
+        assertEquals(new BigDecimal("11.00000000"), ticker.lastPrice());
+        assertEquals(new BigDecimal("5.00000000"), ticker.volume24h());
+        assertEquals(4, ticker.trades24h());
+    }
+
+    @Test
+    void testRecord_NewIntervalOverwritesCandleOneRingAgo() {
+        // Given
+        marketData.record(List.of(trade(10, 1)), T0);
+
+        // When the 1m ring wrapped around, then a late trade of the overwritten candle
+        marketData.record(List.of(trade(20, 1)), T0 + 60 * MINUTE);
+        marketData.record(List.of(trade(30, 1)), T0 + 1000);
+
+        // Then
+        var minutes = marketData.candles("GOLD", CandleInterval.ONE_MINUTE, 60, T0 + 60 * MINUTE);
+        assertEquals(1, minutes.size());
+        assertCandle(minutes.get(0), 20, 20, 20, 20, 1, 1);
+        assertEquals(new BigDecimal("20.00000000"), marketData.ticker("GOLD", T0 + 60 * MINUTE).lastPrice());
+    }
+
+    @Test
+    void testFlush_CandlesSurviveRestart() {
+        // Given
+        marketData.record(List.of(trade(10, 1), trade(12, 2)), T0);
+        marketData.record(List.of(trade(11, 1)), T0 + 70_000);
+
+        // When
+        marketData.flush(T0 + 90_000);
+        var restarted = new MarketData(jdbcTemplate);
+        restarted.load(T0 + 90_000);
+
+        // Then
+        assertEquals(marketData.candles("GOLD", CandleInterval.ONE_MINUTE, 60, T0 + 90_000),
+            restarted.candles("GOLD", CandleInterval.ONE_MINUTE, 60, T0 + 90_000));
+        assertEquals(marketData.candles("GOLD", CandleInterval.ONE_HOUR, 168, T0 + 90_000),
+            restarted.candles("GOLD", CandleInterval.ONE_HOUR, 168, T0 + 90_000));
+        assertEquals(marketData.ticker("GOLD", T0 + 90_000), restarted.ticker("GOLD", T0 + 90_000));
+    }
+
+    @Test
+    void testFlush_DeletesCandlesOutOfTheirRing() {
+        // Given
+        marketData.record(List.of(trade(10, 1)), T0);
+        marketData.flush(T0);
+
+        // When the minute ring moved on, the others still hold the candle
+        marketData.flush(T0 + 120 * MINUTE);
+
+        // Then
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM candle", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM candle WHERE interval_seconds = 60", Integer.class));
+    }
+
+    @Test
+    void testFlush_HourRepeatedByDaylightSavingTimeKeepsBothCandles() {
+        // Given the hours starting 00:00 and 01:00 UTC both start at 02:00 in Berlin on the night summer time ends
+        var timeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+        // H2 keeps the zone it saw first
+        DateTimeUtils.resetCalendar();
+        try {
+            long fallBack = Instant.parse("2025-10-26T00:30:00Z").toEpochMilli();
+            marketData.record(List.of(trade(10, 1)), fallBack);
+            marketData.record(List.of(trade(20, 2)), fallBack + 60 * MINUTE);
+
+            // When
+            marketData.flush(fallBack + 60 * MINUTE);
+            var restarted = new MarketData(jdbcTemplate);
+            restarted.load(fallBack + 60 * MINUTE);
+
+            // Then
+            var hours = restarted.candles("GOLD", CandleInterval.ONE_HOUR, 168, fallBack + 60 * MINUTE);
+            assertEquals(2, hours.size());
+            assertEquals(LocalDateTime.of(2025, 10, 26, 2, 0), hours.get(0).openTime().toLocalDateTime());
+            assertEquals(LocalDateTime.of(2025, 10, 26, 2, 0), hours.get(1).openTime().toLocalDateTime());
+            assertNotEquals(hours.get(0).openTime(), hours.get(1).openTime()); // +02:00, then +01:00
+            assertEquals(marketData.candles("GOLD", CandleInterval.ONE_HOUR, 168, fallBack + 60 * MINUTE), hours);
+        } finally {
+            TimeZone.setDefault(timeZone);
+            DateTimeUtils.resetCalendar();
+        }
+    }
+
+    @Test
+    void testTicker_UnknownAsset() {
+        // When / Then
+        var exception = assertThrows(ResponseStatusException.class, () -> marketData.ticker("SILVER"));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+    }
+
+    private static Trade trade(long price, long size) {
+        return new Trade("GOLD", 1L, 2L, 3L, 4L, FixedPoint.of(price), FixedPoint.of(size));
+    }
+
+    private static void assertCandle(Candle candle, long open, long high, long low, long close, long volume, int trades) {
+        assertEquals(FixedPoint.toBigDecimal(FixedPoint.of(open)), candle.open());
+        assertEquals(FixedPoint.toBigDecimal(FixedPoint.of(high)), candle.high());
+        assertEquals(FixedPoint.toBigDecimal(FixedPoint.of(low)), candle.low());
+        assertEquals(FixedPoint.toBigDecimal(FixedPoint.of(close)), candle.close());
+        assertEquals(FixedPoint.toBigDecimal(FixedPoint.of(volume)), candle.volume());
+        assertEquals(trades, candle.trades());
+    }
+}
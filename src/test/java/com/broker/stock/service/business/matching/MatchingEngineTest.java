@@ -0,0 +1,192 @@
+package com.broker.stock.service.business.matching;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.constant.OrderStatus;
+import com.broker.stock.entity.Order;
+import com.broker.stock.repository.OrderRepository;
+import com.broker.stock.util.FixedPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Set;
+
+class MatchingEngineTest {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private OrderRepository orderRepository;
+
+    private MatchingEngine matchingEngine;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        when(orderRepository.findByStatusAndIdGreaterThanOrderById(eq(OrderStatus.PENDING), any(), any())).thenReturn(List.of());
+        matchingEngine = new MatchingEngine(orderRepository, 4, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        matchingEngine.shutdown();
+    }
+
+    @Test
+    void matchAll_MatchesEveryAssetAcrossShards() {
+        // Given
+        List.of("GOLD", "SILVER", "BTC", "ETH", "AAPL").forEach(assetName -> {
+            matchingEngine.add(createOrder(1L, assetName, OrderSide.BUY, 100));
+            matchingEngine.add(createOrder(2L, assetName, OrderSide.SELL, 100));
+        });
+
+        // When
+        List<Trade> trades = matchingEngine.matchAll(CHUNK_SIZE);
+
+        // Then
+        assertEquals(5, trades.size());
+        assertTrue(matchingEngine.matchAll(CHUNK_SIZE).isEmpty()); // Books are fully crossed
+    }
+
+    @Test
+    void matchAll_StopsAfterTheLimitPerShard() {
+        // Given three crossings in one book
+        for (long id = 1; id <= 3; id++) {
+            matchingEngine.add(createOrder(id, "GOLD", OrderSide.BUY, 100));
+            matchingEngine.add(createOrder(10 + id, "GOLD", OrderSide.SELL, 100));
+        }
+
+        // When
+        List<Trade> first = matchingEngine.matchAll(2);
+        List<Trade> second = matchingEngine.matchAll(2);
+
+        // Then the rest of the book stays crossed for the next call
+        assertEquals(2, first.size());
+        assertEquals(1, second.size());
+        assertTrue(matchingEngine.matchAll(2).isEmpty());
+    }
+
+    @Test
+    void match_OnlyGivenAssetsAreMatched() {
+        // Given
+        matchingEngine.add(createOrder(1L, "GOLD", OrderSide.BUY, 100));
+        matchingEngine.add(createOrder(2L, "GOLD", OrderSide.SELL, 100));
+        matchingEngine.add(createOrder(3L, "SILVER", OrderSide.BUY, 100));
+        matchingEngine.add(createOrder(4L, "SILVER", OrderSide.SELL, 100));
+
+        // When
+        List<Trade> trades = matchingEngine.matchAssets(Set.of("GOLD", "UNKNOWN"), CHUNK_SIZE);
+
+        // Then
+        assertEquals(1, trades.size());
+        assertEquals("GOLD", trades.get(0).assetName());
+        assertEquals(1, matchingEngine.matchAll(CHUNK_SIZE).size()); // SILVER is still crossed
+    }
+
+    @Test
+    void match_UnfilledPartOfIncomingOrderIsRested() {
+        // Given
+        Order sell = createOrder(1L, "GOLD", OrderSide.SELL, 100);
+        sell.setSize(FixedPoint.of(4));
+        matchingEngine.add(sell);
+
+        // When
+        List<Trade> trades = matchingEngine.match(createOrder(2L, "GOLD", OrderSide.BUY, 105));
+
+        // Then the remaining 6 rest at 105 and cross the next sell
+        assertEquals(1, trades.size());
+        assertEquals(FixedPoint.of(100), trades.get(0).price());
+        List<Trade> next = matchingEngine.match(createOrder(3L, "GOLD", OrderSide.SELL, 105));
+        assertEquals(1, next.size());
+        assertEquals(2L, next.get(0).buyOrderId());
+        assertEquals(FixedPoint.of(6), next.get(0).size());
+        assertTrue(matchingEngine.matchAll(CHUNK_SIZE).isEmpty());
+    }
+
+    @Test
+    void match_OrdersMatchedOneAfterAnotherNeverLeaveBookCrossed() {
+        // When two crossing orders are matched as they come in
+        assertTrue(matchingEngine.match(createOrder(1L, "GOLD", OrderSide.BUY, 100)).isEmpty());
+        List<Trade> trades = matchingEngine.match(createOrder(2L, "GOLD", OrderSide.SELL, 100));
+
+        // Then
+        assertEquals(1, trades.size());
+        assertTrue(matchingEngine.matchAll(CHUNK_SIZE).isEmpty());
+    }
+
+    @Test
+    void match_OrderAlreadyLoadedFromDatabaseIsNotRestedTwice() {
+        // Given a reload that picked up the saved order before it was matched
+        Order buy = createOrder(1L, "GOLD", OrderSide.BUY, 100);
+        matchingEngine.add(buy);
+        matchingEngine.add(createOrder(2L, "GOLD", OrderSide.SELL, 100));
+
+        // When
+        List<Trade> trades = matchingEngine.match(buy);
+
+        // Then the stale copy is gone with the filled order
+        assertEquals(1, trades.size());
+        assertTrue(matchingEngine.match(createOrder(3L, "GOLD", OrderSide.SELL, 100)).isEmpty());
+    }
+
+    @Test
+    void match_OrderCancelledBeforeItWasMatchedIsNotRested() {
+        // Given a cancel committed between the order's creation and its matching
+        Order buy = createOrder(1L, "GOLD", OrderSide.BUY, 100);
+        Order added = createOrder(2L, "GOLD", OrderSide.BUY, 100);
+        matchingEngine.remove(buy);
+        matchingEngine.remove(added);
+
+        // When
+        List<Trade> trades = matchingEngine.match(buy);
+        matchingEngine.add(added);
+
+        // Then neither rests and a later counterparty does not trade with them
+        assertTrue(trades.isEmpty());
+        assertTrue(matchingEngine.match(createOrder(3L, "GOLD", OrderSide.SELL, 100)).isEmpty());
+    }
+
+    @Test
+    void reset_BooksAreReloadedFromDatabaseInChunks() {
+        // Given
+        Order pendingBuy = createOrder(1L, "GOLD", OrderSide.BUY, 100);
+        Order pendingSell = createOrder(2L, "GOLD", OrderSide.SELL, 100);
+        Order pendingSilverBuy = createOrder(3L, "SILVER", OrderSide.BUY, 100);
+        matchingEngine.add(pendingBuy);
+        when(orderRepository.findByStatusAndIdGreaterThanOrderById(OrderStatus.PENDING, 0L, Limit.of(2)))
+            .thenReturn(List.of(pendingBuy, pendingSell));
+        when(orderRepository.findByStatusAndIdGreaterThanOrderById(OrderStatus.PENDING, 2L, Limit.of(2)))
+            .thenReturn(List.of(pendingSilverBuy));
+
+        // When
+        matchingEngine.reset();
+        List<Trade> trades = matchingEngine.matchAll(CHUNK_SIZE);
+
+        // Then
+        assertEquals(1, trades.size());
+        verify(orderRepository, times(1)).findByStatusAndIdGreaterThanOrderById(OrderStatus.PENDING, 2L, Limit.of(2));
+        verify(orderRepository, never()).findByStatusAndIdGreaterThanOrderById(OrderStatus.PENDING, 3L, Limit.of(2));
+    }
+
+    private Order createOrder(Long id, String assetName, OrderSide side, long price) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerId(id);
+        order.setAssetName(assetName);
+        order.setOrderSide(side);
+        order.setSize(FixedPoint.of(10));
+        order.setPrice(FixedPoint.of(price));
+        order.setStatus(OrderStatus.PENDING);
+        return order;
+    }
+}
@@ -0,0 +1,198 @@
+package com.broker.stock.service.business.matching;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.util.FixedPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class OrderBookTest {
+
+    private OrderBook orderBook;
+
+    @BeforeEach
+    void setUp() {
+        orderBook = new OrderBook("GOLD");
+    }
+
+    @Test
+    void match_NoCrossingOrders() {
+        // Given
+        orderBook.add(order(1L, OrderSide.BUY, 99, 10));
+        orderBook.add(order(2L, OrderSide.SELL, 100, 10));
+
+        // When
+        List<Trade> trades = orderBook.match();
+
+        // Then
+        assertTrue(trades.isEmpty());
+        assertEquals(2, orderBook.size());
+    }
+
+    @Test
+    void match_BestPriceFirstThenArrivalTime() {
+        // Given
+        orderBook.add(order(1L, OrderSide.BUY, 100, 5));
+        orderBook.add(order(2L, OrderSide.BUY, 101, 5)); // Better price, later arrival
+        orderBook.add(order(3L, OrderSide.BUY, 101, 5)); // Same price, latest arrival
+        orderBook.add(order(4L, OrderSide.SELL, 99, 12));
+
+        // When
+        List<Trade> trades = orderBook.match();
+
+        // Then
+        assertEquals(3, trades.size());
+        assertAll(() -> {
+            assertEquals(2L, trades.get(0).buyOrderId());
+            assertEquals(3L, trades.get(1).buyOrderId());
+            assertEquals(1L, trades.get(2).buyOrderId());
+            assertEquals(FixedPoint.of(2), trades.get(2).size()); // Partial fill of the last bid
+        });
+        assertEquals(1, orderBook.size()); // Order 1 keeps 3 open
+    }
+
+    @Test
+    void match_StopsAfterTheLimit() {
+        // Given
+        orderBook.add(order(1L, OrderSide.BUY, 101, 5));
+        orderBook.add(order(2L, OrderSide.BUY, 100, 5));
+        orderBook.add(order(3L, OrderSide.SELL, 99, 10));
+
+        // When
+        List<Trade> trades = orderBook.match(1);
+
+        // Then the next call continues where this one stopped
+        assertEquals(1, trades.size());
+        assertEquals(1L, trades.get(0).buyOrderId());
+        List<Trade> rest = orderBook.match(1);
+        assertEquals(1, rest.size());
+        assertEquals(2L, rest.get(0).buyOrderId());
+        assertTrue(orderBook.isEmpty());
+    }
+
+    @Test
+    void match_ExecutedAtRestingOrderPrice() {
+        // Given
+        orderBook.add(order(1L, OrderSide.SELL, 95, 5));
+        orderBook.add(order(2L, OrderSide.BUY, 100, 5));
+
+        // When
+        List<Trade> trades = orderBook.match();
+
+        // Then
+        assertEquals(1, trades.size());
+        Trade trade = trades.get(0);
+        assertAll(() -> {
+            assertEquals("GOLD", trade.assetName());
+            assertEquals(2L, trade.buyOrderId());
+            assertEquals(1L, trade.sellOrderId());
+            assertEquals(FixedPoint.of(95), trade.price());
+            assertEquals(FixedPoint.of(5), trade.size());
+        });
+        assertTrue(orderBook.isEmpty());
+    }
+
+    @Test
+    void matchIncoming_PartialFillLeavesRemainderOutOfBook() {
+        // Given
+        orderBook.add(order(1L, OrderSide.SELL, 100, 3));
+        orderBook.add(order(2L, OrderSide.SELL, 102, 3));
+        orderBook.add(order(3L, OrderSide.SELL, 105, 3)); // Above the incoming limit price
+        BookOrder incoming = order(4L, OrderSide.BUY, 102, 10);
+
+        // When
+        List<Trade> trades = orderBook.match(incoming);
+
+        // Then
+        assertEquals(2, trades.size());
+        assertAll(() -> {
+            assertEquals(FixedPoint.of(100), trades.get(0).price());
+            assertEquals(FixedPoint.of(102), trades.get(1).price());
+            assertEquals(FixedPoint.of(4), incoming.getRemainingSize());
+        });
+        assertEquals(1, orderBook.size()); // Incoming order is not rested
+    }
+
+    @Test
+    void remove_OrderIsNotMatched() {
+        // Given
+        orderBook.add(order(1L, OrderSide.BUY, 100, 5));
+        orderBook.add(order(2L, OrderSide.SELL, 100, 5));
+
+        // When
+        boolean removed = orderBook.remove(1L);
+
+        // Then
+        assertTrue(removed);
+        assertFalse(orderBook.remove(1L));
+        assertTrue(orderBook.match().isEmpty());
+    }
+
+    @Test
+    void add_DuplicateOrderIsIgnored() {
+        // Given
+        BookOrder bookOrder = order(1L, OrderSide.BUY, 100, 5);
+
+        // When
+        orderBook.add(bookOrder);
+        orderBook.add(order(1L, OrderSide.BUY, 100, 5));
+
+        // Then
+        assertEquals(1, orderBook.size());
+    }
+
+    @Test
+    void match_SameCustomerOrdersAreSkipped() {
+        // Given
+        orderBook.add(order(1L, 7L, OrderSide.SELL, 95, 5)); // Best ask, of the bidding customer
+        orderBook.add(order(2L, OrderSide.SELL, 98, 5));
+        orderBook.add(order(3L, 7L, OrderSide.BUY, 100, 8));
+
+        // When
+        List<Trade> trades = orderBook.match();
+
+        // Then
+        assertEquals(1, trades.size());
+        assertAll(() -> {
+            assertEquals(3L, trades.get(0).buyOrderId());
+            assertEquals(2L, trades.get(0).sellOrderId());
+            assertEquals(FixedPoint.of(5), trades.get(0).size());
+        });
+        assertEquals(2, orderBook.size()); // The customer's own orders rest crossed
+        assertTrue(orderBook.match().isEmpty());
+    }
+
+    @Test
+    void matchIncoming_SameCustomerOrdersAreSkipped() {
+        // Given
+        orderBook.add(order(1L, 7L, OrderSide.BUY, 101, 5)); // Best bid, of the selling customer
+        orderBook.add(order(2L, OrderSide.BUY, 100, 3));
+        var incoming = order(3L, 7L, OrderSide.SELL, 99, 10);
+
+        // When
+        List<Trade> trades = orderBook.match(incoming);
+
+        // Then
+        assertEquals(1, trades.size());
+        assertAll(() -> {
+            assertEquals(2L, trades.get(0).buyOrderId());
+            assertEquals(FixedPoint.of(100), trades.get(0).price());
+            assertEquals(FixedPoint.of(3), trades.get(0).size());
+            assertEquals(FixedPoint.of(7), incoming.getRemainingSize());
+        });
+        assertEquals(1, orderBook.size());
+    }
+
+    private BookOrder order(Long orderId, OrderSide side, long price, long size) {
+        return order(orderId, orderId * 10, side, price, size);
+    }
+
+    private BookOrder order(Long orderId, Long customerId, OrderSide side, long price, long size) {
+        return new BookOrder(orderId, customerId, side, FixedPoint.of(price), FixedPoint.of(size));
+    }
+}
@@ -0,0 +1,90 @@
+package com.broker.stock.service.business.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.service.business.journal.JournalCommand.CancelOrder;
+import com.broker.stock.service.business.journal.JournalCommand.CreateOrder;
+import com.broker.stock.service.business.journal.JournalCommand.Match;
+import com.broker.stock.service.business.matching.Trade;
+import com.broker.stock.service.business.snapshot.SnapshotState.BalanceKey;
+import com.broker.stock.service.business.snapshot.SnapshotState.PendingOrder;
+import com.broker.stock.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class SnapshotFileTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testWrite_ReadBackSameState() {
+        // Given
+        var state = new SnapshotState(0);
+        state.addBalance(1L, 2L, "TRY", FixedPoint.of(10000), FixedPoint.of(10000));
+        state.addBalance(2L, 3L, "GOLD", FixedPoint.of(10), FixedPoint.of(10));
+        state.addBalance(3L, 3L, "TRY", 0, 0);
+        state.apply(new CreateOrder(1L, 3L, "GOLD", OrderSide.SELL, FixedPoint.of(10), FixedPoint.of(100)));
+        state.apply(new CreateOrder(2L, 2L, "GOLD", OrderSide.BUY, FixedPoint.of(4), FixedPoint.of(110)));
+        state.apply(new Match(List.of(new Trade("GOLD", 2L, 2L, 1L, 3L, FixedPoint.of(100), FixedPoint.of(4)))));
+        state.apply(new CreateOrder(3L, 2L, "SILVER", OrderSide.BUY, FixedPoint.of(1), FixedPoint.of(50)));
+        state.apply(new CreateOrder(4L, 2L, "SILVER", OrderSide.BUY, FixedPoint.of(2), FixedPoint.of(50)));
+        state.apply(new CancelOrder(3L, 2L));
+        state.advanceTo(6);
+
+        // When
+        var file = SnapshotFile.write(directory, state);
+        var read = SnapshotFile.read(file);
+
+        // Then
+        assertEquals(6, SnapshotFile.sequence(file));
+        assertEquals(6, read.getSequence());
+        assertEquals(List.of(1L, 4L), read.getOrders().stream().map(order -> order.id).toList());
+        assertEquals(FixedPoint.of(6), read.getOrders().iterator().next().remainingSize);
+        assertEquals(state.fingerprint(), read.fingerprint());
+
+        // Bought at 100 under a limit of 110, the difference is released, the SILVER order stays reserved
+        var buyerTry = read.getBalances().get(new BalanceKey(2L, "TRY"));
+        assertEquals(FixedPoint.of(9600), buyerTry.size);
+        assertEquals(FixedPoint.of(9500), buyerTry.usableSize);
+        assertEquals(FixedPoint.of(400), read.getBalances().get(new BalanceKey(3L, "TRY")).size);
+        assertEquals(FixedPoint.of(4), read.getBalances().get(new BalanceKey(2L, "GOLD")).usableSize);
+        assertNull(read.getBalances().get(new BalanceKey(2L, "GOLD")).id); // Created by the BUY order
+    }
+
+    @Test
+    void testRead_DamagedFileIsRejected() throws IOException {
+        // Given
+        var state = new SnapshotState(3);
+        state.addOrder(new PendingOrder(1L, 2L, "GOLD", OrderSide.BUY, FixedPoint.of(100), FixedPoint.of(5)));
+        var file = SnapshotFile.write(directory, state);
+        var bytes = Files.readAllBytes(file);
+        bytes[20] ^= 1;
+        Files.write(file, bytes);
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> SnapshotFile.read(file));
+    }
+
+    @Test
+    void testList_NewestFirst() {
+        // Given
+        SnapshotFile.write(directory, new SnapshotState(9));
+        SnapshotFile.write(directory, new SnapshotState(10));
+        SnapshotFile.write(directory, new SnapshotState(2));
+
+        // When
+        var files = SnapshotFile.list(directory);
+
+        // Then
+        assertEquals(List.of(10L, 9L, 2L), files.stream().map(SnapshotFile::sequence).toList());
+        assertEquals(files.get(0), SnapshotFile.latest(directory).orElseThrow());
+    }
+}
@@ -0,0 +1,112 @@
+package com.broker.stock.service.business.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.broker.stock.constant.OrderSide;
+import com.broker.stock.entity.Asset;
+import com.broker.stock.model.OrderRequest;
+import com.broker.stock.repository.AssetRepository;
+import com.broker.stock.service.business.OrderService;
+import com.broker.stock.service.business.journal.CommandJournal;
+import com.broker.stock.util.FixedPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:snapshots;DB_CLOSE_DELAY=-1",
+    "order.matching.mode=CONTINUOUS",
+    "order.snapshot.interval=1h"
+})
+class StateSnapshotsIntegrationTest {
+
+    @TempDir
+    private static Path directory;
+
+    @Autowired
+    private StateSnapshots stateSnapshots;
+
+    @Autowired
+    private CommandJournal commandJournal;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @DynamicPropertySource
+    static void directories(DynamicPropertyRegistry registry) {
+        registry.add("order.journal.directory", () -> directory.resolve("journal").toString());
+        registry.add("order.snapshot.directory", () -> directory.resolve("snapshots").toString());
+    }
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRestoreState_SnapshotAndJournalTailMatchTheDatabase() throws Exception {
+        // Given
+        assetRepository.save(new Asset(null, 3L, "GOLD", FixedPoint.of(50), FixedPoint.of(50)));
+        // Balances changed outside of orders are not journaled, a start on this database takes a new base snapshot
+        FileSystemUtils.deleteRecursively(directory.resolve("snapshots").toFile());
+        stateSnapshots.afterSingletonsInstantiated();
+
+        createOrder(3L, "GOLD", OrderSide.SELL, 10, 100);
+        createOrder(2L, "GOLD", OrderSide.BUY, 4, 110); // Fills at 100, the rest of the reservation is released
+        var cancelled = createOrder(2L, "GOLD", OrderSide.BUY, 1, 90);
+        orderService.deleteOrder(2L, cancelled);
+        var snapshot = stateSnapshots.takeSnapshot().orElseThrow();
+
+        createOrder(4L, "GOLD", OrderSide.BUY, 3, 100); // Creates a GOLD asset after the snapshot
+        createOrder(3L, "GOLD", OrderSide.SELL, 5, 120);
+        createOrder(5L, "SILVER", OrderSide.BUY, 2, 30);
+
+        // When
+        var restored = stateSnapshots.restoreState(commandJournal.getLastSequence()).orElseThrow();
+        var next = stateSnapshots.takeSnapshot().orElseThrow();
+
+        // Then
+        var database = stateSnapshots.loadFromDatabase(commandJournal.getLastSequence());
+        assertTrue(SnapshotFile.sequence(snapshot) < restored.getSequence());
+        assertEquals(describe(database), describe(restored));
+        assertEquals(describe(database), describe(SnapshotFile.read(next)));
+        assertTrue(SnapshotFile.read(next).getBalances().values().stream().map(balance -> balance.id).allMatch(Objects::nonNull));
+    }
+
+    private Long createOrder(Long customerId, String assetName, OrderSide orderSide, int size, int price) {
+        return orderService.createOrder(new OrderRequest(customerId, assetName, orderSide, BigDecimal.valueOf(size), BigDecimal.valueOf(price))).id();
+    }
+
+    private List<String> describe(SnapshotState state) {
+        var orders = state.getOrders().stream()
+            .map(order -> List.of(order.id, order.customerId, order.assetName, order.orderSide, order.price, order.remainingSize).toString());
+        var balances = state.getBalances().entrySet().stream()
+            .map(entry -> List.of(entry.getKey(), entry.getValue().size, entry.getValue().usableSize).toString())
+            .sorted();
+        return Stream.concat(orders.sorted(), balances).toList();
+    }
+}
@@ -1,8 +1,10 @@
 package com.broker.stock.service.business.strategy;
 
 import static com.broker.stock.constant.AssetConstants.TRY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -11,6 +13,7 @@ import com.broker.stock.constant.OrderSide;
 import com.broker.stock.entity.Asset;
 import com.broker.stock.model.OrderRequest;
 import com.broker.stock.service.business.AssetService;
+import com.broker.stock.util.FixedPoint;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -40,23 +43,23 @@ class BuyOrderHandlerTest {
         String assetName = "GOLD";
         BigDecimal price = BigDecimal.valueOf(100);
         BigDecimal size = BigDecimal.TEN;
-        BigDecimal requiredTRY = size.multiply(price); // 1000 TRY required
+        long requiredTRY = FixedPoint.of(1000); // 1000 TRY required
 
         OrderRequest orderRequest = new OrderRequest(customerId, assetName, OrderSide.BUY, size, price);
-        Asset tryAsset = new Asset(1L, customerId, TRY, requiredTRY.add(BigDecimal.valueOf(500)), requiredTRY.add(BigDecimal.valueOf(500))); // Sufficient TRY balance
-        Asset orderAsset = new Asset(2L, customerId, assetName, BigDecimal.ZERO, BigDecimal.ZERO); // Existing asset
+        Asset tryAsset = new Asset(1L, customerId, TRY, requiredTRY + FixedPoint.of(500), requiredTRY + FixedPoint.of(500)); // Sufficient TRY balance
+        Asset orderAsset = new Asset(2L, customerId, assetName, 0, 0); // Existing asset
 
         // Mock behavior
         when(assetService.getAsset(customerId, TRY)).thenReturn(Optional.of(tryAsset));
         when(assetService.getAsset(customerId, assetName)).thenReturn(Optional.of(orderAsset));
+        when(assetService.reserve(customerId, TRY, requiredTRY)).thenReturn(true);
 
         // When
         buyOrderHandler.handleOrder(orderRequest);
 
         // Then
-        verify(assetService).save(tryAsset); // TRY asset was updated
+        verify(assetService).reserve(customerId, TRY, requiredTRY); // TRY was reserved
         verify(assetService, never()).save(orderAsset); // Order asset already exists; no initialization
-        assert tryAsset.getUsableSize().compareTo(BigDecimal.valueOf(500)) == 0; // 500 TRY remains usable
     }
 
     @Test
@@ -66,25 +69,26 @@ class BuyOrderHandlerTest {
         String assetName = "GOLD";
         BigDecimal price = BigDecimal.valueOf(100);
         BigDecimal size = BigDecimal.TEN;
-        BigDecimal requiredTRY = size.multiply(price); // 1000 TRY required
+        long requiredTRY = FixedPoint.of(1000); // 1000 TRY required
 
         OrderRequest orderRequest = new OrderRequest(customerId, assetName, OrderSide.BUY, size, price);
-        Asset tryAsset = new Asset(1L, customerId, TRY, requiredTRY.add(BigDecimal.valueOf(500)), requiredTRY.add(BigDecimal.valueOf(500))); // Sufficient TRY balance
+        Asset tryAsset = new Asset(1L, customerId, TRY, requiredTRY + FixedPoint.of(500), requiredTRY + FixedPoint.of(500)); // Sufficient TRY balance
 
         // Mock behavior
         when(assetService.getAsset(customerId, TRY)).thenReturn(Optional.of(tryAsset));
         when(assetService.getAsset(customerId, assetName)).thenReturn(Optional.empty()); // Asset does not exist
+        when(assetService.reserve(customerId, TRY, requiredTRY)).thenReturn(true);
 
         // When
         buyOrderHandler.handleOrder(orderRequest);
 
         // Then
-        verify(assetService).save(tryAsset); // TRY asset was updated
+        verify(assetService).reserve(customerId, TRY, requiredTRY); // TRY was reserved
         verify(assetService).save(argThat(asset -> // Verify asset initialization
             asset.getCustomerId().equals(customerId)
                 && asset.getAssetName().equals(assetName)
-                && asset.getSize().equals(BigDecimal.ZERO)
-                && asset.getUsableSize().equals(BigDecimal.ZERO)
+                && asset.getSize() == 0
+                && asset.getUsableSize() == 0
         ));
     }
 
@@ -97,14 +101,15 @@ class BuyOrderHandlerTest {
         BigDecimal size = BigDecimal.TEN;
 
         OrderRequest orderRequest = new OrderRequest(customerId, assetName, OrderSide.BUY, size, price);
-        Asset tryAsset = new Asset(1L, customerId, TRY, BigDecimal.valueOf(500), BigDecimal.ZERO); // Insufficient TRY balance
+        Asset tryAsset = new Asset(1L, customerId, TRY, FixedPoint.of(500), 0); // Insufficient TRY balance
 
         // Mock behavior
         when(assetService.getAsset(customerId, TRY)).thenReturn(Optional.of(tryAsset));
+        when(assetService.reserve(customerId, TRY, FixedPoint.of(1000))).thenReturn(false); // Conditional update matched no row
 
         // When/Then
         assertThrows(IllegalStateException.class, () -> buyOrderHandler.handleOrder(orderRequest));
-        verify(assetService, never()).save(tryAsset); // TRY asset should not be saved
+        verify(assetService, never()).save(any()); // Nothing should be saved
     }
 
     @Test
@@ -122,6 +127,33 @@ class BuyOrderHandlerTest {
 
         // When/Then
         assertThrows(IllegalArgumentException.class, () -> buyOrderHandler.handleOrder(orderRequest));
+        verify(assetService, never()).reserve(any(), any(), anyLong()); // Nothing should be reserved
         verify(assetService, never()).save(any()); // No asset should be saved
     }
+
+    @Test
+    void reservation_TRYOfTheOrderValue() {
+        // Given
+        OrderRequest orderRequest = new OrderRequest(1L, "GOLD", OrderSide.BUY, BigDecimal.TEN, BigDecimal.valueOf(100));
+
+        // When
+        Reservation reservation = buyOrderHandler.reservation(orderRequest, true);
+
+        // Then
+        assertEquals(new Reservation(TRY, FixedPoint.of(1000)), reservation);
+        verify(assetService, never()).getAsset(any(), any()); // The rules read no balances
+    }
+
+    @Test
+    void reservation_RejectsTRYOrderAndMissingTRY() {
+        // Given
+        OrderRequest tryOrder = new OrderRequest(1L, TRY, OrderSide.BUY, BigDecimal.TEN, BigDecimal.ONE);
+        OrderRequest goldOrder = new OrderRequest(1L, "GOLD", OrderSide.BUY, BigDecimal.TEN, BigDecimal.ONE);
+
+        // When/Then
+        assertEquals("TRY order is invalid.",
+            assertThrows(IllegalArgumentException.class, () -> buyOrderHandler.reservation(tryOrder, true)).getMessage());
+        assertEquals("Missing TRY balance for BUY order.",
+            assertThrows(IllegalArgumentException.class, () -> buyOrderHandler.reservation(goldOrder, false)).getMessage());
+    }
 }
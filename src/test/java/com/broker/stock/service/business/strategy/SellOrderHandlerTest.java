@@ -1,10 +1,10 @@
 package com.broker.stock.service.business.strategy;
 
 import com.broker.stock.constant.OrderSide;
-import com.broker.stock.entity.Asset;
 import com.broker.stock.model.OrderRequest;
 import com.broker.stock.service.business.AssetService;
 import com.broker.stock.service.business.strategy.SellOrderHandler;
+import com.broker.stock.util.FixedPoint;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -12,8 +12,8 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
-import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -39,17 +39,14 @@ class SellOrderHandlerTest {
         BigDecimal size = BigDecimal.valueOf(5);
         OrderRequest orderRequest = new OrderRequest(customerId, assetName, OrderSide.SELL, size, BigDecimal.valueOf(100));
 
-        Asset asset = new Asset(1L, customerId, assetName, BigDecimal.valueOf(10), BigDecimal.valueOf(10)); // Sufficient balance
-
         // Mock behavior
-        when(assetService.getAsset(customerId, assetName)).thenReturn(Optional.of(asset));
+        when(assetService.reserve(customerId, assetName, FixedPoint.of(5))).thenReturn(true); // Sufficient balance
 
         // When
         sellOrderHandler.handleOrder(orderRequest);
 
         // Then
-        verify(assetService).save(asset); // Ensure the asset was saved
-        assert asset.getUsableSize().equals(BigDecimal.valueOf(5)); // Check updated size
+        verify(assetService).reserve(customerId, assetName, FixedPoint.of(5)); // Ensure the size was reserved
     }
 
     @Test
@@ -60,10 +57,8 @@ class SellOrderHandlerTest {
         BigDecimal size = BigDecimal.valueOf(15); // Attempting to sell more than available
         OrderRequest orderRequest = new OrderRequest(customerId, assetName, OrderSide.SELL, size, BigDecimal.valueOf(100));
 
-        Asset asset = new Asset(1L, customerId, assetName, BigDecimal.valueOf(10), BigDecimal.valueOf(10)); // Insufficient balance
-
         // Mock behavior
-        when(assetService.getAsset(customerId, assetName)).thenReturn(Optional.of(asset));
+        when(assetService.reserve(customerId, assetName, FixedPoint.of(15))).thenReturn(false); // Insufficient balance
 
         // When/Then
         assertThrows(IllegalArgumentException.class, () -> sellOrderHandler.handleOrder(orderRequest));
@@ -79,11 +74,32 @@ class SellOrderHandlerTest {
         OrderRequest orderRequest = new OrderRequest(customerId, assetName, OrderSide.SELL, size, BigDecimal.valueOf(100));
 
         // Mock behavior
-        when(assetService.getAsset(customerId, assetName)).thenReturn(Optional.empty()); // Asset does not exist
+        when(assetService.reserve(customerId, assetName, FixedPoint.of(5))).thenReturn(false); // Asset does not exist
 
         // When/Then
         assertThrows(IllegalArgumentException.class, () -> sellOrderHandler.handleOrder(orderRequest));
         verify(assetService, never()).save(any()); // Ensure the asset was not saved
     }
-}
 
+    @Test
+    void reservation_SoldAsset() {
+        // Given
+        OrderRequest orderRequest = new OrderRequest(1L, "GOLD", OrderSide.SELL, BigDecimal.valueOf(5), BigDecimal.valueOf(100));
+
+        // When
+        Reservation reservation = sellOrderHandler.reservation(orderRequest, false); // Sellers need not hold TRY
+
+        // Then
+        assertEquals(new Reservation("GOLD", FixedPoint.of(5)), reservation);
+    }
+
+    @Test
+    void reservation_TRYOrderIsInvalid() {
+        // Given
+        OrderRequest orderRequest = new OrderRequest(1L, "TRY", OrderSide.SELL, BigDecimal.valueOf(5), BigDecimal.ONE);
+
+        // When/Then
+        var exception = assertThrows(IllegalArgumentException.class, () -> sellOrderHandler.reservation(orderRequest, true));
+        assertEquals("TRY order is invalid.", exception.getMessage());
+    }
+}
@@ -0,0 +1,104 @@
+package com.broker.stock.service.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram(Duration.ofMinutes(1).toNanos());
+
+    @Test
+    void testBuckets_KnowEveryValueWithinOnePercent() {
+        for (long value = 0; value < 10_000_000; value += 1 + value / 1000) {
+            // When
+            long highest = LatencyHistogram.highestEquivalentValue(LatencyHistogram.index(value));
+
+            // Then
+            assertTrue(highest >= value, "bucket of " + value + " ends at " + highest);
+            assertTrue(highest - value <= value / 100, "bucket of " + value + " ends at " + highest);
+        }
+    }
+
+    @Test
+    void testSnapshot_Percentiles() {
+        // Given 1 to 100000 microseconds
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        // When
+        var snapshot = histogram.snapshot();
+
+        // Then
+        assertEquals(100_000, snapshot.count());
+        assertEquals(50_000_500, snapshot.meanNanos(), 1);
+        assertEquals(100_000_000, snapshot.maxNanos());
+        assertEquals(50_000_000, snapshot.valueAtPercentile(50), 500_000);
+        assertEquals(99_000_000, snapshot.valueAtPercentile(99), 990_000);
+        assertEquals(99_900_000, snapshot.valueAtPercentile(99.9), 999_000);
+        assertEquals(100_000_000, snapshot.valueAtPercentile(100));
+    }
+
+    @Test
+    void testRecord_ClampsOutOfRangeValues() {
+        // When
+        histogram.record(-5);
+        histogram.record(Duration.ofHours(1).toNanos());
+
+        // Then
+        var snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.valueAtPercentile(50));
+        assertEquals(Duration.ofMinutes(1).toNanos(), snapshot.maxNanos());
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(100));
+    }
+
+    @Test
+    void testReset_ForgetsRecordedValues() {
+        // Given
+        histogram.record(1000);
+
+        // When
+        histogram.reset();
+
+        // Then
+        var snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.maxNanos());
+        assertEquals(0, snapshot.valueAtPercentile(99));
+    }
+
+    @Test
+    void testRecord_AllocatesNothing() {
+        // Given record and the loop calling it compiled, and the allocation counter read before, so neither the JIT
+        // nor the first reads of the counter allocate on this thread while measuring. How long compiling takes depends
+        // on what else the JIT is busy with, so warm up until a whole run allocated nothing, which it never would if
+        // recording allocated
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long warmUpAllocated = -1;
+        for (int i = 0; i < 100 && warmUpAllocated != 0; i++) {
+            long start = threads.getThreadAllocatedBytes(threadId);
+            recordMany();
+            warmUpAllocated = threads.getThreadAllocatedBytes(threadId) - start;
+        }
+        assertEquals(0, warmUpAllocated);
+        long before = threads.getThreadAllocatedBytes(threadId);
+
+        // When
+        recordMany();
+
+        // Then
+        assertEquals(0, threads.getThreadAllocatedBytes(threadId) - before);
+    }
+
+    private void recordMany() {
+        for (long nanos = 1; nanos < 100_000_000; nanos += 997) {
+            histogram.record(nanos);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.broker.stock.service.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.broker.stock.constant.LatencyStage;
+import com.broker.stock.model.LatencyReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class LatencyMetricsTest {
+
+    private final LatencyMetrics latencyMetrics = new LatencyMetrics();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testRecord_ReportsEveryStage() {
+        // Given
+        long start = System.nanoTime() - 2_000_000;
+
+        // When
+        long next = latencyMetrics.record(LatencyStage.VALIDATION, start);
+        latencyMetrics.record(LatencyStage.RESERVATION, next);
+        var report = latencyMetrics.report();
+
+        // Then
+        assertEquals(LatencyStage.values().length, report.stages().size());
+        var validation = stage(report, LatencyStage.VALIDATION);
+        assertEquals(1, validation.count());
+        assertTrue(validation.p50Micros() >= 2000);
+        assertTrue(validation.ratePerSecond() > 0);
+        assertEquals(1, stage(report, LatencyStage.RESERVATION).count());
+        assertEquals(0, stage(report, LatencyStage.CANCEL).count());
+    }
+
+    @Test
+    void testReset_StartsNewInterval() {
+        // Given
+        latencyMetrics.record(LatencyStage.CANCEL, System.nanoTime());
+
+        // When
+        latencyMetrics.reset();
+
+        // Then
+        assertEquals(0, stage(latencyMetrics.report(), LatencyStage.CANCEL).count());
+    }
+
+    @Test
+    void testRecordCommit_RecordsOnlyCommittedTransactions() {
+        // Given a transaction that commits and one that rolls back
+        TransactionSynchronizationManager.initSynchronization();
+        latencyMetrics.recordCommit();
+        latencyMetrics.recordCommit();
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.initSynchronization();
+        latencyMetrics.recordCommit();
+        var rolledBack = TransactionSynchronizationManager.getSynchronizations();
+
+        // When
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        rolledBack.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Then
+        assertEquals(1, synchronizations.size());
+        assertEquals(1, stage(latencyMetrics.report(), LatencyStage.PERSISTENCE).count());
+    }
+
+    private static LatencyReport.StageLatency stage(LatencyReport report, LatencyStage stage) {
+        return report.stages().stream().filter(latency -> latency.stage() == stage).findFirst().orElseThrow();
+    }
+}
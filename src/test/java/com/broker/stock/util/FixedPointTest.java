@@ -0,0 +1,44 @@
+package com.broker.stock.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+class FixedPointTest {
+
+    @Test
+    void testOf_ScalesAndRoundsHalfUp() {
+        assertEquals(250_000_000L, FixedPoint.of(new BigDecimal("2.5")));
+        assertEquals(1L, FixedPoint.of(new BigDecimal("0.000000005"))); // 9th fraction digit rounds up
+        assertEquals(new BigDecimal("2.50000000"), FixedPoint.toBigDecimal(250_000_000L));
+    }
+
+    @Test
+    void testMultiply() {
+        // Given
+        long size = FixedPoint.of(new BigDecimal("2.5"));
+        long price = FixedPoint.of(new BigDecimal("100.12345678"));
+
+        // When
+        long value = FixedPoint.multiply(size, price);
+
+        // Then
+        assertEquals(new BigDecimal("250.30864195"), FixedPoint.toBigDecimal(value)); // 250.30864195 exactly
+        assertEquals(FixedPoint.of(-50), FixedPoint.multiply(FixedPoint.of(-5), FixedPoint.of(10)));
+        assertEquals(1L, FixedPoint.multiply(FixedPoint.of(new BigDecimal("0.0001")), FixedPoint.of(new BigDecimal("0.00005")))); // 5e-9 rounds up
+    }
+
+    @Test
+    void testMultiply_LargeOperandsWithoutIntermediateOverflow() {
+        // 90 billion * 1 would overflow a plain long product of the scaled values
+        assertEquals(FixedPoint.of(90_000_000_000L), FixedPoint.multiply(FixedPoint.of(90_000_000_000L), FixedPoint.ONE));
+    }
+
+    @Test
+    void testOverflowIsRejected() {
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(FixedPoint.of(1_000_000), FixedPoint.of(1_000_000)));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.of(new BigDecimal("100000000000")));
+    }
+}